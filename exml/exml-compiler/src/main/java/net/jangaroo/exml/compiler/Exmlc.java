@@ -13,6 +13,13 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStreamWriter;
 import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  *
@@ -72,9 +79,16 @@ public final class Exmlc implements net.jangaroo.exml.api.Exmlc {
 
   @Override
   public void generateAllConfigClasses() {
-    for (File sourceFile : getConfig().getSourceFiles()) {
-      generateConfigClass(sourceFile);
+    List<Callable<File>> tasks = new ArrayList<Callable<File>>();
+    for (final File sourceFile : getConfig().getSourceFiles()) {
+      tasks.add(new Callable<File>() {
+        @Override
+        public File call() {
+          return generateConfigClass(sourceFile);
+        }
+      });
     }
+    runAll(tasks);
   }
 
   @Override
@@ -89,10 +103,72 @@ public final class Exmlc implements net.jangaroo.exml.api.Exmlc {
 
   @Override
   public void generateAllComponentClasses() {
-    for (File sourceFile : getConfig().getSourceFiles()) {
+    List<Callable<File>> tasks = new ArrayList<Callable<File>>();
+    for (final File sourceFile : getConfig().getSourceFiles()) {
       if (sourceFile.getName().endsWith(EXML_SUFFIX)) {
-        generateComponentClass(sourceFile);
+        tasks.add(new Callable<File>() {
+          @Override
+          public File call() {
+            return generateComponentClass(sourceFile);
+          }
+        });
+      }
+    }
+    runAll(tasks);
+  }
+
+  /**
+   * Run the given tasks, concurrently if the configuration asks for more than one thread.
+   * If tasks fail, the exception of the first failing task in the given order is rethrown.
+   */
+  private void runAll(List<Callable<File>> tasks) {
+    int threads = Math.min(getConfig().getThreads(), tasks.size());
+    if (threads <= 1) {
+      for (Callable<File> task : tasks) {
+        call(task);
+      }
+      return;
+    }
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      List<Future<File>> results = new ArrayList<Future<File>>(tasks.size());
+      for (Callable<File> task : tasks) {
+        results.add(executor.submit(configClassRegistry.withDefaultLog(task)));
+      }
+      for (Future<File> result : results) {
+        await(result);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private static File call(Callable<File> task) {
+    try {
+      return task.call();
+    } catch (RuntimeException e) {
+      throw e;
+    } catch (Exception e) {
+      throw new ExmlcException(e.getMessage(), e);
+    }
+  }
+
+  private static File await(Future<File> future) {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new ExmlcException("EXML compilation interrupted", e);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        // rethrow ExmlcExceptions as they are, so that they are reported just like in sequential mode:
+        throw (RuntimeException) cause;
+      }
+      if (cause instanceof Error) {
+        throw (Error) cause;
       }
+      throw new ExmlcException("Exception occurred in EXML compiler thread: " + cause.getMessage(), cause);
     }
   }
 
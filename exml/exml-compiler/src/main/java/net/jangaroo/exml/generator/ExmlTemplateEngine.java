@@ -0,0 +1,111 @@
+package net.jangaroo.exml.generator;
+
+import freemarker.core.Environment;
+import freemarker.template.Configuration;
+import freemarker.template.DefaultObjectWrapper;
+import freemarker.template.Template;
+import freemarker.template.TemplateException;
+import net.jangaroo.exml.api.Exmlc;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The FreeMarker template engine shared by all EXML generators.
+ * <p>There is only one FreeMarker configuration per JVM, and each template is parsed only once and then reused.
+ * FreeMarker configurations and templates are thread-safe as long as their settings are not changed after
+ * creation, so {@link #process} may be called concurrently.</p>
+ */
+final class ExmlTemplateEngine {
+
+  static final String EXML_COMPONENT_CLASS_TEMPLATE = "/net/jangaroo/exml/templates/exml_component_class.ftl";
+  static final String EXML_CONFIG_CLASS_TEMPLATE = "/net/jangaroo/exml/templates/exml_config_class.ftl";
+  static final String EXML_CONFIG_PACKAGE_XSD_TEMPLATE = "/net/jangaroo/exml/templates/exml_config_package_xsd.ftl";
+
+  private static final Configuration CONFIGURATION = createConfiguration();
+  private static final ConcurrentMap<String, Template> TEMPLATES = new ConcurrentHashMap<String, Template>();
+
+  private ExmlTemplateEngine() {
+  }
+
+  private static Configuration createConfiguration() {
+    Configuration cfg = new Configuration();
+    cfg.setClassForTemplateLoading(ExmlTemplateEngine.class, "/");
+    cfg.setObjectWrapper(new DefaultObjectWrapper());
+    return cfg;
+  }
+
+  private static Template getTemplate(String templateName) throws IOException {
+    Template template = TEMPLATES.get(templateName);
+    if (template == null) {
+      // templates are loaded from the class path and never change, so there is no need to check for updates:
+      template = CONFIGURATION.getTemplate(templateName);
+      Template existingTemplate = TEMPLATES.putIfAbsent(templateName, template);
+      if (existingTemplate != null) {
+        template = existingTemplate;
+      }
+    }
+    return template;
+  }
+
+  /**
+   * Render the given template with the given data model to the given output.
+   *
+   * @param templateName the absolute class path resource name of the template
+   * @param dataModel the data model, wrapped by FreeMarker's default object wrapper
+   * @param output the writer to write the result to
+   * @throws IOException if the template cannot be loaded or writing the output fails
+   * @throws TemplateException if processing the template fails
+   */
+  static void process(String templateName, Object dataModel, Writer output) throws IOException, TemplateException {
+    Environment env = getTemplate(templateName).createProcessingEnvironment(dataModel, output);
+    env.setOutputEncoding(Exmlc.OUTPUT_CHARSET);
+    env.process();
+  }
+
+  /**
+   * Render the given template with the given data model to the given file, creating its directory if needed.
+   * The result is written to a temporary file which then replaces the given file, so that a file generated
+   * by several threads at the same time is never read or written partially.
+   *
+   * @param templateName the absolute class path resource name of the template
+   * @param dataModel the data model, wrapped by FreeMarker's default object wrapper
+   * @param result the file to write the result to
+   * @return the given result file
+   * @throws IOException if the template cannot be loaded or writing the file fails
+   * @throws TemplateException if processing the template fails
+   */
+  static File process(String templateName, Object dataModel, File result) throws IOException, TemplateException {
+    File directory = result.getAbsoluteFile().getParentFile();
+    //noinspection ResultOfMethodCallIgnored
+    directory.mkdirs(); // NOSONAR
+    File tempFile = File.createTempFile(result.getName(), ".tmp", directory);
+    boolean renamed = false;
+    try {
+      Writer writer = new OutputStreamWriter(new FileOutputStream(tempFile), Exmlc.OUTPUT_CHARSET);
+      try {
+        process(templateName, dataModel, writer);
+      } finally {
+        writer.close();
+      }
+      renamed = tempFile.renameTo(result)
+              // on some platforms, renaming fails if the target file exists:
+              || (!result.exists() || result.delete()) && tempFile.renameTo(result);
+      if (!renamed) {
+        throw new IOException("cannot rename '" + tempFile.getAbsolutePath() + "' to '" + result.getAbsolutePath() + "'");
+      }
+    } finally {
+      if (!renamed) {
+        //noinspection ResultOfMethodCallIgnored
+        tempFile.delete(); // NOSONAR
+      }
+    }
+    return result;
+  }
+
+}
@@ -24,25 +24,33 @@ import java.io.IOException;
 import java.io.Writer;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
- *
+ * A registry of all config classes available to the EXML compiler.
+ * <p>Lookups are thread-safe, so that EXML files can be compiled concurrently. Since the underlying
+ * Jangaroo parser is not thread-safe, all ActionScript config classes are built while holding the parser's lock.
+ * Tasks that use this registry in another thread should be wrapped by {@link #withDefaultLog}.</p>
  */
 public final class ConfigClassRegistry {
-  private Map<String, ConfigClass> configClassesByName = new HashMap<String, ConfigClass>();
+  private final ConcurrentMap<String, ConfigClass> configClassesByName = new ConcurrentHashMap<String, ConfigClass>();
 
   private ExmlConfiguration config;
   private InputSource sourcePathInputSource;
 
-  private JangarooParser jangarooParser;
+  private ExmlcJangarooParser jangarooParser;
   private ExmlConfigPackageXsdGenerator exmlConfigPackageXsdGenerator;
-  private Map<String, ExmlSourceFile> exmlFilesByConfigClassName;
+  private volatile Map<String, ExmlSourceFile> exmlFilesByConfigClassName;
+  // a lock of its own, as scanning for EXML files never calls back into this registry:
+  private final Object exmlFilesLock = new Object();
   private Set<ConfigClass> sourceConfigClasses;
 
   public ConfigClassRegistry(final ExmlConfiguration config) throws IOException {
@@ -52,23 +60,7 @@ public final class ConfigClassRegistry {
     InputSource classPathInputSource = PathInputSource.fromFiles(config.getClassPath(),
       new String[]{"", JangarooParser.JOO_API_IN_JAR_DIRECTORY_PREFIX}, false);
 
-    ParserOptions parserOptions = new CCRParserOptions();
-    jangarooParser = new JangarooParser(parserOptions, new StdOutCompileLog()) {
-      @Override
-      protected InputSource findSource(String qname) {
-        InputSource inputSource = super.findSource(qname);
-        if (inputSource instanceof FileInputSource && !((FileInputSource)inputSource).getSourceDir().equals(config.getOutputDirectory())) {
-          // A regular source file (not a generated file) has been found. Use it.
-          return inputSource;
-        }
-        // Just in case the requested class is a class
-        // that is generated from an EXML file, regenerate the file before
-        // it is too late. This will only affect generated files, so it is pretty safe.
-        tryGenerateClass(qname);
-        // Just in case the source was not found on the first attempt, fetch it again.
-        return super.findSource(qname);
-      }
-    };
+    jangarooParser = new ExmlcJangarooParser(new CCRParserOptions());
     List<File> fullSourcePath = new ArrayList<File>(config.getSourcePath());
     fullSourcePath.add(config.getOutputDirectory());
     jangarooParser.setUp(PathInputSource.fromFiles(fullSourcePath, new String[0], true), classPathInputSource);
@@ -96,11 +88,22 @@ public final class ConfigClassRegistry {
     return config;
   }
 
+  /**
+   * Wrap the given task so that the Jangaroo parser used by this registry can report warnings when the task
+   * is executed in another thread.
+   *
+   * @param task the task to run in a worker thread
+   * @return a task that sets up the parser's log of the current thread before running the given task
+   */
+  public <T> Callable<T> withDefaultLog(Callable<T> task) {
+    return jangarooParser.withDefaultLog(task);
+  }
+
   /**
    * Returns the list of all config classes in the source path, defined in EXML or ActionScript.
    * @return list of registered Config classes
    */
-  public Collection<ConfigClass> getSourceConfigClasses() {
+  public synchronized Collection<ConfigClass> getSourceConfigClasses() {
     if (sourceConfigClasses == null) {
       //  Determine the set of all source config classes by scanning for all .exml and .as files in the sourcepath,
       //  parsing them and adding their models to this registry.
@@ -127,7 +130,7 @@ public final class ConfigClassRegistry {
           try {
             File sourceDir = getConfig().findSourceDir(file);
             if (!sourceDir.equals(getConfig().getOutputDirectory())) { // not an AS class generated from EXML?
-              String qName = CompilerUtils.qNameFromFile(sourceDir, file);
+              String qName = getConfig().findQName(file);
               ConfigClass actionScriptConfigClass = findActionScriptConfigClass(qName);
               if (actionScriptConfigClass != null) {
                 addSourceConfigClass(sourceFilesByName, file, actionScriptConfigClass);
@@ -164,27 +167,35 @@ public final class ConfigClassRegistry {
 
   // unfortunately, we cannot determine the name of the source EXML file, so we have to scane the whole source path:
   private Map<String, ExmlSourceFile> getExmlSourceFilesByConfigClassName() {
-    if (exmlFilesByConfigClassName == null) {
-      exmlFilesByConfigClassName = new LinkedHashMap<String, ExmlSourceFile>();
-      try {
-        buildConfigClassNameToExmlSourceFileMap(sourcePathInputSource);
-      } catch (IOException e) {
-        throw new ExmlcException("Unable to scan source directory for EXML files.", e);
+    Map<String, ExmlSourceFile> result = exmlFilesByConfigClassName;
+    if (result == null) {
+      synchronized (exmlFilesLock) {
+        result = exmlFilesByConfigClassName;
+        if (result == null) {
+          result = new LinkedHashMap<String, ExmlSourceFile>();
+          try {
+            buildConfigClassNameToExmlSourceFileMap(sourcePathInputSource, result);
+          } catch (IOException e) {
+            throw new ExmlcException("Unable to scan source directory for EXML files.", e);
+          }
+          // only publish the map when it is complete, as it is read without locking:
+          exmlFilesByConfigClassName = result = Collections.unmodifiableMap(result);
+        }
       }
     }
-    return exmlFilesByConfigClassName;
+    return result;
   }
 
-  private void buildConfigClassNameToExmlSourceFileMap(InputSource inputSource) throws IOException {
+  private void buildConfigClassNameToExmlSourceFileMap(InputSource inputSource, Map<String, ExmlSourceFile> result) throws IOException {
     for (InputSource source : inputSource.list()) {
       File exmlFile = ((FileInputSource) source).getFile();
       if (exmlFile.isFile()) {
         if (exmlFile.getName().endsWith(Exmlc.EXML_SUFFIX)) {
-          exmlFilesByConfigClassName.put(computeConfigClassName(exmlFile), new ExmlSourceFile(this, exmlFile));
+          result.put(computeConfigClassName(exmlFile), new ExmlSourceFile(this, exmlFile));
         }
       } else {
         // Recurse into the tree.
-        buildConfigClassNameToExmlSourceFileMap(source);
+        buildConfigClassNameToExmlSourceFileMap(source, result);
       }
     }
   }
@@ -225,21 +236,27 @@ public final class ConfigClassRegistry {
   private ConfigClass addConfigClass(ConfigClass configClass) {
     if (configClass != null) {
       configClass.setConfigClassRegistry(this);
-      configClassesByName.put(configClass.getFullName(), configClass);
+      // when looked up concurrently, the config class registered first wins:
+      ConfigClass existingConfigClass = configClassesByName.putIfAbsent(configClass.getFullName(), configClass);
+      if (existingConfigClass != null) {
+        return existingConfigClass;
+      }
     }
     return configClass;
   }
 
   private ConfigClass findActionScriptConfigClass(String name) {
-    CompilationUnit compilationsUnit = jangarooParser.getCompilationUnit(name);
-    if (compilationsUnit != null) {
-      try {
-        return buildConfigClass(compilationsUnit);
-      } catch (RuntimeException e) {
-        throw new ExmlcException("while building config class '" + name + "': " + e.getMessage(), e);
+    synchronized (jangarooParser) {
+      CompilationUnit compilationsUnit = jangarooParser.getCompilationUnit(name);
+      if (compilationsUnit != null) {
+        try {
+          return buildConfigClass(compilationsUnit);
+        } catch (RuntimeException e) {
+          throw new ExmlcException("while building config class '" + name + "': " + e.getMessage(), e);
+        }
       }
+      return null;
     }
-    return null;
   }
 
   private ConfigClass buildConfigClass(CompilationUnit compilationUnit) {
@@ -263,6 +280,33 @@ public final class ConfigClassRegistry {
   }
 
 
+  private class ExmlcJangarooParser extends JangarooParser {
+
+    ExmlcJangarooParser(ParserOptions parserOptions) {
+      super(parserOptions, new StdOutCompileLog());
+    }
+
+    @Override
+    protected InputSource findSource(String qname) {
+      InputSource inputSource = super.findSource(qname);
+      if (inputSource instanceof FileInputSource && !((FileInputSource)inputSource).getSourceDir().equals(config.getOutputDirectory())) {
+        // A regular source file (not a generated file) has been found. Use it.
+        return inputSource;
+      }
+      // Just in case the requested class is a class
+      // that is generated from an EXML file, regenerate the file before
+      // it is too late. This will only affect generated files, so it is pretty safe.
+      tryGenerateClass(qname);
+      // Just in case the source was not found on the first attempt, fetch it again.
+      return super.findSource(qname);
+    }
+
+    @Override
+    protected <T> Callable<T> withDefaultLog(Callable<T> task) {
+      return super.withDefaultLog(task);
+    }
+  }
+
   private static class CCRParserOptions implements ParserOptions {
     @Override
     public SemicolonInsertionMode getSemicolonInsertionMode() {
@@ -15,6 +15,8 @@ import java.io.IOException;
 
 /**
  * An EXML source file to compile into a config class and a target class.
+ * <p>Generated files are only remembered after they have been written completely. If two threads generate the same
+ * file at the same time, both write identical content, and the generators replace the file atomically.</p>
  */
 public class ExmlSourceFile {
 
@@ -22,16 +24,15 @@ public class ExmlSourceFile {
   private File sourceFile;
   private String configClassName;
   private String targetClassName;
-  private File generatedConfigClassFile;
-  private File generatedTargetClassFile;
+  private volatile File generatedConfigClassFile;
+  private volatile File generatedTargetClassFile;
 
   public ExmlSourceFile(ConfigClassRegistry configClassRegistry, File sourceFile) throws IOException {
     this.configClassRegistry = configClassRegistry;
     this.sourceFile = sourceFile;
     configClassName = CompilerUtils.qName(configClassRegistry.getConfig().getConfigClassPackage(),
             CompilerUtils.uncapitalize(CompilerUtils.removeExtension(sourceFile.getName())));
-    File sourceDir = configClassRegistry.getConfig().findSourceDir(sourceFile);
-    String exmlClassName = CompilerUtils.qNameFromFile(sourceDir, sourceFile);
+    String exmlClassName = configClassRegistry.getConfig().findQName(sourceFile);
     targetClassName = CompilerUtils.qName(CompilerUtils.packageName(exmlClassName),
             ExmlUtils.createComponentClassName(CompilerUtils.className(exmlClassName)));
   }
@@ -67,16 +68,17 @@ public class ExmlSourceFile {
   public File generateConfigClass() {
     if (generatedConfigClassFile == null) {
       ConfigClass configClass = getConfigClass();
-      generatedConfigClassFile = configClassRegistry.getConfig().computeConfigClassTarget(configClass.getName());
+      File configClassFile = configClassRegistry.getConfig().computeConfigClassTarget(configClass.getName());
       // only recreate file if result file is older than the source file
-      if (mustGenerate(generatedConfigClassFile)) {
+      if (mustGenerate(configClassFile)) {
         // generate the new config class ActionScript file
         try {
-          new ExmlConfigClassGenerator().generateClass(configClass, generatedConfigClassFile);
+          new ExmlConfigClassGenerator().generateClass(configClass, configClassFile);
         } catch (Exception e) {
-          throw new ExmlcException("unable to generate config class: " + e.getMessage(), generatedConfigClassFile, e);
+          throw new ExmlcException("unable to generate config class: " + e.getMessage(), configClassFile, e);
         }
       }
+      generatedConfigClassFile = configClassFile;
     }
     return generatedConfigClassFile;
   }
@@ -88,11 +90,12 @@ public class ExmlSourceFile {
       if (!classFile.exists()) {
         try {
           ExmlConfiguration config = configClassRegistry.getConfig();
-          generatedTargetClassFile = config.computeGeneratedComponentClassFile(sourceFile);
-          if (mustGenerate(generatedTargetClassFile)) {
+          File targetClassFile = config.computeGeneratedComponentClassFile(sourceFile);
+          if (mustGenerate(targetClassFile)) {
             ExmlModel exmlModel = new ExmlToModelParser(configClassRegistry).parse(sourceFile);
-            return new ExmlComponentClassGenerator(config).generateClass(exmlModel, generatedTargetClassFile);
+            new ExmlComponentClassGenerator(config).generateClass(exmlModel, targetClassFile);
           }
+          generatedTargetClassFile = targetClassFile;
         } catch (Exception e) {
           throw new ExmlcException("unable to generate component class: " + e.getMessage(), sourceFile, e);
         }
@@ -0,0 +1,124 @@
+package net.jangaroo.exml.parser;
+
+import org.xml.sax.SAXException;
+
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParser;
+import javax.xml.parsers.SAXParserFactory;
+import javax.xml.validation.Schema;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * A JVM-wide cache of compiled EXML schemas, so that validators in the same JVM (e.g. of several builds in the
+ * same Maven JVM) do not have to compile the same set of XSDs again.
+ * <p>A compiled schema is identified by a key computed from the namespaces, locations and content hashes of all
+ * XSDs it has been compiled from. Compiled schemas are immutable and thus thread-safe. Every cached schema keeps
+ * a pool of validating SAX parsers, which are not thread-safe, so they have to be borrowed and returned.</p>
+ */
+final class ExmlSchemaCache {
+
+  private static final int MAX_CACHED_SCHEMAS = 8;
+  private static final String HASH_ALGORITHM = "SHA-1";
+
+  // least recently used schemas are evicted first:
+  private static final Map<String, CachedSchema> CACHED_SCHEMAS =
+          new LinkedHashMap<String, CachedSchema>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedSchema> eldest) {
+              return size() > MAX_CACHED_SCHEMAS;
+            }
+          };
+
+  private ExmlSchemaCache() {
+  }
+
+  static synchronized CachedSchema get(String key) {
+    return CACHED_SCHEMAS.get(key);
+  }
+
+  /**
+   * Add a compiled schema to the cache, unless another thread has added a schema for the same key in the meantime.
+   *
+   * @param key the key computed from all XSDs the schema has been compiled from
+   * @param schema the compiled schema
+   * @return the cached schema for the given key
+   */
+  static synchronized CachedSchema put(String key, Schema schema) {
+    CachedSchema cachedSchema = CACHED_SCHEMAS.get(key);
+    if (cachedSchema == null) {
+      cachedSchema = new CachedSchema(schema);
+      CACHED_SCHEMAS.put(key, cachedSchema);
+    }
+    return cachedSchema;
+  }
+
+  static String hash(File file) throws IOException {
+    InputStream in = new FileInputStream(file);
+    try {
+      return hash(in);
+    } finally {
+      in.close();
+    }
+  }
+
+  private static String hash(InputStream in) throws IOException {
+    MessageDigest digest;
+    try {
+      digest = MessageDigest.getInstance(HASH_ALGORITHM);
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(HASH_ALGORITHM + " not supported by this JVM", e);
+    }
+    byte[] buffer = new byte[8192];
+    for (int read = in.read(buffer); read != -1; read = in.read(buffer)) {
+      digest.update(buffer, 0, read);
+    }
+    StringBuilder hex = new StringBuilder();
+    for (byte b : digest.digest()) {
+      hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+    }
+    return hex.toString();
+  }
+
+  /**
+   * A compiled schema together with a pool of SAX parsers validating against it.
+   */
+  static final class CachedSchema {
+    private final SAXParserFactory saxParserFactory;
+    private final Queue<SAXParser> saxParsers = new ConcurrentLinkedQueue<SAXParser>();
+
+    private CachedSchema(Schema schema) {
+      saxParserFactory = SAXParserFactory.newInstance();
+      saxParserFactory.setNamespaceAware(true);
+      saxParserFactory.setSchema(schema);
+    }
+
+    /**
+     * Take a validating SAX parser from the pool, or create a new one if the pool is empty.
+     * The parser must be given back through {@link #returnSAXParser} when done.
+     */
+    SAXParser borrowSAXParser() throws ParserConfigurationException, SAXException {
+      SAXParser saxParser = saxParsers.poll();
+      if (saxParser == null) {
+        // SAX parser factories are not guaranteed to be thread-safe:
+        synchronized (saxParserFactory) {
+          saxParser = saxParserFactory.newSAXParser();
+        }
+      }
+      return saxParser;
+    }
+
+    void returnSAXParser(SAXParser saxParser) {
+      saxParser.reset();
+      saxParsers.offer(saxParser);
+    }
+  }
+}
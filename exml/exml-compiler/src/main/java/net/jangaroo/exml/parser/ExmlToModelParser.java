@@ -14,15 +14,11 @@ import net.jangaroo.exml.model.ExmlModel;
 import net.jangaroo.exml.model.Declaration;
 import net.jangaroo.exml.utils.ExmlUtils;
 import net.jangaroo.exml.xml.PreserveLineNumberHandler;
+import net.jangaroo.exml.xml.XmlElement;
 import net.jangaroo.jooc.Jooc;
 import net.jangaroo.utils.AS3Type;
 import net.jangaroo.utils.CompilerUtils;
-import org.w3c.dom.Attr;
 import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-import org.w3c.dom.NamedNodeMap;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
 import org.xml.sax.SAXException;
 
 import javax.xml.parsers.DocumentBuilderFactory;
@@ -41,9 +37,14 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
-import static net.jangaroo.exml.xml.PreserveLineNumberHandler.getLineNumber;
-
 public final class ExmlToModelParser {
+  /**
+   * System property to parse EXML files into a W3C DOM first, like earlier versions did, instead of streaming
+   * them directly into an element tree. Both ways must result in the same model, so that this is only useful
+   * to compare their output.
+   */
+  public static final String USE_DOM_PROPERTY = "net.jangaroo.exml.parser.useDom";
+
   private static final String EXT_CONFIG_PREFIX = "ext.config.";
   private static final String CONFIG_MODE_AT_SUFFIX = "$at";
   private static final String CONFIG_MODE_ATTRIBUTE_NAME = "mode";
@@ -52,9 +53,21 @@ public final class ExmlToModelParser {
   private static final String EXT_CONTAINER_DEFAULT_TYPE_PROPERTY = "defaultType";
 
   private final ConfigClassRegistry registry;
+  private final boolean useDom;
 
   public ExmlToModelParser(ConfigClassRegistry registry) {
+    this(registry, Boolean.getBoolean(USE_DOM_PROPERTY));
+  }
+
+  /**
+   * Create a parser for EXML files.
+   *
+   * @param registry the registry to look up config classes
+   * @param useDom whether to build a W3C DOM before building the model, see {@link #USE_DOM_PROPERTY}
+   */
+  public ExmlToModelParser(ConfigClassRegistry registry, boolean useDom) {
     this.registry = registry;
+    this.useDom = useDom;
   }
 
   /**
@@ -66,7 +79,7 @@ public final class ExmlToModelParser {
    */
   public ExmlModel parse(File file) throws IOException, SAXException {
     ExmlModel model = new ExmlModel();
-    String qName = CompilerUtils.qNameFromFile(registry.getConfig().findSourceDir(file), file);
+    String qName = registry.getConfig().findQName(file);
     String className = CompilerUtils.className(qName);
     model.setClassName(ExmlUtils.createComponentClassName(className));
     ConfigClass configClassByName = registry.getConfigClassByName(registry.getConfig().getConfigClassPackage() + "." + ConfigClass.createConfigClassName(className));
@@ -96,17 +109,15 @@ public final class ExmlToModelParser {
    * @throws SAXException if the XML was not well-formed
    */
   private void parse(InputStream inputStream, ExmlModel model) throws IOException, SAXException {
-    Document document = buildDom(inputStream);
-    Node root = document.getFirstChild();
+    XmlElement root = useDom ? XmlElement.fromDom(buildDom(inputStream).getDocumentElement())
+            : XmlElement.parse(inputStream);
     validateRootNode(root);
 
-    NamedNodeMap attributes = root.getAttributes();
-    for (int i = 0; i < attributes.getLength(); i++) {
-      Attr attribute = (Attr) attributes.item(i);
+    for (Map.Entry<String, String> attribute : root.getAttributes().entrySet()) {
       //baseClass attribute has been specified, so the super class of the component is actually that
-      if (Exmlc.EXML_BASE_CLASS_ATTRIBUTE.equals(attribute.getLocalName())) {
+      if (Exmlc.EXML_BASE_CLASS_ATTRIBUTE.equals(attribute.getKey())) {
         model.setSuperClassName(attribute.getValue());
-      } else if (Exmlc.EXML_PUBLIC_API_ATTRIBUTE.equals(attribute.getLocalName())) {
+      } else if (Exmlc.EXML_PUBLIC_API_ATTRIBUTE.equals(attribute.getKey())) {
         PublicApiMode publicApiMode = Exmlc.parsePublicApiMode(attribute.getValue());
         switch (publicApiMode) {
           case TRUE:   model.addAnnotation(Jooc.PUBLIC_API_INCLUSION_ANNOTATION_NAME);
@@ -116,61 +127,56 @@ public final class ExmlToModelParser {
       }
     }
 
-    NodeList childNodes = root.getChildNodes();
-    Element componentNode = null;
-    Map<String, List<Element>> defaultValues = new LinkedHashMap<String, List<Element>>();
-    for (int i = 0; i < childNodes.getLength(); i++) {
-      Node node = childNodes.item(i);
-      if (node.getNodeType() == Node.ELEMENT_NODE) {
-        if (ExmlUtils.isExmlNamespace(node.getNamespaceURI())) {
-          Element element = (Element)node;
-          if (Exmlc.EXML_IMPORT_NODE_NAME.equals(node.getLocalName())) {
-            String importedClassName = element.getAttribute(Exmlc.EXML_IMPORT_CLASS_ATTRIBUTE);
-            if (importedClassName == null || importedClassName.equals("")) {
-              int lineNumber = getLineNumber(componentNode);
-              throw new ExmlcException("<exml:import> element must contain a non-empty class attribute", lineNumber);
-            }
-            model.addImport(importedClassName);
-          } else if (Exmlc.EXML_ANNOTATION_NODE_NAME.equals(node.getLocalName())) {
-            AnnotationAt annotationAt = Exmlc.parseAnnotationAtValue(element.getAttribute(Exmlc.EXML_ANNOTATION_AT_ATTRIBUTE));
-            if (annotationAt != AnnotationAt.CONFIG) {
-              model.addAnnotation(element.getTextContent());
-            }
-          } else if (Exmlc.EXML_CONSTANT_NODE_NAME.equals(node.getLocalName())) {
-            String constantTypeName = element.getAttribute(Exmlc.EXML_DECLARATION_TYPE_ATTRIBUTE);
-            model.addImport(constantTypeName);
-          } else if (Exmlc.EXML_DESCRIPTION_NODE_NAME.equals(node.getLocalName())) {
-            model.setDescription(node.getTextContent());
-          } else if (Exmlc.EXML_VAR_NODE_NAME.equals(node.getLocalName())) {
-            Declaration var = new Declaration(element.getAttribute(Exmlc.EXML_DECLARATION_NAME_ATTRIBUTE),
-              element.getAttribute(Exmlc.EXML_DECLARATION_VALUE_ATTRIBUTE),
-              element.getAttribute(Exmlc.EXML_DECLARATION_TYPE_ATTRIBUTE));
-            if (!model.getVars().contains(var)) {
-              model.addVar(var);
-            }
-          } else if (Exmlc.EXML_CFG_NODE_NAME.equals(node.getLocalName())) {
-            String cfgName = element.getAttribute(Exmlc.EXML_CFG_NAME_ATTRIBUTE);
-            String cfgDefault = element.getAttribute(Exmlc.EXML_CFG_DEFAULT_ATTRIBUTE);
-            Element defaultValueElement = findChildElement(element,
-                    Exmlc.EXML_NAMESPACE_URI, Exmlc.EXML_CFG_DEFAULT_NODE_NAME);
-            if (cfgDefault.length() != 0 && defaultValueElement != null) {
-              throw new ExmlcException("<exml:cfg> default value must be specified as either an attribute or a sub-element, not both for config '" + cfgName + "'.", getLineNumber(element));
-            }
-            if (cfgDefault.length() > 0) {
-              model.getJsonObject().set(cfgName, cfgDefault);
-              String cfgType = element.getAttribute(Exmlc.EXML_CFG_TYPE_ATTRIBUTE);
-              model.addImport(cfgType);
-            } else if (defaultValueElement != null) {
-              defaultValues.put(cfgName, getChildElements(defaultValueElement));
-            }
+    XmlElement componentNode = null;
+    Map<String, List<XmlElement>> defaultValues = new LinkedHashMap<String, List<XmlElement>>();
+    for (XmlElement element : root.getChildElements()) {
+      if (ExmlUtils.isExmlNamespace(element.getNamespaceURI())) {
+        if (Exmlc.EXML_IMPORT_NODE_NAME.equals(element.getLocalName())) {
+          String importedClassName = element.getAttribute(Exmlc.EXML_IMPORT_CLASS_ATTRIBUTE);
+          if (importedClassName.equals("")) {
+            int lineNumber = element.getLineNumber();
+            throw new ExmlcException("<exml:import> element must contain a non-empty class attribute", lineNumber);
           }
-        } else {
-          if (componentNode != null) {
-            int lineNumber = getLineNumber(componentNode);
-            throw new ExmlcException("root node of EXML contained more than one component definition", lineNumber);
+          model.addImport(importedClassName);
+        } else if (Exmlc.EXML_ANNOTATION_NODE_NAME.equals(element.getLocalName())) {
+          AnnotationAt annotationAt = Exmlc.parseAnnotationAtValue(element.getAttribute(Exmlc.EXML_ANNOTATION_AT_ATTRIBUTE));
+          if (annotationAt != AnnotationAt.CONFIG) {
+            model.addAnnotation(element.getTextContent());
+          }
+        } else if (Exmlc.EXML_CONSTANT_NODE_NAME.equals(element.getLocalName())) {
+          String constantTypeName = element.getAttribute(Exmlc.EXML_DECLARATION_TYPE_ATTRIBUTE);
+          model.addImport(constantTypeName);
+        } else if (Exmlc.EXML_DESCRIPTION_NODE_NAME.equals(element.getLocalName())) {
+          model.setDescription(element.getTextContent());
+        } else if (Exmlc.EXML_VAR_NODE_NAME.equals(element.getLocalName())) {
+          Declaration var = new Declaration(element.getAttribute(Exmlc.EXML_DECLARATION_NAME_ATTRIBUTE),
+            element.getAttribute(Exmlc.EXML_DECLARATION_VALUE_ATTRIBUTE),
+            element.getAttribute(Exmlc.EXML_DECLARATION_TYPE_ATTRIBUTE));
+          if (!model.getVars().contains(var)) {
+            model.addVar(var);
+          }
+        } else if (Exmlc.EXML_CFG_NODE_NAME.equals(element.getLocalName())) {
+          String cfgName = element.getAttribute(Exmlc.EXML_CFG_NAME_ATTRIBUTE);
+          String cfgDefault = element.getAttribute(Exmlc.EXML_CFG_DEFAULT_ATTRIBUTE);
+          XmlElement defaultValueElement = element.findChildElement(
+                  Exmlc.EXML_NAMESPACE_URI, Exmlc.EXML_CFG_DEFAULT_NODE_NAME);
+          if (cfgDefault.length() != 0 && defaultValueElement != null) {
+            throw new ExmlcException("<exml:cfg> default value must be specified as either an attribute or a sub-element, not both for config '" + cfgName + "'.", element.getLineNumber());
           }
-          componentNode = (Element)node;
+          if (cfgDefault.length() > 0) {
+            model.getJsonObject().set(cfgName, cfgDefault);
+            String cfgType = element.getAttribute(Exmlc.EXML_CFG_TYPE_ATTRIBUTE);
+            model.addImport(cfgType);
+          } else if (defaultValueElement != null) {
+            defaultValues.put(cfgName, defaultValueElement.getChildElements());
+          }
+        }
+      } else {
+        if (componentNode != null) {
+          int lineNumber = componentNode.getLineNumber();
+          throw new ExmlcException("root node of EXML contained more than one component definition", lineNumber);
         }
+        componentNode = element;
       }
     }
     if (componentNode == null) {
@@ -179,7 +185,7 @@ public final class ExmlToModelParser {
 
     String superFullClassName = createFullConfigClassNameFromNode(componentNode);
     if (superFullClassName.equals(model.getConfigClass().getFullName())) {
-      int lineNumber = getLineNumber(componentNode);
+      int lineNumber = componentNode.getLineNumber();
       throw  new ExmlcException("Cyclic inheritance error: super class and this component are the same!. There is something wrong!", lineNumber);
     }
     ConfigClass superConfigClass = getConfigClassByName(superFullClassName, componentNode);
@@ -190,7 +196,7 @@ public final class ExmlToModelParser {
     //but we still need the import
     model.addImport(superComponentClassName);
 
-    for (Map.Entry<String,List<Element>> entry : defaultValues.entrySet()) {
+    for (Map.Entry<String,List<XmlElement>> entry : defaultValues.entrySet()) {
       String propertyName = entry.getKey();
       fillJsonObjectProperty(model, model.getJsonObject(), propertyName,
               isConfigTypeArray(superConfigClass, propertyName), entry.getValue());
@@ -198,23 +204,21 @@ public final class ExmlToModelParser {
     fillModelAttributes(model, model.getJsonObject(), componentNode, superConfigClass);
   }
 
-  private String createFullConfigClassNameFromNode(Node componentNode) {
+  private String createFullConfigClassNameFromNode(XmlElement componentNode) {
     String name = componentNode.getLocalName();
     String uri = componentNode.getNamespaceURI();
     String packageName = uri == null ? null : ExmlUtils.parsePackageFromNamespace(uri);
     if (packageName == null) {
-      int lineNumber = getLineNumber(componentNode);
+      int lineNumber = componentNode.getLineNumber();
       throw new ExmlcException("namespace '" + uri + "' of element '" + name + "' in EXML file does not denote a config package", lineNumber);
     }
     return packageName + "." + name;
   }
 
-  private void fillModelAttributes(ExmlModel model, JsonObject jsonObject, Element componentNode,
+  private void fillModelAttributes(ExmlModel model, JsonObject jsonObject, XmlElement componentNode,
                                    ConfigClass configClass) {
-    NamedNodeMap attributes = componentNode.getAttributes();
-    for (int i = 0; i < attributes.getLength(); i++) {
-      Attr attribute = (Attr) attributes.item(i);
-      String attributeName = attribute.getLocalName();
+    for (Map.Entry<String, String> attribute : componentNode.getAttributes().entrySet()) {
+      String attributeName = attribute.getKey();
       String attributeValue = attribute.getValue();
       ConfigAttribute configAttribute = getCfgByName(configClass, attributeName);
       jsonObject.set(attributeName, getAttributeValue(attributeValue, configAttribute == null ? null : configAttribute.getType()));
@@ -251,16 +255,16 @@ public final class ExmlToModelParser {
     CONFIG_MODE_TO_AT_VALUE.put("prepend", "{net.jangaroo.ext.Exml.PREPEND}");
   }
 
-  private void fillModelAttributesFromSubElements(ExmlModel model, JsonObject jsonObject, Element componentNode, ConfigClass configClass) {
-    List<Element> childNodes = getChildElements(componentNode);
-    for (Element element : childNodes) {
+  private void fillModelAttributesFromSubElements(ExmlModel model, JsonObject jsonObject, XmlElement componentNode, ConfigClass configClass) {
+    List<XmlElement> childNodes = componentNode.getChildElements();
+    for (XmlElement element : childNodes) {
       String elementName = element.getLocalName();
 
       boolean isConfigTypeArray = isConfigTypeArray(configClass, elementName);
       String configMode = isConfigTypeArray ? element.getAttribute(CONFIG_MODE_ATTRIBUTE_NAME) : "";
       // Special case: if an EXML element representing a config property has attributes, it is treated as
       // having an untyped object value. Exception: it is an Array-typed property and the sole attribute is "mode".
-      int attributeCount = element.getAttributes().getLength();
+      int attributeCount = element.getAttributes().size();
       if (attributeCount > 1 || attributeCount == 1 && configMode.length() == 0) {
         // it's an untyped complex object with attributes and sub-properties
         parseJavaScriptObjectProperty(jsonObject, element);
@@ -271,11 +275,11 @@ public final class ExmlToModelParser {
           isConfigTypeArray = true;
           if (!configClass.isExmlGenerated()) {
             throw new ExmlcException("Non-EXML class " + configClass.getComponentClassName() +
-                    " does not support config modes.", getLineNumber(element));
+                    " does not support config modes.", element.getLineNumber());
           }
         }
         // it seems to be an array or an object
-        fillJsonObjectProperty(model, jsonObject, elementName, isConfigTypeArray, getChildElements(element));
+        fillJsonObjectProperty(model, jsonObject, elementName, isConfigTypeArray, element.getChildElements());
         ifContainerDefaultsThenExtractXtype(jsonObject, configClass, elementName);
 
         // if any "at" value is specified, set the extra mode attribute (...$at):
@@ -320,7 +324,7 @@ public final class ExmlToModelParser {
     return configAttribute != null && "Array".equals(configAttribute.getType());
   }
 
-  private void fillJsonObjectProperty(ExmlModel model, JsonObject jsonObject, String propertyName, boolean configTypeArray, List<Element> childElements) {
+  private void fillJsonObjectProperty(ExmlModel model, JsonObject jsonObject, String propertyName, boolean configTypeArray, List<XmlElement> childElements) {
     List<Object> childObjects = parseChildObjects(model, childElements);
     if (childObjects.size() > 1 || configTypeArray) {
       // TODO: Check for type violation
@@ -335,47 +339,26 @@ public final class ExmlToModelParser {
     }
   }
 
-  private ConfigClass getConfigClassByName(String className, Node errorNode) {
+  private ConfigClass getConfigClassByName(String className, XmlElement errorNode) {
     ConfigClass configClass = registry.getConfigClassByName(className);
     if (configClass == null) {
-      int lineNumber = getLineNumber(errorNode);
+      int lineNumber = errorNode.getLineNumber();
       throw new ExmlcException("unknown type '" + className + "'", lineNumber);
     }
     return configClass;
   }
 
-  private void parseJavaScriptObjectProperty(JsonObject jsonObject, Element propertyElement) {
+  private void parseJavaScriptObjectProperty(JsonObject jsonObject, XmlElement propertyElement) {
     JsonObject propertyObject = new JsonObject();
 
     setUntypedAttributes(propertyElement, propertyObject);
-    for (Element child : getChildElements(propertyElement)) {
+    for (XmlElement child : propertyElement.getChildElements()) {
       parseJavaScriptObjectProperty(propertyObject, child);
     }
 
     jsonObject.set(propertyElement.getLocalName(), propertyObject);
   }
 
-  private static Element findChildElement(Element element, String namespace, String nodeName) {
-    for (Element child : getChildElements(element)) {
-      if (namespace.equals(child.getNamespaceURI()) && nodeName.equals(child.getLocalName())) {
-        return child;
-      }
-    }
-    return null;
-  }
-
-  private static List<Element> getChildElements(Element element) {
-    List<Element> result = new ArrayList<Element>();
-    NodeList propertyChildNotes = element.getChildNodes();
-    for (int j = 0; j < propertyChildNotes.getLength(); j++) {
-      Node childNode = propertyChildNotes.item(j);
-      if (childNode.getNodeType() == Node.ELEMENT_NODE) {
-        result.add((Element) childNode);
-      }
-    }
-    return result;
-  }
-
   private ConfigAttribute getCfgByName(ConfigClass configClass, String attributeName) {
     ConfigClass current = configClass;
     while (current != null) {
@@ -392,9 +375,9 @@ public final class ExmlToModelParser {
     return null;
   }
 
-  private List<Object> parseChildObjects(ExmlModel model, List<Element> elements) {
+  private List<Object> parseChildObjects(ExmlModel model, List<XmlElement> elements) {
     List<Object> childObjects = new ArrayList<Object>();
-    for (Element arrayItemNode : elements) {
+    for (XmlElement arrayItemNode : elements) {
       Object value;
       if (ExmlUtils.isExmlNamespace(arrayItemNode.getNamespaceURI()) && Exmlc.EXML_OBJECT_NODE_NAME.equals(arrayItemNode.getLocalName())) {
         value = parseExmlObjectNode(arrayItemNode);
@@ -431,12 +414,12 @@ public final class ExmlToModelParser {
     return childObjects;
   }
 
-  private Object parseExmlObjectNode(Node exmlObjectNode) {
+  private Object parseExmlObjectNode(XmlElement exmlObjectNode) {
     String textContent = exmlObjectNode.getTextContent();
-    if (textContent != null && textContent.length() > 0) {
+    if (textContent.length() > 0) {
       return "{" + textContent.trim() + "}";
     } else {
-      if (!exmlObjectNode.hasAttributes()) {
+      if (exmlObjectNode.getAttributes().isEmpty()) {
         return null;
       }
       JsonObject object = new JsonObject();
@@ -445,18 +428,16 @@ public final class ExmlToModelParser {
     }
   }
 
-  private void setUntypedAttributes(Node exmlObjectNode, JsonObject object) {
-    NamedNodeMap attributes = exmlObjectNode.getAttributes();
-    for (int i = 0; i < attributes.getLength(); i++) {
-      Attr attribute = (Attr) attributes.item(i);
-      String attributeName = attribute.getLocalName();
+  private void setUntypedAttributes(XmlElement exmlObjectNode, JsonObject object) {
+    for (Map.Entry<String, String> attribute : exmlObjectNode.getAttributes().entrySet()) {
+      String attributeName = attribute.getKey();
       String attributeValue = attribute.getValue();
       object.set(attributeName, getAttributeValue(attributeValue, null));
     }
   }
 
-  private void validateRootNode(Node root) {
-    int lineNumber = getLineNumber(root);
+  private void validateRootNode(XmlElement root) {
+    int lineNumber = root.getLineNumber();
     if (!ExmlUtils.isExmlNamespace(root.getNamespaceURI())) {
       throw new ExmlcException("root node of EXML file must belong to namespace '" + Exmlc.EXML_NAMESPACE_URI + "', but was '" + root.getNamespaceURI() + "'", lineNumber);
     }
@@ -17,7 +17,6 @@ import org.xml.sax.helpers.DefaultHandler;
 import javax.xml.XMLConstants;
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.parsers.SAXParser;
-import javax.xml.parsers.SAXParserFactory;
 import javax.xml.transform.Source;
 import javax.xml.transform.stream.StreamSource;
 import javax.xml.validation.Schema;
@@ -36,6 +35,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
 
@@ -57,17 +57,27 @@ public class ExmlValidator {
   }
 
   public void validateExmlFile(File exmlFile) throws IOException, SAXException {
-    SAXParser parser = setupSAXParser();
-    if (parser != null) {
-      validateOneExmlfile(parser, exmlFile);
+    ExmlSchemaCache.CachedSchema schema = getSchema();
+    if (schema != null) {
+      SAXParser parser = borrowSAXParser(schema);
+      try {
+        validateOneExmlfile(parser, exmlFile);
+      } finally {
+        schema.returnSAXParser(parser);
+      }
     }
   }
 
   public void validateAllExmlFiles() throws IOException, SAXException {
-    SAXParser parser = setupSAXParser();
-    if (parser != null) {
-      for (final File exmlFile : config.getSourceFiles()) {
-        validateOneExmlfile(parser, exmlFile);
+    ExmlSchemaCache.CachedSchema schema = getSchema();
+    if (schema != null) {
+      SAXParser parser = borrowSAXParser(schema);
+      try {
+        for (final File exmlFile : config.getSourceFiles()) {
+          validateOneExmlfile(parser, exmlFile);
+        }
+      } finally {
+        schema.returnSAXParser(parser);
       }
     }
   }
@@ -107,23 +117,38 @@ public class ExmlValidator {
     //System.out.println("validation issue in " + exmlFile + " in line " + e.getLineNumber() + ": " + e.getMessage());
   }
 
-  private SAXParser setupSAXParser() throws IOException {
-    try {
-      SchemaFactory schemaFactory = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI);
-      ExmlSchemaResolver exmlSchemaResolver = new ExmlSchemaResolver();
-      schemaFactory.setResourceResolver(exmlSchemaResolver);
-      List<Source> schemas = new ArrayList<Source>();
-      schemas.add(new StreamSource(getClass().getResourceAsStream(Exmlc.EXML_SCHEMA_LOCATION), "exml"));
-      schemas.add(new StreamSource(getClass().getResourceAsStream(Exmlc.EXML_UNTYPED_SCHEMA_LOCATION), "untyped"));
-      Collection<ExmlSchemaSource> exmlSchemaSources = exmlSchemaSourceByNamespace.values();
-      for (ExmlSchemaSource exmlSchemaSource : exmlSchemaSources) {
-        schemas.add(exmlSchemaSource.newStreamSource());
+  /**
+   * Get the compiled schema for the EXML schemas and all component suite schemas of this validator,
+   * compiling it only if no schema compiled from the same XSDs is cached.
+   *
+   * @return the cached schema, or null if the schemas contain errors, which have been logged
+   */
+  private ExmlSchemaCache.CachedSchema getSchema() throws IOException {
+    String key = computeSchemaKey();
+    ExmlSchemaCache.CachedSchema cachedSchema = ExmlSchemaCache.get(key);
+    if (cachedSchema == null) {
+      Schema schema = compileSchema();
+      if (schema == null) {
+        return null;
       }
-      Schema exmlSchema = schemaFactory.newSchema(schemas.toArray(new Source[schemas.size()]));
-      final SAXParserFactory saxFactory = SAXParserFactory.newInstance();
-      saxFactory.setNamespaceAware(true);
-      saxFactory.setSchema(exmlSchema);
-      SAXParser saxParser = saxFactory.newSAXParser();
+      cachedSchema = ExmlSchemaCache.put(key, schema);
+    }
+    return cachedSchema;
+  }
+
+  private String computeSchemaKey() throws IOException {
+    // sort by namespace, so that the key does not depend on the order of the class path:
+    StringBuilder key = new StringBuilder();
+    for (Map.Entry<String, ExmlSchemaSource> entry : new TreeMap<String, ExmlSchemaSource>(exmlSchemaSourceByNamespace).entrySet()) {
+      key.append(entry.getKey()).append('=').append(entry.getValue().getSystemId())
+              .append('#').append(entry.getValue().getContentHash()).append('\n');
+    }
+    return key.toString();
+  }
+
+  private SAXParser borrowSAXParser(ExmlSchemaCache.CachedSchema schema) throws SAXException {
+    try {
+      SAXParser saxParser = schema.borrowSAXParser();
       saxParser.getXMLReader().setEntityResolver(new EntityResolver() {
         @Override
         public InputSource resolveEntity(String publicId, String systemId) throws SAXException, IOException {
@@ -134,6 +159,22 @@ public class ExmlValidator {
       return saxParser;
     } catch (ParserConfigurationException e) {
       throw new IllegalStateException("A default dom builder should be provided.", e);
+    }
+  }
+
+  private Schema compileSchema() throws IOException {
+    try {
+      SchemaFactory schemaFactory = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI);
+      ExmlSchemaResolver exmlSchemaResolver = new ExmlSchemaResolver();
+      schemaFactory.setResourceResolver(exmlSchemaResolver);
+      List<Source> schemas = new ArrayList<Source>();
+      schemas.add(new StreamSource(getClass().getResourceAsStream(Exmlc.EXML_SCHEMA_LOCATION), "exml"));
+      schemas.add(new StreamSource(getClass().getResourceAsStream(Exmlc.EXML_UNTYPED_SCHEMA_LOCATION), "untyped"));
+      Collection<ExmlSchemaSource> exmlSchemaSources = exmlSchemaSourceByNamespace.values();
+      for (ExmlSchemaSource exmlSchemaSource : exmlSchemaSources) {
+        schemas.add(exmlSchemaSource.newStreamSource());
+      }
+      return schemaFactory.newSchema(schemas.toArray(new Source[schemas.size()]));
     } catch (SAXParseException e) {
       // SAX parser error while parsing EXML schemas: log only, will cause error or warning, depending on configuration:
       logSAXParseException(null, e, true);
@@ -247,6 +288,8 @@ public class ExmlValidator {
 
     public abstract InputStream newInputStream();
 
+    public abstract String getContentHash() throws IOException;
+
     @Override
     public String toString() {
       return "[ExmlSchemaZipEntrySource " + getSystemId() +"]";
@@ -275,6 +318,12 @@ public class ExmlValidator {
         throw new RuntimeException("cannot create input stream of "+ getSystemId());
       }
     }
+
+    @Override
+    public String getContentHash() {
+      // the JAR's central directory already contains a checksum of the entry, no need to read it:
+      return xsdEntry.getSize() + "/" + Long.toHexString(xsdEntry.getCrc());
+    }
   }
 
   private class ExmlSchemaFileSource extends ExmlSchemaSource {
@@ -293,6 +342,11 @@ public class ExmlValidator {
         throw new RuntimeException(e);
       }
     }
+
+    @Override
+    public String getContentHash() throws IOException {
+      return ExmlSchemaCache.hash(xsd);
+    }
   }
 
   private static String constructUrl(File jarFile, ZipEntry xsdEntry) {
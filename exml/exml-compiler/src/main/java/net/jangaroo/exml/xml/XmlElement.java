@@ -0,0 +1,246 @@
+package net.jangaroo.exml.xml;
+
+import org.w3c.dom.Attr;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+import org.xml.sax.SAXException;
+import org.xml.sax.SAXParseException;
+
+import javax.xml.XMLConstants;
+import javax.xml.stream.Location;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * A lightweight, read-only XML element that remembers the line number where it starts.
+ * <p>Unlike a W3C DOM, an element tree can be read by a single StAX pass over the XML source, so that
+ * no DOM document and no user data is needed to keep track of line numbers. Like a DOM built by
+ * {@link PreserveLineNumberHandler}, it does not contain comments or processing instructions, and
+ * attributes are ordered by their qualified name.</p>
+ */
+public final class XmlElement {
+
+  private static final XMLInputFactory XML_INPUT_FACTORY = createXmlInputFactory();
+
+  private final String namespaceURI;
+  private final String localName;
+  private final Map<String, String> attributes;
+  private final int lineNumber;
+  private final List<XmlElement> children = new ArrayList<XmlElement>();
+  private final StringBuilder textContent = new StringBuilder();
+
+  private XmlElement(String namespaceURI, String localName, Map<String, String> attributes, int lineNumber) {
+    this.namespaceURI = namespaceURI == null || namespaceURI.length() == 0 ? null : namespaceURI;
+    this.localName = localName;
+    this.attributes = attributes;
+    this.lineNumber = lineNumber;
+  }
+
+  private static XMLInputFactory createXmlInputFactory() {
+    XMLInputFactory xmlInputFactory = XMLInputFactory.newInstance();
+    xmlInputFactory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, Boolean.TRUE);
+    xmlInputFactory.setProperty(XMLInputFactory.IS_COALESCING, Boolean.TRUE);
+    return xmlInputFactory;
+  }
+
+  /**
+   * Read the root element of the given XML input in a single streaming pass.
+   * The input stream is not closed.
+   *
+   * @param inputStream the XML input
+   * @return the root element
+   * @throws SAXException if the XML was not well-formed
+   */
+  public static XmlElement parse(InputStream inputStream) throws SAXException {
+    XMLStreamReader reader;
+    try {
+      // XML input factories are not guaranteed to be thread-safe:
+      synchronized (XML_INPUT_FACTORY) {
+        reader = XML_INPUT_FACTORY.createXMLStreamReader(inputStream);
+      }
+    } catch (XMLStreamException e) {
+      throw toSAXException(e);
+    }
+    try {
+      return parse(reader);
+    } catch (XMLStreamException e) {
+      throw toSAXException(e);
+    } finally {
+      try {
+        reader.close();
+      } catch (XMLStreamException e) {
+        // ignore, the input stream is closed by the caller
+      }
+    }
+  }
+
+  private static XmlElement parse(XMLStreamReader reader) throws XMLStreamException {
+    List<XmlElement> elementStack = new ArrayList<XmlElement>();
+    XmlElement root = null;
+    while (reader.hasNext()) {
+      switch (reader.next()) {
+        case XMLStreamConstants.START_ELEMENT:
+          XmlElement element = new XmlElement(reader.getNamespaceURI(), reader.getLocalName(),
+                  readAttributes(reader), reader.getLocation().getLineNumber());
+          if (elementStack.isEmpty()) {
+            root = element;
+          } else {
+            elementStack.get(elementStack.size() - 1).children.add(element);
+          }
+          elementStack.add(element);
+          break;
+        case XMLStreamConstants.END_ELEMENT:
+          XmlElement closedElement = elementStack.remove(elementStack.size() - 1);
+          if (!elementStack.isEmpty()) {
+            // text content includes the text of all descendants, in document order:
+            elementStack.get(elementStack.size() - 1).textContent.append(closedElement.textContent);
+          }
+          break;
+        case XMLStreamConstants.CHARACTERS:
+        case XMLStreamConstants.CDATA:
+        case XMLStreamConstants.SPACE:
+          if (!elementStack.isEmpty()) {
+            elementStack.get(elementStack.size() - 1).textContent
+                    .append(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+          }
+          break;
+      }
+    }
+    return root;
+  }
+
+  private static Map<String, String> readAttributes(XMLStreamReader reader) {
+    int attributeCount = reader.getAttributeCount();
+    if (attributeCount == 0) {
+      return Collections.emptyMap();
+    }
+    Map<String, String> attributesByQName = new TreeMap<String, String>();
+    Map<String, String> localNamesByQName = new TreeMap<String, String>();
+    for (int i = 0; i < attributeCount; i++) {
+      String prefix = reader.getAttributePrefix(i);
+      String localName = reader.getAttributeLocalName(i);
+      String qName = prefix == null || prefix.length() == 0 ? localName : prefix + ":" + localName;
+      attributesByQName.put(qName, reader.getAttributeValue(i));
+      localNamesByQName.put(qName, localName);
+    }
+    return toAttributesByLocalName(attributesByQName, localNamesByQName);
+  }
+
+  private static Map<String, String> toAttributesByLocalName(Map<String, String> attributesByQName,
+                                                             Map<String, String> localNamesByQName) {
+    Map<String, String> result = new LinkedHashMap<String, String>();
+    for (Map.Entry<String, String> entry : attributesByQName.entrySet()) {
+      result.put(localNamesByQName.get(entry.getKey()), entry.getValue());
+    }
+    return result;
+  }
+
+  private static SAXException toSAXException(XMLStreamException e) {
+    Location location = e.getLocation();
+    return location == null ? new SAXException(e.getMessage(), e)
+            : new SAXParseException(e.getMessage(), location.getPublicId(), location.getSystemId(),
+            location.getLineNumber(), location.getColumnNumber(), e);
+  }
+
+  /**
+   * Convert a DOM element with line numbers stored by {@link PreserveLineNumberHandler}.
+   * Like {@link #parse}, this skips namespace declarations.
+   *
+   * @param element the DOM element
+   * @return the corresponding element tree
+   */
+  public static XmlElement fromDom(Element element) {
+    NamedNodeMap domAttributes = element.getAttributes();
+    Map<String, String> attributesByQName = new TreeMap<String, String>();
+    Map<String, String> localNamesByQName = new TreeMap<String, String>();
+    for (int i = 0; i < domAttributes.getLength(); i++) {
+      Attr attribute = (Attr) domAttributes.item(i);
+      if (XMLConstants.XMLNS_ATTRIBUTE_NS_URI.equals(attribute.getNamespaceURI())) {
+        // namespace declarations, which StAX does not report as attributes
+        continue;
+      }
+      attributesByQName.put(attribute.getName(), attribute.getValue());
+      localNamesByQName.put(attribute.getName(), attribute.getLocalName());
+    }
+    XmlElement result = new XmlElement(element.getNamespaceURI(), element.getLocalName(),
+            toAttributesByLocalName(attributesByQName, localNamesByQName),
+            PreserveLineNumberHandler.getLineNumber(element));
+    NodeList childNodes = element.getChildNodes();
+    for (int i = 0; i < childNodes.getLength(); i++) {
+      Node childNode = childNodes.item(i);
+      if (childNode.getNodeType() == Node.ELEMENT_NODE) {
+        result.children.add(fromDom((Element) childNode));
+      }
+    }
+    result.textContent.append(element.getTextContent());
+    return result;
+  }
+
+  public String getNamespaceURI() {
+    return namespaceURI;
+  }
+
+  public String getLocalName() {
+    return localName;
+  }
+
+  /**
+   * Returns all attributes of this element by local name, ordered by qualified name.
+   * Namespace declarations are not included.
+   *
+   * @return the attributes of this element
+   */
+  public Map<String, String> getAttributes() {
+    return Collections.unmodifiableMap(attributes);
+  }
+
+  /**
+   * Returns the value of the attribute with the given local name, or the empty string
+   * if there is no such attribute, like {@link Element#getAttribute(String)}.
+   *
+   * @param localName the local name of the attribute
+   * @return the attribute value, never null
+   */
+  public String getAttribute(String localName) {
+    String value = attributes.get(localName);
+    return value == null ? "" : value;
+  }
+
+  public int getLineNumber() {
+    return lineNumber;
+  }
+
+  public List<XmlElement> getChildElements() {
+    return Collections.unmodifiableList(children);
+  }
+
+  public XmlElement findChildElement(String namespace, String localName) {
+    for (XmlElement child : children) {
+      if (namespace.equals(child.getNamespaceURI()) && localName.equals(child.getLocalName())) {
+        return child;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Returns the text of this element and all its descendants, like {@link Node#getTextContent()}.
+   *
+   * @return the text content, never null
+   */
+  public String getTextContent() {
+    return textContent.toString();
+  }
+
+}
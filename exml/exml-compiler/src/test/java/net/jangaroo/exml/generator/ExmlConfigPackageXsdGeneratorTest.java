@@ -1,5 +1,6 @@
 package net.jangaroo.exml.generator;
 
+import net.jangaroo.exml.model.ConfigClass;
 import net.jangaroo.exml.test.AbstractExmlTest;
 import org.apache.commons.io.FileUtils;
 import org.junit.Assert;
@@ -7,6 +8,13 @@ import org.junit.Test;
 
 import java.io.File;
 import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  *
@@ -25,4 +33,33 @@ public class ExmlConfigPackageXsdGeneratorTest extends AbstractExmlTest{
     String actual = output.toString().replaceAll("\r\n", "\n");
     Assert.assertEquals(expected, actual);
   }
+
+  @Test
+  public void testGenerateXsdFileConcurrently() throws Exception {
+    setUp("ext.config", "/ext-as/", "/");
+
+    final String expected = FileUtils.readFileToString(new File(getClass().getResource("/ext-as/ext.config.xsd").toURI()))
+            .replaceAll("\r\n", "\n");
+
+    final Collection<ConfigClass> configClasses = getConfigClassRegistry().getSourceConfigClasses();
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<String>> results = new ArrayList<Future<String>>();
+      for (int i = 0; i < 8; i++) {
+        results.add(executor.submit(new Callable<String>() {
+          @Override
+          public String call() throws Exception {
+            StringWriter output = new StringWriter();
+            new ExmlConfigPackageXsdGenerator().generateXsdFile(configClasses, "ext.config", output);
+            return output.toString();
+          }
+        }));
+      }
+      for (Future<String> result : results) {
+        Assert.assertEquals(expected, result.get().replaceAll("\r\n", "\n"));
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
 }
@@ -6,6 +6,12 @@ import org.junit.Assert;
 import org.junit.Test;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.junit.Assert.assertNull;
 
@@ -42,6 +48,32 @@ public class ConfigClassRegistryTest extends AbstractExmlTest {
     Assert.assertEquals(configClass, getConfigClassRegistry().getConfigClassByName("testNamespace.config.testLabel"));
   }
 
+  @Test
+  public void testConcurrentLookups() throws Exception {
+    setUp("testNamespace.config");
+
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<ConfigClass>> results = new ArrayList<Future<ConfigClass>>();
+      for (int i = 0; i < 8; i++) {
+        final String name = i % 2 == 0 ? "testNamespace.config.testLabel" : "ext.config.label";
+        results.add(executor.submit(getConfigClassRegistry().withDefaultLog(new Callable<ConfigClass>() {
+          @Override
+          public ConfigClass call() {
+            return getConfigClassRegistry().getConfigClassByName(name);
+          }
+        })));
+      }
+      // all threads must get the same config class object:
+      for (int i = 0; i < results.size(); i++) {
+        Assert.assertSame(results.get(i % 2).get(), results.get(i).get());
+      }
+      Assert.assertSame(results.get(1).get(), results.get(0).get().getSuperClass());
+    } finally {
+      executor.shutdown();
+    }
+  }
+
   @Test
   public void testGenerateFromExmlWithPregeneratedActionScript() throws Exception {
     setUp("testNamespace.config");
@@ -6,14 +6,21 @@ import net.jangaroo.exml.model.ConfigAttribute;
 import net.jangaroo.exml.model.Declaration;
 import net.jangaroo.exml.model.ExmlModel;
 import net.jangaroo.exml.parser.ExmlToModelParser;
+import net.jangaroo.exml.xml.XmlElement;
 import org.junit.Assert;
 import org.junit.Test;
+import org.w3c.dom.Element;
 
+import javax.xml.parsers.DocumentBuilderFactory;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
 import java.net.URISyntaxException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 
 public class ExmlToModelParserTest extends AbstractExmlTest {
   @Test
@@ -419,6 +426,54 @@ public class ExmlToModelParserTest extends AbstractExmlTest {
     Assert.assertNull(eConstant.getDescription());
   }
 
+  @Test
+  public void testStreamingAndDomParsingAgree() throws Exception {
+    setUp("exmlparser.config");
+    for (String path : Arrays.asList("/exmlparser/AllElements.exml", "/exmlparser/TestArrayAttribute.exml",
+            "/exmlparser/TestBaseClass.exml", "/exmlparser/TestConstants.exml", "/exmlparser/TestNumber.exml",
+            "/exmlparser/TestTrueFalse.exml")) {
+      assertStreamingAndDomParsingAgree(path);
+    }
+    setUp("testNamespace.config");
+    for (String path : Arrays.asList("/testPackage/TestComponent2.exml", "/testPackage/TestComponentPublicApiTrue.exml",
+            "/testPackage/TestComponentWithCfgDefaults.exml", "/testPackage/TestComponentWithConfigModes.exml")) {
+      assertStreamingAndDomParsingAgree(path);
+    }
+  }
+
+  private void assertStreamingAndDomParsingAgree(String path) throws Exception {
+    ExmlModel streamedModel = new ExmlToModelParser(getConfigClassRegistry(), false).parse(getFile(path));
+    ExmlModel domModel = new ExmlToModelParser(getConfigClassRegistry(), true).parse(getFile(path));
+    Assert.assertEquals(path, domModel.getJsonObject().toString(2), streamedModel.getJsonObject().toString(2));
+    Assert.assertEquals(path, domModel.getImports(), streamedModel.getImports());
+    Assert.assertEquals(path, domModel.getSuperClassName(), streamedModel.getSuperClassName());
+    Assert.assertEquals(path, domModel.getAnnotations(), streamedModel.getAnnotations());
+
+    // a DOM built by a document builder contains the namespace declarations as attributes:
+    DocumentBuilderFactory documentBuilderFactory = DocumentBuilderFactory.newInstance();
+    documentBuilderFactory.setNamespaceAware(true);
+    Element domRoot = documentBuilderFactory.newDocumentBuilder().parse(getFile(path)).getDocumentElement();
+    Assert.assertTrue(path, domRoot.hasAttribute("xmlns:exml"));
+    InputStream inputStream = new FileInputStream(getFile(path));
+    try {
+      assertSameAttributes(path, XmlElement.parse(inputStream), XmlElement.fromDom(domRoot));
+    } finally {
+      inputStream.close();
+    }
+  }
+
+  private static void assertSameAttributes(String path, XmlElement expected, XmlElement actual) {
+    String message = path + ":" + expected.getLineNumber() + " " + expected.getLocalName();
+    Assert.assertEquals(message, expected.getNamespaceURI(), actual.getNamespaceURI());
+    Assert.assertEquals(message, expected.getLocalName(), actual.getLocalName());
+    Assert.assertEquals(message, new ArrayList<Map.Entry<String, String>>(expected.getAttributes().entrySet()),
+            new ArrayList<Map.Entry<String, String>>(actual.getAttributes().entrySet()));
+    Assert.assertEquals(message, expected.getChildElements().size(), actual.getChildElements().size());
+    for (int i = 0; i < expected.getChildElements().size(); i++) {
+      assertSameAttributes(path, expected.getChildElements().get(i), actual.getChildElements().get(i));
+    }
+  }
+
   private File getFile(String path) throws URISyntaxException {
     return new File(ExmlToModelParserTest.class.getResource("/test-module" + path).toURI());
   }
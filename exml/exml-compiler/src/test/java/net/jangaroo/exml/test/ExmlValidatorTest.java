@@ -75,6 +75,11 @@ public class ExmlValidatorTest extends AbstractExmlTest {
     assertValidationErrorEquals(testExmlFilename, 5,
             "cvc-complex-type.3.2.2: Attribute 'anotherWrongAttribute' is not allowed to appear in element 'baseAction'.",
             validationErrorIterator.next());
+
+    // a second validator reuses the cached schema and its pooled SAX parser, with the same results:
+    validationErrors.clear();
+    new ExmlValidator(exmlConfiguration).validateExmlFile(testExmlFile);
+    Assert.assertEquals(4, validationErrors.size());
   }
 
   private void assertValidationErrorEquals(String expectedFilename, int expectedLine, String expectedMessage, Map.Entry<FilePosition, String> validationError) {
@@ -68,6 +68,14 @@ public abstract class AbstractExmlMojo extends JangarooMojo {
    */
   private String validationMode;
 
+  /**
+   * The number of threads the EXML compiler uses to generate config classes and component classes.
+   * Values greater than 1 enable concurrent generation, which produces exactly the same output.
+   *
+   * @parameter expression="${exml.threads}" default-value="1"
+   */
+  private int threads;
+
   /**
    * A list of inclusion filters for the compiler.
    *
@@ -142,6 +150,7 @@ public abstract class AbstractExmlMojo extends JangarooMojo {
                 "Legal values are 'error', 'warn', and 'off'.");
       }
     }
+    exmlConfiguration.setThreads(threads);
     CompileLog compileLog = new MavenCompileLog();
     exmlConfiguration.setLog(compileLog);
 
@@ -172,7 +181,7 @@ public abstract class AbstractExmlMojo extends JangarooMojo {
     }
 
     @Override
-    public void error(String msg) {
+    public synchronized void error(String msg) {
       hasErrors = true;
       getLog().error(msg);
     }
@@ -183,12 +192,12 @@ public abstract class AbstractExmlMojo extends JangarooMojo {
     }
 
     @Override
-    public void warning(String msg) {
+    public synchronized void warning(String msg) {
       getLog().warn(msg);
     }
 
     @Override
-    public boolean hasErrors() {
+    public synchronized boolean hasErrors() {
       return hasErrors;
     }
   }
@@ -0,0 +1,201 @@
+package net.jangaroo.properties;
+
+import net.jangaroo.utils.FileLocations;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A persistent index of the properties files compiled into one output directory, used to regenerate only
+ * the properties classes whose properties file changed. For every properties file, the index stores a hash
+ * of its content and the properties class generated from it.
+ * <p>Each properties class is generated from exactly one properties file (one locale of a resource bundle),
+ * so a properties class is up to date if the content of its properties file did not change and the class
+ * still exists. The whole index is invalidated when the source path, the output directory or the template
+ * change.</p>
+ */
+final class PropertiesBuildIndex {
+
+  private static final String FORMAT_VERSION = "1";
+  private static final String HASH_ALGORITHM = "SHA-1";
+  private static final String FIELD_SEPARATOR = "\t";
+
+  private static final class Entry {
+    private final String contentHash;
+    private final File outputFile;
+
+    private Entry(String contentHash, File outputFile) {
+      this.contentHash = contentHash;
+      this.outputFile = outputFile;
+    }
+  }
+
+  private final File indexFile;
+  private final String optionsHash;
+  private final Map<File, Entry> entries = new LinkedHashMap<File, Entry>();
+
+  private PropertiesBuildIndex(File indexFile, String optionsHash) {
+    this.indexFile = indexFile;
+    this.optionsHash = optionsHash;
+  }
+
+  /**
+   * Load the build index from the given file. If the file does not exist, cannot be read, or has been
+   * created with different options, an empty index is returned, so that all properties files are compiled.
+   *
+   * @param indexFile the index file
+   * @param locations the locations of the properties files to compile
+   * @param templateHash a hash of the template used to generate properties classes
+   * @return the build index
+   */
+  static PropertiesBuildIndex load(File indexFile, FileLocations locations, String templateHash) {
+    PropertiesBuildIndex buildIndex = new PropertiesBuildIndex(indexFile,
+            hash(locations.getOutputDirectory() + FIELD_SEPARATOR + locations.getSourcePath() + FIELD_SEPARATOR + templateHash));
+    if (indexFile.exists()) {
+      try {
+        if (!buildIndex.read()) {
+          buildIndex.entries.clear();
+        }
+      } catch (IOException e) {
+        // regenerate everything:
+        buildIndex.entries.clear();
+      }
+    }
+    return buildIndex;
+  }
+
+  /**
+   * Returns the properties class generated from the given properties file, if it is still up to date.
+   *
+   * @param propertiesFile the properties file
+   * @param contentHash the hash of the current content of the properties file
+   * @return the generated properties class, or null if it has to be generated (again)
+   */
+  synchronized File getUpToDateOutputFile(File propertiesFile, String contentHash) {
+    Entry entry = entries.get(propertiesFile.getAbsoluteFile());
+    return entry != null && entry.contentHash.equals(contentHash) && entry.outputFile.exists()
+            ? entry.outputFile : null;
+  }
+
+  synchronized void put(File propertiesFile, String contentHash, File outputFile) {
+    entries.put(propertiesFile.getAbsoluteFile(), new Entry(contentHash, outputFile));
+  }
+
+  /**
+   * Remove all properties files from the index that are not among the given ones.
+   *
+   * @param propertiesFiles all properties files of the module
+   */
+  synchronized void retainAll(Collection<File> propertiesFiles) {
+    Set<File> absoluteFiles = new HashSet<File>();
+    for (File propertiesFile : propertiesFiles) {
+      absoluteFiles.add(propertiesFile.getAbsoluteFile());
+    }
+    entries.keySet().retainAll(absoluteFiles);
+  }
+
+  /**
+   * Write the build index to its index file.
+   *
+   * @throws IOException if the index file cannot be written
+   */
+  synchronized void save() throws IOException {
+    File parentDir = indexFile.getAbsoluteFile().getParentFile();
+    if (!parentDir.exists() && !parentDir.mkdirs()) {
+      throw new IOException("cannot create directory " + parentDir);
+    }
+    Writer writer = new OutputStreamWriter(new FileOutputStream(indexFile), "UTF-8");
+    try {
+      writer.write(FORMAT_VERSION + FIELD_SEPARATOR + optionsHash + "\n");
+      for (Map.Entry<File, Entry> fileAndEntry : entries.entrySet()) {
+        Entry entry = fileAndEntry.getValue();
+        writer.write(fileAndEntry.getKey().getPath() + FIELD_SEPARATOR
+                + entry.contentHash + FIELD_SEPARATOR
+                + entry.outputFile.getPath() + "\n");
+      }
+    } finally {
+      writer.close();
+    }
+  }
+
+  /**
+   * @return false if the index file has been written in another format or with other options
+   */
+  private boolean read() throws IOException {
+    BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(indexFile), "UTF-8"));
+    try {
+      String header = reader.readLine();
+      if (!(FORMAT_VERSION + FIELD_SEPARATOR + optionsHash).equals(header)) {
+        return false;
+      }
+      String line;
+      while ((line = reader.readLine()) != null) {
+        String[] fields = line.split(FIELD_SEPARATOR, -1);
+        if (fields.length != 3) {
+          throw new IOException("corrupt build index entry: " + line);
+        }
+        entries.put(new File(fields[0]), new Entry(fields[1], new File(fields[2])));
+      }
+      return true;
+    } finally {
+      reader.close();
+    }
+  }
+
+  static String hash(File file) throws IOException {
+    InputStream in = new FileInputStream(file);
+    try {
+      return hash(in);
+    } finally {
+      in.close();
+    }
+  }
+
+  static String hash(InputStream in) throws IOException {
+    MessageDigest digest = createDigest();
+    byte[] buffer = new byte[8192];
+    int count;
+    while ((count = in.read(buffer)) != -1) {
+      digest.update(buffer, 0, count);
+    }
+    return toHex(digest.digest());
+  }
+
+  private static String hash(String content) {
+    try {
+      return toHex(createDigest().digest(content.getBytes("UTF-8")));
+    } catch (IOException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static MessageDigest createDigest() {
+    try {
+      return MessageDigest.getInstance(HASH_ALGORITHM);
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(HASH_ALGORITHM + " not supported by this JVM", e);
+    }
+  }
+
+  private static String toHex(byte[] bytes) {
+    StringBuilder hex = new StringBuilder(bytes.length * 2);
+    for (byte b : bytes) {
+      hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+    }
+    return hex.toString();
+  }
+}
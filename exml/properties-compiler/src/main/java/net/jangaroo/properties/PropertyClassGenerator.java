@@ -9,6 +9,7 @@ import freemarker.template.DefaultObjectWrapper;
 import freemarker.template.Template;
 import freemarker.template.TemplateException;
 import net.jangaroo.properties.api.Propc;
+import net.jangaroo.properties.api.PropcConfiguration;
 import net.jangaroo.properties.api.PropcException;
 import net.jangaroo.properties.api.PropcHelper;
 import net.jangaroo.properties.model.PropertiesClass;
@@ -22,19 +23,28 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.OutputStreamWriter;
 import java.io.Reader;
 import java.io.Writer;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 public class PropertyClassGenerator implements Propc {
   private static Configuration cfg = new Configuration();
 
   private static final String OUTPUT_CHARSET = "UTF-8";
+  private static final String PROPERTIES_CLASS_TEMPLATE = "properties_class.ftl";
 
   static {
     /* Create and adjust freemarker configuration */
@@ -65,7 +75,7 @@ public class PropertyClassGenerator implements Propc {
   }
 
   public void generatePropertiesClass(PropertiesClass propertiesClass, Writer out) throws IOException, TemplateException {
-    Template template = cfg.getTemplate("properties_class.ftl");
+    Template template = cfg.getTemplate(PROPERTIES_CLASS_TEMPLATE);
     Environment env = template.createProcessingEnvironment(propertiesClass, out);
     env.setOutputEncoding(OUTPUT_CHARSET);
     env.process();
@@ -95,15 +105,132 @@ public class PropertyClassGenerator implements Propc {
     }
   }
 
+  /**
+   * Generate the properties classes of all source files.
+   * If the configuration is a {@link PropcConfiguration} that specifies a build index file, only properties
+   * classes whose properties file changed since the last run are generated. If it specifies more than one
+   * thread, properties classes are generated concurrently.
+   *
+   * @return a map from each source file to the set of the properties class generated from it
+   */
   public Map<File,Set<File>> generate() {
+    PropcConfiguration config = locations instanceof PropcConfiguration ? (PropcConfiguration) locations : null;
+    File buildIndexFile = config == null ? null : config.getBuildIndexFile();
+    final PropertiesBuildIndex buildIndex = buildIndexFile == null ? null
+            : PropertiesBuildIndex.load(buildIndexFile, locations, computeTemplateHash());
+
+    List<File> sourceFiles = locations.getSourceFiles();
+    List<Callable<File>> tasks = new ArrayList<Callable<File>>(sourceFiles.size());
+    for (final File srcFile : sourceFiles) {
+      tasks.add(new Callable<File>() {
+        @Override
+        public File call() {
+          return buildIndex == null ? generate(srcFile) : generateIfChanged(srcFile, buildIndex);
+        }
+      });
+    }
+    List<File> outputFiles = runAll(tasks, config == null ? 1 : config.getThreads());
+
     Map<File,Set<File>> outputFileMap = new LinkedHashMap<File, Set<File>>();
-    for (File srcFile : locations.getSourceFiles()) {
-      File outputFile = generate(srcFile);
-      outputFileMap.put(srcFile, Collections.singleton(outputFile));
+    for (int i = 0; i < sourceFiles.size(); i++) {
+      outputFileMap.put(sourceFiles.get(i), Collections.singleton(outputFiles.get(i)));
+    }
+    if (buildIndex != null) {
+      buildIndex.retainAll(sourceFiles);
+      try {
+        buildIndex.save();
+      } catch (IOException e) {
+        throw new PropcException("Error while writing build index", buildIndexFile, e);
+      }
     }
     return outputFileMap;
   }
 
+  private File generateIfChanged(File propertiesFile, PropertiesBuildIndex buildIndex) {
+    String contentHash;
+    try {
+      contentHash = PropertiesBuildIndex.hash(propertiesFile);
+    } catch (IOException e) {
+      throw new PropcException("Error while reading properties file", propertiesFile, e);
+    }
+    File outputFile = buildIndex.getUpToDateOutputFile(propertiesFile, contentHash);
+    if (outputFile == null) {
+      outputFile = generate(propertiesFile);
+      buildIndex.put(propertiesFile, contentHash, outputFile);
+    }
+    return outputFile;
+  }
+
+  private static String computeTemplateHash() {
+    InputStream template = PropertyClassGenerator.class.getResourceAsStream("/net/jangaroo/properties/templates/" + PROPERTIES_CLASS_TEMPLATE);
+    try {
+      try {
+        return PropertiesBuildIndex.hash(template);
+      } finally {
+        template.close();
+      }
+    } catch (IOException e) {
+      throw new PropcException(e);
+    }
+  }
+
+  /**
+   * Run the given tasks, concurrently if more than one thread is requested.
+   * If tasks fail, the exception of the first failing task in the given order is rethrown.
+   */
+  private static List<File> runAll(List<Callable<File>> tasks, int threads) {
+    List<File> results = new ArrayList<File>(tasks.size());
+    threads = Math.min(threads, tasks.size());
+    if (threads <= 1) {
+      for (Callable<File> task : tasks) {
+        results.add(call(task));
+      }
+      return results;
+    }
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      List<Future<File>> futures = new ArrayList<Future<File>>(tasks.size());
+      for (Callable<File> task : tasks) {
+        futures.add(executor.submit(task));
+      }
+      for (Future<File> future : futures) {
+        results.add(await(future));
+      }
+      return results;
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private static File call(Callable<File> task) {
+    try {
+      return task.call();
+    } catch (RuntimeException e) {
+      throw e;
+    } catch (Exception e) {
+      throw new PropcException(e);
+    }
+  }
+
+  private static File await(Future<File> future) {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new PropcException("Properties compilation interrupted", e);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        // rethrow PropcExceptions as they are, so that they are reported just like in sequential mode:
+        throw (RuntimeException) cause;
+      }
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new PropcException("Exception occurred in properties compiler thread: " + cause.getMessage(), cause);
+    }
+  }
+
   @Override
   public File generate(File propertiesFile) {
     PropertiesConfiguration p = new PropertiesConfiguration();
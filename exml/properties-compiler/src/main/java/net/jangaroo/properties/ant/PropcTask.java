@@ -40,6 +40,8 @@ public class PropcTask extends MatchingTask {
   private String sourcepath;
   private boolean verbose = false;
   private boolean failOnError = true;
+  private File buildIndexFile;
+  private int threads = 1;
   private File[] compileList = new File[0];
 
   /**
@@ -144,6 +146,44 @@ public class PropcTask extends MatchingTask {
     return verbose;
   }
 
+  /**
+   * Set the file in which the compiler keeps content hashes of all properties files.
+   * If set, all properties files are passed to the compiler, which then regenerates only the properties classes
+   * whose properties file changed, instead of relying on time stamps.
+   *
+   * @param buildIndexFile the build index file
+   */
+  public void setBuildindex(File buildIndexFile) {
+    this.buildIndexFile = buildIndexFile;
+  }
+
+  /**
+   * Gets the build index file.
+   *
+   * @return the build index file, or null if no build index is used
+   */
+  public File getBuildindex() {
+    return buildIndexFile;
+  }
+
+  /**
+   * Set the number of threads used to generate properties classes; defaults to 1 (no concurrency).
+   *
+   * @param threads the number of threads
+   */
+  public void setThreads(int threads) {
+    this.threads = threads;
+  }
+
+  /**
+   * Gets the number of threads used to generate properties classes.
+   *
+   * @return the number of threads
+   */
+  public int getThreads() {
+    return threads;
+  }
+
   /**
    * Executes the task.
    */
@@ -188,11 +228,20 @@ public class PropcTask extends MatchingTask {
    * @param files   the files to scan
    */
   protected void scanDir(File srcDir, File destDir, String[] files) {
-    GlobPatternMapper m = new GlobPatternMapper();
-    m.setFrom("*.properties");
-    m.setTo("*.as");
-    SourceFileScanner sfs = new SourceFileScanner(this);
-    File[] newFiles = sfs.restrictAsFiles(files, srcDir, destDir, m);
+    File[] newFiles;
+    if (buildIndexFile != null) {
+      // the compiler itself determines which files changed:
+      newFiles = new File[files.length];
+      for (int i = 0; i < files.length; i++) {
+        newFiles[i] = new File(srcDir, files[i]);
+      }
+    } else {
+      GlobPatternMapper m = new GlobPatternMapper();
+      m.setFrom("*.properties");
+      m.setTo("*.as");
+      SourceFileScanner sfs = new SourceFileScanner(this);
+      newFiles = sfs.restrictAsFiles(files, srcDir, destDir, m);
+    }
 
     if (newFiles.length > 0) {
       File[] newCompileList = new File[compileList.length +
@@ -273,6 +322,14 @@ public class PropcTask extends MatchingTask {
     }
     args.add("-sourcepath");
     args.add(sourcepath);
+    if (buildIndexFile != null) {
+      args.add("-bi");
+      args.add(buildIndexFile.getAbsolutePath());
+    }
+    if (threads > 1) {
+      args.add("-threads");
+      args.add(String.valueOf(threads));
+    }
    
     for (File aCompileList : compileList) {
       String filename = aCompileList.getAbsolutePath();
@@ -3,18 +3,27 @@
  */
 
 import net.jangaroo.properties.PropertyClassGenerator;
+import net.jangaroo.properties.api.PropcConfiguration;
 import net.jangaroo.properties.model.PropertiesClass;
 import net.jangaroo.properties.model.ResourceBundleClass;
 import net.jangaroo.utils.FileLocations;
 import org.apache.commons.configuration.PropertiesConfiguration;
 import org.junit.Test;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
 import java.io.StringWriter;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
 
 public class PropertyClassGeneratorTest {
   private static final String LINE_SEPARATOR = System.getProperty("line.separator");
@@ -95,4 +104,72 @@ public class PropertyClassGeneratorTest {
         "}\n" +
         "}").replaceAll("\n", LINE_SEPARATOR), writer.toString());
   }
+
+  @Test
+  public void testIncrementalGeneration() throws Exception {
+    File sourceDir = createTempDir("src");
+    File outputDir = createTempDir("out");
+    File propertiesDir = new File(sourceDir, "testPackage");
+    assertTrue(propertiesDir.mkdirs());
+    File defaultProperties = writeFile(new File(propertiesDir, "Bundle.properties"), "key=value");
+    File germanProperties = writeFile(new File(propertiesDir, "Bundle_de.properties"), "key=Wert");
+
+    PropcConfiguration config = new PropcConfiguration();
+    config.setSourcePath(Collections.singletonList(sourceDir));
+    config.setOutputDirectory(outputDir);
+    config.setBuildIndexFile(new File(outputDir, "build-index.txt"));
+    config.setThreads(2);
+    config.addSourceFile(defaultProperties);
+    config.addSourceFile(germanProperties);
+
+    Map<File, Set<File>> outputFileMap = new PropertyClassGenerator(config).generate();
+    File defaultClass = outputFileMap.get(defaultProperties).iterator().next();
+    File germanClass = outputFileMap.get(germanProperties).iterator().next();
+    assertTrue(defaultClass.exists());
+    assertTrue(germanClass.exists());
+    assertTrue(config.getBuildIndexFile().exists());
+
+    // mark the generated classes to detect whether they are generated again:
+    writeFile(defaultClass, "unchanged");
+    writeFile(germanClass, "unchanged");
+    writeFile(germanProperties, "key=neuer Wert");
+    outputFileMap = new PropertyClassGenerator(config).generate();
+
+    assertEquals(Collections.singleton(defaultClass), outputFileMap.get(defaultProperties));
+    assertEquals("unchanged", readFile(defaultClass));
+    assertFalse("unchanged".equals(readFile(germanClass)));
+    assertTrue(readFile(germanClass).contains("neuer Wert"));
+  }
+
+  private static File createTempDir(String prefix) throws IOException {
+    File dir = File.createTempFile("PropertyClassGeneratorTest-" + prefix, "");
+    assertTrue(dir.delete());
+    assertTrue(dir.mkdirs());
+    dir.deleteOnExit();
+    return dir;
+  }
+
+  private static File writeFile(File file, String content) throws IOException {
+    FileWriter writer = new FileWriter(file);
+    try {
+      writer.write(content);
+    } finally {
+      writer.close();
+    }
+    return file;
+  }
+
+  private static String readFile(File file) throws IOException {
+    FileReader reader = new FileReader(file);
+    try {
+      StringBuilder content = new StringBuilder();
+      char[] buffer = new char[1024];
+      for (int count = reader.read(buffer); count != -1; count = reader.read(buffer)) {
+        content.append(buffer, 0, count);
+      }
+      return content.toString();
+    } finally {
+      reader.close();
+    }
+  }
 }
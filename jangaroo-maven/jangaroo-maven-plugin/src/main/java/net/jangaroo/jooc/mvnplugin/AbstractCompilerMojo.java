@@ -3,25 +3,24 @@ package net.jangaroo.jooc.mvnplugin;
 import net.jangaroo.jooc.AbstractCompileLog;
 import net.jangaroo.jooc.Jooc;
 import net.jangaroo.jooc.api.CompilationResult;
+import net.jangaroo.jooc.api.CompileLog;
+import net.jangaroo.jooc.backend.MergedOutputCompilationUnitSinkFactory;
 import net.jangaroo.jooc.config.DebugMode;
 import net.jangaroo.jooc.config.JoocConfiguration;
 import net.jangaroo.jooc.config.PublicApiViolationsMode;
 import net.jangaroo.jooc.config.SemicolonInsertionMode;
+import net.jangaroo.jooc.server.JoocClient;
+import net.jangaroo.jooc.server.JoocServer;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.MojoFailureException;
 import org.apache.maven.plugin.logging.Log;
 import org.apache.maven.project.MavenProject;
 import org.codehaus.plexus.compiler.CompilerError;
 import org.codehaus.plexus.util.FileUtils;
-import org.codehaus.plexus.util.IOUtil;
 import org.codehaus.plexus.util.StringUtils;
 
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.OutputStreamWriter;
-import java.io.Writer;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
@@ -89,6 +88,68 @@ public abstract class AbstractCompilerMojo extends JangarooMojo {
    */
   private boolean verbose;
 
+  /**
+   * The number of threads the compiler uses to parse source files and generate output.
+   * Values greater than 1 enable concurrent compilation, which produces exactly the same output.
+   *
+   * @parameter expression="${maven.compiler.threads}" default-value="1"
+   */
+  private int threads;
+
+  /**
+   * If set to "true", the compiler generates a source map next to each generated JavaScript file, so that code
+   * compiled without debug information can still be debugged against the ActionScript sources.
+   * The module classes file gets one source map that merges the source maps of all its classes.
+   *
+   * @parameter expression="${maven.compiler.sourceMaps}" default-value="false"
+   */
+  private boolean generateSourceMaps;
+
+  /**
+   * If set to "true", the compiler minifies all generated JavaScript code without debug information, i.e.
+   * the code generated without debuglevel and the non-debug output of a combined build.
+   *
+   * @parameter expression="${maven.compiler.minify}" default-value="false"
+   */
+  private boolean minify;
+
+  /**
+   * If set to "true", the compiler generates the modifiers of class members as numeric bit flags instead of
+   * modifier strings, so that the runtime does not have to parse them when initializing classes.
+   * The generated code requires a Jangaroo runtime of the same release.
+   *
+   * @parameter expression="${maven.compiler.compactMemberDeclarations}" default-value="false"
+   */
+  private boolean compactMemberDeclarations;
+
+  /**
+   * If set to "true", the compiler keeps a build index of content hashes, public API hashes and dependencies
+   * of all source files. Instead of relying on time stamps, exactly the changed source files and all source files
+   * depending on a changed public API are recompiled.
+   *
+   * @parameter expression="${maven.compiler.buildIndex}" default-value="false"
+   */
+  private boolean buildIndex;
+
+  /**
+   * If set to "true", parsed class path declarations are kept in memory, so that subsequent compilations in the
+   * same JVM with the same class path, e.g. of further modules of a reactor build, do not have to parse them again.
+   *
+   * @parameter expression="${maven.compiler.keepClassPath}" default-value="false"
+   */
+  private boolean keepClassPath;
+
+  /**
+   * The port of a compiler server on the local host to send compile requests to, which keeps parsed class path
+   * declarations between builds. Start the server with
+   * <code>java -cp jangaroo-compiler.jar net.jangaroo.jooc.server.JoocServer [port]</code>, which writes its
+   * access token to <code>~/.jangaroo/jooc-server-[port].token</code>, where the build reads it from.
+   * The default value 0 means to compile within the Maven process.
+   *
+   * @parameter expression="${maven.compiler.serverPort}" default-value="0"
+   */
+  private int compilerServerPort;
+
   /**
    * Sets the granularity in milliseconds of the last modification
    * date for testing whether a source needs recompilation.
@@ -180,6 +241,10 @@ public abstract class AbstractCompilerMojo extends JangarooMojo {
     configuration.setAllowDuplicateLocalVariables(allowDuplicateLocalVariables);
     configuration.setVerbose(verbose);
     configuration.setExcludeClassByDefault(excludeClassByDefault);
+    configuration.setThreads(threads);
+    configuration.setGenerateSourceMaps(generateSourceMaps);
+    configuration.setMinify(minify);
+    configuration.setCompactMemberDeclarations(compactMemberDeclarations);
 
     if (StringUtils.isNotEmpty(debuglevel)) {
       try {
@@ -210,7 +275,8 @@ public abstract class AbstractCompilerMojo extends JangarooMojo {
 
     HashSet<File> sources = new HashSet<File>();
     log.debug("starting source inclusion scanner");
-    sources.addAll(computeStaleSources(staleMillis));
+    // with a build index, the compiler itself determines which of all sources to compile:
+    sources.addAll(computeStaleSources(buildIndex ? -1 : staleMillis));
     if (sources.isEmpty()) {
       log.info("Nothing to compile - all classes are up to date");
       return;
@@ -224,6 +290,11 @@ public abstract class AbstractCompilerMojo extends JangarooMojo {
     configuration.setClassPath(getActionScriptClassPath());
     configuration.setOutputDirectory(getClassesOutputDirectory());
     configuration.setApiOutputDirectory(getApiOutputDirectory());
+    // for now, always set debug mode to "false" for concatenated file; generated in the same compiler run:
+    configuration.setNonDebugOutputDirectory(getTempClassesOutputDirectory());
+    if (buildIndex) {
+      configuration.setBuildIndexFile(new File(getTempClassesOutputDirectory().getParentFile(), "build-index.txt"));
+    }
 
     if (log.isDebugEnabled()) {
       log.debug("Source path: " + configuration.getSourcePath().toString().replace(',', '\n'));
@@ -238,16 +309,7 @@ public abstract class AbstractCompilerMojo extends JangarooMojo {
     boolean compilationError = (result != CompilationResult.RESULT_CODE_OK);
 
     if (!compilationError) {
-      // for now, always set debug mode to "false" for concatenated file:
-      configuration.setDebugMode(null);
-      configuration.setOutputDirectory(getTempClassesOutputDirectory());
-      configuration.setApiOutputDirectory(null);
-      result = compile(configuration);
-      if (result == CompilationResult.RESULT_CODE_OK) {
-        buildOutputFile(getTempClassesOutputDirectory(), getModuleClassesJsFile());
-      }
-
-      compilationError = (result != CompilationResult.RESULT_CODE_OK);
+      buildOutputFile(configuration, getTempClassesOutputDirectory(), getModuleClassesJsFile());
     }
 
     List<CompilerError> messages = Collections.emptyList();
@@ -273,39 +335,37 @@ public abstract class AbstractCompilerMojo extends JangarooMojo {
 
   protected abstract List<File> getActionScriptClassPath();
 
-  private void buildOutputFile(File tempOutputDir, File outputFile) throws MojoExecutionException {
+  /**
+   * Merge the non-debug code of all classes compiled into the temporary output directory, in this or in earlier
+   * builds, into the module output file. Like a merged output of the compiler, the module output file gets an offsets
+   * file and, if source maps are generated, one source map that merges the source maps of all classes.
+   */
+  void buildOutputFile(JoocConfiguration configuration, File tempOutputDir, File outputFile) throws MojoExecutionException {
     final Log log = getLog();
     if (log.isDebugEnabled()) {
       log.debug("Output file: " + outputFile);
     }
 
     try {
-      // If the directory where the output file is going to land
-      // doesn't exist then create it.
-      File outputFileDirectory = outputFile.getParentFile();
-
-      if (!outputFileDirectory.exists()) {
-        //noinspection ResultOfMethodCallIgnored
-        if (outputFileDirectory.mkdirs()) {
-          log.debug("created output directory " + outputFileDirectory);
-        }
-      }
-
       @SuppressWarnings({"unchecked"})
       // resource bundle classes should always be loaded dynamically:
               List<File> files = FileUtils.getFiles(tempOutputDir, "**/*.js", "**/*_properties_*.js");
-      // We should now have all the files we want to concat so let's do it.
-      Writer fos = new OutputStreamWriter(new FileOutputStream(outputFile), "UTF-8");
-      int tempOutputDirPathLength = tempOutputDir.getAbsolutePath().length() + 1;
-      for (File file : files) {
-        String className = file.getAbsolutePath();
-        className = className.substring(tempOutputDirPathLength, className.length() - ".js".length());
-        className = className.replace(File.separatorChar, '.');
-        fos.write("// class " + className + "\n");
-        IOUtil.copy(new FileInputStream(file), fos, "UTF-8");
-        fos.write('\n');
+      // the sink factory creates the directory of the output file, if needed:
+      MergedOutputCompilationUnitSinkFactory moduleSinkFactory = new MergedOutputCompilationUnitSinkFactory(configuration, outputFile);
+      moduleSinkFactory.setGenerateSourceMaps(configuration.isGenerateSourceMaps());
+      boolean success = false;
+      try {
+        int tempOutputDirPathLength = tempOutputDir.getAbsolutePath().length() + 1;
+        for (File file : files) {
+          String className = file.getAbsolutePath();
+          className = className.substring(tempOutputDirPathLength, className.length() - ".js".length());
+          className = className.replace(File.separatorChar, '.');
+          moduleSinkFactory.append(className, file);
+        }
+        success = true;
+      } finally {
+        moduleSinkFactory.close(success);
       }
-      fos.close();
     } catch (IOException e) {
       throw new MojoExecutionException("could not build output file " + outputFile + ": " + e.toString(), e);
     }
@@ -337,7 +397,7 @@ public abstract class AbstractCompilerMojo extends JangarooMojo {
             + (sources.size() == 1 ? "" : "s")
             + " to " + outputDirectory);
 
-    Jooc jooc = new Jooc(config, new AbstractCompileLog() {
+    CompileLog compileLog = new AbstractCompileLog() {
       @Override
       protected void doLogError(String msg) {
         log.error(msg);
@@ -347,7 +407,18 @@ public abstract class AbstractCompilerMojo extends JangarooMojo {
       public void warning(String msg) {
         log.warn(msg);
       }
-    });
+    };
+    if (compilerServerPort > 0) {
+      try {
+        return new JoocClient(compilerServerPort).compile(config, compileLog);
+      } catch (IOException e) {
+        throw new MojoExecutionException("Cannot connect to compiler server on port " + compilerServerPort, e);
+      }
+    }
+    if (keepClassPath) {
+      return JoocServer.getSharedInstance().compile(config, compileLog).getResultCode();
+    }
+    Jooc jooc = new Jooc(config, compileLog);
     return jooc.run().getResultCode();
   }
 
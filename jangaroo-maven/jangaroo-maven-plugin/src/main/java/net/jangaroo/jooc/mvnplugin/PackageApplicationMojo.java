@@ -1,5 +1,6 @@
 package net.jangaroo.jooc.mvnplugin;
 
+import net.jangaroo.jooc.mvnplugin.util.TreeShaker;
 import net.jangaroo.utils.BOMStripperInputStream;
 import org.apache.maven.artifact.Artifact;
 import org.apache.maven.artifact.repository.ArtifactRepository;
@@ -23,6 +24,7 @@ import java.io.InputStreamReader;
 import java.io.OutputStreamWriter;
 import java.io.Writer;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedList;
@@ -39,6 +41,7 @@ import java.util.regex.Pattern;
  * <li>extract all dependent jangaroo artifacts</li>
  * <li>optionally add Jangaroo compiler output from the current module</li>
  * <li>concatenate <artifactId>.js from all dependent jangaroo artifacts into jangaroo-application.js in the correct order</li>
+ * <li>optionally reduce jangaroo-application-all.js to the classes reachable from a main class</li>
  * </ul>
  *
  * @requiresDependencyResolution runtime
@@ -75,6 +78,21 @@ public abstract class PackageApplicationMojo extends AbstractMojo {
   @SuppressWarnings("UnusedDeclaration")
   private List remoteRepositories;
 
+  /**
+   * If set, jangaroo-application-all.js only contains the classes reachable from the given main class
+   * through the dependencies the compiler records for each class, instead of all classes of all modules.
+   * Several classes may be given separated by commas, e.g. to keep classes that are only loaded by name.
+   * Only classes files with an offsets file can be reduced. The compile goal writes the offsets file next to the
+   * module classes file, so it is packaged with it; classes files without one, e.g. of modules built by older
+   * versions of this plugin, are kept completely. jangaroo-application.js is not affected.
+   *
+   * @parameter expression="${jangaroo.treeShaking.mainClass}"
+   */
+  @SuppressWarnings("UnusedDeclaration")
+  private String treeShakingMainClass;
+
+  private TreeShaker treeShaker;
+
   public abstract File getPackageSourceDirectory();
 
   /**
@@ -142,9 +160,14 @@ public abstract class PackageApplicationMojo extends AbstractMojo {
     return art.getGroupId() + ":" + art.getArtifactId();
   }
 
+  public void setTreeShakingMainClass(String treeShakingMainClass) {
+    this.treeShakingMainClass = treeShakingMainClass;
+  }
+
   private static final String JOO_FLUSH_STYLE_SHEETS = "\njoo.flushStyleSheets();\n";
 
   private void concatModuleScripts(File scriptDirectory) throws IOException, ProjectBuildingException {
+    treeShaker = createTreeShaker(scriptDirectory);
     Writer jangarooApplicationWriter = createJangarooModulesFile(scriptDirectory, "jangaroo-application.js");
     Writer jangarooApplicationAllWriter = createJangarooModulesFile(scriptDirectory, "jangaroo-application-all.js");
     try {
@@ -165,9 +188,29 @@ public abstract class PackageApplicationMojo extends AbstractMojo {
       } catch (IOException e) {
         getLog().warn("IOException on close ignored.", e);
       }
+      treeShaker = null;
     }
   }
 
+  private TreeShaker createTreeShaker(File scriptDirectory) throws IOException {
+    if (treeShakingMainClass == null || treeShakingMainClass.trim().length() == 0) {
+      return null;
+    }
+    List<String> mainClasses = Arrays.asList(treeShakingMainClass.trim().split("\\s*,\\s*"));
+    TreeShaker result = new TreeShaker();
+    result.addClassesFiles(scriptDirectory);
+    Set<String> reachableClasses = result.computeReachableClasses(mainClasses);
+    getLog().info("Tree shaking: " + reachableClasses.size() + " of " + result.getClassCount()
+            + " classes are reachable from " + mainClasses + ".");
+    getLog().debug("reachable classes: " + reachableClasses);
+    for (String mainClass : mainClasses) {
+      if (!reachableClasses.contains(mainClass)) {
+        getLog().warn("Tree shaking main class " + mainClass + " not found in any classes file with offsets.");
+      }
+    }
+    return result;
+  }
+
   protected void writeThisJangarooModuleScript(File scriptDirectory, Writer jangarooApplicationWriter, Writer jangarooApplicationAllWriter) throws IOException {
     ModuleSource jooModuleSource = null;
     File packageSourceDirectory = getPackageSourceDirectory();
@@ -266,7 +309,7 @@ public abstract class PackageApplicationMojo extends AbstractMojo {
       if (scriptFile == null) {
         jangarooApplicationAllWriter.write(line + '\n');
       } else {
-        appendFile(jangarooApplicationAllWriter, scriptFile);
+        appendClassesFile(jangarooApplicationAllWriter, scriptFile);
       }
     }
   }
@@ -283,12 +326,21 @@ public abstract class PackageApplicationMojo extends AbstractMojo {
       jangarooApplicationWriter.write(fromArtifactMessage(groupId, artifactId, version));
       jangarooApplicationWriter.write("joo.loadModule(\"" + groupId + "\",\"" + artifactId + "\");\n");
       jangarooApplicationAllWriter.write(fromArtifactMessage(groupId, artifactId, version));
-      appendFile(jangarooApplicationAllWriter, classesJsFile);
+      appendClassesFile(jangarooApplicationAllWriter, classesJsFile);
     } else {
       getLog().debug("No file " + classesJsFile.getAbsolutePath() + " in module " + fullArtifactName(groupId, artifactId, version) +".");
     }
   }
 
+  private void appendClassesFile(Writer writer, File file) throws IOException {
+    if (treeShaker != null && treeShaker.isReducible(file)) {
+      int count = treeShaker.writeReachableClasses(file, writer);
+      getLog().debug("Appended " + count + " reachable classes of " + file.getName() + ".");
+    } else {
+      appendFile(writer, file);
+    }
+  }
+
   private void appendFile(Writer writer, File file) throws IOException {
     appendFromInputStream(writer, new BOMStripperInputStream(new FileInputStream(file)));
   }
@@ -3,7 +3,7 @@
  */
 package net.jangaroo.jooc.mvnplugin;
 
-import net.jangaroo.utils.FileLocations;
+import net.jangaroo.properties.api.PropcConfiguration;
 import net.jangaroo.properties.api.PropcException;
 import net.jangaroo.properties.PropertyClassGenerator;
 import org.apache.maven.plugin.AbstractMojo;
@@ -67,6 +67,22 @@ public class PropertiesMojo extends AbstractMojo {
    */
   private File generatedSourcesDirectory;
 
+  /**
+   * If set to "true", the properties compiler keeps a build index of the content hashes of all properties files,
+   * so that only the properties classes of changed properties files are generated again.
+   *
+   * @parameter expression="${properties.buildIndex}" default-value="false"
+   */
+  private boolean buildIndex;
+
+  /**
+   * The number of threads used to generate properties classes.
+   * Values greater than 1 enable concurrent generation, which produces exactly the same output.
+   *
+   * @parameter expression="${properties.threads}" default-value="1"
+   */
+  private int threads;
+
   /**
    * @component
    */
@@ -84,8 +100,12 @@ public class PropertiesMojo extends AbstractMojo {
       properties.addInclude("**/*.properties");
     }
 
-    FileLocations config = new FileLocations();
+    PropcConfiguration config = new PropcConfiguration();
     config.setOutputDirectory(generatedSourcesDirectory);
+    config.setThreads(threads);
+    if (buildIndex) {
+      config.setBuildIndexFile(new File(project.getBuild().getDirectory(), "properties-build-index.txt"));
+    }
 
     for (String srcFileRelativePath : new FileSetManager().getIncludedFiles(properties)) {
       config.addSourceFile(new File(resourceDirectory,srcFileRelativePath));
@@ -3,13 +3,19 @@ package net.jangaroo.jooc.mvnplugin.test;
 import com.thoughtworks.selenium.DefaultSelenium;
 import com.thoughtworks.selenium.Selenium;
 import com.thoughtworks.selenium.SeleniumException;
+import net.jangaroo.utils.CompilerUtils;
 import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang.StringUtils;
+import org.apache.maven.artifact.DependencyResolutionRequiredException;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.MojoFailureException;
+import org.codehaus.plexus.util.DirectoryScanner;
 import org.codehaus.plexus.util.cli.CommandLineException;
 import org.eclipse.jetty.server.Server;
 import org.w3c.dom.Document;
+import org.w3c.dom.Element;
 import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
 import org.xml.sax.InputSource;
 import org.xml.sax.SAXException;
@@ -17,14 +23,35 @@ import org.xml.sax.SAXException;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.transform.OutputKeys;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
 import java.io.File;
 import java.io.FileReader;
 import java.io.IOException;
 import java.io.Reader;
 import java.io.StringReader;
+import java.io.StringWriter;
+import java.math.BigDecimal;
 import java.net.InetAddress;
 import java.net.UnknownHostException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Executes JooUnit tests.
@@ -35,6 +62,10 @@ import java.util.ArrayList;
  * <code>jooUnitSeleniumRCHost</code>. The Selenium Remote Control then starts a browser, navigates
  * the browser to the Jetty we just started and waits for <code>jooUnitTestExecutionTimeout</code>ms
  * for the results to appear on the browser screen.
+ * If <code>jooUnitRunner</code> is set to <code>rhino</code>, the tests are run in an embedded JavaScript
+ * engine instead, which needs neither a Jetty nor a browser.
+ * To speed up large test suites, the tests can be split into <code>jooUnitShards</code> shards that are run
+ * concurrently.
  *
  * @goal test
  * @phase test
@@ -43,6 +74,12 @@ import java.util.ArrayList;
  */
 public class JooTestMojo extends JooTestMojoBase {
 
+  private static final String RHINO_RUNNER = "rhino";
+  private static final String TEST_CLASSES_PARAMETER = "testClasses";
+  private static final String[] TEST_CLASS_INCLUDES = {"**/*Test.as", "**/*Test.mxml"};
+  private static final String[] SUMMED_ATTRIBUTES = {"tests", "failures", "errors", "time"};
+  private static final long SHARD_TERMINATION_TIMEOUT = 10000;
+
   /**
    * Source directory to scan for files to compile.
    *
@@ -140,8 +177,39 @@ public class JooTestMojo extends JooTestMojoBase {
   @SuppressWarnings({"UnusedDeclaration", "FieldCanBeLocal"})
   private String phantomBin;
 
+  /**
+   * The JavaScript environment to run the tests in. The default, <code>phantomjs</code>, runs the tests in
+   * PhantomJS or, if no phantomjs executable is found, in a browser started by Selenium.
+   * <code>rhino</code> runs the tests in a JavaScript engine embedded in the build, emulating the few browser
+   * APIs JooUnit needs, so that neither a browser nor a Jetty is needed.
+   *
+   * @parameter expression="${jooUnitRunner}" default-value="phantomjs"
+   */
+  @SuppressWarnings({"UnusedDeclaration", "FieldCanBeLocal"})
+  private String jooUnitRunner;
+
+  /**
+   * The number of shards to split the tests into. Shards are run concurrently, each in its own phantomjs process
+   * or JavaScript engine, and their results are merged into one test result file. The test classes, found as
+   * <code>*Test.as</code> and <code>*Test.mxml</code> files in the test source directory, are distributed evenly
+   * over the shards. Each shard loads the test page with the comma-separated qualified names of its test classes
+   * as the query parameter <code>testClasses</code>, so the test page must only run the tests given there, if any.
+   * The first shard is run alone to check this; if it reports tests of other shards, its result is used for all tests.
+   * Default is 1, which runs all tests in one page without any query parameter.
+   * Not supported when falling back to Selenium.
+   *
+   * @parameter expression="${jooUnitShards}" default-value="1"
+   */
+  @SuppressWarnings({"UnusedDeclaration", "FieldCanBeLocal"})
+  private int jooUnitShards;
+
   public void execute() throws MojoExecutionException, MojoFailureException {
     if (!skip && !skipTests && isTestAvailable()) {
+      List<List<String>> shards = getTestShards();
+      if (RHINO_RUNNER.equals(jooUnitRunner)) {
+        executeRhino(shards);
+        return;
+      }
       Server server = jettyRunTest(true);
       String url = getTestUrl(server);
 
@@ -151,8 +219,15 @@ public class JooTestMojo extends JooTestMojoBase {
         FileUtils.copyInputStreamToFile(getClass().getResourceAsStream("/net/jangaroo/jooc/mvnplugin/phantomjs-joounit-page-runner.js"), phantomTestRunner);
         final PhantomJsTestRunner phantomJsTestRunner = new PhantomJsTestRunner(phantomBin, url, testResultOutputFile.getPath(), phantomTestRunner.getPath(), jooUnitTestExecutionTimeout, jooUnitMaxRetriesOnCrashes, getLog());
         if (phantomJsTestRunner.canRun()) {
-          executePhantomJs(testResultOutputFile, phantomJsTestRunner);
+          if (shards.size() == 1) {
+            executePhantomJs(testResultOutputFile, phantomJsTestRunner);
+          } else {
+            executePhantomJs(getJettyUrl(server), phantomTestRunner, shards);
+          }
         } else {
+          if (shards.size() > 1) {
+            getLog().info("Selenium does not support test shards, running all tests in one browser.");
+          }
           executeSelenium(url);
         }
       } catch (IOException e) {
@@ -188,6 +263,299 @@ public class JooTestMojo extends JooTestMojoBase {
     }
   }
 
+  private void executePhantomJs(final String jettyUrl, final File phantomTestRunner, List<List<String>> shards) throws MojoFailureException, MojoExecutionException {
+    executeShards(shards, new TestShardRunner() {
+      @Override
+      public String run(int shard, List<String> testClasses) throws Exception {
+        // shard results must not end up in the test result output directory, where they would be reported twice:
+        File shardResultFile = File.createTempFile("TEST-shard" + shard + "-", ".xml");
+        try {
+          PhantomJsTestRunner phantomJsTestRunner = new PhantomJsTestRunner(phantomBin,
+                  jettyUrl + "/" + getTestPage(testClasses), shardResultFile.getPath(), phantomTestRunner.getPath(),
+                  jooUnitTestExecutionTimeout, jooUnitMaxRetriesOnCrashes, getLog());
+          getLog().info("running test shard " + shard + " in phantomjs: " + phantomJsTestRunner.toString());
+          // crashes are retried by the runner, so only this shard is run again:
+          if (!phantomJsTestRunner.execute()) {
+            throw new MojoExecutionException("There are errors in test shard " + shard);
+          }
+          return FileUtils.readFileToString(shardResultFile);
+        } finally {
+          if (!shardResultFile.delete()) {
+            getLog().debug("could not delete temporary file " + shardResultFile);
+          }
+        }
+      }
+    });
+  }
+
+  private void executeRhino(List<List<String>> shards) throws MojoExecutionException, MojoFailureException {
+    final List<File> baseResourceDirectories = getBaseResourceDirectories();
+    final List<File> jars;
+    try {
+      jars = findJars();
+    } catch (DependencyResolutionRequiredException e) {
+      throw wrap(e);
+    }
+    executeShards(shards, new TestShardRunner() {
+      @Override
+      public String run(int shard, List<String> testClasses) throws Exception {
+        RhinoTestRunner rhinoTestRunner = new RhinoTestRunner(baseResourceDirectories, jars, getTestPage(testClasses),
+                jooUnitTestExecutionTimeout, getLog());
+        getLog().info("running test shard " + shard + ": " + rhinoTestRunner);
+        return rhinoTestRunner.execute();
+      }
+    });
+  }
+
+  /**
+   * Runs the tests of one shard and returns the XML test result.
+   */
+  interface TestShardRunner {
+    String run(int shard, List<String> testClasses) throws Exception;
+  }
+
+  /**
+   * Run the first shard alone and, if it only reports test cases of its own test classes, all other shards
+   * concurrently, each in its own thread, and evaluate their merged test results.
+   * If the first shard reports test cases of other shards, the test page apparently does not restrict its tests to the
+   * given test classes, so its result is used as the result of all tests and the other shards are not run.
+   * If any of the other shards fails, the remaining shards are stopped before the failure is reported.
+   */
+  void executeShards(final List<List<String>> shards, final TestShardRunner testShardRunner) throws MojoExecutionException, MojoFailureException {
+    List<String> testResultXmls = new ArrayList<String>(shards.size());
+    try {
+      testResultXmls.add(runShard(testShardRunner, 0, shards.get(0)));
+      if (shards.size() > 1) {
+        if (reportsTestsOfOtherShards(testResultXmls.get(0), shards)) {
+          getLog().warn("Test shard 0 reports test cases of other shards, so the test page seems to ignore the query parameter "
+                  + TEST_CLASSES_PARAMETER + ". Using its result for all tests instead of running the other shards.");
+        } else {
+          testResultXmls.addAll(runShardsConcurrently(shards.subList(1, shards.size()), 1, testShardRunner));
+        }
+      }
+      String testResultXml = testResultXmls.size() == 1 ? testResultXmls.get(0) : mergeTestResults(testResultXmls);
+      if (testResultXml == null) {
+        throw new MojoExecutionException("Several test shards report the same test case.");
+      }
+      writeResultToFile(testResultXml);
+      evalTestOutput(new StringReader(testResultXml));
+    } catch (IOException e) {
+      throw new MojoExecutionException("Cannot write test results to file", e);
+    } catch (ParserConfigurationException e) {
+      throw new MojoExecutionException("Cannot create a simple XML Builder", e);
+    } catch (SAXException e) {
+      throw new MojoExecutionException("Cannot parse test result", e);
+    } catch (TransformerException e) {
+      throw new MojoExecutionException("Cannot merge test results", e);
+    }
+  }
+
+  /**
+   * Run the given shards concurrently and return their results in shard order. The first failure stops all other
+   * shards.
+   */
+  private List<String> runShardsConcurrently(final List<List<String>> shards, final int firstShard,
+                                             final TestShardRunner testShardRunner) throws MojoExecutionException {
+    List<String> testResultXmls = new ArrayList<String>(shards.size());
+    ExecutorService executor = Executors.newFixedThreadPool(shards.size());
+    try {
+      CompletionService<String> completionService = new ExecutorCompletionService<String>(executor);
+      List<Future<String>> futures = new ArrayList<Future<String>>(shards.size());
+      for (int i = 0; i < shards.size(); i++) {
+        final int shardIndex = i;
+        futures.add(completionService.submit(new Callable<String>() {
+          @Override
+          public String call() throws Exception {
+            return runShard(testShardRunner, firstShard + shardIndex, shards.get(shardIndex));
+          }
+        }));
+      }
+      // check shards in the order they finish, so that the first failure stops all other shards:
+      for (int i = 0; i < shards.size(); i++) {
+        await(takeCompleted(completionService));
+      }
+      for (Future<String> future : futures) {
+        testResultXmls.add(await(future));
+      }
+    } finally {
+      stopShards(executor);
+    }
+    return testResultXmls;
+  }
+
+  /**
+   * Whether the given shard result contains a test case of a test class that belongs to another shard than the
+   * first one.
+   */
+  boolean reportsTestsOfOtherShards(String testResultXml, List<List<String>> shards) throws ParserConfigurationException, IOException, SAXException {
+    Set<String> otherTestClasses = new HashSet<String>();
+    for (List<String> shard : shards.subList(1, shards.size())) {
+      otherTestClasses.addAll(shard);
+    }
+    DocumentBuilder dBuilder = DocumentBuilderFactory.newInstance().newDocumentBuilder();
+    Element suite = dBuilder.parse(new InputSource(new StringReader(testResultXml))).getDocumentElement();
+    NodeList testCaseElements = suite.getElementsByTagName("testcase");
+    for (int i = 0; i < testCaseElements.getLength(); i++) {
+      if (otherTestClasses.contains(((Element) testCaseElements.item(i)).getAttribute("classname"))) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Interrupt all shards that are still running and wait until they have stopped. An interrupted shard destroys its
+   * phantomjs process or stops its JavaScript engine, so no test runner survives the test goal.
+   */
+  private void stopShards(ExecutorService executor) {
+    executor.shutdownNow();
+    try {
+      if (!executor.awaitTermination(SHARD_TERMINATION_TIMEOUT, TimeUnit.MILLISECONDS)) {
+        getLog().warn("Some test shards did not stop within " + SHARD_TERMINATION_TIMEOUT + " ms.");
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private String runShard(TestShardRunner testShardRunner, int shard, List<String> testClasses) throws MojoExecutionException {
+    try {
+      return testShardRunner.run(shard, testClasses);
+    } catch (MojoExecutionException e) {
+      throw e;
+    } catch (Exception e) {
+      throw wrap(e);
+    }
+  }
+
+  private static Future<String> takeCompleted(CompletionService<String> completionService) throws MojoExecutionException {
+    try {
+      return completionService.take();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new MojoExecutionException("Interrupted while waiting for test results", e);
+    }
+  }
+
+  private static String await(Future<String> future) throws MojoExecutionException {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new MojoExecutionException("Interrupted while waiting for test results", e);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof MojoExecutionException) {
+        throw (MojoExecutionException) cause;
+      }
+      throw new MojoExecutionException(cause.toString(), cause);
+    }
+  }
+
+  /**
+   * Find all test classes in the test source directory and distribute them round-robin over at most
+   * <code>jooUnitShards</code> shards. If there is only one shard, its list of test classes is empty, which means
+   * that the test page runs all tests.
+   */
+  List<List<String>> getTestShards() {
+    List<String> testClasses = jooUnitShards > 1 ? findTestClasses() : Collections.<String>emptyList();
+    int shardCount = Math.max(1, Math.min(jooUnitShards, testClasses.size()));
+    if (shardCount == 1) {
+      return Collections.singletonList(Collections.<String>emptyList());
+    }
+    List<List<String>> shards = new ArrayList<List<String>>(shardCount);
+    for (int i = 0; i < shardCount; i++) {
+      shards.add(new ArrayList<String>());
+    }
+    for (int i = 0; i < testClasses.size(); i++) {
+      shards.get(i % shardCount).add(testClasses.get(i));
+    }
+    return shards;
+  }
+
+  private List<String> findTestClasses() {
+    if (testSourceDirectory == null || !testSourceDirectory.isDirectory()) {
+      return Collections.emptyList();
+    }
+    DirectoryScanner scanner = new DirectoryScanner();
+    scanner.setBasedir(testSourceDirectory);
+    scanner.setIncludes(TEST_CLASS_INCLUDES);
+    scanner.scan();
+    List<String> testClasses = new ArrayList<String>();
+    for (String testSourceFile : scanner.getIncludedFiles()) {
+      testClasses.add(CompilerUtils.qNameFromRelativePath(testSourceFile));
+    }
+    // sort to get the same shards on every platform and in every run:
+    Collections.sort(testClasses);
+    return testClasses;
+  }
+
+  private String getTestPage(List<String> testClasses) {
+    String testPage = getTestPage();
+    if (testClasses.isEmpty()) {
+      return testPage;
+    }
+    String query = "?" + TEST_CLASSES_PARAMETER + "=" + StringUtils.join(testClasses, ',');
+    int hashPos = testPage.indexOf('#');
+    return hashPos == -1 ? testPage + query : testPage.substring(0, hashPos) + query + testPage.substring(hashPos);
+  }
+
+  /**
+   * Merge the XML test results of several shards into one test suite result, which contains the test cases of all
+   * shards and the sums of their test, failure and error counts and times.
+   *
+   * @return the merged test result, or null if several shards report the same test case
+   */
+  String mergeTestResults(List<String> testResultXmls) throws ParserConfigurationException, IOException, SAXException, TransformerException {
+    DocumentBuilder dBuilder = DocumentBuilderFactory.newInstance().newDocumentBuilder();
+    Document mergedDocument = null;
+    Element mergedSuite = null;
+    BigDecimal[] sums = new BigDecimal[SUMMED_ATTRIBUTES.length];
+    Arrays.fill(sums, BigDecimal.ZERO);
+    Set<String> testCases = new HashSet<String>();
+    for (String testResultXml : testResultXmls) {
+      Document document = dBuilder.parse(new InputSource(new StringReader(testResultXml)));
+      Element suite = document.getDocumentElement();
+      Set<String> shardTestCases = new HashSet<String>();
+      NodeList testCaseElements = suite.getElementsByTagName("testcase");
+      for (int i = 0; i < testCaseElements.getLength(); i++) {
+        Element testCase = (Element) testCaseElements.item(i);
+        String testCaseName = testCase.getAttribute("classname") + "#" + testCase.getAttribute("name");
+        if (testCases.contains(testCaseName)) {
+          getLog().warn("Test case " + testCaseName + " is reported by more than one shard.");
+          return null;
+        }
+        shardTestCases.add(testCaseName);
+      }
+      testCases.addAll(shardTestCases);
+      for (int i = 0; i < SUMMED_ATTRIBUTES.length; i++) {
+        String value = suite.getAttribute(SUMMED_ATTRIBUTES[i]);
+        if (value.length() > 0) {
+          sums[i] = sums[i].add(new BigDecimal(value));
+        }
+      }
+      if (mergedDocument == null) {
+        mergedDocument = document;
+        mergedSuite = suite;
+      } else {
+        for (Node child = suite.getFirstChild(); child != null; child = child.getNextSibling()) {
+          mergedSuite.appendChild(mergedDocument.importNode(child, true));
+        }
+      }
+    }
+    if (mergedDocument == null) {
+      throw new IllegalArgumentException("no test results to merge");
+    }
+    for (int i = 0; i < SUMMED_ATTRIBUTES.length; i++) {
+      mergedSuite.setAttribute(SUMMED_ATTRIBUTES[i], sums[i].toPlainString());
+    }
+    Transformer transformer = TransformerFactory.newInstance().newTransformer();
+    transformer.setOutputProperty(OutputKeys.OMIT_XML_DECLARATION, "yes");
+    StringWriter writer = new StringWriter();
+    transformer.transform(new DOMSource(mergedDocument), new StreamResult(writer));
+    return writer.toString();
+  }
+
   void executeSelenium(String testsHtmlUrl) throws MojoExecutionException, MojoFailureException {
     jooUnitSeleniumRCHost = System.getProperty("SELENIUM_RC_HOST", jooUnitSeleniumRCHost);
     try {
@@ -292,4 +660,16 @@ public class JooTestMojo extends JooTestMojoBase {
   public void setTestOutputDirectory(File testOutputDirectory) {
     this.testOutputDirectory = testOutputDirectory;
   }
+
+  public void setTestResultOutputDirectory(File testResultOutputDirectory) {
+    this.testResultOutputDirectory = testResultOutputDirectory;
+  }
+
+  public void setTestResultFileName(String testResultFileName) {
+    this.testResultFileName = testResultFileName;
+  }
+
+  public void setJooUnitShards(int jooUnitShards) {
+    this.jooUnitShards = jooUnitShards;
+  }
 }
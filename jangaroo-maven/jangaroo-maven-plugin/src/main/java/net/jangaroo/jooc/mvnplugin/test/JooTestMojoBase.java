@@ -119,13 +119,8 @@ public abstract class JooTestMojoBase extends AbstractMojo {
       handler.setWebInfLib(findJars());
       handler.setInitParameter("org.eclipse.jetty.servlet.Default.useFileMappedBuffer", "false");
       List<Resource> baseResources = new ArrayList<Resource>();
-      baseResources.add(toResource(new File(outputDirectory, "META-INF/resources")));
-      baseResources.add(toResource(testOutputDirectory));
-      for (org.apache.maven.model.Resource r : testResources) {
-        File testResourceDirectory = new File(r.getDirectory());
-        if (testResourceDirectory.exists()) {
-           baseResources.add(toResource(testResourceDirectory));
-        }
+      for (File baseResourceDirectory : getBaseResourceDirectories()) {
+        baseResources.add(toResource(baseResourceDirectory));
       }
       handler.setBaseResource(new ResourceCollection(baseResources.toArray(new Resource[baseResources.size()])));
       getLog().info("Using base resources " + baseResources);
@@ -139,6 +134,24 @@ public abstract class JooTestMojoBase extends AbstractMojo {
     return startJetty(handler, tryPortRange);
   }
 
+  /**
+   * The directories to serve the test page and its resources from, in the order they are looked up.
+   * Further resources are served from the <code>META-INF/resources</code> folders of the jars
+   * found by {@link #findJars()}.
+   */
+  protected List<File> getBaseResourceDirectories() {
+    List<File> baseResourceDirectories = new ArrayList<File>();
+    baseResourceDirectories.add(new File(outputDirectory, "META-INF/resources"));
+    baseResourceDirectories.add(testOutputDirectory);
+    for (org.apache.maven.model.Resource r : testResources) {
+      File testResourceDirectory = new File(r.getDirectory());
+      if (testResourceDirectory.exists()) {
+        baseResourceDirectories.add(testResourceDirectory);
+      }
+    }
+    return baseResourceDirectories;
+  }
+
   protected List<File> findJars() throws DependencyResolutionRequiredException {
     List<File> jars = new ArrayList<File>();
     for (Object jarUrl : project.getTestClasspathElements()) {
@@ -226,8 +239,15 @@ public abstract class JooTestMojoBase extends AbstractMojo {
   }
 
   protected String getTestUrl(Server server) throws MojoExecutionException {
-    StringBuilder builder = new StringBuilder(getJettyUrl(server))
-            .append("/").append(testsHtml.replace(File.separatorChar, '/'));
+    return getJettyUrl(server) + "/" + getTestPage();
+  }
+
+  /**
+   * The path of the test page relative to the base resources, followed by a hash to switch on debug mode
+   * if requested.
+   */
+  protected String getTestPage() {
+    StringBuilder builder = new StringBuilder(testsHtml.replace(File.separatorChar, '/'));
     if (debugTests) {
       builder.append("#joo.debug");
     }
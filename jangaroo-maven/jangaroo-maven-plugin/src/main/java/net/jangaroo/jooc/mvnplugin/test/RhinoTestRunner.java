@@ -0,0 +1,343 @@
+package net.jangaroo.jooc.mvnplugin.test;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
+import org.mozilla.javascript.Context;
+import org.mozilla.javascript.ContextFactory;
+import org.mozilla.javascript.Function;
+import org.mozilla.javascript.RhinoException;
+import org.mozilla.javascript.ScriptableObject;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.jar.JarFile;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.ZipEntry;
+
+/**
+ * Runs a JooUnit test page in an embedded Rhino JavaScript engine instead of a browser, so that neither an
+ * external browser binary nor a Jetty server is needed.
+ * <p>The page and all resources it loads are read from the same locations the test Jetty serves: the given base
+ * directories and the <code>META-INF/resources</code> folders of the given jars. The scripts of the test page are
+ * executed in order in a minimal browser environment (window, document, XMLHttpRequest, timers and console), which
+ * is defined by <code>rhino-joounit-page-runner.js</code>. Like for Selenium, the page is expected to
+ * set <code>window.result</code> to the XML test result, or <code>window.classLoadingError</code> if the tests
+ * cannot be loaded.</p>
+ * <p>Every runner uses its own JavaScript engine, so several runners may execute concurrently, each in its own
+ * thread. Interrupting that thread stops the runner.</p>
+ */
+public class RhinoTestRunner {
+
+  private static final String PAGE_RUNNER_SCRIPT = "/net/jangaroo/jooc/mvnplugin/rhino-joounit-page-runner.js";
+  private static final String BASE_URI_HOST = "localhost";
+  private static final String BASE_URL = "http://" + BASE_URI_HOST + "/";
+  private static final String JAR_RESOURCES_PREFIX = "META-INF/resources/";
+  private static final Pattern SCRIPT_ELEMENT_PATTERN =
+          Pattern.compile("<script\\b([^>]*)>(.*?)</script\\s*>", Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+  private static final Pattern BODY_ELEMENT_PATTERN = Pattern.compile("<body\\b([^>]*)>", Pattern.CASE_INSENSITIVE);
+
+  private final List<File> baseDirectories;
+  private final List<File> jars;
+  private final String testPage;
+  private final int timeout;
+  private final Log log;
+
+  private final List<JarFile> openJarFiles = new ArrayList<JarFile>();
+  private long deadline;
+  private ScriptableObject scope;
+
+  /**
+   * @param baseDirectories the directories to read the test page and its resources from
+   * @param jars            the jars whose <code>META-INF/resources</code> folders contain further resources
+   * @param testPage        the path of the test page relative to the base directories, optionally followed by a hash
+   * @param timeout         timeout in milliseconds
+   * @param log             the maven log
+   */
+  public RhinoTestRunner(List<File> baseDirectories, List<File> jars, String testPage, int timeout, Log log) {
+    this.baseDirectories = baseDirectories;
+    this.jars = jars;
+    this.testPage = testPage;
+    this.timeout = timeout;
+    this.log = log;
+  }
+
+  /**
+   * Load the test page, run all its scripts and timers until the test result is available, and return the
+   * test result.
+   *
+   * @return the XML test result
+   * @throws MojoExecutionException if the tests cannot be loaded, a script fails, or no result is available
+   *   within the timeout
+   */
+  public String execute() throws MojoExecutionException {
+    deadline = System.currentTimeMillis() + timeout;
+    Context cx = new TimeoutContextFactory().enterContext();
+    try {
+      // compiled scripts are limited to 64K of byte code, and the instruction observer needs interpreted mode:
+      cx.setOptimizationLevel(-1);
+      cx.setLanguageVersion(Context.VERSION_1_7);
+      scope = cx.initStandardObjects();
+      ScriptableObject.putProperty(scope, "__runner", Context.javaToJS(this, scope));
+      evaluate(cx, readClassPathResource(PAGE_RUNNER_SCRIPT), PAGE_RUNNER_SCRIPT);
+      runPage(cx);
+      return waitForResult(cx);
+    } catch (RhinoException e) {
+      log.error(e.details() + "\n" + e.getScriptStackTrace());
+      throw new MojoExecutionException("Error while running tests in Rhino: " + e.getMessage(), e);
+    } catch (TimeoutError e) {
+      if (Thread.currentThread().isInterrupted()) {
+        throw new MojoExecutionException("Interrupted while running tests in Rhino.");
+      }
+      throw new MojoExecutionException("No test result from " + testPage + " after " + timeout + " ms.");
+    } catch (IOException e) {
+      throw new MojoExecutionException("Cannot read test page " + testPage, e);
+    } finally {
+      Context.exit();
+      closeJars();
+    }
+  }
+
+  private void runPage(Context cx) throws IOException, MojoExecutionException {
+    String html = readResource(testPage);
+    if (html == null) {
+      throw new MojoExecutionException("Test page " + testPage + " not found in " + baseDirectories);
+    }
+    call(cx, "__startPage", BASE_URL + testPage);
+    Matcher scriptMatcher = SCRIPT_ELEMENT_PATTERN.matcher(html);
+    while (scriptMatcher.find()) {
+      String src = getAttribute(scriptMatcher.group(1), "src");
+      if (src != null) {
+        loadScript(src);
+      } else {
+        evaluate(cx, scriptMatcher.group(2), testPage);
+      }
+    }
+    Matcher bodyMatcher = BODY_ELEMENT_PATTERN.matcher(html);
+    String onload = bodyMatcher.find() ? getAttribute(bodyMatcher.group(1), "onload") : null;
+    call(cx, "__finishPage", onload);
+  }
+
+  private String waitForResult(Context cx) throws MojoExecutionException {
+    while (true) {
+      Object classLoadingError = call(cx, "__getClassLoadingError");
+      if (classLoadingError != null) {
+        throw new MojoExecutionException(Context.toString(classLoadingError));
+      }
+      Object result = call(cx, "__getResult");
+      if (result != null) {
+        return Context.toString(result);
+      }
+      long delay = (long) Context.toNumber(call(cx, "__runNextTimer"));
+      if (delay < 0) {
+        throw new MojoExecutionException("Test page " + testPage + " finished without a test result.");
+      }
+      long remaining = deadline - System.currentTimeMillis();
+      if (remaining <= 0) {
+        throw new TimeoutError();
+      }
+      if (delay > 0) {
+        try {
+          Thread.sleep(Math.min(delay, remaining));
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new MojoExecutionException("Interrupted while running tests in Rhino.", e);
+        }
+      }
+    }
+  }
+
+  private Object call(Context cx, String functionName, Object... args) {
+    Function function = (Function) ScriptableObject.getProperty(scope, functionName);
+    Object result = function.call(cx, scope, scope, args);
+    return result == null || result == Context.getUndefinedValue() ? null : result;
+  }
+
+  private void evaluate(Context cx, String script, String sourceName) {
+    cx.evaluateString(scope, script, sourceName, 1, null);
+  }
+
+  /**
+   * Load and run the script at the given URL, relative to the test page. Called from JavaScript.
+   *
+   * @param url the URL of the script
+   * @return whether the script has been found
+   * @throws IOException if the script cannot be read
+   */
+  public boolean loadScript(String url) throws IOException {
+    String script = readResource(url);
+    if (script == null) {
+      log.warn("Script not found: " + url);
+      return false;
+    }
+    log.debug("Loading script " + url);
+    evaluate(Context.getCurrentContext(), script, url);
+    return true;
+  }
+
+  /**
+   * Read the resource at the given URL, relative to the test page. Called from JavaScript to emulate
+   * XMLHttpRequest.
+   *
+   * @param url the URL of the resource
+   * @return the content of the resource, or null if there is no such resource
+   * @throws IOException if the resource cannot be read
+   */
+  public String readResource(String url) throws IOException {
+    String path = toPath(url);
+    if (path == null) {
+      return null;
+    }
+    for (File baseDirectory : baseDirectories) {
+      File file = new File(baseDirectory, path);
+      if (file.isFile()) {
+        return read(new FileInputStream(file));
+      }
+    }
+    for (JarFile jarFile : getJarFiles()) {
+      ZipEntry entry = jarFile.getEntry(JAR_RESOURCES_PREFIX + path);
+      if (entry != null && !entry.isDirectory()) {
+        return read(jarFile.getInputStream(entry));
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Log a message of the test page. Called from JavaScript to emulate the console.
+   *
+   * @param level the log level, one of "error", "warn", "info" and "debug"
+   * @param message the message
+   */
+  public void log(String level, String message) {
+    if ("error".equals(level)) {
+      log.error(message);
+    } else if ("warn".equals(level)) {
+      log.warn(message);
+    } else if ("info".equals(level)) {
+      log.info(message);
+    } else {
+      log.debug(message);
+    }
+  }
+
+  /**
+   * Resolve the given URL against the test page and return the path relative to the base directories, or null
+   * if the URL denotes another server.
+   */
+  private String toPath(String url) {
+    try {
+      URI uri = toUri(BASE_URL + testPage).resolve(toUri(stripQueryAndHash(url)));
+      if (!BASE_URI_HOST.equals(uri.getHost())) {
+        return null;
+      }
+      String path = uri.getPath();
+      return path.startsWith("/") ? path.substring(1) : path;
+    } catch (URISyntaxException e) {
+      log.warn("Cannot resolve URL " + url + ": " + e.getMessage());
+      return null;
+    }
+  }
+
+  private static URI toUri(String url) throws URISyntaxException {
+    return new URI(url.replace(" ", "%20"));
+  }
+
+  private static String stripQueryAndHash(String url) {
+    int end = url.length();
+    int queryPos = url.indexOf('?');
+    if (queryPos != -1) {
+      end = queryPos;
+    }
+    int hashPos = url.indexOf('#');
+    if (hashPos != -1 && hashPos < end) {
+      end = hashPos;
+    }
+    return url.substring(0, end);
+  }
+
+  private static String getAttribute(String attributes, String name) {
+    Matcher matcher = Pattern.compile("\\b" + name + "\\s*=\\s*(?:\"([^\"]*)\"|'([^']*)')", Pattern.CASE_INSENSITIVE)
+            .matcher(attributes);
+    return matcher.find() ? (matcher.group(1) != null ? matcher.group(1) : matcher.group(2)) : null;
+  }
+
+  private List<JarFile> getJarFiles() throws IOException {
+    if (openJarFiles.isEmpty()) {
+      for (File jar : jars) {
+        openJarFiles.add(new JarFile(jar));
+      }
+    }
+    return openJarFiles;
+  }
+
+  private void closeJars() {
+    for (JarFile jarFile : openJarFiles) {
+      try {
+        jarFile.close();
+      } catch (IOException e) {
+        // never mind, we only read from it
+      }
+    }
+    openJarFiles.clear();
+  }
+
+  private String readClassPathResource(String resourceName) throws IOException {
+    InputStream inputStream = getClass().getResourceAsStream(resourceName);
+    if (inputStream == null) {
+      throw new IOException("class path resource not found: " + resourceName);
+    }
+    return read(inputStream);
+  }
+
+  private static String read(InputStream inputStream) throws IOException {
+    Reader reader = new InputStreamReader(inputStream, "UTF-8");
+    try {
+      return IOUtils.toString(reader);
+    } finally {
+      reader.close();
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "RhinoTestRunner{" +
+            "testPage='" + testPage + '\'' +
+            ", baseDirectories=" + baseDirectories +
+            ", timeout=" + timeout +
+            '}';
+  }
+
+  /**
+   * Thrown from within the JavaScript engine when the timeout is exceeded, e.g. by an endless loop, or when the
+   * runner thread is interrupted.
+   * As it is no exception, scripts cannot catch it.
+   */
+  private static class TimeoutError extends Error {
+  }
+
+  private class TimeoutContextFactory extends ContextFactory {
+    @Override
+    protected Context makeContext() {
+      Context cx = super.makeContext();
+      cx.setInstructionObserverThreshold(100000);
+      return cx;
+    }
+
+    @Override
+    protected void observeInstructionCount(Context cx, int instructionCount) {
+      if (System.currentTimeMillis() > deadline || Thread.currentThread().isInterrupted()) {
+        throw new TimeoutError();
+      }
+    }
+  }
+}
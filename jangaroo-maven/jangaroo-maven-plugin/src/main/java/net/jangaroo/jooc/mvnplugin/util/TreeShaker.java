@@ -0,0 +1,226 @@
+package net.jangaroo.jooc.mvnplugin.util;
+
+import net.jangaroo.jooc.Jooc;
+import net.jangaroo.jooc.backend.MergedOutputCompilationUnitSinkFactory;
+import org.codehaus.plexus.util.IOUtil;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Reduces concatenated Jangaroo classes files (<code>*.classes.js</code>) to the classes reachable from a set of
+ * main classes.
+ * <p>The code of each class is located through the offsets file the compiler writes next to a merged output file
+ * (see {@link MergedOutputCompilationUnitSinkFactory#OFFSETS_FILE_SUFFIX}). The dependencies of a class are taken
+ * from the list of dependencies the compiler generates into the <code>joo.classLoader.prepare(...)</code> call
+ * of each class. Classes files without offsets file cannot be reduced and are kept completely, so that all
+ * dependencies on their classes are considered satisfied.</p>
+ */
+public class TreeShaker {
+
+  private static final String UTF_8 = "UTF-8";
+
+  private static final String CLASS_DEFINITION_CALL = Jooc.CLASS_LOADER_FULLY_QUALIFIED_NAME + ".prepare(";
+  // whitespace, which in debug output may contain comments:
+  private static final String WHITESPACE = "(?:\\s|/\\*(?:[^*]|\\*(?!/))*\\*/|//[^\\n]*)*";
+  // the end of the code generated for a compilation unit: ,[<dependencies>], "<runtime version>", "<version>");
+  private static final Pattern DEPENDENCIES_PATTERN =
+          Pattern.compile(",\\[((?:\"[^\"]*\",?)*)\\]" + WHITESPACE + "," + WHITESPACE + "\"[^\"]*\"" + WHITESPACE + ","
+                  + WHITESPACE + "\"[^\"]*\"" + WHITESPACE + "\\)");
+  private static final Pattern QUOTED_NAME_PATTERN = Pattern.compile("\"([^\"]*)\"");
+
+  private static class ClassCode {
+    private final File classesFile;
+    private final String code;
+    private final List<String> dependencies;
+
+    private ClassCode(File classesFile, String code, List<String> dependencies) {
+      this.classesFile = classesFile;
+      this.code = code;
+      this.dependencies = dependencies;
+    }
+  }
+
+  private final Map<String, ClassCode> classesByName = new HashMap<String, ClassCode>();
+  private final Set<File> classesFiles = new HashSet<File>();
+  private Set<String> reachableClasses = null;
+
+  /**
+   * Add the classes of a classes file, if the offsets file of the classes file exists.
+   *
+   * @param classesFile the classes file
+   * @return whether the classes file can be reduced, i.e. whether its offsets file exists
+   * @throws IOException if reading the classes file or its offsets file fails
+   */
+  public boolean addClassesFile(File classesFile) throws IOException {
+    classesFile = classesFile.getCanonicalFile();
+    File offsetsFile = getOffsetsFile(classesFile);
+    if (!offsetsFile.exists()) {
+      return false;
+    }
+    byte[] content = readBytes(classesFile);
+    BufferedReader offsetsReader = new BufferedReader(new InputStreamReader(new FileInputStream(offsetsFile), UTF_8));
+    try {
+      for (String line = offsetsReader.readLine(); line != null; line = offsetsReader.readLine()) {
+        if (line.length() == 0) {
+          continue;
+        }
+        String[] parts = line.split("\t");
+        if (parts.length != 3) {
+          throw new IOException("invalid line in offsets file " + offsetsFile + ": " + line);
+        }
+        int start = Integer.parseInt(parts[1]);
+        int end = Integer.parseInt(parts[2]);
+        if (start < 0 || end < start || end > content.length) {
+          throw new IOException("offsets of class " + parts[0] + " exceed " + classesFile);
+        }
+        String code = new String(content, start, end - start, UTF_8);
+        List<String> dependencies = parseDependencies(code);
+        if (dependencies == null) {
+          // shaking out classes that are actually needed would break the application:
+          throw new IOException("cannot find the dependencies of class " + parts[0] + " in " + classesFile);
+        }
+        classesByName.put(parts[0], new ClassCode(classesFile, code, dependencies));
+      }
+    } finally {
+      offsetsReader.close();
+    }
+    classesFiles.add(classesFile);
+    reachableClasses = null;
+    return true;
+  }
+
+  /**
+   * Add the classes of all classes files in the given directory that can be reduced.
+   *
+   * @param directory the directory containing classes files
+   * @throws IOException if reading a classes file or its offsets file fails
+   */
+  public void addClassesFiles(File directory) throws IOException {
+    File[] files = directory.listFiles();
+    if (files != null) {
+      for (File file : files) {
+        if (file.isFile() && file.getName().endsWith(".classes.js")) {
+          addClassesFile(file);
+        }
+      }
+    }
+  }
+
+  public boolean isReducible(File classesFile) throws IOException {
+    return classesFiles.contains(classesFile.getCanonicalFile());
+  }
+
+  public int getClassCount() {
+    return classesByName.size();
+  }
+
+  /**
+   * Compute the classes reachable from the given main classes, so that every class comes after all the classes it
+   * depends on, unless there is a cyclic dependency.
+   *
+   * @param mainClasses the qualified names of the main classes
+   * @return the qualified names of all reachable classes added to this tree shaker, in dependency order
+   */
+  public Set<String> computeReachableClasses(Collection<String> mainClasses) {
+    Set<String> visited = new HashSet<String>();
+    reachableClasses = new LinkedHashSet<String>();
+    for (String mainClass : mainClasses) {
+      visit(mainClass, visited);
+    }
+    return Collections.unmodifiableSet(reachableClasses);
+  }
+
+  private void visit(String className, Set<String> visited) {
+    if (visited.add(className)) {
+      ClassCode classCode = classesByName.get(className);
+      if (classCode != null) {
+        // first, the dependencies:
+        for (String dependency : classCode.dependencies) {
+          visit(dependency, visited);
+        }
+        // then, the class itself:
+        reachableClasses.add(className);
+      }
+    }
+  }
+
+  /**
+   * Write the code of all reachable classes of the given classes file, in dependency order.
+   *
+   * @param classesFile a classes file that has been added to this tree shaker
+   * @param writer the writer to write the code to
+   * @return the number of classes written
+   * @throws IOException if writing fails
+   */
+  public int writeReachableClasses(File classesFile, Writer writer) throws IOException {
+    if (reachableClasses == null) {
+      throw new IllegalStateException("reachable classes have not been computed");
+    }
+    classesFile = classesFile.getCanonicalFile();
+    int count = 0;
+    for (String className : reachableClasses) {
+      ClassCode classCode = classesByName.get(className);
+      if (classCode.classesFile.equals(classesFile)) {
+        writer.write(classCode.code);
+        writer.write('\n');
+        ++count;
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Parse the dependencies of a class from its code.
+   *
+   * @param code the code generated for the class
+   * @return the qualified names of the dependencies, or null if the code contains a class definition, but its
+   *   dependencies cannot be found
+   */
+  static List<String> parseDependencies(String code) {
+    Matcher matcher = DEPENDENCIES_PATTERN.matcher(code);
+    String dependencies = null;
+    // the last match is the one generated by the compiler:
+    while (matcher.find()) {
+      dependencies = matcher.group(1);
+    }
+    if (dependencies == null) {
+      return code.contains(CLASS_DEFINITION_CALL) ? null : Collections.<String>emptyList();
+    }
+    List<String> result = new ArrayList<String>();
+    Matcher nameMatcher = QUOTED_NAME_PATTERN.matcher(dependencies);
+    while (nameMatcher.find()) {
+      result.add(nameMatcher.group(1));
+    }
+    return result;
+  }
+
+  private static File getOffsetsFile(File classesFile) {
+    return new File(classesFile.getPath() + MergedOutputCompilationUnitSinkFactory.OFFSETS_FILE_SUFFIX);
+  }
+
+  private static byte[] readBytes(File file) throws IOException {
+    InputStream inputStream = new FileInputStream(file);
+    try {
+      return IOUtil.toByteArray(inputStream);
+    } finally {
+      inputStream.close();
+    }
+  }
+}
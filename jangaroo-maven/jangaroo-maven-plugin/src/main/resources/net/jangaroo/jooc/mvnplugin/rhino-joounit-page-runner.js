@@ -0,0 +1,323 @@
+// A minimal browser environment to run a JooUnit test page in Rhino, see RhinoTestRunner.
+// The Java runner is available as __runner and calls the functions prefixed by "__" defined below.
+(function(window, runner) {
+  var timers = [];
+  var nextTimerId = 1;
+
+  function log(level, args) {
+    var parts = [];
+    for (var i = 0; i < args.length; i++) {
+      parts.push(String(args[i]));
+    }
+    runner.log(level, parts.join(" "));
+  }
+
+  function readResource(url) {
+    var text = runner.readResource(String(url));
+    return text === null ? null : String(text);
+  }
+
+  // timers, run by the Java runner one by one:
+
+  function addTimer(fn, delay, args, repeat) {
+    if (typeof fn !== "function") {
+      var code = String(fn);
+      fn = function() {
+        window.eval(code);
+      };
+    }
+    delay = Math.max(0, Number(delay) || 0);
+    var timer = {id: nextTimerId++, fn: fn, delay: delay, due: new Date().getTime() + delay, args: args, repeat: repeat};
+    timers.push(timer);
+    return timer.id;
+  }
+
+  function removeTimer(id) {
+    for (var i = 0; i < timers.length; i++) {
+      if (timers[i].id === id) {
+        timers.splice(i, 1);
+        return;
+      }
+    }
+  }
+
+  window.setTimeout = function(fn, delay) {
+    return addTimer(fn, delay, Array.prototype.slice.call(arguments, 2), false);
+  };
+  window.setInterval = function(fn, delay) {
+    return addTimer(fn, delay, Array.prototype.slice.call(arguments, 2), true);
+  };
+  window.clearTimeout = window.clearInterval = removeTimer;
+
+  // Run the timer due next, if it is due already.
+  // Returns the number of milliseconds until the next timer is due, or -1 if there are no more timers.
+  window.__runNextTimer = function() {
+    if (timers.length === 0) {
+      return -1;
+    }
+    timers.sort(function(timer1, timer2) {
+      return timer1.due - timer2.due || timer1.id - timer2.id;
+    });
+    var timer = timers[0];
+    var now = new Date().getTime();
+    if (timer.due > now) {
+      return timer.due - now;
+    }
+    if (timer.repeat) {
+      timer.due = now + timer.delay;
+    } else {
+      timers.shift();
+    }
+    timer.fn.apply(window, timer.args);
+    return 0;
+  };
+
+  // console and joo.trace, like phantomjs-joounit-page-runner.js:
+
+  window.console = {};
+  var logLevels = ["error", "warn", "info", "debug", "log"];
+  for (var l = 0; l < logLevels.length; l++) {
+    (function(level) {
+      window.console[level] = function() {
+        log(level === "log" ? "info" : level, arguments);
+      };
+    })(logLevels[l]);
+  }
+  window.joo = {
+    trace: function trace() {
+      var args = Array.prototype.slice.call(arguments);
+      var level = "info";
+      if (typeof args[0] === "string") {
+        var match = args[0].match(/^\[([A-Z]+)\]$/);
+        if (match) {
+          level = match[1].toLowerCase();
+          args.splice(0, 1);
+        }
+      }
+      log(level, args);
+    }
+  };
+
+  // DOM:
+
+  function Element(tagName) {
+    this.tagName = this.nodeName = tagName.toUpperCase();
+    this.nodeType = 1;
+    this.attributes = {};
+    this.childNodes = [];
+    this.style = {};
+    this.parentNode = null;
+  }
+
+  Element.prototype.setAttribute = function(name, value) {
+    this.attributes[name] = String(value);
+    if (name === "src") {
+      this.src = String(value);
+    }
+  };
+  Element.prototype.getAttribute = function(name) {
+    return this.attributes.hasOwnProperty(name) ? this.attributes[name] : null;
+  };
+  Element.prototype.appendChild = function(child) {
+    this.childNodes.push(child);
+    child.parentNode = this;
+    if (child.tagName === "SCRIPT") {
+      scriptAdded(child);
+    }
+    return child;
+  };
+  Element.prototype.insertBefore = Element.prototype.appendChild;
+  Element.prototype.removeChild = function(child) {
+    for (var i = 0; i < this.childNodes.length; i++) {
+      if (this.childNodes[i] === child) {
+        this.childNodes.splice(i, 1);
+        child.parentNode = null;
+        break;
+      }
+    }
+    return child;
+  };
+  Element.prototype.addEventListener = function(type, listener) {
+    (this.listeners || (this.listeners = [])).push({type: type, listener: listener});
+  };
+  Element.prototype.attachEvent = function(type, listener) {
+    this.addEventListener(type.replace(/^on/, ""), listener);
+  };
+  Element.prototype.getElementsByTagName = function(tagName) {
+    var result = [];
+    collectElements(this, tagName.toUpperCase(), result);
+    return result;
+  };
+
+  function collectElements(element, tagName, result) {
+    for (var i = 0; i < element.childNodes.length; i++) {
+      var child = element.childNodes[i];
+      if (child.nodeType === 1) {
+        if (tagName === "*" || child.tagName === tagName) {
+          result.push(child);
+        }
+        collectElements(child, tagName, result);
+      }
+    }
+  }
+
+  function fireEvent(target, type) {
+    var event = {type: type, target: target};
+    if (typeof target["on" + type] === "function") {
+      target["on" + type](event);
+    }
+    var listeners = target.listeners || [];
+    for (var i = 0; i < listeners.length; i++) {
+      if (listeners[i].type === type) {
+        listeners[i].listener.call(target, event);
+      }
+    }
+  }
+
+  // a script element added to the document is loaded asynchronously, like in a browser:
+  function scriptAdded(script) {
+    if (script.src) {
+      window.setTimeout(function() {
+        if (runner.loadScript(script.src)) {
+          script.readyState = "complete";
+          fireEvent(script, "readystatechange");
+          fireEvent(script, "load");
+        } else {
+          fireEvent(script, "error");
+        }
+      }, 0);
+    } else if (script.text || script.childNodes.length > 0) {
+      window.eval(script.text || script.childNodes[0].data);
+    }
+  }
+
+  var documentElement = new Element("html");
+  var head = documentElement.appendChild(new Element("head"));
+  var body = documentElement.appendChild(new Element("body"));
+  var document = new Element("#document");
+  document.nodeType = 9;
+  document.appendChild(documentElement);
+  document.documentElement = documentElement;
+  document.head = head;
+  document.body = body;
+  document.readyState = "loading";
+  document.createElement = function(tagName) {
+    return new Element(tagName);
+  };
+  document.createTextNode = function(data) {
+    return {nodeType: 3, data: String(data)};
+  };
+  document.getElementById = function(id) {
+    var elements = documentElement.getElementsByTagName("*");
+    for (var i = 0; i < elements.length; i++) {
+      if (elements[i].id === id || elements[i].getAttribute("id") === id) {
+        return elements[i];
+      }
+    }
+    return null;
+  };
+  // scripts written to the document are loaded before the current script continues:
+  document.write = document.writeln = function(html) {
+    var scriptPattern = /<script\b([^>]*)>([\s\S]*?)<\/script\s*>/gi;
+    var match;
+    while ((match = scriptPattern.exec(String(html)))) {
+      var srcMatch = match[1].match(/\bsrc\s*=\s*(?:"([^"]*)"|'([^']*)')/i);
+      var script = new Element("script");
+      head.childNodes.push(script);
+      if (srcMatch) {
+        script.setAttribute("src", srcMatch[1] || srcMatch[2]);
+        runner.loadScript(script.src);
+      } else {
+        window.eval(match[2]);
+      }
+    }
+  };
+  window.document = document;
+  window.window = window.self = window.top = window.parent = window;
+  window.navigator = {userAgent: "Mozilla/5.0 (Java; Rhino) JooUnit", platform: "Java", language: "en"};
+  window.addEventListener = Element.prototype.addEventListener;
+  window.attachEvent = Element.prototype.attachEvent;
+
+  // XMLHttpRequest, reading resources the same way scripts are loaded:
+
+  function XMLHttpRequest() {
+    this.readyState = 0;
+    this.status = 0;
+    this.responseText = "";
+  }
+  XMLHttpRequest.prototype.open = function(method, url, async) {
+    this.method = method;
+    this.url = url;
+    this.async = async !== false;
+    this.readyState = 1;
+  };
+  XMLHttpRequest.prototype.send = function() {
+    var xhr = this;
+    function complete() {
+      var text = readResource(xhr.url);
+      xhr.status = text === null ? 404 : 200;
+      xhr.statusText = text === null ? "Not Found" : "OK";
+      xhr.responseText = text === null ? "" : text;
+      xhr.readyState = 4;
+      fireEvent(xhr, "readystatechange");
+      fireEvent(xhr, text === null ? "error" : "load");
+    }
+    if (xhr.async) {
+      window.setTimeout(complete, 0);
+    } else {
+      complete();
+    }
+  };
+  XMLHttpRequest.prototype.abort = function() {
+  };
+  XMLHttpRequest.prototype.setRequestHeader = function() {
+  };
+  XMLHttpRequest.prototype.overrideMimeType = function() {
+  };
+  XMLHttpRequest.prototype.getResponseHeader = function() {
+    return null;
+  };
+  XMLHttpRequest.prototype.getAllResponseHeaders = function() {
+    return "";
+  };
+  XMLHttpRequest.prototype.addEventListener = Element.prototype.addEventListener;
+  window.XMLHttpRequest = XMLHttpRequest;
+
+  // page life cycle, driven by the Java runner:
+
+  window.__startPage = function(url) {
+    var hashPos = url.indexOf("#");
+    var searchPos = url.indexOf("?");
+    var hostAndPath = url.replace(/^http:\/\//, "").replace(/[?#].*$/, "");
+    window.location = document.location = {
+      href: url,
+      protocol: "http:",
+      host: hostAndPath.replace(/\/.*$/, ""),
+      hostname: hostAndPath.replace(/\/.*$/, ""),
+      port: "",
+      pathname: hostAndPath.replace(/^[^\/]*/, ""),
+      search: searchPos === -1 || hashPos !== -1 && hashPos < searchPos ? "" : url.substring(searchPos, hashPos === -1 ? url.length : hashPos),
+      hash: hashPos === -1 ? "" : url.substring(hashPos),
+      toString: function() {
+        return this.href;
+      }
+    };
+  };
+
+  window.__finishPage = function(onload) {
+    if (onload) {
+      window.onload = new Function("event", onload);
+    }
+    document.readyState = "complete";
+    fireEvent(document, "DOMContentLoaded");
+    fireEvent(window, "load");
+  };
+
+  window.__getResult = function() {
+    return window.result == null ? null : String(window.result);
+  };
+
+  window.__getClassLoadingError = function() {
+    return window.classLoadingError == null ? null : String(window.classLoadingError);
+  };
+})(this, __runner);
@@ -0,0 +1,91 @@
+package net.jangaroo.jooc.mvnplugin;
+
+import junit.framework.TestCase;
+import net.jangaroo.jooc.Jooc;
+import net.jangaroo.jooc.StdOutCompileLog;
+import net.jangaroo.jooc.api.CompilationResult;
+import net.jangaroo.jooc.backend.MergedOutputCompilationUnitSinkFactory;
+import net.jangaroo.jooc.config.JoocConfiguration;
+import org.apache.commons.io.FileUtils;
+import org.apache.maven.artifact.DefaultArtifact;
+import org.apache.maven.artifact.handler.DefaultArtifactHandler;
+import org.apache.maven.artifact.versioning.VersionRange;
+import org.apache.maven.project.MavenProject;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+
+/**
+ * Builds a module classes file like {@link CompilerMojo} and a Web app from it like {@link WarPackageMojo}.
+ */
+public class PackageApplicationMojoTest extends TestCase {
+
+  private File baseDirectory;
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    baseDirectory = File.createTempFile("PackageApplicationMojoTest", "");
+    assertTrue(baseDirectory.delete());
+    assertTrue(baseDirectory.mkdirs());
+  }
+
+  @Override
+  protected void tearDown() throws Exception {
+    FileUtils.deleteDirectory(baseDirectory);
+    super.tearDown();
+  }
+
+  public void testTreeShaking() throws Exception {
+    File sourceDirectory = new File(baseDirectory, "src");
+    File mainSource = writeFile(sourceDirectory, "app/Main.as",
+            "package app {\npublic class Main {\n  public function Main() {\n    new Used();\n  }\n}\n}\n");
+    File usedSource = writeFile(sourceDirectory, "app/Used.as", "package app {\npublic class Used {\n}\n}\n");
+    File unusedSource = writeFile(sourceDirectory, "app/Unused.as", "package app {\npublic class Unused {\n}\n}\n");
+
+    File tempClassesDirectory = new File(baseDirectory, "temp/classes");
+    JoocConfiguration configuration = new JoocConfiguration();
+    configuration.setSourcePath(Collections.singletonList(sourceDirectory));
+    configuration.setSourceFiles(Arrays.asList(mainSource, usedSource, unusedSource));
+    configuration.setOutputDirectory(new File(baseDirectory, "classes"));
+    configuration.setNonDebugOutputDirectory(tempClassesDirectory);
+    assertEquals(CompilationResult.RESULT_CODE_OK, new Jooc(configuration, new StdOutCompileLog()).run().getResultCode());
+
+    File webappDirectory = new File(baseDirectory, "webapp");
+    File classesFile = new File(webappDirectory, "joo/net.jangaroo.test.app.classes.js");
+    new CompilerMojo().buildOutputFile(configuration, tempClassesDirectory, classesFile);
+    assertTrue(new File(classesFile.getPath() + MergedOutputCompilationUnitSinkFactory.OFFSETS_FILE_SUFFIX).exists());
+    assertTrue(FileUtils.readFileToString(classesFile, "UTF-8").contains("public class Unused"));
+
+    PackageApplicationMojo packageApplicationMojo = new PackageApplicationMojo() {
+      @Override
+      public File getPackageSourceDirectory() {
+        return null;
+      }
+
+      @Override
+      public void execute() {
+      }
+    };
+    packageApplicationMojo.project = new MavenProject();
+    packageApplicationMojo.project.setArtifact(new DefaultArtifact("net.jangaroo.test", "app",
+            VersionRange.createFromVersion("1.0"), "compile", "jar", null, new DefaultArtifactHandler("jar")));
+    packageApplicationMojo.setTreeShakingMainClass("app.Main");
+    packageApplicationMojo.createWebapp(webappDirectory);
+
+    String applicationCode = FileUtils.readFileToString(new File(webappDirectory, "joo/jangaroo-application-all.js"), "UTF-8");
+    assertTrue(applicationCode.contains("public class Main"));
+    assertTrue(applicationCode.contains("public class Used"));
+    assertFalse("unreachable class must be dropped", applicationCode.contains("public class Unused"));
+    // used classes come before the classes using them:
+    assertTrue(applicationCode.indexOf("public class Used") < applicationCode.indexOf("public class Main"));
+  }
+
+  private static File writeFile(File directory, String path, String content) throws IOException {
+    File file = new File(directory, path);
+    FileUtils.writeStringToFile(file, content, "UTF-8");
+    return file;
+  }
+}
@@ -2,16 +2,26 @@ package net.jangaroo.jooc.mvnplugin.test;
 
 import junit.framework.Assert;
 import junit.framework.TestCase;
+import org.apache.commons.io.FileUtils;
 import org.apache.maven.model.Resource;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.MojoFailureException;
+import org.w3c.dom.Element;
+import org.xml.sax.InputSource;
 import org.xml.sax.SAXException;
 
+import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.transform.TransformerException;
 import java.io.File;
 import java.io.IOException;
 import java.io.StringReader;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  *
@@ -76,5 +86,151 @@ public class JooTestMojoTest extends TestCase {
     }
   }
 
+  public void testGetTestShards() throws IOException {
+    File f = File.createTempFile("JooTestMojoTest", "");
+    Assert.assertTrue(f.delete());
+    File packageDir = new File(f, "a");
+    Assert.assertTrue(packageDir.mkdirs());
+    for (File file : new File[]{new File(packageDir, "BTest.as"), new File(packageDir, "CTest.mxml"),
+            new File(f, "DTest.as"), new File(packageDir, "Helper.as")}) {
+      Assert.assertTrue(file.createNewFile());
+    }
+    try {
+      jooTestMojo.setTestSourceDirectory(f);
+      jooTestMojo.setJooUnitShards(1);
+      Assert.assertEquals(Collections.singletonList(Collections.<String>emptyList()), jooTestMojo.getTestShards());
+      jooTestMojo.setJooUnitShards(2);
+      Assert.assertEquals(Arrays.asList(Arrays.asList("DTest", "a.CTest"), Arrays.asList("a.BTest")),
+              jooTestMojo.getTestShards());
+      // never more shards than test classes:
+      jooTestMojo.setJooUnitShards(5);
+      Assert.assertEquals(3, jooTestMojo.getTestShards().size());
+    } finally {
+      FileUtils.deleteDirectory(f);
+    }
+  }
+
+  public void testMergeTestResults() throws IOException, SAXException, ParserConfigurationException, TransformerException {
+    String testResult1 = "<?xml version=\"1.0\" encoding=\"ISO-8859-1\" ?>\n" +
+            "<testsuite errors=\"0\" failures=\"1\" name=\"suite\" tests=\"2\" time=\"281\">" +
+            "<testcase name=\"testA\"/><testcase name=\"testB\"><failure/></testcase></testsuite>";
+    String testResult2 = "<?xml version=\"1.0\" encoding=\"ISO-8859-1\" ?>\n" +
+            "<testsuite errors=\"1\" failures=\"0\" name=\"suite\" tests=\"1\" time=\"100\">" +
+            "<testcase name=\"testC\"><error/></testcase></testsuite>";
+    String merged = jooTestMojo.mergeTestResults(Arrays.asList(testResult1, testResult2));
+    Element suite = DocumentBuilderFactory.newInstance().newDocumentBuilder()
+            .parse(new InputSource(new StringReader(merged))).getDocumentElement();
+    Assert.assertEquals("testsuite", suite.getTagName());
+    Assert.assertEquals("suite", suite.getAttribute("name"));
+    Assert.assertEquals("3", suite.getAttribute("tests"));
+    Assert.assertEquals("1", suite.getAttribute("failures"));
+    Assert.assertEquals("1", suite.getAttribute("errors"));
+    Assert.assertEquals("381", suite.getAttribute("time"));
+    Assert.assertEquals(3, suite.getElementsByTagName("testcase").getLength());
+  }
+
+
+  public void testMergeTestResultsWithDuplicateTestCases() throws IOException, SAXException, ParserConfigurationException, TransformerException {
+    String testResult = "<testsuite errors=\"0\" failures=\"0\" name=\"suite\" tests=\"1\" time=\"10\">" +
+            "<testcase classname=\"a.BTest\" name=\"testA\"/></testsuite>";
+    Assert.assertNull(jooTestMojo.mergeTestResults(Arrays.asList(testResult, testResult)));
+  }
+
+  public void testExecuteShards() throws Exception {
+    File f = File.createTempFile("JooTestMojoTest", "");
+    Assert.assertTrue(f.delete());
+    final List<Integer> runShards = Collections.synchronizedList(new ArrayList<Integer>());
+    try {
+      jooTestMojo.setTestResultOutputDirectory(f);
+      jooTestMojo.setTestResultFileName("TEST-shards.xml");
+      jooTestMojo.executeShards(Arrays.asList(Arrays.asList("a.BTest"), Arrays.asList("a.CTest"), Arrays.asList("a.DTest")),
+              new JooTestMojo.TestShardRunner() {
+                @Override
+                public String run(int shard, List<String> testClasses) {
+                  if (shard > 0) {
+                    // the first shard is run alone:
+                    Assert.assertTrue(runShards.contains(0));
+                  }
+                  runShards.add(shard);
+                  return "<testsuite errors=\"0\" failures=\"0\" name=\"suite\" tests=\"1\" time=\"10\">" +
+                          "<testcase classname=\"" + testClasses.get(0) + "\" name=\"test\"/></testsuite>";
+                }
+              });
+      Collections.sort(runShards);
+      Assert.assertEquals(Arrays.asList(0, 1, 2), runShards);
+      Element suite = DocumentBuilderFactory.newInstance().newDocumentBuilder()
+              .parse(new File(f, "TEST-shards.xml")).getDocumentElement();
+      Assert.assertEquals("3", suite.getAttribute("tests"));
+      Assert.assertEquals(3, suite.getElementsByTagName("testcase").getLength());
+    } finally {
+      FileUtils.deleteDirectory(f);
+    }
+  }
+
+  public void testExecuteShardsWithTestPageIgnoringTestClasses() throws Exception {
+    File f = File.createTempFile("JooTestMojoTest", "");
+    Assert.assertTrue(f.delete());
+    final List<List<String>> runShardClasses = Collections.synchronizedList(new ArrayList<List<String>>());
+    try {
+      jooTestMojo.setTestResultOutputDirectory(f);
+      jooTestMojo.setTestResultFileName("TEST-shards.xml");
+      // a test page that ignores the test classes parameter runs all tests in every shard:
+      jooTestMojo.executeShards(Arrays.asList(Arrays.asList("a.BTest"), Arrays.asList("a.CTest")),
+              new JooTestMojo.TestShardRunner() {
+                @Override
+                public String run(int shard, List<String> testClasses) {
+                  runShardClasses.add(testClasses);
+                  return "<testsuite errors=\"0\" failures=\"0\" name=\"suite\" tests=\"2\" time=\"10\">" +
+                          "<testcase classname=\"a.BTest\" name=\"testB\"/>" +
+                          "<testcase classname=\"a.CTest\" name=\"testC\"/></testsuite>";
+                }
+              });
+      // the tests are run only once:
+      Assert.assertEquals(Collections.singletonList(Arrays.asList("a.BTest")), runShardClasses);
+      Element suite = DocumentBuilderFactory.newInstance().newDocumentBuilder()
+              .parse(new File(f, "TEST-shards.xml")).getDocumentElement();
+      Assert.assertEquals("2", suite.getAttribute("tests"));
+      Assert.assertEquals(2, suite.getElementsByTagName("testcase").getLength());
+    } finally {
+      FileUtils.deleteDirectory(f);
+    }
+  }
+
+  public void testExecuteShardsStopsOtherShardsOnFailure() throws MojoFailureException {
+    final CountDownLatch slowShardStarted = new CountDownLatch(1);
+    final AtomicBoolean slowShardInterrupted = new AtomicBoolean();
+    final AtomicBoolean slowShardRunning = new AtomicBoolean();
+    try {
+      jooTestMojo.executeShards(Arrays.asList(Arrays.asList("a.BTest"), Arrays.asList("a.CTest"), Arrays.asList("a.DTest")),
+              new JooTestMojo.TestShardRunner() {
+                @Override
+                public String run(int shard, List<String> testClasses) throws Exception {
+                  if (shard == 0) {
+                    return "<testsuite tests=\"0\"/>";
+                  }
+                  if (shard == 1) {
+                    slowShardStarted.await();
+                    throw new MojoExecutionException("There are errors in test shard 1");
+                  }
+                  slowShardRunning.set(true);
+                  slowShardStarted.countDown();
+                  try {
+                    Thread.sleep(10000);
+                  } catch (InterruptedException e) {
+                    slowShardInterrupted.set(true);
+                    throw e;
+                  } finally {
+                    slowShardRunning.set(false);
+                  }
+                  return "<testsuite tests=\"0\"/>";
+                }
+              });
+      fail("shard failure expected");
+    } catch (MojoExecutionException e) {
+      Assert.assertEquals("There are errors in test shard 1", e.getMessage());
+    }
+    Assert.assertTrue("other shard has not been interrupted", slowShardInterrupted.get());
+    Assert.assertFalse("other shard is still running", slowShardRunning.get());
+  }
 
 }
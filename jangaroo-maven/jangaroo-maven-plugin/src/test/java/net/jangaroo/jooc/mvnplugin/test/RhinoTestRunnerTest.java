@@ -0,0 +1,121 @@
+package net.jangaroo.jooc.mvnplugin.test;
+
+import junit.framework.TestCase;
+import org.apache.commons.io.FileUtils;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.SystemStreamLog;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+
+/**
+ * Runs tiny test pages through {@link RhinoTestRunner}.
+ */
+public class RhinoTestRunnerTest extends TestCase {
+
+  private static final String RESULT = "<testsuite errors=\"0\" failures=\"0\" name=\"SomeTest\" tests=\"1\" time=\"1\"></testsuite>";
+
+  private File baseDirectory;
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    baseDirectory = File.createTempFile("RhinoTestRunnerTest", "");
+    assertTrue(baseDirectory.delete());
+    assertTrue(baseDirectory.mkdirs());
+  }
+
+  @Override
+  protected void tearDown() throws Exception {
+    FileUtils.deleteDirectory(baseDirectory);
+    super.tearDown();
+  }
+
+  public void testResultSetByTimer() throws Exception {
+    writeFile("scripts/result.js", "var xmlResult = '" + RESULT + "';");
+    writeFile("tests.html", "<html><head>\n" +
+            "<script type=\"text/javascript\" src=\"scripts/result.js\"></script>\n" +
+            "<script type=\"text/javascript\">\n" +
+            "  function finish() { setTimeout(function() { window.result = xmlResult; }, 10); }\n" +
+            "</script>\n" +
+            "</head><body onload=\"finish()\"></body></html>");
+    assertEquals(RESULT, createRunner("tests.html", 10000).execute());
+  }
+
+  public void testClassLoadingError() throws Exception {
+    writeFile("tests.html", "<html><head>\n" +
+            "<script type=\"text/javascript\">\n" +
+            "  setTimeout(function() { window.classLoadingError = 'Class SomeTest not found.'; }, 0);\n" +
+            "</script>\n" +
+            "</head><body></body></html>");
+    try {
+      createRunner("tests.html", 10000).execute();
+      fail("class loading error expected");
+    } catch (MojoExecutionException e) {
+      assertEquals("Class SomeTest not found.", e.getMessage());
+    }
+  }
+
+  public void testTimeoutInEndlessLoop() throws Exception {
+    writeFile("tests.html", "<html><head>\n" +
+            "<script type=\"text/javascript\">\n" +
+            "  setTimeout(function() { try { while (true) {} } catch (e) { window.result = 'caught'; } }, 0);\n" +
+            "</script>\n" +
+            "</head><body></body></html>");
+    long start = System.currentTimeMillis();
+    try {
+      createRunner("tests.html", 500).execute();
+      fail("timeout expected");
+    } catch (MojoExecutionException e) {
+      assertEquals("No test result from tests.html after 500 ms.", e.getMessage());
+    }
+    assertTrue("runner did not stop after the timeout", System.currentTimeMillis() - start < 10000);
+  }
+
+  public void testNoResult() throws Exception {
+    writeFile("tests.html", "<html><head></head><body></body></html>");
+    try {
+      createRunner("tests.html", 10000).execute();
+      fail("missing result expected");
+    } catch (MojoExecutionException e) {
+      assertEquals("Test page tests.html finished without a test result.", e.getMessage());
+    }
+  }
+
+  public void testInterrupt() throws Exception {
+    writeFile("tests.html", "<html><head>\n" +
+            "<script type=\"text/javascript\">\n" +
+            "  setTimeout(function() { while (true) {} }, 0);\n" +
+            "</script>\n" +
+            "</head><body></body></html>");
+    final RhinoTestRunner runner = createRunner("tests.html", 60000);
+    final MojoExecutionException[] exception = new MojoExecutionException[1];
+    Thread thread = new Thread() {
+      @Override
+      public void run() {
+        try {
+          runner.execute();
+        } catch (MojoExecutionException e) {
+          exception[0] = e;
+        }
+      }
+    };
+    thread.start();
+    Thread.sleep(200);
+    thread.interrupt();
+    thread.join(10000);
+    assertFalse("runner did not stop when interrupted", thread.isAlive());
+    assertNotNull(exception[0]);
+    assertEquals("Interrupted while running tests in Rhino.", exception[0].getMessage());
+  }
+
+  private RhinoTestRunner createRunner(String testPage, int timeout) {
+    return new RhinoTestRunner(Collections.singletonList(baseDirectory), Collections.<File>emptyList(),
+            testPage, timeout, new SystemStreamLog());
+  }
+
+  private void writeFile(String path, String content) throws IOException {
+    FileUtils.writeStringToFile(new File(baseDirectory, path), content, "UTF-8");
+  }
+}
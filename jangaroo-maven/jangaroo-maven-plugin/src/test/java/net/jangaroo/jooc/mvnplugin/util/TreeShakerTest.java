@@ -0,0 +1,117 @@
+package net.jangaroo.jooc.mvnplugin.util;
+
+import junit.framework.TestCase;
+import org.apache.commons.io.FileUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ *
+ */
+public class TreeShakerTest extends TestCase {
+
+  private File directory;
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    directory = File.createTempFile("TreeShakerTest", "");
+    assertTrue(directory.delete());
+    assertTrue(directory.mkdirs());
+  }
+
+  @Override
+  protected void tearDown() throws Exception {
+    FileUtils.deleteDirectory(directory);
+    super.tearDown();
+  }
+
+  private static String classCode(String className, String... dependencies) {
+    StringBuilder dependencyList = new StringBuilder();
+    for (String dependency : dependencies) {
+      if (dependencyList.length() > 0) {
+        dependencyList.append(',');
+      }
+      dependencyList.append('"').append(dependency).append('"');
+    }
+    return "joo.classLoader.prepare(\"package p\",\"public class " + className + "\",1,function($$private){return[" +
+            "\"public function foo\",function(){return [\"not\",\"a dependency\"];},undefined];},[]," +
+            "[" + dependencyList + "], \"0.9\", \"1.0\");\n";
+  }
+
+  private File writeClassesFile(String fileName, String... classCodes) throws IOException {
+    StringBuilder code = new StringBuilder();
+    StringBuilder offsets = new StringBuilder();
+    for (String classCode : classCodes) {
+      int start = code.toString().getBytes("UTF-8").length;
+      code.append(classCode);
+      String className = classCode.substring(classCode.indexOf("public class ") + 13, classCode.indexOf("\",1,"));
+      offsets.append(className).append('\t').append(start).append('\t').append(code.toString().getBytes("UTF-8").length).append('\n');
+    }
+    File classesFile = new File(directory, fileName);
+    FileUtils.writeStringToFile(classesFile, code.toString(), "UTF-8");
+    FileUtils.writeStringToFile(new File(classesFile.getPath() + ".offsets"), offsets.toString(), "UTF-8");
+    return classesFile;
+  }
+
+  public void testParseDependencies() {
+    assertEquals(Arrays.asList("p.B", "joo.Native"), TreeShaker.parseDependencies(classCode("p.A", "p.B", "joo.Native")));
+    assertEquals(Collections.<String>emptyList(), TreeShaker.parseDependencies(classCode("p.A")));
+  }
+
+  public void testParseDependenciesWithTrailingComment() {
+    // in debug output, the whitespace before the closing brace of the package is kept, including comments:
+    String code = classCode("p.A", "p.B").replace("\"1.0\");", "\"1.0\"\n/* end of class */\n// end of package p\n);");
+    assertEquals(Arrays.asList("p.B"), TreeShaker.parseDependencies(code));
+  }
+
+  public void testUnparsableDependencies() throws IOException {
+    assertNull(TreeShaker.parseDependencies("joo.classLoader.prepare(\"package p\",\"public class p.A\",1,null,[],[\"p.B\"]);\n"));
+    File classesFile = writeClassesFile("g.broken.classes.js",
+            classCode("p.A", "p.B").replace(", \"0.9\", \"1.0\");", ");"));
+    try {
+      new TreeShaker().addClassesFile(classesFile);
+      fail("classes must not be shaken out because of unknown dependencies");
+    } catch (IOException e) {
+      assertTrue(e.getMessage().contains("p.A"));
+    }
+  }
+
+  public void testReachableClasses() throws IOException {
+    File libraryFile = writeClassesFile("g.library.classes.js",
+            classCode("p.Base"),
+            classCode("p.Unused", "p.Base"),
+            classCode("p.Helper", "p.Base"));
+    File appFile = writeClassesFile("g.app.classes.js",
+            classCode("p.Main", "p.Helper", "p.Other", "joo.Native"),
+            classCode("p.Other", "p.Main"));
+    TreeShaker treeShaker = new TreeShaker();
+    treeShaker.addClassesFiles(directory);
+    assertEquals(5, treeShaker.getClassCount());
+    assertTrue(treeShaker.isReducible(libraryFile));
+
+    List<String> reachableClasses = new ArrayList<String>(treeShaker.computeReachableClasses(Collections.singleton("p.Main")));
+    assertEquals(Arrays.asList("p.Base", "p.Helper", "p.Other", "p.Main"), reachableClasses);
+
+    StringWriter libraryCode = new StringWriter();
+    assertEquals(2, treeShaker.writeReachableClasses(libraryFile, libraryCode));
+    assertTrue(libraryCode.toString().contains("public class p.Helper"));
+    assertFalse(libraryCode.toString().contains("p.Unused"));
+    StringWriter appCode = new StringWriter();
+    assertEquals(2, treeShaker.writeReachableClasses(appFile, appCode));
+  }
+
+  public void testClassesFileWithoutOffsets() throws IOException {
+    File classesFile = new File(directory, "g.runtime.classes.js");
+    FileUtils.writeStringToFile(classesFile, classCode("joo.Native"), "UTF-8");
+    TreeShaker treeShaker = new TreeShaker();
+    assertFalse(treeShaker.addClassesFile(classesFile));
+    assertFalse(treeShaker.isReducible(classesFile));
+  }
+}
@@ -16,6 +16,7 @@ public class ExmlConfiguration extends FileLocations {
   private File resourceOutputDirectory;
   private ValidationMode validationMode = ValidationMode.OFF;
   private CompileLog log;
+  private int threads = 1;
 
   public String getConfigClassPackage() {
     return configClassPackage;
@@ -44,6 +45,15 @@ public class ExmlConfiguration extends FileLocations {
     this.validationMode = validationMode;
   }
 
+  public int getThreads() {
+    return threads;
+  }
+
+  @Option(name="-threads", aliases = "--threads", usage = "number of threads used to generate config and component classes; defaults to 1 (no concurrency)")
+  public void setThreads(int threads) {
+    this.threads = threads;
+  }
+
   /**
    * Set the compile log to be used.
    * Currently, Exmlc uses it only for validation errors / warning if {@link #setValidationMode validation mode}
@@ -70,7 +80,7 @@ public class ExmlConfiguration extends FileLocations {
   @SuppressWarnings({"UnusedDeclaration" })
   public File computeGeneratedComponentClassFile(File exmlFile) throws IOException {
     File sourceDir = findSourceDir(exmlFile);
-    String qName = CompilerUtils.qNameFromFile(sourceDir, exmlFile);
+    String qName = findQName(exmlFile);
     String className = ExmlUtils.createComponentClassName(CompilerUtils.className(qName));
     String packageName = CompilerUtils.packageName(qName);
     // compute potential file location of component class in source directory:
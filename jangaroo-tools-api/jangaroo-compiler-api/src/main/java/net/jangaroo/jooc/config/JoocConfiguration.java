@@ -21,10 +21,21 @@ public class JoocConfiguration extends FileLocations implements JoocOptions, Par
   private boolean allowDuplicateLocalVariables;
 
   private File apiOutputDirectory;
+  private File nonDebugOutputDirectory;
+  private File moduleOutputFile;
+  private File buildIndexFile;
 
   private boolean mergeOutput = false;
   private String outputFileName;
 
+  private int threads = 1;
+
+  private boolean generateSourceMaps = false;
+
+  private boolean minify = false;
+
+  private boolean compactMemberDeclarations = false;
+
   public SemicolonInsertionMode getSemicolonInsertionMode() {
     return semicolonInsertionMode;
   }
@@ -132,6 +143,42 @@ public class JoocConfiguration extends FileLocations implements JoocOptions, Par
     this.allowDuplicateLocalVariables = allowDuplicateLocalVariables;
   }
 
+  public int getThreads() {
+    return threads;
+  }
+
+  @Option(name="-threads", aliases = "--threads", usage = "number of threads used to parse source files and generate output; defaults to 1 (no concurrency)")
+  public void setThreads(int threads) {
+    this.threads = threads;
+  }
+
+  public boolean isGenerateSourceMaps() {
+    return generateSourceMaps;
+  }
+
+  @Option(name="-sourcemap", aliases = "--sourceMaps", usage = "generate a Source Map v3 file next to each generated JavaScript file, mapping it back to the ActionScript sources")
+  public void setGenerateSourceMaps(boolean generateSourceMaps) {
+    this.generateSourceMaps = generateSourceMaps;
+  }
+
+  public boolean isMinify() {
+    return minify;
+  }
+
+  @Option(name="-minify", aliases = "--minify", usage = "minify generated JavaScript code without debug information by shortening local and private names and removing whitespace")
+  public void setMinify(boolean minify) {
+    this.minify = minify;
+  }
+
+  public boolean isCompactMemberDeclarations() {
+    return compactMemberDeclarations;
+  }
+
+  @Option(name="-compactmembers", aliases = "--compactMemberDeclarations", usage = "generate class member declarations as pre-parsed bit flags instead of modifier strings, which requires a runtime of the same release")
+  public void setCompactMemberDeclarations(boolean compactMemberDeclarations) {
+    this.compactMemberDeclarations = compactMemberDeclarations;
+  }
+
   public File getApiOutputDirectory() {
     return apiOutputDirectory;
   }
@@ -141,4 +188,31 @@ public class JoocConfiguration extends FileLocations implements JoocOptions, Par
     this.apiOutputDirectory = apiOutputDirectory;
   }
 
+  public File getNonDebugOutputDirectory() {
+    return nonDebugOutputDirectory;
+  }
+
+  @Option(name="-ndd", aliases = "--nonDebugDir", usage = "destination directory where to additionally generate one JavaScript file per class without debug information")
+  public void setNonDebugOutputDirectory(File nonDebugOutputDirectory) {
+    this.nonDebugOutputDirectory = nonDebugOutputDirectory;
+  }
+
+  public File getModuleOutputFile() {
+    return moduleOutputFile;
+  }
+
+  @Option(name="-mod", aliases = "--moduleFile", usage = "file to which the JavaScript code of all compiled classes is additionally written, without debug information")
+  public void setModuleOutputFile(File moduleOutputFile) {
+    this.moduleOutputFile = moduleOutputFile;
+  }
+
+  public File getBuildIndexFile() {
+    return buildIndexFile;
+  }
+
+  @Option(name="-bi", aliases = "--buildIndex", usage = "file in which to keep hashes and dependencies of all source files, so that only changed source files and their dependents are recompiled; not used with merged output")
+  public void setBuildIndexFile(File buildIndexFile) {
+    this.buildIndexFile = buildIndexFile;
+  }
+
 }
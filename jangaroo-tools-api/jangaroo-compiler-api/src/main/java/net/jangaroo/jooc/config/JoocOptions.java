@@ -18,4 +18,10 @@ public interface JoocOptions {
    * annotation.
    */
   boolean isExcludeClassByDefault();
+
+  /**
+   * If true, the compiler generates the modifiers of class members as numeric bit flags that the runtime
+   * uses directly, instead of modifier strings the runtime has to parse when initializing a class.
+   */
+  boolean isCompactMemberDeclarations();
  }
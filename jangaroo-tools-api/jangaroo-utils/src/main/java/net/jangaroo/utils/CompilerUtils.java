@@ -59,7 +59,16 @@ public final class CompilerUtils {
   }
 
   public static String qNameFromFile(File baseDirectory, File file) {
-    String relativePath = getRelativePath(baseDirectory, file);
+    return qNameFromRelativePath(getRelativePath(baseDirectory, file));
+  }
+
+  /**
+   * Returns the qualified name of a file given by its path relative to its source root.
+   *
+   * @param relativePath the relative path, may be null
+   * @return the qualified name, or null if the relative path is null or has no extension
+   */
+  public static String qNameFromRelativePath(String relativePath) {
     if (relativePath != null) {
       int lastDotPos = relativePath.lastIndexOf('.');
       if (lastDotPos != -1 && lastDotPos > relativePath.lastIndexOf(File.separatorChar)) {
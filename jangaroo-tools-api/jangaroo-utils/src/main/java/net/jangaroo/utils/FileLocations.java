@@ -22,15 +22,47 @@ public class FileLocations {
   private List<File> classPath = new ArrayList<File>(); // may contain directories and jar files
   // the directory into which output files are generated
   private File outputDirectory;
-
+  // resolves files against the source path, caching canonical paths for this run
+  private volatile SourceRoots sourceRoots;
+
+  /**
+   * Find the source root directory of the given source file.
+   *
+   * @param file the source file
+   * @return the (innermost) source path entry containing the file, or null if the file is not in the source path
+   * @throws IOException if the canonical path of the file cannot be determined
+   */
   public File findSourceDir(final File file) throws IOException {
-    File canonicalFile = file.getCanonicalFile();
-    for (File sourceDir : getSourcePath()) {
-      if (CompilerUtils.qNameFromFile(sourceDir, canonicalFile) != null) {
-        return sourceDir;
-      }
+    return findQName(file) == null ? null : getSourceRoots().findRoot(file);
+  }
+
+  /**
+   * Find the qualified name of the given source file, derived from its path relative to its source root directory.
+   * This is the same as <code>CompilerUtils.qNameFromFile(findSourceDir(file), file)</code>, but needs no
+   * additional file system access.
+   *
+   * @param file the source file
+   * @return the qualified name, or null if the file is not in the source path
+   * @throws IOException if the canonical path of the file cannot be determined
+   */
+  public String findQName(final File file) throws IOException {
+    return getSourceRoots().getQName(file);
+  }
+
+  /**
+   * Returns the source path as a table that allows to resolve source files quickly. The same instance is used
+   * until the source path changes, so that every file is canonicalized only once.
+   *
+   * @return the source roots of this source path
+   * @throws IOException if the canonical path of a source path entry cannot be determined
+   */
+  public SourceRoots getSourceRoots() throws IOException {
+    SourceRoots result = sourceRoots;
+    if (result == null) {
+      result = new SourceRoots(getSourcePath());
+      sourceRoots = result;
     }
-    return null;
+    return result;
   }
 
   public File getOutputDirectory() {
@@ -53,6 +85,7 @@ public class FileLocations {
       canonicalizedSourcePath.add(file.getCanonicalFile());
     }
     this.sourcePath = Collections.unmodifiableList(canonicalizedSourcePath);
+    this.sourceRoots = null;
   }
 
   public List<File> getClassPath() {
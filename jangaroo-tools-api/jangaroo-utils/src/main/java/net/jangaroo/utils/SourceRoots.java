@@ -0,0 +1,112 @@
+package net.jangaroo.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Resolves files against a set of source root directories, e.g. to determine the qualified name of a source file.
+ * <p>Every root is canonicalized only once, and so is every resolved file, as canonicalizing a path is an expensive
+ * system call. The roots are kept in a table sorted by their canonical paths, so that the root of a file is found
+ * by a binary search for the longest root path that is a prefix of the file's canonical path. Thus, when source
+ * roots are nested, a file belongs to the innermost root.</p>
+ * <p>As canonical paths are cached, an instance should only be used for one compiler run. Instances are
+ * thread-safe.</p>
+ */
+public final class SourceRoots {
+
+  private final File[] roots;
+  // the canonical paths of all roots, each followed by a file separator, sorted ascending:
+  private final String[] rootPaths;
+  private final ConcurrentMap<File, String> canonicalPaths = new ConcurrentHashMap<File, String>();
+
+  /**
+   * Create a resolver for the given source roots.
+   *
+   * @param roots the source root directories
+   * @throws IOException if the canonical path of a root cannot be determined
+   */
+  public SourceRoots(List<File> roots) throws IOException {
+    SortedMap<String, File> rootsByPath = new TreeMap<String, File>();
+    for (File root : roots) {
+      String rootPath = getCanonicalPath(root) + File.separator;
+      // if the same directory is given twice, the first one wins:
+      if (!rootsByPath.containsKey(rootPath)) {
+        rootsByPath.put(rootPath, root);
+      }
+    }
+    this.rootPaths = rootsByPath.keySet().toArray(new String[rootsByPath.size()]);
+    this.roots = rootsByPath.values().toArray(new File[rootsByPath.size()]);
+  }
+
+  /**
+   * Returns the canonical path of the given file, which is only determined once.
+   *
+   * @param file the file
+   * @return the canonical path of the file
+   * @throws IOException if the canonical path cannot be determined
+   */
+  public String getCanonicalPath(File file) throws IOException {
+    String canonicalPath = canonicalPaths.get(file);
+    if (canonicalPath == null) {
+      canonicalPath = file.getCanonicalPath();
+      canonicalPaths.put(file, canonicalPath);
+    }
+    return canonicalPath;
+  }
+
+  /**
+   * Find the innermost source root the given file is located in.
+   *
+   * @param file the file
+   * @return the source root as given to the constructor, or null if the file is not below any source root
+   * @throws IOException if the canonical path of the file cannot be determined
+   */
+  public File findRoot(File file) throws IOException {
+    int index = findRootIndex(getCanonicalPath(file));
+    return index == -1 ? null : roots[index];
+  }
+
+  /**
+   * Returns the path of the given file relative to its innermost source root.
+   *
+   * @param file the file
+   * @return the relative path, or null if the file is not below any source root
+   * @throws IOException if the canonical path of the file cannot be determined
+   */
+  public String getRelativePath(File file) throws IOException {
+    String canonicalPath = getCanonicalPath(file);
+    int index = findRootIndex(canonicalPath);
+    return index == -1 ? null : canonicalPath.substring(rootPaths[index].length());
+  }
+
+  /**
+   * Returns the qualified name of the given source file, derived from its path relative to its innermost source root.
+   *
+   * @param file the source file
+   * @return the qualified name, or null if the file is not below any source root or has no extension
+   * @throws IOException if the canonical path of the file cannot be determined
+   * @see CompilerUtils#qNameFromFile(File, File)
+   */
+  public String getQName(File file) throws IOException {
+    return CompilerUtils.qNameFromRelativePath(getRelativePath(file));
+  }
+
+  private int findRootIndex(String canonicalPath) {
+    int index = Arrays.binarySearch(rootPaths, canonicalPath);
+    // Any root path that is a prefix of the canonical path sorts before it, and a longer prefix after a shorter one,
+    // so the first prefix found when going back from the insertion point is the longest one:
+    for (int i = index >= 0 ? index - 1 : -index - 2; i >= 0; i--) {
+      if (canonicalPath.startsWith(rootPaths[i])) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+}
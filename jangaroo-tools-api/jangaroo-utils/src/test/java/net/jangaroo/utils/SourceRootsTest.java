@@ -0,0 +1,55 @@
+package net.jangaroo.utils;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.Arrays;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertNull;
+
+/**
+ *
+ */
+public class SourceRootsTest {
+  @Rule
+  public TemporaryFolder tmpFolder = new TemporaryFolder();
+
+  @Test
+  public void testFindRoot() throws Exception {
+    File main = tmpFolder.newFolder("main");
+    File mainGenerated = new File(main, "generated");
+    File other = tmpFolder.newFolder("main-other");
+    SourceRoots sourceRoots = new SourceRoots(Arrays.asList(other, main, mainGenerated));
+
+    File file = new File(main, "irgend/wo/Was.as");
+    assertEquals(main, sourceRoots.findRoot(file));
+    assertEquals("irgend.wo.Was", sourceRoots.getQName(file));
+    assertEquals("Was", sourceRoots.getQName(new File(other, "Was.as")));
+    // nested roots: the innermost one wins
+    assertEquals(mainGenerated, sourceRoots.findRoot(new File(mainGenerated, "Was.as")));
+    assertEquals("Was", sourceRoots.getQName(new File(mainGenerated, "Was.as")));
+    // a non-canonical path is canonicalized:
+    assertEquals("Was", sourceRoots.getQName(new File(main, "irgend/../Was.as")));
+
+    assertNull(sourceRoots.findRoot(main));
+    assertNull(sourceRoots.findRoot(new File(tmpFolder.getRoot(), "Was.as")));
+    assertNull(sourceRoots.findRoot(new File(tmpFolder.getRoot(), "main2/Was.as")));
+    assertNull(sourceRoots.getQName(new File(main, "irgend/wo")));
+  }
+
+  @Test
+  public void testFileLocations() throws Exception {
+    File main = tmpFolder.newFolder("main");
+    File test = tmpFolder.newFolder("test");
+    FileLocations locations = new FileLocations();
+    locations.setSourcePath(Arrays.asList(main, test));
+    File file = new File(test, "irgend/wo/Was.as");
+    assertEquals(test.getCanonicalFile(), locations.findSourceDir(file));
+    assertEquals("irgend.wo.Was", locations.findQName(file));
+    assertEquals(CompilerUtils.qNameFromFile(locations.findSourceDir(file), file), locations.findQName(file));
+    assertNull(locations.findSourceDir(new File(test, "irgend/wo")));
+  }
+}
@@ -0,0 +1,42 @@
+package net.jangaroo.properties.api;
+
+import net.jangaroo.utils.FileLocations;
+import org.kohsuke.args4j.Option;
+
+import java.io.File;
+
+/**
+ * The configuration of the properties compiler, adding options for incremental and concurrent compilation
+ * to the plain file locations.
+ */
+public class PropcConfiguration extends FileLocations {
+  private File buildIndexFile;
+  private int threads = 1;
+
+  public File getBuildIndexFile() {
+    return buildIndexFile;
+  }
+
+  @Option(name="-bi", aliases = "--buildIndex", usage = "file in which to keep content hashes of all properties files, so that only changed properties files are compiled again")
+  public void setBuildIndexFile(File buildIndexFile) {
+    this.buildIndexFile = buildIndexFile;
+  }
+
+  public int getThreads() {
+    return threads;
+  }
+
+  @Option(name="-threads", aliases = "--threads", usage = "number of threads used to generate properties classes; defaults to 1 (no concurrency)")
+  public void setThreads(int threads) {
+    this.threads = threads;
+  }
+
+  @Override
+  public String toString() {
+    return "PropcConfiguration{" +
+            "buildIndexFile=" + buildIndexFile +
+            ", threads=" + threads +
+            ", " + super.toString() +
+            '}';
+  }
+}
@@ -26,7 +26,7 @@ public class PropcHelper {
   public static String computeBaseClassName(FileLocations locations, File srcFile) {
     String className;
     try {
-      className = CompilerUtils.qNameFromFile(locations.findSourceDir(srcFile), srcFile);
+      className = locations.findQName(srcFile);
     } catch (IOException e) {
       throw new PropcException(e);
     }
@@ -0,0 +1,75 @@
+package net.jangaroo.jooc.benchmark;
+
+import net.jangaroo.jooc.ast.CompilationUnit;
+import net.jangaroo.jooc.backend.ActionScriptCodeGeneratingModelVisitor;
+import net.jangaroo.jooc.backend.ApiModelGenerator;
+import net.jangaroo.jooc.model.CompilationUnitModel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures building the API model of an analyzed corpus with {@link ApiModelGenerator}, and rendering it as
+ * ActionScript API stubs.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Thread)
+public class ApiModelGeneratorBenchmark {
+
+  @Param({Corpus.RUNTIME, Corpus.SYNTHETIC})
+  public String corpus;
+
+  private Corpus sources;
+  private BenchmarkParser parser;
+  private List<CompilationUnit> units;
+
+  @Setup(Level.Trial)
+  public void analyzeCorpus() throws Exception {
+    sources = Corpus.load(corpus);
+    parser = new BenchmarkParser(sources);
+    units = parser.scopeAndAnalyze(sources);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    parser.tearDown();
+  }
+
+  @Benchmark
+  public void generateModel(LineCounter lineCounter, Blackhole blackhole) throws IOException {
+    ApiModelGenerator apiModelGenerator = new ApiModelGenerator(false);
+    for (CompilationUnit unit : units) {
+      blackhole.consume(apiModelGenerator.generateModel(unit));
+    }
+    lineCounter.lines += sources.getLineCount();
+  }
+
+  @Benchmark
+  public void generateApiStubs(LineCounter lineCounter) throws IOException {
+    ApiModelGenerator apiModelGenerator = new ApiModelGenerator(false);
+    for (CompilationUnit unit : units) {
+      CompilationUnitModel model = apiModelGenerator.generateModel(unit);
+      model.visit(new ActionScriptCodeGeneratingModelVisitor(new NullWriter()));
+    }
+    lineCounter.lines += sources.getLineCount();
+  }
+}
@@ -0,0 +1,82 @@
+package net.jangaroo.jooc.benchmark;
+
+import net.jangaroo.jooc.JangarooParser;
+import net.jangaroo.jooc.StdOutCompileLog;
+import net.jangaroo.jooc.ast.CompilationUnit;
+import net.jangaroo.jooc.config.JoocConfiguration;
+import net.jangaroo.jooc.input.InputSource;
+import net.jangaroo.jooc.input.PathInputSource;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A parser set up with the source and class path of a corpus that takes compilation units from a given set of
+ * already parsed units instead of parsing them, so that scoping can be measured separately from parsing.
+ */
+final class BenchmarkParser extends JangarooParser {
+
+  private final Map<String, CompilationUnit> parsedUnits;
+
+  BenchmarkParser(Corpus corpus, Map<String, CompilationUnit> parsedUnits) throws IOException {
+    super(new JoocConfiguration(), new StdOutCompileLog());
+    this.parsedUnits = parsedUnits;
+    setUp(PathInputSource.fromFiles(Collections.singletonList(corpus.getSourceDirectory()), new String[]{""}, true),
+            PathInputSource.fromFiles(corpus.getClassPath(), new String[]{"", JOO_API_IN_JAR_DIRECTORY_PREFIX}, false));
+  }
+
+  BenchmarkParser(Corpus corpus) throws IOException {
+    this(corpus, Collections.<String, CompilationUnit>emptyMap());
+  }
+
+  /**
+   * Parse all sources of the given corpus and of its class path.
+   *
+   * @return the compilation units, by path of their source
+   */
+  static Map<String, CompilationUnit> parseAll(Corpus corpus) throws Exception {
+    Map<String, CompilationUnit> result = new HashMap<String, CompilationUnit>();
+    StdOutCompileLog log = new StdOutCompileLog();
+    parseAll(corpus.getSources(), log, result);
+    parseAll(corpus.getClassPathSources(), log, result);
+    return result;
+  }
+
+  private static void parseAll(List<Corpus.Source> sources, StdOutCompileLog log, Map<String, CompilationUnit> result) throws Exception {
+    for (Corpus.Source source : sources) {
+      result.put(source.getInputSource().getPath(), source.parse(log));
+    }
+  }
+
+  /**
+   * Scope all sources of the given corpus, including the class path sources they import, and analyze them.
+   *
+   * @return the analyzed compilation units of the corpus' sources
+   */
+  List<CompilationUnit> scopeAndAnalyze(Corpus corpus) {
+    List<CompilationUnit> units = new ArrayList<CompilationUnit>(corpus.getSources().size());
+    for (Corpus.Source source : corpus.getSources()) {
+      // like the compiler, parse the sources to compile completely, even if imported as a dependency before:
+      units.add(importSource(source.getInputSource()));
+    }
+    for (CompilationUnit unit : units) {
+      unit.analyze(null);
+    }
+    return units;
+  }
+
+  @Override
+  protected CompilationUnit parse(InputSource in, boolean declarationsOnly) {
+    CompilationUnit unit = parsedUnits.get(in.getPath());
+    if (unit == null) {
+      return super.parse(in, declarationsOnly);
+    }
+    unit.setCompiler(this);
+    unit.setSource(in);
+    return unit;
+  }
+}
@@ -0,0 +1,83 @@
+package net.jangaroo.jooc.benchmark;
+
+import net.jangaroo.jooc.Jooc;
+import net.jangaroo.jooc.JsWriter;
+import net.jangaroo.jooc.ast.CompilationUnit;
+import net.jangaroo.jooc.backend.JsCodeGenerator;
+import net.jangaroo.jooc.config.DebugMode;
+import net.jangaroo.jooc.config.JoocConfiguration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures JavaScript code generation by {@link JsCodeGenerator} for an analyzed corpus, with and without
+ * debug information.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Thread)
+public class CodeGeneratorBenchmark {
+
+  @Param({Corpus.RUNTIME, Corpus.SYNTHETIC})
+  public String corpus;
+
+  @Param({"SOURCE", "NONE"})
+  public String debugMode;
+
+  private Corpus sources;
+  private BenchmarkParser parser;
+  private List<CompilationUnit> units;
+  private JoocConfiguration config;
+
+  @Setup(Level.Trial)
+  public void analyzeCorpus() throws Exception {
+    sources = Corpus.load(corpus);
+    parser = new BenchmarkParser(sources);
+    units = new ArrayList<CompilationUnit>();
+    for (CompilationUnit unit : parser.scopeAndAnalyze(sources)) {
+      if (unit.getAnnotation(Jooc.NATIVE_ANNOTATION_NAME) == null) {
+        units.add(unit);
+      }
+    }
+    config = new JoocConfiguration();
+    config.setDebugMode("NONE".equals(debugMode) ? null : DebugMode.valueOf(debugMode));
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    parser.tearDown();
+  }
+
+  @Benchmark
+  public void generateCode(LineCounter lineCounter) throws IOException {
+    for (CompilationUnit unit : units) {
+      JsWriter out = new JsWriter(new NullWriter());
+      out.setOptions(config);
+      try {
+        unit.visit(new JsCodeGenerator(out));
+      } finally {
+        out.close();
+      }
+    }
+    lineCounter.lines += sources.getLineCount();
+  }
+}
@@ -0,0 +1,30 @@
+package net.jangaroo.jooc.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the compiler benchmarks, always with the GC profiler, so that the allocation rate is reported next to
+ * the throughput in operations and lines per second. Accepts the usual JMH command line options, e.g. a regular
+ * expression selecting the benchmarks to run.
+ */
+public final class CompilerBenchmarks {
+
+  private CompilerBenchmarks() {
+  }
+
+  public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+    CommandLineOptions commandLineOptions = new CommandLineOptions(args);
+    OptionsBuilder options = new OptionsBuilder();
+    options.parent(commandLineOptions);
+    if (commandLineOptions.getIncludes().isEmpty()) {
+      options.include(CompilerBenchmarks.class.getPackage().getName() + ".*Benchmark");
+    }
+    options.addProfiler(GCProfiler.class);
+    new Runner(options.build()).run();
+  }
+}
@@ -0,0 +1,274 @@
+package net.jangaroo.jooc.benchmark;
+
+import net.jangaroo.jooc.JooParser;
+import net.jangaroo.jooc.Scanner;
+import net.jangaroo.jooc.api.CompileLog;
+import net.jangaroo.jooc.ast.CompilationUnit;
+import net.jangaroo.jooc.config.SemicolonInsertionMode;
+import net.jangaroo.jooc.input.FileInputSource;
+import net.jangaroo.jooc.input.InputSource;
+import net.jangaroo.utils.CompilerUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A set of ActionScript sources to run the compiler benchmarks on. All sources are read into memory up front,
+ * so that the benchmarks do not measure file I/O.
+ * <ul>
+ * <li>{@link #RUNTIME}: the sources of jangaroo-runtime, which compile without any class path. Their location
+ * is taken from the system property {@link #RUNTIME_SOURCES_PROPERTY} and defaults to the runtime module
+ * next to this module.</li>
+ * <li>{@link #SYNTHETIC}: generated classes forming a deep inheritance chain with fields, methods, loops and
+ * closures, compiled with the jangaroo-runtime sources on the class path.</li>
+ * </ul>
+ */
+public final class Corpus {
+
+  public static final String RUNTIME = "runtime";
+  public static final String SYNTHETIC = "synthetic";
+  public static final String RUNTIME_SOURCES_PROPERTY = "jangaroo.runtime.sources";
+
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+  private static final int SYNTHETIC_CLASS_COUNT = 200;
+
+  /**
+   * One source file of a corpus.
+   */
+  public static final class Source {
+    private final String qName;
+    private final InputSource inputSource;
+    private final String text;
+
+    private Source(String qName, InputSource inputSource, String text) {
+      this.qName = qName;
+      this.inputSource = inputSource;
+      this.text = text;
+    }
+
+    public String getQName() {
+      return qName;
+    }
+
+    public InputSource getInputSource() {
+      return inputSource;
+    }
+
+    public String getText() {
+      return text;
+    }
+
+    public Scanner createScanner() {
+      Scanner scanner = new Scanner(new StringReader(text));
+      scanner.setInputSource(inputSource);
+      return scanner;
+    }
+
+    public CompilationUnit parse(CompileLog log) throws Exception {
+      return parse(log, false);
+    }
+
+    public CompilationUnit parse(CompileLog log, boolean declarationsOnly) throws Exception {
+      Scanner scanner = createScanner();
+      scanner.setSkipFunctionBodies(declarationsOnly);
+      JooParser parser = new JooParser(scanner);
+      parser.setCompileLog(log);
+      parser.setSemicolonInsertionMode(SemicolonInsertionMode.WARN);
+      return (CompilationUnit) parser.parse().value;
+    }
+  }
+
+  private final File sourceDirectory;
+  private final List<Source> sources;
+  private final List<File> classPath;
+  private final List<Source> classPathSources;
+  private final long lineCount;
+
+  private Corpus(File sourceDirectory, List<Source> sources, List<File> classPath, List<Source> classPathSources) {
+    this.sourceDirectory = sourceDirectory;
+    this.sources = sources;
+    this.classPath = classPath;
+    this.classPathSources = classPathSources;
+    long lines = 0;
+    for (Source source : sources) {
+      lines += countLines(source.getText());
+    }
+    this.lineCount = lines;
+  }
+
+  public static Corpus load(String name) throws IOException {
+    File runtimeSourceDirectory = getRuntimeSourceDirectory();
+    if (RUNTIME.equals(name)) {
+      return new Corpus(runtimeSourceDirectory, readSources(runtimeSourceDirectory, true),
+              Collections.<File>emptyList(), Collections.<Source>emptyList());
+    }
+    if (SYNTHETIC.equals(name)) {
+      File sourceDirectory = Files.createTempDirectory("jangaroo-benchmark").toFile();
+      sourceDirectory.deleteOnExit();
+      writeSyntheticSources(sourceDirectory);
+      return new Corpus(sourceDirectory, readSources(sourceDirectory, true),
+              Collections.singletonList(runtimeSourceDirectory), readSources(runtimeSourceDirectory, false));
+    }
+    throw new IllegalArgumentException("unknown corpus: " + name);
+  }
+
+  public File getSourceDirectory() {
+    return sourceDirectory;
+  }
+
+  public List<Source> getSources() {
+    return sources;
+  }
+
+  public List<File> getClassPath() {
+    return classPath;
+  }
+
+  /**
+   * The sources on the class path, as far as they may be imported by this corpus' sources.
+   */
+  public List<Source> getClassPathSources() {
+    return classPathSources;
+  }
+
+  /**
+   * The total number of lines of this corpus' sources, not counting the class path.
+   */
+  public long getLineCount() {
+    return lineCount;
+  }
+
+  private static File getRuntimeSourceDirectory() {
+    String path = System.getProperty(RUNTIME_SOURCES_PROPERTY);
+    List<File> candidates = new ArrayList<File>();
+    if (path != null) {
+      candidates.add(new File(path));
+    } else {
+      candidates.add(new File("../jangaroo-runtime/src/main/joo"));
+      candidates.add(new File("jangaroo/jangaroo-runtime/src/main/joo"));
+    }
+    for (File candidate : candidates) {
+      if (candidate.isDirectory()) {
+        return candidate.getAbsoluteFile();
+      }
+    }
+    throw new IllegalStateException("jangaroo-runtime sources not found at " + candidates
+            + ", please set system property " + RUNTIME_SOURCES_PROPERTY);
+  }
+
+  private static List<Source> readSources(File sourceDirectory, boolean inSourcePath) throws IOException {
+    List<File> files = new ArrayList<File>();
+    collectSourceFiles(sourceDirectory, files);
+    Collections.sort(files);
+    List<Source> result = new ArrayList<Source>(files.size());
+    for (File file : files) {
+      String text = new String(Files.readAllBytes(file.toPath()), UTF_8);
+      result.add(new Source(CompilerUtils.qNameFromFile(sourceDirectory, file),
+              new FileInputSource(sourceDirectory, file, inSourcePath), text));
+    }
+    return result;
+  }
+
+  private static void collectSourceFiles(File directory, List<File> files) {
+    File[] children = directory.listFiles();
+    if (children != null) {
+      for (File child : children) {
+        if (child.isDirectory()) {
+          collectSourceFiles(child, files);
+        } else if (child.getName().endsWith(".as")) {
+          files.add(child);
+        }
+      }
+    }
+  }
+
+  private static void writeSyntheticSources(File sourceDirectory) throws IOException {
+    File packageDirectory = new File(sourceDirectory, "synthetic");
+    if (!packageDirectory.mkdirs()) {
+      throw new IOException("cannot create directory " + packageDirectory);
+    }
+    for (int i = 0; i < SYNTHETIC_CLASS_COUNT; i++) {
+      File file = new File(packageDirectory, "Class" + i + ".as");
+      Writer writer = Files.newBufferedWriter(file.toPath(), UTF_8);
+      try {
+        writer.write(generateClass(i));
+      } finally {
+        writer.close();
+      }
+      file.deleteOnExit();
+    }
+    packageDirectory.deleteOnExit();
+  }
+
+  private static String generateClass(int i) {
+    String className = "Class" + i;
+    StringBuilder code = new StringBuilder();
+    code.append("package synthetic {\n\n");
+    code.append("/**\n * Generated class number ").append(i).append(".\n */\n");
+    code.append("public class ").append(className);
+    if (i > 0) {
+      code.append(" extends Class").append(i - 1);
+    }
+    code.append(" {\n\n");
+    code.append("  public static const NAME").append(i).append(":String = \"").append(className).append("\";\n");
+    code.append("  private var items").append(i).append(":Array = [];\n");
+    code.append("  protected var count").append(i).append(":int = 0;\n\n");
+    code.append("  public function ").append(className).append("(count:int = ").append(i).append(") {\n");
+    if (i > 0) {
+      code.append("    super(count);\n");
+    }
+    code.append("    this.count").append(i).append(" = count;\n");
+    code.append("  }\n\n");
+    code.append("  public function add").append(i).append("(item:Object, ...rest):").append(className).append(" {\n");
+    code.append("    items").append(i).append(".push(item);\n");
+    code.append("    for each (var other:Object in rest) {\n");
+    code.append("      items").append(i).append(".push(other);\n");
+    code.append("    }\n");
+    code.append("    count").append(i).append(" += 1 + rest.length;\n");
+    code.append("    return this;\n");
+    code.append("  }\n\n");
+    code.append("  public function sum").append(i).append("():Number {\n");
+    code.append("    var result:Number = 0;\n");
+    code.append("    for (var j:int = 0; j < items").append(i).append(".length; j++) {\n");
+    code.append("      if (items").append(i).append("[j] is Number) {\n");
+    code.append("        result += Number(items").append(i).append("[j]);\n");
+    code.append("      } else {\n");
+    code.append("        result += String(items").append(i).append("[j]).length;\n");
+    code.append("      }\n");
+    code.append("    }\n");
+    if (i > 0) {
+      code.append("    return result + sum").append(i - 1).append("();\n");
+    } else {
+      code.append("    return result;\n");
+    }
+    code.append("  }\n\n");
+    code.append("  public function visit").append(i).append("(callback:Function):void {\n");
+    code.append("    var self:").append(className).append(" = this;\n");
+    code.append("    items").append(i).append(".forEach(function(item:*, index:int):void {\n");
+    code.append("      callback.call(self, item, index + count").append(i).append(", NAME").append(i).append(");\n");
+    code.append("    });\n");
+    code.append("  }\n\n");
+    code.append("  override public function toString():String {\n");
+    code.append("    return NAME").append(i).append(" + \"(\" + count").append(i).append(" + \")\";\n");
+    code.append("  }\n");
+    code.append("}\n}\n");
+    return code.toString();
+  }
+
+  private static int countLines(String text) {
+    int lines = 1;
+    for (int i = 0; i < text.length(); i++) {
+      if (text.charAt(i) == '\n') {
+        ++lines;
+      }
+    }
+    return lines;
+  }
+}
@@ -0,0 +1,23 @@
+package net.jangaroo.jooc.benchmark;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Counts the source lines processed by a benchmark, so that JMH reports the throughput in lines per time unit
+ * next to the operations per time unit.
+ */
+@State(Scope.Thread)
+@AuxCounters(AuxCounters.Type.OPERATIONS)
+public class LineCounter {
+
+  public long lines;
+
+  @Setup(Level.Iteration)
+  public void reset() {
+    lines = 0;
+  }
+}
@@ -0,0 +1,29 @@
+package net.jangaroo.jooc.benchmark;
+
+import java.io.Writer;
+
+/**
+ * A writer that discards everything, so that code generation benchmarks do not measure I/O.
+ */
+final class NullWriter extends Writer {
+
+  @Override
+  public void write(int c) {
+  }
+
+  @Override
+  public void write(char[] cbuf, int off, int len) {
+  }
+
+  @Override
+  public void write(String str, int off, int len) {
+  }
+
+  @Override
+  public void flush() {
+  }
+
+  @Override
+  public void close() {
+  }
+}
@@ -0,0 +1,65 @@
+package net.jangaroo.jooc.benchmark;
+
+import net.jangaroo.jooc.StdOutCompileLog;
+import net.jangaroo.jooc.ast.CompilationUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures parsing a corpus with {@link net.jangaroo.jooc.JooParser}, including tokenization.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Thread)
+public class ParserBenchmark {
+
+  @Param({Corpus.RUNTIME, Corpus.SYNTHETIC})
+  public String corpus;
+
+  private Corpus sources;
+  private StdOutCompileLog log;
+
+  @Setup(Level.Trial)
+  public void loadCorpus() throws IOException {
+    sources = Corpus.load(corpus);
+    log = new StdOutCompileLog();
+  }
+
+  @Benchmark
+  public void parse(LineCounter lineCounter, Blackhole blackhole) throws Exception {
+    for (Corpus.Source source : sources.getSources()) {
+      CompilationUnit unit = source.parse(log);
+      blackhole.consume(unit);
+    }
+    lineCounter.lines += sources.getLineCount();
+  }
+
+  /**
+   * Parse like for a dependency, i.e. skip all function bodies.
+   */
+  @Benchmark
+  public void parseDeclarations(LineCounter lineCounter, Blackhole blackhole) throws Exception {
+    for (Corpus.Source source : sources.getSources()) {
+      CompilationUnit unit = source.parse(log, true);
+      blackhole.consume(unit);
+    }
+    lineCounter.lines += sources.getLineCount();
+  }
+}
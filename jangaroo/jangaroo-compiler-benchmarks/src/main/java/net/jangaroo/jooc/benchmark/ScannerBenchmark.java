@@ -0,0 +1,54 @@
+package net.jangaroo.jooc.benchmark;
+
+import net.jangaroo.jooc.Scanner;
+import net.jangaroo.jooc.sym;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures tokenization of a corpus by the JFlex generated {@link Scanner}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Thread)
+public class ScannerBenchmark {
+
+  @Param({Corpus.RUNTIME, Corpus.SYNTHETIC})
+  public String corpus;
+
+  private Corpus sources;
+
+  @Setup(Level.Trial)
+  public void loadCorpus() throws IOException {
+    sources = Corpus.load(corpus);
+  }
+
+  @Benchmark
+  public int scan(LineCounter lineCounter) throws IOException {
+    int tokenCount = 0;
+    for (Corpus.Source source : sources.getSources()) {
+      Scanner scanner = source.createScanner();
+      while (scanner.next_token().sym != sym.EOF) {
+        ++tokenCount;
+      }
+    }
+    lineCounter.lines += sources.getLineCount();
+    return tokenCount;
+  }
+}
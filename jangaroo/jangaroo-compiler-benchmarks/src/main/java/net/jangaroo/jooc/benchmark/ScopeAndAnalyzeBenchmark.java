@@ -0,0 +1,61 @@
+package net.jangaroo.jooc.benchmark;
+
+import net.jangaroo.jooc.ast.CompilationUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link CompilationUnit#scope} and {@link CompilationUnit#analyze} of a corpus, including the class path
+ * compilation units it imports. As scoping modifies the AST, all compilation units are parsed again before each
+ * invocation, outside of the measurement.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Thread)
+public class ScopeAndAnalyzeBenchmark {
+
+  @Param({Corpus.RUNTIME, Corpus.SYNTHETIC})
+  public String corpus;
+
+  private Corpus sources;
+  private Map<String, CompilationUnit> parsedUnits;
+
+  @Setup(Level.Trial)
+  public void loadCorpus() throws Exception {
+    sources = Corpus.load(corpus);
+  }
+
+  @Setup(Level.Invocation)
+  public void parse() throws Exception {
+    parsedUnits = BenchmarkParser.parseAll(sources);
+  }
+
+  @Benchmark
+  public List<CompilationUnit> scopeAndAnalyze(LineCounter lineCounter) throws Exception {
+    BenchmarkParser parser = new BenchmarkParser(sources, parsedUnits);
+    try {
+      List<CompilationUnit> units = parser.scopeAndAnalyze(sources);
+      lineCounter.lines += sources.getLineCount();
+      return units;
+    } finally {
+      parser.tearDown();
+    }
+  }
+}
@@ -0,0 +1,363 @@
+package net.jangaroo.jooc;
+
+import net.jangaroo.jooc.ast.CompilationUnit;
+import net.jangaroo.jooc.backend.ActionScriptCodeGeneratingModelVisitor;
+import net.jangaroo.jooc.backend.ApiModelGenerator;
+import net.jangaroo.jooc.config.JoocConfiguration;
+import net.jangaroo.jooc.input.FileInputSource;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.UnsupportedEncodingException;
+import java.io.Writer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Pattern;
+
+/**
+ * A persistent index of the source files compiled into one output directory, used to recompile only what
+ * is necessary. For every source file, the index stores a hash of its content, a hash of its public API
+ * (the generated ActionScript API stub), and the classes it depends on.
+ * <p>A source file is recompiled if its content changed or any of its output files (debug, non-debug and API
+ * output) is missing. Additionally, all
+ * source files that depend on a class whose public API changed are recompiled. A class whose public API
+ * refers to a changed class (e.g. a subclass) is regarded as changed, too.</p>
+ * <p>The whole index is invalidated when compiler options or class path entries change.</p>
+ */
+public class BuildIndex {
+
+  private static final String FORMAT_VERSION = "2";
+  private static final String HASH_ALGORITHM = "SHA-1";
+  private static final String FIELD_SEPARATOR = "\t";
+  private static final String LIST_SEPARATOR = ",";
+  private static final String FILE_LIST_SEPARATOR = File.pathSeparator;
+
+  private static final class Entry {
+    private String qName;
+    private String contentHash;
+    private String apiHash;
+    private List<File> outputFiles;
+    private Set<String> dependencies;
+    private Set<String> publicApiDependencies;
+  }
+
+  private final File indexFile;
+  private final String optionsHash;
+  private final Map<File, Entry> entries = new LinkedHashMap<File, Entry>();
+  private final Map<File, String> contentHashes = new HashMap<File, String>();
+  private final Set<File> compiledSourceFiles = new HashSet<File>();
+  private final Set<String> removedQNames = new HashSet<String>();
+
+  private BuildIndex(File indexFile, String optionsHash) {
+    this.indexFile = indexFile;
+    this.optionsHash = optionsHash;
+  }
+
+  /**
+   * Load the build index from the index file given in the configuration. If the file does not exist, cannot
+   * be read, or has been created with different options, an empty index is returned, so that all source
+   * files are compiled.
+   */
+  public static BuildIndex load(JoocConfiguration config) {
+    BuildIndex buildIndex = new BuildIndex(config.getBuildIndexFile(), computeOptionsHash(config));
+    if (buildIndex.indexFile.exists()) {
+      try {
+        if (!buildIndex.read()) {
+          buildIndex.entries.clear();
+        }
+      } catch (IOException e) {
+        Jooc.warning("cannot read build index " + buildIndex.indexFile + ", recompiling all sources: " + e.getMessage());
+        buildIndex.entries.clear();
+      }
+    }
+    return buildIndex;
+  }
+
+  /**
+   * Determine which of the given source files have to be compiled because their content changed or one of
+   * their output files is missing. Source files that are no longer part of the given source files are removed
+   * from the index, and their classes are regarded as changed.
+   *
+   * @param sourceFiles all source files of the module
+   * @return the source files to compile
+   */
+  public List<File> getChangedSourceFiles(List<File> sourceFiles) throws IOException {
+    Set<File> removedSourceFiles = new HashSet<File>(entries.keySet());
+    List<File> changedSourceFiles = new ArrayList<File>();
+    for (File sourceFile : sourceFiles) {
+      File file = sourceFile.getAbsoluteFile();
+      removedSourceFiles.remove(file);
+      String contentHash = hash(file);
+      contentHashes.put(file, contentHash);
+      Entry entry = entries.get(file);
+      if (entry == null || !entry.contentHash.equals(contentHash) || isAnyMissing(entry.outputFiles)) {
+        changedSourceFiles.add(sourceFile);
+      }
+    }
+    for (File removedSourceFile : removedSourceFiles) {
+      removedQNames.add(entries.remove(removedSourceFile).qName);
+    }
+    return changedSourceFiles;
+  }
+
+  private static boolean isAnyMissing(List<File> files) {
+    for (File file : files) {
+      if (!file.exists()) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Record the given freshly compiled compilation units and determine the source files that depend on
+   * a changed public API and thus have to be recompiled, too.
+   *
+   * @param compilationUnits the compilation units compiled since the last update
+   * @param outputFilesMap maps source files to all their output files
+   * @param excludeClassByDefault passed on to the API model generator
+   * @return the source files that have to be compiled additionally, never containing already compiled ones
+   */
+  public List<File> update(List<CompilationUnit> compilationUnits, Map<File, List<File>> outputFilesMap,
+                           boolean excludeClassByDefault) throws IOException {
+    Set<String> newlyChangedApis = new HashSet<String>();
+    for (CompilationUnit compilationUnit : compilationUnits) {
+      File compiledFile = ((FileInputSource)compilationUnit.getSource()).getFile();
+      File sourceFile = compiledFile.getAbsoluteFile();
+      compiledSourceFiles.add(sourceFile);
+      Entry entry = new Entry();
+      entry.qName = compilationUnit.getPrimaryDeclaration().getQualifiedNameStr();
+      String contentHash = contentHashes.get(sourceFile);
+      entry.contentHash = contentHash == null ? hash(sourceFile) : contentHash;
+      entry.apiHash = hash(renderApi(compilationUnit, excludeClassByDefault));
+      List<File> outputFiles = outputFilesMap.get(compiledFile);
+      entry.outputFiles = outputFiles == null ? Collections.<File>emptyList() : new ArrayList<File>(outputFiles);
+      entry.dependencies = new TreeSet<String>(compilationUnit.getDependencies());
+      entry.publicApiDependencies = new TreeSet<String>(compilationUnit.getPublicApiDependencies());
+      Entry oldEntry = entries.put(sourceFile, entry);
+      if (oldEntry == null || !oldEntry.apiHash.equals(entry.apiHash) || !oldEntry.qName.equals(entry.qName)) {
+        newlyChangedApis.add(entry.qName);
+        if (oldEntry != null) {
+          newlyChangedApis.add(oldEntry.qName);
+        }
+      }
+    }
+    // classes removed since the last build count as changed in the first update:
+    newlyChangedApis.addAll(removedQNames);
+    removedQNames.clear();
+    addPublicApiDependents(newlyChangedApis);
+
+    List<File> dependentSourceFiles = new ArrayList<File>();
+    for (Map.Entry<File, Entry> fileAndEntry : entries.entrySet()) {
+      if (!compiledSourceFiles.contains(fileAndEntry.getKey())
+              && !Collections.disjoint(fileAndEntry.getValue().dependencies, newlyChangedApis)) {
+        dependentSourceFiles.add(fileAndEntry.getKey());
+      }
+    }
+    return dependentSourceFiles;
+  }
+
+  /**
+   * Extend the given set of classes with changed public API by all classes whose public API
+   * (transitively) refers to one of them.
+   */
+  private void addPublicApiDependents(Set<String> changedQNames) {
+    boolean added;
+    do {
+      added = false;
+      for (Entry entry : entries.values()) {
+        if (!changedQNames.contains(entry.qName)
+                && !Collections.disjoint(entry.publicApiDependencies, changedQNames)) {
+          changedQNames.add(entry.qName);
+          added = true;
+        }
+      }
+    } while (added);
+  }
+
+  /**
+   * Write the build index to its index file.
+   */
+  public void save() throws IOException {
+    File parentDir = indexFile.getAbsoluteFile().getParentFile();
+    if (!parentDir.exists() && !parentDir.mkdirs()) {
+      throw new IOException("cannot create directory " + parentDir);
+    }
+    Writer writer = new OutputStreamWriter(new FileOutputStream(indexFile), "UTF-8");
+    try {
+      writer.write(FORMAT_VERSION + FIELD_SEPARATOR + optionsHash + "\n");
+      for (Map.Entry<File, Entry> fileAndEntry : entries.entrySet()) {
+        Entry entry = fileAndEntry.getValue();
+        writer.write(fileAndEntry.getKey().getPath() + FIELD_SEPARATOR
+                + entry.qName + FIELD_SEPARATOR
+                + entry.contentHash + FIELD_SEPARATOR
+                + entry.apiHash + FIELD_SEPARATOR
+                + joinFiles(entry.outputFiles) + FIELD_SEPARATOR
+                + join(entry.dependencies) + FIELD_SEPARATOR
+                + join(entry.publicApiDependencies) + "\n");
+      }
+    } finally {
+      writer.close();
+    }
+  }
+
+  /**
+   * @return false if the index file has been written in another format or with other options
+   */
+  private boolean read() throws IOException {
+    BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(indexFile), "UTF-8"));
+    try {
+      String header = reader.readLine();
+      if (!(FORMAT_VERSION + FIELD_SEPARATOR + optionsHash).equals(header)) {
+        return false;
+      }
+      String line;
+      while ((line = reader.readLine()) != null) {
+        String[] fields = line.split(FIELD_SEPARATOR, -1);
+        if (fields.length != 7) {
+          throw new IOException("corrupt build index entry: " + line);
+        }
+        Entry entry = new Entry();
+        entry.qName = fields[1];
+        entry.contentHash = fields[2];
+        entry.apiHash = fields[3];
+        entry.outputFiles = splitFiles(fields[4]);
+        entry.dependencies = split(fields[5]);
+        entry.publicApiDependencies = split(fields[6]);
+        entries.put(new File(fields[0]), entry);
+      }
+      return true;
+    } finally {
+      reader.close();
+    }
+  }
+
+  private static String renderApi(CompilationUnit compilationUnit, boolean excludeClassByDefault) throws IOException {
+    StringWriter writer = new StringWriter();
+    new ApiModelGenerator(excludeClassByDefault).generateModel(compilationUnit)
+            .visit(new ActionScriptCodeGeneratingModelVisitor(writer));
+    return writer.toString();
+  }
+
+  /**
+   * Compute a hash of all options that influence the output of every compilation unit, including the
+   * class path, so that the index is invalidated whenever one of them changes.
+   */
+  private static String computeOptionsHash(JoocConfiguration config) {
+    StringBuilder options = new StringBuilder();
+    options.append(config.getDebugMode())
+            .append('|').append(config.getSemicolonInsertionMode())
+            .append('|').append(config.isEnableAssertions())
+            .append('|').append(config.isAllowDuplicateLocalVariables())
+            .append('|').append(config.getPublicApiViolationsMode())
+            .append('|').append(config.isExcludeClassByDefault())
+            .append('|').append(config.getOutputDirectory())
+            .append('|').append(config.getApiOutputDirectory())
+            .append('|').append(config.getNonDebugOutputDirectory())
+            .append('|').append(config.getModuleOutputFile())
+            .append('|').append(config.isGenerateSourceMaps())
+            .append('|').append(config.isMinify())
+            .append('|').append(config.isCompactMemberDeclarations())
+            .append('|').append(config.isMergeOutput() ? config.getOutputFileName() : null)
+            .append('|').append(config.getSourcePath());
+    for (File classPathEntry : config.getClassPath()) {
+      options.append('|').append(classPathEntry.getAbsolutePath())
+              .append(':').append(classPathEntry.lastModified())
+              .append(':').append(classPathEntry.length());
+    }
+    try {
+      return hash(options.toString());
+    } catch (UnsupportedEncodingException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static String hash(File file) throws IOException {
+    MessageDigest digest = createDigest();
+    InputStream in = new FileInputStream(file);
+    try {
+      byte[] buffer = new byte[8192];
+      int count;
+      while ((count = in.read(buffer)) != -1) {
+        digest.update(buffer, 0, count);
+      }
+    } finally {
+      in.close();
+    }
+    return toHex(digest.digest());
+  }
+
+  private static String hash(String content) throws UnsupportedEncodingException {
+    return toHex(createDigest().digest(content.getBytes("UTF-8")));
+  }
+
+  private static MessageDigest createDigest() {
+    try {
+      return MessageDigest.getInstance(HASH_ALGORITHM);
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(HASH_ALGORITHM + " not supported by this JVM", e);
+    }
+  }
+
+  private static String toHex(byte[] bytes) {
+    StringBuilder hex = new StringBuilder(bytes.length * 2);
+    for (byte b : bytes) {
+      hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+    }
+    return hex.toString();
+  }
+
+  private static String join(Set<String> qNames) {
+    StringBuilder result = new StringBuilder();
+    for (String qName : qNames) {
+      if (result.length() > 0) {
+        result.append(LIST_SEPARATOR);
+      }
+      result.append(qName);
+    }
+    return result.toString();
+  }
+
+  private static Set<String> split(String qNames) {
+    return qNames.length() == 0 ? Collections.<String>emptySet()
+            : new HashSet<String>(Arrays.asList(qNames.split(LIST_SEPARATOR)));
+  }
+
+  private static String joinFiles(List<File> files) {
+    StringBuilder result = new StringBuilder();
+    for (File file : files) {
+      if (result.length() > 0) {
+        result.append(FILE_LIST_SEPARATOR);
+      }
+      result.append(file.getPath());
+    }
+    return result.toString();
+  }
+
+  private static List<File> splitFiles(String paths) {
+    List<File> files = new ArrayList<File>();
+    if (paths.length() > 0) {
+      for (String path : paths.split(Pattern.quote(FILE_LIST_SEPARATOR))) {
+        files.add(new File(path));
+      }
+    }
+    return files;
+  }
+}
@@ -28,6 +28,7 @@ import net.jangaroo.jooc.ast.PackageDeclaration;
 import net.jangaroo.jooc.ast.QualifiedIde;
 import net.jangaroo.jooc.ast.VariableDeclaration;
 
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -35,6 +36,7 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 /**
@@ -43,6 +45,7 @@ import java.util.regex.Pattern;
 public class DeclarationScope extends ScopeImplBase {
 
   private static final Pattern AUX_VAR_NAME_PATTERN = Pattern.compile("\\$([0-9]+)");
+  private static final int MAX_AUX_VAR_INDEX_DIGITS = 6;
 
   private AstNode definingNode;
   private Set<String> packages = new HashSet<String>();
@@ -50,6 +53,8 @@ public class DeclarationScope extends ScopeImplBase {
   private Map<String, List<ImportDirective>> importsByName = new HashMap<String, List<ImportDirective>>();
   private Map<String, ImportDirective> importsByQualifiedName = new HashMap<String, ImportDirective>();
   private boolean isInstanceScope = false;
+  // the indices of all auxiliary variables ($1, $2, ...) declared in this scope:
+  private BitSet auxVarIndices = new BitSet();
 
   public boolean isPackage(String fullyQualifiedName) {
     return packages.contains(fullyQualifiedName) || super.isPackage(fullyQualifiedName);
@@ -121,7 +126,11 @@ public class DeclarationScope extends ScopeImplBase {
     if (importsByName.containsKey(name)) {
       throw new CompilerError(ide.getSymbol(), "attempt to redefine an imported identifier " + name);
     }
-    if (AUX_VAR_NAME_PATTERN.matcher(name).matches()) {
+    Matcher auxVarMatcher = AUX_VAR_NAME_PATTERN.matcher(name);
+    if (auxVarMatcher.matches()) {
+      if (auxVarMatcher.group(1).length() <= MAX_AUX_VAR_INDEX_DIGITS) {
+        auxVarIndices.set(Integer.parseInt(auxVarMatcher.group(1)));
+      }
       DeclarationScope packageDeclarationScope = getPackageDeclarationScope();
       if (packageDeclarationScope != null && packageDeclarationScope != this) {
         // also declare local auxiliary vars in package scope to reserve them so they are not used for package names:
@@ -194,15 +203,39 @@ public class DeclarationScope extends ScopeImplBase {
 
   @Override
   public Ide findFreeAuxVar() {
-    int i = 1;
+    int i = nextFreeAuxVarIndex(1);
     while (true) {
-      String auxVarName = "$" + i;
-      Ide auxVar = new Ide(new JooSymbol(auxVarName));
+      // the index is not taken by any declaration in the scope chain, but make sure that it is not an imported
+      // identifier or an inherited class member either:
+      Ide auxVar = new Ide(new JooSymbol("$" + i));
       if (lookupDeclaration(auxVar) == null) {
         return auxVar;
       }
-      ++i;
+      i = nextFreeAuxVarIndex(i + 1);
+    }
+  }
+
+  /**
+   * Find the lowest auxiliary variable index, starting at the given index, that is not declared in this scope
+   * or any of its parent scopes. As all auxiliary variables are also reserved in the package scope, this
+   * usually is the first index after the highest one declared so far.
+   */
+  private int nextFreeAuxVarIndex(int fromIndex) {
+    int index = fromIndex;
+    boolean changed = true;
+    while (changed) {
+      changed = false;
+      for (Scope scope = this; scope instanceof ScopeImplBase; scope = ((ScopeImplBase) scope).getParentScope()) {
+        if (scope instanceof DeclarationScope) {
+          int nextIndex = ((DeclarationScope) scope).auxVarIndices.nextClearBit(index);
+          if (nextIndex != index) {
+            index = nextIndex;
+            changed = true;
+          }
+        }
+      }
     }
+    return index;
   }
 
   @Override
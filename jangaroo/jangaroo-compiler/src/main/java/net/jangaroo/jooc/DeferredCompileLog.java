@@ -0,0 +1,80 @@
+package net.jangaroo.jooc;
+
+import net.jangaroo.jooc.api.CompileLog;
+import net.jangaroo.jooc.api.FilePosition;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A {@link CompileLog} that keeps all messages until they are either reported to another log or dropped.
+ * This allows to try something that may fail, like parsing only the declarations of a source file, and to
+ * redo it if it failed, without reporting any messages twice.
+ */
+class DeferredCompileLog implements CompileLog {
+
+  private static final class Message {
+    private final boolean error;
+    private final FilePosition position;
+    private final String msg;
+
+    private Message(boolean error, FilePosition position, String msg) {
+      this.error = error;
+      this.position = position;
+      this.msg = msg;
+    }
+  }
+
+  private final List<Message> messages = new ArrayList<Message>();
+  private boolean errors = false;
+
+  @Override
+  public void error(FilePosition position, String msg) {
+    messages.add(new Message(true, position, msg));
+    errors = true;
+  }
+
+  @Override
+  public void error(String msg) {
+    error(null, msg);
+  }
+
+  @Override
+  public void warning(FilePosition position, String msg) {
+    messages.add(new Message(false, position, msg));
+  }
+
+  @Override
+  public void warning(String msg) {
+    warning(null, msg);
+  }
+
+  @Override
+  public boolean hasErrors() {
+    return errors;
+  }
+
+  /**
+   * Report all messages kept so far to the given log, in the order they have been logged.
+   *
+   * @param log the log to report to
+   */
+  public void reportTo(CompileLog log) {
+    for (Message message : messages) {
+      if (message.error) {
+        if (message.position == null) {
+          log.error(message.msg);
+        } else {
+          log.error(message.position, message.msg);
+        }
+      } else {
+        if (message.position == null) {
+          log.warning(message.msg);
+        } else {
+          log.warning(message.position, message.msg);
+        }
+      }
+    }
+    messages.clear();
+  }
+}
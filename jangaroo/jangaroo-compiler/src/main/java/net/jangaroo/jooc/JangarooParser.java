@@ -25,6 +25,7 @@ import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
 
 public class JangarooParser {
   public static final String JOO_API_IN_JAR_DIRECTORY_PREFIX = "META-INF/joo-api/";
@@ -35,6 +36,7 @@ public class JangarooParser {
 
   private InputSource sourcePathInputSource;
   private InputSource classPathInputSource;
+  private JangarooParser classPathParser;
   private ParserOptions config;
   private Map<String, CompilationUnit> compilationUnitsByQName = new LinkedHashMap<String, CompilationUnit>();
 
@@ -102,6 +104,28 @@ public class JangarooParser {
   }
 
   public static CompilationUnit doParse(InputSource in, CompileLog log, SemicolonInsertionMode semicolonInsertionMode) {
+    return doParse(in, log, semicolonInsertionMode, false);
+  }
+
+  /**
+   * Parse the given source, optionally skipping the statements of all function bodies.
+   *
+   * @see ScannerBase#setSkipFunctionBodies
+   */
+  public static CompilationUnit doParse(InputSource in, CompileLog log, SemicolonInsertionMode semicolonInsertionMode,
+                                        boolean declarationsOnly) {
+    return doParse(in, log, semicolonInsertionMode, declarationsOnly, true);
+  }
+
+  /**
+   * Parse the given source, optionally skipping the statements of all function bodies and dropping
+   * whitespace and comments not needed for code generation.
+   *
+   * @see ScannerBase#setSkipFunctionBodies
+   * @see ScannerBase#setKeepWhitespace
+   */
+  public static CompilationUnit doParse(InputSource in, CompileLog log, SemicolonInsertionMode semicolonInsertionMode,
+                                        boolean declarationsOnly, boolean keepWhitespace) {
     Scanner s;
     try {
       s = new Scanner(new InputStreamReader(new BOMStripperInputStream(in.getInputStream()), "UTF-8"));
@@ -109,13 +133,40 @@ public class JangarooParser {
       throw new CompilerError("Cannot read input file: " + in.getPath(), e);
     }
     s.setInputSource(in);
+    s.setKeepWhitespace(keepWhitespace);
+    return doParse(s, log, semicolonInsertionMode, declarationsOnly);
+  }
+
+  /**
+   * Parse an API stub by replaying the tokens previously written to a token file by
+   * {@link TokenStreamScanner#write}, which is considerably faster than scanning the stub itself.
+   * If the token file cannot be read, e.g. because it has been written in an older format, the stub is scanned.
+   */
+  public static CompilationUnit doParse(InputSource in, InputSource tokens, CompileLog log, SemicolonInsertionMode semicolonInsertionMode) {
+    return doParse(in, tokens, log, semicolonInsertionMode, false);
+  }
+
+  private static CompilationUnit doParse(InputSource in, InputSource tokens, CompileLog log,
+                                         SemicolonInsertionMode semicolonInsertionMode, boolean declarationsOnly) {
+    TokenStreamScanner s;
+    try {
+      s = new TokenStreamScanner(in, tokens);
+    } catch (IOException e) {
+      return doParse(in, log, semicolonInsertionMode, declarationsOnly, false);
+    }
+    return doParse(s, log, semicolonInsertionMode, declarationsOnly);
+  }
+
+  private static CompilationUnit doParse(ScannerBase s, CompileLog log, SemicolonInsertionMode semicolonInsertionMode,
+                                         boolean declarationsOnly) {
+    s.setSkipFunctionBodies(declarationsOnly);
     JooParser p = new JooParser(s);
     p.setCompileLog(log);
     p.setSemicolonInsertionMode(semicolonInsertionMode);
     try {
       Symbol tree = p.parse();
       return (CompilationUnit) tree.value;
-    } catch (Scanner.ScanError se) {
+    } catch (ScannerBase.ScanError se) {
       log.error(se.getSym(), se.getMessage());
       return null;
     } catch (JooParser.FatalSyntaxError e) {
@@ -159,8 +210,19 @@ public class JangarooParser {
     return CompilerUtils.fileNameFromQName(qname, is.getFileSeparatorChar(), extension);
   }
 
-  public CompilationUnit importSource(InputSource source) {
-    CompilationUnit unit = parse(source);
+  public synchronized CompilationUnit importSource(InputSource source) {
+    return importSource(source, parse(source));
+  }
+
+  /**
+   * Scope and register a compilation unit that has already been parsed from the given source.
+   * This allows to parse sources concurrently, while scoping is always done sequentially.
+   *
+   * @param source the source the compilation unit has been parsed from
+   * @param unit the parsed compilation unit, may be null if parsing failed
+   * @return the given compilation unit
+   */
+  protected synchronized CompilationUnit importSource(InputSource source, CompilationUnit unit) {
     if (unit != null) {
       unit.scope(globalScope);
       String prefix = unit.getPackageDeclaration().getQualifiedNameStr();
@@ -180,14 +242,21 @@ public class JangarooParser {
     return compilationUnit.getPrimaryDeclaration();
   }
 
-  public CompilationUnit getCompilationUnit(String qname) {
+  public synchronized CompilationUnit getCompilationUnit(String qname) {
     CompilationUnit compilationUnit = compilationUnitsByQName.get(qname);
     if (compilationUnit == null) {
       InputSource source = findSource(qname);
       if (source == null) {
         return null;
       }
-      compilationUnit = importSource(source);
+      if (classPathParser != null && !source.isInSourcePath()) {
+        // class path compilation units are parsed and scoped by the (long-lived) class path parser:
+        compilationUnit = classPathParser.getCompilationUnit(qname);
+        compilationUnitsByQName.put(qname, compilationUnit);
+      } else {
+        // units not yet known here are dependencies, not compiled units, so their declarations suffice:
+        compilationUnit = importSource(source, parse(source, true));
+      }
     }
     return compilationUnit;
   }
@@ -208,13 +277,43 @@ public class JangarooParser {
   }
 
   protected CompilationUnit parse(InputSource in) {
+    return parse(in, false);
+  }
+
+  /**
+   * Parse the given source file.
+   * When only declarations are needed, function bodies are skipped, so that time and memory spent on
+   * dependencies depend on the size of their API, not of their code. If this fails, e.g. because a body is
+   * not balanced, the source is parsed completely, so that all errors are reported as usual.
+   *
+   * @param in the source file
+   * @param declarationsOnly whether the statements of function bodies may be skipped
+   * @return the parsed compilation unit, or null if parsing failed
+   * @see CompilationUnit#isDeclarationsOnly()
+   */
+  protected CompilationUnit parse(InputSource in, boolean declarationsOnly) {
     if (!in.getName().endsWith(Jooc.AS_SUFFIX)) {
       throw error("Input file must end with '" + Jooc.AS_SUFFIX + "': " + in.getName());
     }
     if (config.isVerbose()) {
       System.out.println("Parsing " + in.getPath() + " (" + (in.isInSourcePath() ? "source" : "class") + "path)"); // NOSONAR this is a cmd line tool
     }
-    CompilationUnit unit = doParse(in, log, config.getSemicolonInsertionMode());
+    InputSource tokens = in.isInSourcePath() ? null : findTokens(in);
+    CompilationUnit unit = null;
+    if (declarationsOnly) {
+      DeferredCompileLog declarationsLog = new DeferredCompileLog();
+      unit = doParse(in, tokens, declarationsLog, true);
+      if (unit == null || declarationsLog.hasErrors()) {
+        // drop all messages, they are reported again when parsing completely:
+        unit = null;
+      } else {
+        declarationsLog.reportTo(log);
+        unit.setDeclarationsOnly(true);
+      }
+    }
+    if (unit == null) {
+      unit = doParse(in, tokens, log, false);
+    }
     if (unit != null) {
       unit.setCompiler(this);
       unit.setSource(in);
@@ -222,6 +321,35 @@ public class JangarooParser {
     return unit;
   }
 
+  /**
+   * Whether to keep all whitespace and comments of compiled source files. Subclasses that do not need to
+   * reproduce the source code exactly can save memory by returning false.
+   *
+   * @see ScannerBase#setKeepWhitespace
+   */
+  protected boolean isKeepWhitespace() {
+    return true;
+  }
+
+  private CompilationUnit doParse(InputSource in, InputSource tokens, CompileLog log, boolean declarationsOnly) {
+    return tokens == null ? doParse(in, log, config.getSemicolonInsertionMode(), declarationsOnly,
+            !declarationsOnly && isKeepWhitespace())
+            : doParse(in, tokens, log, config.getSemicolonInsertionMode(), declarationsOnly);
+  }
+
+  /**
+   * Find the token file written next to the given class path API stub, if any.
+   */
+  private InputSource findTokens(InputSource in) {
+    String relativePath = in.getRelativePath();
+    if (relativePath == null) {
+      return null;
+    }
+    InputSource tokens = classPathInputSource.getChild(relativePath + TokenStreamScanner.TOKENS_SUFFIX);
+    // only use tokens from the same class path entry as the stub:
+    return tokens != null && tokens.getPath().equals(in.getPath() + TokenStreamScanner.TOKENS_SUFFIX) ? tokens : null;
+  }
+
   public List<String> getPackageIdes(String packageName) {
     List<String> result = new ArrayList<String>(10);
     addPackageFolderSymbols(result, packageName, sourcePathInputSource);
@@ -258,10 +386,58 @@ public class JangarooParser {
     buildGlobalScope();
   }
 
+  /**
+   * Set up this parser to take all class path compilation units from the given parser, which has already been
+   * set up with the class path. This allows to keep parsed class path compilation units between compilation runs.
+   *
+   * @param sourcePathInputSource the source path of this parser
+   * @param classPathParser the parser responsible for the class path
+   */
+  public void setUp(InputSource sourcePathInputSource, JangarooParser classPathParser) {
+    this.classPathParser = classPathParser;
+    setUp(sourcePathInputSource, classPathParser.classPathInputSource);
+  }
+
+  public JangarooParser getClassPathParser() {
+    return classPathParser;
+  }
+
+  /**
+   * Let this parser take all class path compilation units from the given parser instead of parsing them itself.
+   * The parser must have been set up with the class path of this parser's configuration.
+   *
+   * @param classPathParser a parser set up with the class path, or null to parse the class path in every run
+   */
+  public void setClassPathParser(JangarooParser classPathParser) {
+    this.classPathParser = classPathParser;
+  }
+
   public void tearDown() {
     defaultLog.remove();
   }
 
+  /**
+   * Wrap the given task so that, in whatever thread it is executed, the static {@link #warning(String)} methods
+   * report to the log of this parser.
+   *
+   * @param task the task to run in a worker thread
+   * @return a task that sets up the default log of the current thread before running the given task
+   */
+  protected <T> Callable<T> withDefaultLog(final Callable<T> task) {
+    final CompileLog log = this.log;
+    return new Callable<T>() {
+      @Override
+      public T call() throws Exception {
+        defaultLog.set(log);
+        try {
+          return task.call();
+        } finally {
+          defaultLog.remove();
+        }
+      }
+    };
+  }
+
   private static class FilePositionImpl implements FilePosition {
     private final File file;
 
@@ -21,9 +21,9 @@ public class JooParser extends parser {
   // pattern for line terminator characters according to ECMA-262:
   private final static Pattern LINE_TERMINATORS_PATTERN = Pattern.compile("[\n\r\u2028\u2029]");
 
-  private Scanner scanner;
+  private ScannerBase scanner;
 
-  public JooParser(Scanner scanner) {
+  public JooParser(ScannerBase scanner) {
     super(scanner);
     this.scanner = scanner;
   }
@@ -19,12 +19,14 @@ import net.jangaroo.jooc.api.CompilationResult;
 import net.jangaroo.jooc.api.CompileLog;
 import net.jangaroo.jooc.ast.ClassDeclaration;
 import net.jangaroo.jooc.ast.CompilationUnit;
+import net.jangaroo.jooc.backend.AbstractCompilationUnitSinkFactory;
 import net.jangaroo.jooc.backend.CompilationUnitSink;
 import net.jangaroo.jooc.backend.CompilationUnitSinkFactory;
 import net.jangaroo.jooc.backend.MergedOutputCompilationUnitSinkFactory;
 import net.jangaroo.jooc.backend.SingleFileCompilationUnitSinkFactory;
 import net.jangaroo.jooc.cli.CommandLineParseException;
 import net.jangaroo.jooc.cli.JoocCommandLineParser;
+import net.jangaroo.jooc.config.DebugMode;
 import net.jangaroo.jooc.config.JoocConfiguration;
 import net.jangaroo.jooc.config.PublicApiViolationsMode;
 import net.jangaroo.jooc.input.FileInputSource;
@@ -35,8 +37,15 @@ import net.jangaroo.jooc.input.ZipEntryInputSource;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * The Jangaroo AS3-to-JS Compiler's main class.
@@ -70,6 +79,13 @@ public class Jooc extends JangarooParser implements net.jangaroo.jooc.api.Jooc {
     return (JoocConfiguration) super.getConfig();
   }
 
+  @Override
+  protected boolean isKeepWhitespace() {
+    // only source debug mode reproduces comments and indentation; API stubs are generated from the API model,
+    // which only takes ASDoc comments from the source, so they do not depend on the debug mode:
+    return getConfig().getDebugMode() == DebugMode.SOURCE;
+  }
+
   @Override
   public void setConfig(JoocConfiguration config) {
     super.setConfig(config);
@@ -94,53 +110,268 @@ public class Jooc extends JangarooParser implements net.jangaroo.jooc.api.Jooc {
   }
 
   private CompilationResult run1() {
+    JangarooParser classPathParser = getClassPathParser();
     InputSource sourcePathInputSource;
-    InputSource classPathInputSource;
+    InputSource classPathInputSource = null;
     try {
       sourcePathInputSource = PathInputSource.fromFiles(getConfig().getSourcePath(), new String[]{""}, true);
-      classPathInputSource = PathInputSource.fromFiles(getConfig().getClassPath(), new String[]{"", JOO_API_IN_JAR_DIRECTORY_PREFIX}, false);
+      if (classPathParser == null) {
+        classPathInputSource = PathInputSource.fromFiles(getConfig().getClassPath(), new String[]{"", JOO_API_IN_JAR_DIRECTORY_PREFIX}, false);
+      }
     } catch (IOException e) {
       throw new CompilerError("IO Exception occurred", e);
     }
 
-    setUp(sourcePathInputSource, classPathInputSource);
+    CompileLog originalLog = log;
+    ExecutorService executor = null;
+    if (getConfig().getThreads() > 1) {
+      executor = Executors.newFixedThreadPool(getConfig().getThreads());
+      log = new SynchronizedCompileLog(originalLog);
+    }
+
+    if (classPathParser == null) {
+      setUp(sourcePathInputSource, classPathInputSource);
+    } else {
+      setUp(sourcePathInputSource, classPathParser);
+    }
 
     HashMap<File, File> outputFileMap = new HashMap<File, File>();
+    Map<File, List<File>> allOutputFilesMap = new HashMap<File, List<File>>();
+    List<CompilationUnitSinkFactory> codeSinkFactories = Collections.emptyList();
     try {
-      for (File sourceFile : getConfig().getSourceFiles()) {
-        processSource(sourceFile);
+      BuildIndex buildIndex = null;
+      List<File> sourceFiles = getConfig().getSourceFiles();
+      if (getConfig().getBuildIndexFile() != null) {
+        if (hasMergedOutput(getConfig())) {
+          // merged output files are written from the units compiled in this run only, so all units must be compiled:
+          warning("build index " + getConfig().getBuildIndexFile() + " is ignored, as merged output is generated");
+        } else {
+          buildIndex = BuildIndex.load(getConfig());
+          sourceFiles = buildIndex.getChangedSourceFiles(sourceFiles);
+        }
       }
 
-      CompilationUnitSinkFactory codeSinkFactory = createSinkFactory(getConfig(), false);
+      codeSinkFactories = createCodeSinkFactories(getConfig());
       CompilationUnitSinkFactory apiSinkFactory = null;
       if (getConfig().isGenerateApi()) {
         apiSinkFactory = createSinkFactory(getConfig(), true);
       }
-      for (CompilationUnit unit : compileQueue) {
-        unit.analyze(null);
-        if (getConfig().getPublicApiViolationsMode() != PublicApiViolationsMode.ALLOW) {
-          reportPublicApiViolations(unit);
-        }
-        File sourceFile = ((FileInputSource)unit.getSource()).getFile();
-        File outputFile = null;
-        // only generate JavaScript if [Native] annotation and 'native' modifier on primary declaration are not present:
-        if (unit.getAnnotation(NATIVE_ANNOTATION_NAME) == null && !unit.getPrimaryDeclaration().isNative()) {
-          outputFile = writeOutput(sourceFile, unit, codeSinkFactory, getConfig().isVerbose());
-        }
-        outputFileMap.put(sourceFile, outputFile); // always map source file, even if output file is null!
-        if (getConfig().isGenerateApi()) {
-          writeOutput(sourceFile, unit, apiSinkFactory, getConfig().isVerbose());
-        }
+      while (!sourceFiles.isEmpty()) {
+        List<CompilationUnit> compiledUnits = compile(executor, sourceFiles, codeSinkFactories, apiSinkFactory,
+                outputFileMap, allOutputFilesMap);
+        // with a build index, dependents of changed public APIs are compiled in further rounds:
+        sourceFiles = buildIndex == null ? Collections.<File>emptyList()
+                : buildIndex.update(compiledUnits, allOutputFilesMap, getConfig().isExcludeClassByDefault());
       }
       int result = log.hasErrors() ? CompilationResult.RESULT_CODE_COMPILATION_FAILED : CompilationResult.RESULT_CODE_OK;
+      closeSinkFactories(codeSinkFactories, result == CompilationResult.RESULT_CODE_OK);
+      if (buildIndex != null && result == CompilationResult.RESULT_CODE_OK) {
+        buildIndex.save();
+      }
       return new CompilationResultImpl(result, outputFileMap);
     } catch (IOException e) {
       throw new CompilerError("IO Exception occurred", e);
     } finally {
+      try {
+        // after an exception, discard partial output; sink factories already closed are not affected:
+        closeSinkFactories(codeSinkFactories, false);
+      } catch (IOException e) {
+        // ignore, we are already handling another exception
+      }
+      if (executor != null) {
+        executor.shutdownNow();
+        log = originalLog;
+      }
       tearDown();
     }
   }
 
+  /**
+   * Finish all sink factories that keep their output open for the whole compiler run, like merged output files.
+   * Unless compilation succeeded, their partial output is discarded.
+   */
+  private static void closeSinkFactories(List<CompilationUnitSinkFactory> sinkFactories, boolean success) throws IOException {
+    for (CompilationUnitSinkFactory sinkFactory : sinkFactories) {
+      if (sinkFactory instanceof MergedOutputCompilationUnitSinkFactory) {
+        ((MergedOutputCompilationUnitSinkFactory) sinkFactory).close(success);
+      }
+    }
+  }
+
+  /**
+   * Parse and analyze the given source files, adding them to the compile queue, and generate their output.
+   * For every source file, its primary output file and the list of all its output files are recorded.
+   *
+   * @return the compilation units of the given source files
+   */
+  private List<CompilationUnit> compile(ExecutorService executor, List<File> sourceFiles,
+                                        List<CompilationUnitSinkFactory> codeSinkFactories,
+                                        CompilationUnitSinkFactory apiSinkFactory,
+                                        Map<File, File> outputFileMap,
+                                        Map<File, List<File>> allOutputFilesMap) throws IOException {
+    int compiledUnitCount = compileQueue.size();
+    if (executor == null) {
+      for (File sourceFile : sourceFiles) {
+        processSource(sourceFile);
+      }
+    } else {
+      processSources(executor, sourceFiles);
+    }
+    List<CompilationUnit> units = new ArrayList<CompilationUnit>(compileQueue.subList(compiledUnitCount, compileQueue.size()));
+    if (executor == null) {
+      for (CompilationUnit unit : units) {
+        analyze(unit);
+        List<File> allOutputFiles = new ArrayList<File>();
+        File outputFile = writeCodeOutputs(unit, codeSinkFactories, allOutputFiles);
+        outputFileMap.put(getSourceFile(unit), outputFile); // always map source file, even if output file is null!
+        if (apiSinkFactory != null) {
+          addOutputFile(allOutputFiles, writeOutput(getSourceFile(unit), unit, apiSinkFactory, getConfig().isVerbose()));
+        }
+        allOutputFilesMap.put(getSourceFile(unit), allOutputFiles);
+      }
+    } else {
+      // analysis resolves and loads dependencies lazily, so it is always done sequentially:
+      for (CompilationUnit unit : units) {
+        analyze(unit);
+      }
+      writeOutputs(executor, units, codeSinkFactories, apiSinkFactory, outputFileMap, allOutputFilesMap);
+    }
+    return units;
+  }
+
+  private void analyze(CompilationUnit unit) {
+    unit.analyze(null);
+    if (getConfig().getPublicApiViolationsMode() != PublicApiViolationsMode.ALLOW) {
+      reportPublicApiViolations(unit);
+    }
+  }
+
+  private static File getSourceFile(CompilationUnit unit) {
+    return ((FileInputSource)unit.getSource()).getFile();
+  }
+
+  /**
+   * Write the JavaScript code of the given compilation unit to all given code sinks, reusing the analyzed AST.
+   * All files written are added to the given list of output files.
+   *
+   * @return the output file of the first code sink factory, or null if no code is generated for the unit
+   */
+  private File writeCodeOutputs(CompilationUnit unit, List<CompilationUnitSinkFactory> codeSinkFactories,
+                                List<File> allOutputFiles) {
+    File outputFile = null;
+    // only generate JavaScript if [Native] annotation and 'native' modifier on primary declaration are not present:
+    if (unit.getAnnotation(NATIVE_ANNOTATION_NAME) == null && !unit.getPrimaryDeclaration().isNative()) {
+      for (CompilationUnitSinkFactory codeSinkFactory : codeSinkFactories) {
+        File file = writeOutput(getSourceFile(unit), unit, codeSinkFactory, getConfig().isVerbose());
+        addOutputFile(allOutputFiles, file);
+        if (outputFile == null) {
+          outputFile = file;
+        }
+      }
+    }
+    return outputFile;
+  }
+
+  private static void addOutputFile(List<File> allOutputFiles, File outputFile) {
+    if (outputFile != null && !allOutputFiles.contains(outputFile)) {
+      allOutputFiles.add(outputFile);
+    }
+  }
+
+  /**
+   * Parse all given source files concurrently, then scope them sequentially in the given order, so that
+   * the compile queue and all lazily loaded dependencies are exactly the same as when compiling sequentially.
+   */
+  private void processSources(ExecutorService executor, List<File> sourceFiles) throws IOException {
+    List<InputSource> inputSources = new ArrayList<InputSource>(sourceFiles.size());
+    List<Future<CompilationUnit>> parsedUnits = new ArrayList<Future<CompilationUnit>>(sourceFiles.size());
+    for (File sourceFile : sourceFiles) {
+      final InputSource inputSource = createInputSource(sourceFile);
+      inputSources.add(inputSource);
+      parsedUnits.add(executor.submit(withDefaultLog(new Callable<CompilationUnit>() {
+        @Override
+        public CompilationUnit call() {
+          return parse(inputSource);
+        }
+      })));
+    }
+    for (int i = 0; i < inputSources.size(); i++) {
+      CompilationUnit unit = importSource(inputSources.get(i), await(parsedUnits.get(i)));
+      if (unit != null) {
+        compileQueue.add(unit);
+      }
+    }
+  }
+
+  /**
+   * Generate the output of the given analyzed compilation units concurrently. Merged output files have to be written
+   * in compile queue order, so these are always written sequentially.
+   */
+  private void writeOutputs(ExecutorService executor,
+                            List<CompilationUnit> units,
+                            List<CompilationUnitSinkFactory> codeSinkFactories,
+                            final CompilationUnitSinkFactory apiSinkFactory,
+                            Map<File, File> outputFileMap,
+                            Map<File, List<File>> allOutputFilesMap) {
+    final List<CompilationUnitSinkFactory> concurrentCodeSinkFactories = new ArrayList<CompilationUnitSinkFactory>();
+    List<CompilationUnitSinkFactory> sequentialCodeSinkFactories = new ArrayList<CompilationUnitSinkFactory>();
+    for (CompilationUnitSinkFactory codeSinkFactory : codeSinkFactories) {
+      if (codeSinkFactory instanceof MergedOutputCompilationUnitSinkFactory) {
+        sequentialCodeSinkFactories.add(codeSinkFactory);
+      } else {
+        concurrentCodeSinkFactories.add(codeSinkFactory);
+      }
+    }
+    boolean concurrentCodeOutput = concurrentCodeSinkFactories.contains(codeSinkFactories.get(0));
+    List<Future<File>> outputFiles = new ArrayList<Future<File>>(units.size());
+    List<List<File>> allOutputFilesList = new ArrayList<List<File>>(units.size());
+    for (final CompilationUnit unit : units) {
+      // every task fills its own list, which is only read after awaiting the task:
+      final List<File> allOutputFiles = new ArrayList<File>();
+      allOutputFilesList.add(allOutputFiles);
+      outputFiles.add(executor.submit(withDefaultLog(new Callable<File>() {
+        @Override
+        public File call() {
+          File outputFile = writeCodeOutputs(unit, concurrentCodeSinkFactories, allOutputFiles);
+          if (apiSinkFactory != null) {
+            addOutputFile(allOutputFiles, writeOutput(getSourceFile(unit), unit, apiSinkFactory, getConfig().isVerbose()));
+          }
+          return outputFile;
+        }
+      })));
+    }
+    for (int i = 0; i < units.size(); i++) {
+      CompilationUnit unit = units.get(i);
+      File outputFile = await(outputFiles.get(i));
+      List<File> allOutputFiles = allOutputFilesList.get(i);
+      File sequentialOutputFile = writeCodeOutputs(unit, sequentialCodeSinkFactories, allOutputFiles);
+      if (!concurrentCodeOutput) {
+        outputFile = sequentialOutputFile;
+      }
+      outputFileMap.put(getSourceFile(unit), outputFile); // always map source file, even if output file is null!
+      allOutputFilesMap.put(getSourceFile(unit), allOutputFiles);
+    }
+  }
+
+  private static <T> T await(Future<T> future) {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new CompilerError("Compilation interrupted", e);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        // rethrow CompilerErrors as they are, so that they are reported just like in sequential mode:
+        throw (RuntimeException) cause;
+      }
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new CompilerError("Exception occurred in compiler thread", cause);
+    }
+  }
+
   private void reportPublicApiViolations(CompilationUnit unit) {
     for (CompilationUnit compilationUnit : unit.getDependenciesAsCompilationUnits()) {
       if (compilationUnit.getSource() instanceof ZipEntryInputSource
@@ -167,6 +398,42 @@ public class Jooc extends JangarooParser implements net.jangaroo.jooc.api.Jooc {
     return sink.writeOutput(compilationUnit);
   }
 
+  private static boolean hasMergedOutput(JoocConfiguration config) {
+    return config.isMergeOutput() || config.getModuleOutputFile() != null;
+  }
+
+  /**
+   * Create the sink factories for all JavaScript outputs requested by the given configuration. The first sink factory
+   * is the primary output, whose output files are reported in the compilation result.
+   */
+  private List<CompilationUnitSinkFactory> createCodeSinkFactories(JoocConfiguration config) {
+    List<CompilationUnitSinkFactory> codeSinkFactories = new ArrayList<CompilationUnitSinkFactory>(3);
+    codeSinkFactories.add(createSinkFactory(config, false));
+    if (config.getNonDebugOutputDirectory() != null) {
+      AbstractCompilationUnitSinkFactory nonDebugSinkFactory =
+              new SingleFileCompilationUnitSinkFactory(config, config.getNonDebugOutputDirectory(), false, OUTPUT_FILE_SUFFIX);
+      nonDebugSinkFactory.setDebugMode(null);
+      codeSinkFactories.add(nonDebugSinkFactory);
+    }
+    if (config.getModuleOutputFile() != null) {
+      AbstractCompilationUnitSinkFactory moduleSinkFactory =
+              new MergedOutputCompilationUnitSinkFactory(config, config.getModuleOutputFile());
+      moduleSinkFactory.setDebugMode(null);
+      codeSinkFactories.add(moduleSinkFactory);
+    }
+    if (config.isGenerateSourceMaps()) {
+      for (CompilationUnitSinkFactory codeSinkFactory : codeSinkFactories) {
+        ((AbstractCompilationUnitSinkFactory) codeSinkFactory).setGenerateSourceMaps(true);
+      }
+    }
+    if (config.isMinify()) {
+      for (CompilationUnitSinkFactory codeSinkFactory : codeSinkFactories) {
+        ((AbstractCompilationUnitSinkFactory) codeSinkFactory).setMinify(true);
+      }
+    }
+    return codeSinkFactories;
+  }
+
   private CompilationUnitSinkFactory createSinkFactory(JoocConfiguration config, final boolean generateActionScriptApi) {
     CompilationUnitSinkFactory codeSinkFactory;
 
@@ -202,16 +469,18 @@ public class Jooc extends JangarooParser implements net.jangaroo.jooc.api.Jooc {
   }
 
   protected void processSource(File file) throws IOException {
-    if (file.isDirectory()) {
-      throw error("Input file is a directory.", file);
-    }
-    CompilationUnit unit = importSource(new FileInputSource(getConfig().findSourceDir(file), file, true));
+    CompilationUnit unit = importSource(createInputSource(file));
     if (unit != null) {
       compileQueue.add(unit);
     }
   }
 
-
+  private InputSource createInputSource(File file) throws IOException {
+    if (file.isDirectory()) {
+      throw error("Input file is a directory.", file);
+    }
+    return new FileInputSource(getConfig().findSourceDir(file), file, true);
+  }
 
   public static int run(String[] argv, CompileLog log) {
     try {
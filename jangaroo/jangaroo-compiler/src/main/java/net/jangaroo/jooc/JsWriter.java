@@ -32,32 +32,160 @@ public final class JsWriter extends FilterWriter {
 
   private JsStringLiteralWriter stringLiteralWriter;
   private JoocOptions options;
+  private DebugMode debugMode;
   private boolean commentStartWritten = false;
   private int nOpenBeginComments = 0;
   private char lastChar = ' ';
   private boolean inString = false;
   private int nOpenStrings = 0;
   private boolean suppressWhitespace = false;
+  private boolean minify = false;
+  private boolean pendingSemicolon = false;
+  private final PositionTrackingWriter position;
+  private SourceMapGenerator sourceMapGenerator;
 
   public JsWriter(Writer target) {
+    this(new PositionTrackingWriter(target));
+  }
+
+  private JsWriter(PositionTrackingWriter target) {
     super(target);
+    position = target;
     stringLiteralWriter = new JsStringLiteralWriter(target, false);
   }
 
+  /**
+   * Keeps track of the zero-based line and column of the next character written to the target writer.
+   */
+  private static final class PositionTrackingWriter extends FilterWriter {
+    private int line = 0;
+    private int column = 0;
+
+    private PositionTrackingWriter(Writer out) {
+      super(out);
+    }
+
+    private void track(char c) {
+      if (c == '\n') {
+        ++line;
+        column = 0;
+      } else {
+        ++column;
+      }
+    }
+
+    @Override
+    public void write(int c) throws IOException {
+      super.write(c);
+      track((char) c);
+    }
+
+    @Override
+    public void write(char[] cbuf, int off, int len) throws IOException {
+      super.write(cbuf, off, len);
+      for (int i = off; i < off + len; i++) {
+        track(cbuf[i]);
+      }
+    }
+
+    @Override
+    public void write(String str, int off, int len) throws IOException {
+      super.write(str, off, len);
+      for (int i = off; i < off + len; i++) {
+        track(str.charAt(i));
+      }
+    }
+  }
+
   public void setOptions(JoocOptions options) {
     this.options = options;
+    this.debugMode = options.getDebugMode();
   }
 
   public JoocOptions getOptions() {
     return options;
   }
 
+  public DebugMode getDebugMode() {
+    return debugMode;
+  }
+
+  /**
+   * Set the debug mode of this writer only, overriding the debug mode of its options.
+   * Since options may be shared by several writers, they must not be modified for this purpose.
+   *
+   * @param debugMode the debug mode to use for further output
+   */
+  public void setDebugMode(DebugMode debugMode) {
+    this.debugMode = debugMode;
+  }
+
+  public SourceMapGenerator getSourceMapGenerator() {
+    return sourceMapGenerator;
+  }
+
+  /**
+   * Record a source map mapping for every symbol written from now on.
+   *
+   * @param sourceMapGenerator the source map generator to add mappings to, or null to stop recording mappings
+   */
+  public void setSourceMapGenerator(SourceMapGenerator sourceMapGenerator) {
+    this.sourceMapGenerator = sourceMapGenerator;
+  }
+
+  /**
+   * The zero-based line of the output position.
+   */
+  public int getOutputLine() {
+    return position.line;
+  }
+
+  /**
+   * The zero-based column of the output position.
+   */
+  public int getOutputColumn() {
+    return position.column;
+  }
+
   public boolean getKeepSource() {
-    return options.getDebugMode() != null && DebugMode.SOURCE.equals(options.getDebugMode());
+    return DebugMode.SOURCE.equals(debugMode);
   }
 
   public boolean getKeepLines() {
-    return options.getDebugMode() != null && DebugMode.LINES.equals(options.getDebugMode());
+    return DebugMode.LINES.equals(debugMode);
+  }
+
+  /**
+   * Minify the output: drop all whitespace of symbols and semicolons directly preceding a closing brace.
+   * Minification only takes effect if neither source nor lines are kept for debugging.
+   *
+   * @param minify whether to minify the output
+   */
+  public void setMinify(boolean minify) {
+    this.minify = minify;
+  }
+
+  public boolean isMinify() {
+    return minify && !getKeepSource() && !getKeepLines();
+  }
+
+  /**
+   * Whether to generate class member declarations as numeric bit flags instead of modifier strings.
+   * When keeping source for debugging, modifier strings are generated anyway, since they are more readable.
+   */
+  public boolean isCompactMemberDeclarations() {
+    return options != null && options.isCompactMemberDeclarations() && !getKeepSource();
+  }
+
+  private void flushPendingSemicolon(char next) throws IOException {
+    if (pendingSemicolon) {
+      pendingSemicolon = false;
+      // a semicolon terminating the last statement of a block is optional:
+      if (next != '}') {
+        out.write(';');
+        lastChar = ';';
+      }
+    }
   }
 
   public void writeInt(int value) throws IOException {
@@ -68,6 +196,7 @@ public final class JsWriter extends FilterWriter {
 
   public void writeString(String value) throws IOException {
     if (shouldWrite()) {
+      flushPendingSemicolon('"');
       if (value == null) {
         write("null");
       } else {
@@ -152,6 +281,7 @@ public final class JsWriter extends FilterWriter {
     boolean result = getKeepSource() || nOpenBeginComments == 0;
     if (result) {
       if (nOpenBeginComments > 0 && !commentStartWritten) {
+        flushPendingSemicolon('/');
         out.write("/*");
         lastChar = '*';
         commentStartWritten = true;
@@ -180,6 +310,7 @@ public final class JsWriter extends FilterWriter {
 
   private void checkOpenString() throws IOException {
     if (nOpenStrings > 0 && !inString) {
+      flushPendingSemicolon('"');
       out.write('"');
       lastChar = '"';
       inString = true;
@@ -229,7 +360,7 @@ public final class JsWriter extends FilterWriter {
   }
 
   public void writeSymbolWhitespace(JooSymbol symbol) throws IOException {
-    if (suppressWhitespace) {
+    if (suppressWhitespace || isMinify()) {
       return;
     }
     String ws = symbol.getWhitespace();
@@ -277,18 +408,40 @@ public final class JsWriter extends FilterWriter {
   }
 
   public void writeToken(String token) throws IOException {
+    writeToken(token, null);
+  }
+
+  private void writeToken(String token, JooSymbol symbol) throws IOException {
     if (shouldWrite()) {
       char firstSymbolChar = token.charAt(0);
+      flushPendingSemicolon(firstSymbolChar);
+      if (isMinify() && ";".equals(token) && nOpenStrings == 0 && nOpenBeginComments == 0) {
+        // defer writing the semicolon until it is known whether a closing brace follows:
+        pendingSemicolon = true;
+        return;
+      }
       if ((isIdeChar(lastChar) && isIdeChar(firstSymbolChar)) ||
               (lastChar == firstSymbolChar && "=><!&|+-*/&|^%".indexOf(lastChar) >= 0) ||
               (firstSymbolChar == '=' && "=><!&|+-*/&|^%".indexOf(lastChar) >= 0)) {
         write(' ');
       }
       checkOpenString();
+      if (symbol != null) {
+        addMapping(symbol);
+      }
       write(token);
     }
   }
 
+  private void addMapping(JooSymbol symbol) {
+    // symbols written into comments or strings are not worth stepping through:
+    if (sourceMapGenerator != null && nOpenBeginComments == 0 && nOpenStrings == 0
+            && symbol.getFileName() != null && symbol.getFileName().length() > 0 && symbol.getLine() > 0) {
+      sourceMapGenerator.addMapping(position.line, position.column,
+              symbol.getFileName(), symbol.getLine() - 1, Math.max(0, symbol.getColumn() - 1));
+    }
+  }
+
   private boolean isIdeChar(final char ch) {
     return ch == '$' || ch == '_' || Character.isLetterOrDigit(ch);
   }
@@ -306,11 +459,22 @@ public final class JsWriter extends FilterWriter {
 
 
   public void writeSymbolToken(JooSymbol symbol) throws IOException {
-    writeToken(symbol.getText());
+    writeToken(symbol.getText(), symbol);
+  }
+
+  /**
+   * Write the given text instead of the given symbol's text, keeping the source position of the symbol.
+   *
+   * @param symbol the symbol to replace
+   * @param text the text to write instead of the symbol's text
+   */
+  public void writeSymbolToken(JooSymbol symbol, String text) throws IOException {
+    writeToken(text, symbol);
   }
 
   public void write(int c) throws IOException {
     if ((getKeepLines() && c == '\n') || shouldWrite()) {
+      flushPendingSemicolon((char) c);
       if (lastChar == '*' && c == '/') {
         super.write(' ');
       }
@@ -322,6 +486,7 @@ public final class JsWriter extends FilterWriter {
   public void write(char cbuf[], int off, int len) throws IOException {
     if (len > 0) {
       if (shouldWrite()) {
+        flushPendingSemicolon(cbuf[off]);
         if (commentStartWritten) {
           for (int i = 0; i < len; i++) {
             char c = cbuf[off + i];
@@ -346,6 +511,7 @@ public final class JsWriter extends FilterWriter {
   public void write(String str, int off, int len) throws IOException {
     if (len > 0) {
       if (shouldWrite()) {
+        flushPendingSemicolon(str.charAt(off));
         if (commentStartWritten) {
           for (int i = 0; i < len; i++) {
             char c = str.charAt(off + i);
@@ -378,6 +544,7 @@ public final class JsWriter extends FilterWriter {
 
   public void close() throws IOException {
     shouldWrite(); // will close comments
+    flushPendingSemicolon(' ');
     Debug.assertTrue(nOpenBeginComments == 0, "" + nOpenBeginComments + " endComment() missing");
     super.close();
   }
@@ -5,10 +5,14 @@ import net.jangaroo.jooc.util.IncludeEvaluator;
 
 import java.io.IOException;
 import java.io.Reader;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
-public abstract class ScannerBase implements sym {
+public abstract class ScannerBase implements sym, java_cup.runtime.Scanner {
 
   private StringBuilder whitespace = new StringBuilder();
   private StringBuilder multiStateText = new StringBuilder();
@@ -20,6 +24,28 @@ public abstract class ScannerBase implements sym {
 
   private JooSymbol pushedBackToken;
 
+  // sharing token texts and whitespace among all scanned compilation units:
+  private static final int MAX_INTERNED_TEXT_LENGTH = 64;
+  private static final int MAX_INTERNED_TEXTS = 1 << 16;
+  private static final ConcurrentMap<String, String> INTERNED_TEXTS = new ConcurrentHashMap<String, String>(1024);
+  private static final int MAX_SHARED_INDENTATION = 32;
+  private static final String[] LINE_PREFIXES = {"", "\n", "\r\n"};
+  private static final String[][] SHARED_INDENTATIONS = createSharedIndentations();
+
+  private boolean keepWhitespace = true;
+
+  // skipping function bodies:
+  private static final int FUNCTION_STATE_NONE = 0;
+  private static final int FUNCTION_STATE_BEFORE_PARAMETERS = 1;
+  private static final int FUNCTION_STATE_IN_PARAMETERS = 2;
+  private static final int FUNCTION_STATE_AFTER_PARAMETERS = 3;
+  private static final int FUNCTION_STATE_IN_RESULT_TYPE = 4;
+
+  private boolean skipFunctionBodies = false;
+  private int functionState = FUNCTION_STATE_NONE;
+  private int parenthesesDepth;
+  private JooSymbol skippedFunctionBodyEnd;
+
   // error reporting:
   private final static Map<Integer, String> symbolMap = new HashMap<Integer, String>(50);
 
@@ -34,7 +60,158 @@ public abstract class ScannerBase implements sym {
       pushedBackToken = null;
       return result;
     }
-    return scan();
+    if (skippedFunctionBodyEnd != null) {
+      JooSymbol result = skippedFunctionBodyEnd;
+      skippedFunctionBodyEnd = null;
+      return result;
+    }
+    JooSymbol token = (JooSymbol) scan();
+    return skipFunctionBodies ? skipFunctionBody(token) : token;
+  }
+
+  /**
+   * Let this scanner skip the statements of all function bodies, so that the parser only sees an empty body
+   * <code>{}</code> for every function. This is useful to parse only the declarations of a compilation unit.
+   * <p>Since the scanner cannot ask the parser whether a '/' starts a regular expression, it decides by the
+   * preceding token, like most JavaScript tools do, taking into account whether a closing parenthesis ends the
+   * head of a statement like <code>if (...)</code>. A body that is not balanced leads to a scan error.</p>
+   *
+   * @param skipFunctionBodies whether to skip function bodies
+   */
+  public void setSkipFunctionBodies(boolean skipFunctionBodies) {
+    this.skipFunctionBodies = skipFunctionBodies;
+  }
+
+  /**
+   * Track the tokens of function signatures, and when the given token starts a function body,
+   * skip all tokens up to the matching closing brace, which is returned by the next call to {@link #next_token}.
+   */
+  private JooSymbol skipFunctionBody(JooSymbol token) throws IOException {
+    switch (functionState) {
+      case FUNCTION_STATE_BEFORE_PARAMETERS:
+        if (token.sym == LPAREN) {
+          functionState = FUNCTION_STATE_IN_PARAMETERS;
+          parenthesesDepth = 1;
+        } else if (token.sym == LBRACE || token.sym == RBRACE || token.sym == SEMICOLON || token.sym == EOF) {
+          functionState = FUNCTION_STATE_NONE;
+        }
+        break;
+      case FUNCTION_STATE_IN_PARAMETERS:
+        if (token.sym == LPAREN) {
+          ++parenthesesDepth;
+        } else if (token.sym == RPAREN && --parenthesesDepth == 0) {
+          functionState = FUNCTION_STATE_AFTER_PARAMETERS;
+        } else if (token.sym == EOF) {
+          functionState = FUNCTION_STATE_NONE;
+        }
+        break;
+      case FUNCTION_STATE_AFTER_PARAMETERS:
+      case FUNCTION_STATE_IN_RESULT_TYPE:
+        if (token.sym == LBRACE) {
+          functionState = FUNCTION_STATE_NONE;
+          skippedFunctionBodyEnd = skipBlock(token);
+        } else if (token.sym == COLON && functionState == FUNCTION_STATE_AFTER_PARAMETERS) {
+          functionState = FUNCTION_STATE_IN_RESULT_TYPE;
+        } else if (functionState == FUNCTION_STATE_AFTER_PARAMETERS || !isTypeToken(token.sym)) {
+          // no body, e.g. an interface method or a native function:
+          functionState = FUNCTION_STATE_NONE;
+        }
+        break;
+    }
+    if (functionState == FUNCTION_STATE_NONE && token.sym == FUNCTION) {
+      functionState = FUNCTION_STATE_BEFORE_PARAMETERS;
+    }
+    return token;
+  }
+
+  private static boolean isTypeToken(int sym) {
+    return sym == IDE || sym == DOT || sym == MUL || sym == VOID || sym == DOTLT || sym == LT || sym == GT;
+  }
+
+  /**
+   * Skip all tokens up to and including the closing brace matching the given opening brace.
+   *
+   * @return the closing brace
+   */
+  private JooSymbol skipBlock(JooSymbol lBrace) throws IOException {
+    int depth = 1;
+    JooSymbol previous = lBrace;
+    int beforePreviousSym = LBRACE;
+    // for each open parenthesis, whether it encloses the head of a statement like "if (...)", which is not
+    // an expression, so that a '/' following the closing parenthesis starts a regular expression:
+    Deque<Boolean> statementHeads = new ArrayDeque<Boolean>();
+    boolean previousEndsStatementHead = false;
+    while (true) {
+      JooSymbol token = (JooSymbol) scan();
+      boolean endsStatementHead = false;
+      switch (token.sym) {
+        case LBRACE:
+          ++depth;
+          break;
+        case RBRACE:
+          if (--depth == 0) {
+            return token;
+          }
+          break;
+        case LPAREN:
+          statementHeads.push(isStatementHeadStart(previous, beforePreviousSym));
+          break;
+        case RPAREN:
+          endsStatementHead = !statementHeads.isEmpty() && statementHeads.pop();
+          break;
+        case DIV:
+        case DIVEQ:
+          if (previousEndsStatementHead || !isExpressionEnd(previous.sym)) {
+            startRegexp(token);
+            token = (JooSymbol) scan();
+          }
+          break;
+        case EOF:
+          throw new ScanError("function body is not closed", token);
+      }
+      beforePreviousSym = previous.sym;
+      previous = token;
+      previousEndsStatementHead = endsStatementHead;
+    }
+  }
+
+  /**
+   * Whether an opening parenthesis following the given tokens starts the head of a statement.
+   */
+  private static boolean isStatementHeadStart(JooSymbol previous, int beforePreviousSym) {
+    switch (previous.sym) {
+      case IF:
+      case WHILE:
+      case FOR:
+      case WITH:
+        return true;
+      case IDE:
+        return beforePreviousSym == FOR && "each".equals(previous.getText());
+    }
+    return false;
+  }
+
+  /**
+   * Whether the given token may end an expression, so that a following '/' is a division operator.
+   */
+  private static boolean isExpressionEnd(int sym) {
+    switch (sym) {
+      case IDE:
+      case THIS:
+      case SUPER:
+      case RPAREN:
+      case RBRACK:
+      case INT_LITERAL:
+      case FLOAT_LITERAL:
+      case STRING_LITERAL:
+      case BOOL_LITERAL:
+      case NULL_LITERAL:
+      case REGEXP_LITERAL:
+      case PLUSPLUS:
+      case MINUSMINUS:
+        return true;
+    }
+    return false;
   }
 
   /**
@@ -67,7 +244,7 @@ public abstract class ScannerBase implements sym {
     setMultiStateText("");
     clearString();
     popWhitespace();
-    pushWhitespace(regexpStart.getWhitespace());
+    whitespace.append(regexpStart.getWhitespace()); // already filtered when scanned the first time
     assert(regexpStart.sym == sym.DIV || regexpStart.sym == sym.DIVEQ);
     yypushback(regexpStart.getText().length()); // scan it again as part of the regexp
     yybeginRegExpStart();
@@ -80,18 +257,106 @@ public abstract class ScannerBase implements sym {
     yypushback(1); // the "="
   }
 
+  /**
+   * Let this scanner keep all whitespace and comments preceding a token, which is only needed to reproduce
+   * the source code exactly, i.e. for {@link net.jangaroo.jooc.config.DebugMode#SOURCE}. Otherwise, only
+   * line terminators, needed for semicolon insertion and to preserve lines, and ASDoc comments are kept. This
+   * does not change generated API stubs, which contain only the ASDoc comments of the source anyway.
+   * The whitespace of class path sources is always dropped.
+   *
+   * @param keepWhitespace whether to keep all whitespace and comments
+   */
+  public void setKeepWhitespace(boolean keepWhitespace) {
+    this.keepWhitespace = keepWhitespace;
+  }
+
   protected void pushWhitespace(String whitespace) {
     if (inputSource.isInSourcePath()) {
-      this.whitespace.append(whitespace);
+      if (keepWhitespace || whitespace.startsWith("/**")) {
+        this.whitespace.append(whitespace);
+      } else {
+        appendLineTerminators(whitespace);
+      }
+    }
+  }
+
+  private void appendLineTerminators(String whitespace) {
+    for (int i = 0; i < whitespace.length(); i++) {
+      char c = whitespace.charAt(i);
+      if (c == '\n' || c == '\r' || c == '\u2028' || c == '\u2029') {
+        this.whitespace.append(c);
+      }
     }
   }
 
   protected String popWhitespace() {
-    String result = whitespace.toString();
+    String result = shareWhitespace(whitespace);
     whitespace.setLength(0);
     return result;
   }
 
+  private static String[][] createSharedIndentations() {
+    String[][] sharedIndentations = new String[LINE_PREFIXES.length][MAX_SHARED_INDENTATION + 1];
+    StringBuilder spaces = new StringBuilder();
+    for (int indentation = 0; indentation <= MAX_SHARED_INDENTATION; indentation++) {
+      for (int i = 0; i < LINE_PREFIXES.length; i++) {
+        sharedIndentations[i][indentation] = LINE_PREFIXES[i] + spaces;
+      }
+      spaces.append(' ');
+    }
+    return sharedIndentations;
+  }
+
+  /**
+   * Returns a shared instance of the given whitespace. The most common whitespace, an optional line break
+   * followed by spaces, is taken from a table without creating a string. Other whitespace without comments
+   * is interned.
+   */
+  private static String shareWhitespace(CharSequence whitespace) {
+    int length = whitespace.length();
+    int lineBreakLength = length > 0 && whitespace.charAt(0) == '\n' ? 1
+            : length > 1 && whitespace.charAt(0) == '\r' && whitespace.charAt(1) == '\n' ? 2 : 0;
+    int indentation = length - lineBreakLength;
+    if (indentation <= MAX_SHARED_INDENTATION) {
+      int i = lineBreakLength;
+      while (i < length && whitespace.charAt(i) == ' ') {
+        ++i;
+      }
+      if (i == length) {
+        return SHARED_INDENTATIONS[lineBreakLength][indentation];
+      }
+    }
+    String result = whitespace.toString();
+    return isCommentFree(result) ? internText(result) : result;
+  }
+
+  private static boolean isCommentFree(String whitespace) {
+    return whitespace.indexOf('/') == -1;
+  }
+
+  /**
+   * Returns a shared instance of the given token text or whitespace, so that the many occurrences of the same
+   * identifier, keyword or operator in all compilation units do not each keep a string of their own.
+   * Long texts, which are rarely repeated, are not shared, and the number of shared texts is limited, as the
+   * compiler may run for a long time, e.g. as a compiler server.
+   */
+  static String internText(String text) {
+    if (text.length() > MAX_INTERNED_TEXT_LENGTH) {
+      return text;
+    }
+    String interned = INTERNED_TEXTS.get(text);
+    if (interned == null) {
+      if (INTERNED_TEXTS.size() >= MAX_INTERNED_TEXTS) {
+        return text;
+      }
+      interned = INTERNED_TEXTS.putIfAbsent(text, text);
+      if (interned == null) {
+        interned = text;
+      }
+    }
+    return interned;
+  }
+
   protected void pushString(String string) {
     this.string.append(string);
   }
@@ -130,11 +395,16 @@ public abstract class ScannerBase implements sym {
   protected abstract String yytext();
 
   protected JooSymbol symbol(int sym) {
-    return new JooSymbol(sym, fileName, getLine(), getColumn(), popWhitespace(), yytext());
+    return new JooSymbol(sym, fileName, getLine(), getColumn(), popWhitespace(), internText(yytext()));
   }
 
   protected JooSymbol symbol(int sym, Object value) {
-    return new JooSymbol(sym, fileName, getLine(), getColumn(), popWhitespace(), yytext(), value);
+    String text = internText(yytext());
+    if (text.equals(value)) {
+      // the value of an identifier is its text, so share it:
+      value = text;
+    }
+    return new JooSymbol(sym, fileName, getLine(), getColumn(), popWhitespace(), text, value);
   }
 
   protected JooSymbol multiStateSymbol(int sym, Object value) {
@@ -0,0 +1,353 @@
+package net.jangaroo.jooc;
+
+import net.jangaroo.utils.CompilerUtils;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.Writer;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Collects mappings from positions in generated JavaScript code to positions in ActionScript source files and
+ * writes them as a Source Map revision 3 file.
+ * All lines and columns handled by this class are zero-based, as required by the source map format.
+ */
+public class SourceMapGenerator {
+
+  /**
+   * The suffix appended to the file name of a generated JavaScript file to form the file name of its source map.
+   */
+  public static final String SOURCE_MAP_SUFFIX = ".map";
+
+  private static final String BASE64_DIGITS = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/";
+  private static final int VLQ_BASE_SHIFT = 5;
+  private static final int VLQ_BASE_MASK = (1 << VLQ_BASE_SHIFT) - 1;
+  private static final int VLQ_CONTINUATION_BIT = 1 << VLQ_BASE_SHIFT;
+
+  private static final String JSON_STRING = "\"((?:[^\"\\\\]|\\\\.)*)\"";
+  private static final Pattern SOURCES_PATTERN = Pattern.compile("\"sources\":\\[((?:" + JSON_STRING + ",?)*)\\]");
+  private static final Pattern MAPPINGS_PATTERN = Pattern.compile("\"mappings\":" + JSON_STRING);
+  private static final Pattern JSON_STRING_PATTERN = Pattern.compile(JSON_STRING);
+
+  // each mapping takes five consecutive ints: generated line, generated column, source index, source line, source column
+  private static final int MAPPING_SIZE = 5;
+
+  private final List<String> sources = new ArrayList<String>();
+  private final Map<String, Integer> sourceIndices = new HashMap<String, Integer>();
+  private int[] mappings = new int[MAPPING_SIZE * 256];
+  private int mappingCount = 0;
+
+  /**
+   * Add a mapping. Mappings must be added in the order of their generated positions.
+   *
+   * @param generatedLine the line in the generated code
+   * @param generatedColumn the column in the generated code
+   * @param sourceFile the path of the source file
+   * @param sourceLine the line in the source file
+   * @param sourceColumn the column in the source file
+   */
+  public void addMapping(int generatedLine, int generatedColumn, String sourceFile, int sourceLine, int sourceColumn) {
+    addMapping(generatedLine, generatedColumn, getSourceIndex(sourceFile), sourceLine, sourceColumn);
+  }
+
+  private int getSourceIndex(String sourceFile) {
+    Integer sourceIndex = sourceIndices.get(sourceFile);
+    if (sourceIndex == null) {
+      sourceIndex = sources.size();
+      sourceIndices.put(sourceFile, sourceIndex);
+      sources.add(sourceFile);
+    }
+    return sourceIndex;
+  }
+
+  private void addMapping(int generatedLine, int generatedColumn, int sourceIndex, int sourceLine, int sourceColumn) {
+    int pos = mappingCount * MAPPING_SIZE;
+    if (pos == mappings.length) {
+      mappings = Arrays.copyOf(mappings, mappings.length * 2);
+    }
+    mappings[pos] = generatedLine;
+    mappings[pos + 1] = generatedColumn;
+    mappings[pos + 2] = sourceIndex;
+    mappings[pos + 3] = sourceLine;
+    mappings[pos + 4] = sourceColumn;
+    ++mappingCount;
+  }
+
+  public int getMappingCount() {
+    return mappingCount;
+  }
+
+  /**
+   * Append all mappings of the given source map, whose generated code has been appended to the generated code of
+   * this source map at the given position.
+   *
+   * @param other the source map to append
+   * @param lineOffset the line of this source map's generated code where the other generated code starts
+   * @param columnOffset the column where the other generated code starts, which only applies to its first line
+   */
+  public void append(SourceMapGenerator other, int lineOffset, int columnOffset) {
+    for (int i = 0; i < other.mappingCount; i++) {
+      int pos = i * MAPPING_SIZE;
+      int generatedLine = other.mappings[pos];
+      addMapping(lineOffset + generatedLine,
+              generatedLine == 0 ? columnOffset + other.mappings[pos + 1] : other.mappings[pos + 1],
+              other.sources.get(other.mappings[pos + 2]), other.mappings[pos + 3], other.mappings[pos + 4]);
+    }
+  }
+
+  /**
+   * Return the comment to append to the given generated file to reference its source map.
+   *
+   * @param generatedFile the generated JavaScript file
+   * @return the comment, including a trailing line feed
+   */
+  public static String getSourceMappingUrlComment(File generatedFile) {
+    return "//# sourceMappingURL=" + generatedFile.getName() + SOURCE_MAP_SUFFIX + "\n";
+  }
+
+  /**
+   * Return the source map file of the given generated file.
+   *
+   * @param generatedFile the generated JavaScript file
+   * @return the source map file next to the generated file
+   */
+  public static File getSourceMapFile(File generatedFile) {
+    return new File(generatedFile.getPath() + SOURCE_MAP_SUFFIX);
+  }
+
+  /**
+   * Write this source map as JSON. Source file paths are written relative to the directory of the generated file,
+   * so that the generated code, its source map and the sources can be moved together.
+   *
+   * @param out the writer to write the source map to
+   * @param generatedFile the generated JavaScript file this source map belongs to
+   * @throws IOException if writing fails
+   */
+  public void write(Writer out, File generatedFile) throws IOException {
+    File generatedDirectory = generatedFile.getAbsoluteFile().getParentFile();
+    out.write("{\"version\":3,\"file\":");
+    writeJsonString(out, generatedFile.getName());
+    out.write(",\"sources\":[");
+    for (int i = 0; i < sources.size(); i++) {
+      if (i > 0) {
+        out.write(',');
+      }
+      writeJsonString(out, toSourceUrl(generatedDirectory, sources.get(i)));
+    }
+    out.write("],\"names\":[],\"mappings\":\"");
+    out.write(encodeMappings());
+    out.write("\"}\n");
+  }
+
+  /**
+   * Read a source map written by {@link #write}. Source file paths are resolved relative to the directory of the
+   * source map file, so that the source map can be appended to the source map of another generated file.
+   *
+   * @param sourceMapFile the source map file
+   * @return the source map
+   * @throws IOException if reading fails or the file does not contain a source map
+   */
+  public static SourceMapGenerator read(File sourceMapFile) throws IOException {
+    String json = readFile(sourceMapFile);
+    Matcher sourcesMatcher = SOURCES_PATTERN.matcher(json);
+    Matcher mappingsMatcher = MAPPINGS_PATTERN.matcher(json);
+    if (!sourcesMatcher.find() || !mappingsMatcher.find()) {
+      throw new IOException("not a source map: " + sourceMapFile);
+    }
+    File sourceMapDirectory = sourceMapFile.getAbsoluteFile().getParentFile();
+    SourceMapGenerator result = new SourceMapGenerator();
+    // different URLs may denote the same source file:
+    List<Integer> sourceIndexByUrlIndex = new ArrayList<Integer>();
+    Matcher sourceMatcher = JSON_STRING_PATTERN.matcher(sourcesMatcher.group(1));
+    while (sourceMatcher.find()) {
+      String sourceFile = fromSourceUrl(sourceMapDirectory, parseJsonString(sourceMatcher.group(1)));
+      sourceIndexByUrlIndex.add(result.getSourceIndex(sourceFile));
+    }
+    result.decodeMappings(parseJsonString(mappingsMatcher.group(1)), sourceIndexByUrlIndex);
+    return result;
+  }
+
+  private void decodeMappings(String encodedMappings, List<Integer> sourceIndexByUrlIndex) throws IOException {
+    int[] segment = new int[5];
+    int line = 0;
+    int column = 0;
+    int sourceIndex = 0;
+    int sourceLine = 0;
+    int sourceColumn = 0;
+    int pos = 0;
+    while (pos < encodedMappings.length()) {
+      char c = encodedMappings.charAt(pos);
+      if (c == ';') {
+        ++line;
+        column = 0;
+        ++pos;
+      } else if (c == ',') {
+        ++pos;
+      } else {
+        int fieldCount = 0;
+        while (pos < encodedMappings.length() && encodedMappings.charAt(pos) != ',' && encodedMappings.charAt(pos) != ';') {
+          if (fieldCount == segment.length) {
+            throw new IOException("invalid source map segment at position " + pos);
+          }
+          int value = 0;
+          int shift = 0;
+          int digit;
+          do {
+            if (pos == encodedMappings.length()) {
+              throw new IOException("incomplete source map segment");
+            }
+            digit = BASE64_DIGITS.indexOf(encodedMappings.charAt(pos++));
+            if (digit == -1) {
+              throw new IOException("invalid character in source map mappings at position " + (pos - 1));
+            }
+            value += (digit & VLQ_BASE_MASK) << shift;
+            shift += VLQ_BASE_SHIFT;
+          } while ((digit & VLQ_CONTINUATION_BIT) != 0);
+          segment[fieldCount++] = (value & 1) == 0 ? value >> 1 : -(value >> 1);
+        }
+        column += segment[0];
+        // segments without a source position do not map anything:
+        if (fieldCount >= 4) {
+          sourceIndex += segment[1];
+          sourceLine += segment[2];
+          sourceColumn += segment[3];
+          if (sourceIndex < 0 || sourceIndex >= sourceIndexByUrlIndex.size()) {
+            throw new IOException("invalid source index " + sourceIndex + " in source map");
+          }
+          addMapping(line, column, sourceIndexByUrlIndex.get(sourceIndex), sourceLine, sourceColumn);
+        }
+      }
+    }
+  }
+
+  private static String fromSourceUrl(File sourceMapDirectory, String sourceUrl) {
+    if (sourceUrl.startsWith("file:")) {
+      return new File(URI.create(sourceUrl)).getPath();
+    }
+    return new File(sourceMapDirectory, sourceUrl.replace('/', File.separatorChar)).getPath();
+  }
+
+  private static String parseJsonString(String value) throws IOException {
+    if (value.indexOf('\\') == -1) {
+      return value;
+    }
+    StringBuilder result = new StringBuilder(value.length());
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      if (c == '\\' && ++i < value.length()) {
+        c = value.charAt(i);
+        switch (c) {
+          case 'b': c = '\b'; break;
+          case 'f': c = '\f'; break;
+          case 'n': c = '\n'; break;
+          case 'r': c = '\r'; break;
+          case 't': c = '\t'; break;
+          case 'u':
+            if (i + 4 >= value.length()) {
+              throw new IOException("invalid escape sequence in source map: " + value);
+            }
+            c = (char) Integer.parseInt(value.substring(i + 1, i + 5), 16);
+            i += 4;
+            break;
+          default: // '"', '\\' and '/' stand for themselves
+        }
+      }
+      result.append(c);
+    }
+    return result.toString();
+  }
+
+  private static String readFile(File file) throws IOException {
+    Reader reader = new InputStreamReader(new FileInputStream(file), "UTF-8");
+    try {
+      StringBuilder result = new StringBuilder();
+      char[] buffer = new char[8192];
+      for (int count = reader.read(buffer); count != -1; count = reader.read(buffer)) {
+        result.append(buffer, 0, count);
+      }
+      return result.toString();
+    } finally {
+      reader.close();
+    }
+  }
+
+  private static String toSourceUrl(File generatedDirectory, String sourceFile) {
+    File file = new File(sourceFile);
+    if (!file.isAbsolute()) {
+      return sourceFile.replace(File.separatorChar, '/');
+    }
+    String relativePath = CompilerUtils.getRelativePath(generatedDirectory, file, false);
+    return relativePath == null ? file.toURI().toString() : relativePath.replace(File.separatorChar, '/');
+  }
+
+  String encodeMappings() {
+    StringBuilder result = new StringBuilder(mappingCount * 6);
+    int line = 0;
+    int previousColumn = 0;
+    int previousSourceIndex = 0;
+    int previousSourceLine = 0;
+    int previousSourceColumn = 0;
+    boolean firstSegmentInLine = true;
+    for (int i = 0; i < mappingCount; i++) {
+      int pos = i * MAPPING_SIZE;
+      int generatedLine = mappings[pos];
+      while (line < generatedLine) {
+        result.append(';');
+        ++line;
+        previousColumn = 0;
+        firstSegmentInLine = true;
+      }
+      if (!firstSegmentInLine) {
+        result.append(',');
+      }
+      appendVlq(result, mappings[pos + 1] - previousColumn);
+      appendVlq(result, mappings[pos + 2] - previousSourceIndex);
+      appendVlq(result, mappings[pos + 3] - previousSourceLine);
+      appendVlq(result, mappings[pos + 4] - previousSourceColumn);
+      previousColumn = mappings[pos + 1];
+      previousSourceIndex = mappings[pos + 2];
+      previousSourceLine = mappings[pos + 3];
+      previousSourceColumn = mappings[pos + 4];
+      firstSegmentInLine = false;
+    }
+    return result.toString();
+  }
+
+  static void appendVlq(StringBuilder result, int value) {
+    int vlq = value < 0 ? (-value << 1) | 1 : value << 1;
+    do {
+      int digit = vlq & VLQ_BASE_MASK;
+      vlq >>>= VLQ_BASE_SHIFT;
+      if (vlq > 0) {
+        digit |= VLQ_CONTINUATION_BIT;
+      }
+      result.append(BASE64_DIGITS.charAt(digit));
+    } while (vlq > 0);
+  }
+
+  private static void writeJsonString(Writer out, String value) throws IOException {
+    out.write('"');
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      if (c == '"' || c == '\\') {
+        out.write('\\');
+        out.write(c);
+      } else if (c < ' ') {
+        out.write(String.format("\\u%04x", (int) c));
+      } else {
+        out.write(c);
+      }
+    }
+    out.write('"');
+  }
+}
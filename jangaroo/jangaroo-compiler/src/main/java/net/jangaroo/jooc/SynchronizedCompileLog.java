@@ -0,0 +1,46 @@
+package net.jangaroo.jooc;
+
+import net.jangaroo.jooc.api.CompileLog;
+import net.jangaroo.jooc.api.FilePosition;
+
+/**
+ * A {@link CompileLog} that serializes all calls to a delegate log, so that it can be shared by the worker threads
+ * of a concurrent compilation run.
+ */
+public class SynchronizedCompileLog implements CompileLog {
+
+  private final CompileLog delegate;
+
+  public SynchronizedCompileLog(CompileLog delegate) {
+    this.delegate = delegate;
+  }
+
+  public CompileLog getDelegate() {
+    return delegate;
+  }
+
+  @Override
+  public synchronized void error(FilePosition position, String msg) {
+    delegate.error(position, msg);
+  }
+
+  @Override
+  public synchronized void error(String msg) {
+    delegate.error(msg);
+  }
+
+  @Override
+  public synchronized void warning(FilePosition position, String msg) {
+    delegate.warning(position, msg);
+  }
+
+  @Override
+  public synchronized void warning(String msg) {
+    delegate.warning(msg);
+  }
+
+  @Override
+  public synchronized boolean hasErrors() {
+    return delegate.hasErrors();
+  }
+}
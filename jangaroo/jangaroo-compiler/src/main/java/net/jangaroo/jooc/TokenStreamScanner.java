@@ -0,0 +1,286 @@
+package net.jangaroo.jooc;
+
+import net.jangaroo.jooc.input.InputSource;
+import net.jangaroo.utils.BOMStripperInputStream;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A scanner that replays the tokens of an API stub from a compact binary file instead of scanning its
+ * ActionScript text. The token file is written next to the API stub when the stub is generated, so that it
+ * is packaged into the same jar, and is picked up for class path compilation units instead of the stub.
+ * <p>The format consists of a string table holding all distinct token texts and string values, each given by its
+ * length and UTF-8 bytes, followed by the tokens, each given by its symbol, line, column, text index and value. Whitespace is not recorded, as it is
+ * discarded for class path sources anyway.</p>
+ * <p>Pushed back characters are scanned again from the text of the current token. Regular expressions cannot be
+ * reconstructed from tokens, so when the parser starts a regular expression, the rest of the API stub is scanned
+ * from its ActionScript text.</p>
+ */
+public class TokenStreamScanner extends ScannerBase {
+
+  /**
+   * The suffix appended to the file name of an API stub to form the file name of its token file.
+   */
+  public static final String TOKENS_SUFFIX = ".tokens";
+
+  private static final int MAGIC = 0x4a4f4f54; // "JOOT"
+  private static final int VERSION = 2;
+
+  private static final byte VALUE_NONE = 0;
+  private static final byte VALUE_STRING = 1;
+  private static final byte VALUE_LONG = 2;
+  private static final byte VALUE_DOUBLE = 3;
+  private static final byte VALUE_BOOLEAN = 4;
+
+  private final String fileName;
+  private final DataInputStream in;
+  private final String[] strings;
+  private int remainingTokens;
+  private JooSymbol current;
+  private final Deque<JooSymbol> rescannedTokens = new ArrayDeque<JooSymbol>();
+  private Scanner stubScanner;
+
+  /**
+   * Create a scanner replaying the given token file.
+   *
+   * @param source the API stub the tokens have been scanned from, used as the file name of all tokens
+   * @param tokens the token file
+   * @throws IOException if the token file cannot be read or has an unknown format
+   */
+  public TokenStreamScanner(InputSource source, InputSource tokens) throws IOException {
+    setInputSource(source);
+    fileName = source.getPath();
+    in = new DataInputStream(new BufferedInputStream(tokens.getInputStream()));
+    if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+      in.close();
+      throw new IOException("unknown token file format: " + tokens.getPath());
+    }
+    strings = new String[in.readInt()];
+    for (int i = 0; i < strings.length; i++) {
+      strings[i] = internText(readString(in));
+    }
+    remainingTokens = in.readInt();
+    current = new JooSymbol(EOF, fileName, 1, 1, "", "");
+  }
+
+  @Override
+  public java_cup.runtime.Symbol scan() throws IOException {
+    if (!rescannedTokens.isEmpty()) {
+      current = rescannedTokens.removeFirst();
+    } else if (stubScanner != null) {
+      current = (JooSymbol) stubScanner.scan();
+      if (current.sym == EOF) {
+        stubScanner.yyclose();
+      }
+    } else if (remainingTokens > 0) {
+      --remainingTokens;
+      current = readToken();
+      if (remainingTokens == 0) {
+        in.close();
+      }
+    } else {
+      current = new JooSymbol(EOF, fileName, current.getLine(), current.getColumn(), "", "");
+    }
+    return current;
+  }
+
+  private JooSymbol readToken() throws IOException {
+    int sym = in.readShort();
+    int line = in.readInt();
+    int column = in.readInt();
+    String text = strings[in.readInt()];
+    Object value;
+    switch (in.readByte()) {
+      case VALUE_STRING:
+        value = strings[in.readInt()];
+        break;
+      case VALUE_LONG:
+        value = in.readLong();
+        break;
+      case VALUE_DOUBLE:
+        value = in.readDouble();
+        break;
+      case VALUE_BOOLEAN:
+        value = in.readBoolean();
+        break;
+      default:
+        value = null;
+    }
+    return new JooSymbol(sym, fileName, line, column, "", text, value);
+  }
+
+  /**
+   * Scan the last <code>number</code> characters of the current token again, so that the next tokens are
+   * the tokens of these characters, e.g. the "=" of a "*=" that actually is a type followed by a default value.
+   */
+  @Override
+  protected void yypushback(int number) {
+    String text = current.getText();
+    int offset = text.length() - Math.min(number, text.length());
+    if (offset == text.length()) {
+      return;
+    }
+    List<JooSymbol> tokens = new ArrayList<JooSymbol>();
+    Scanner scanner = new Scanner(new StringReader(text.substring(offset)));
+    try {
+      scanner.setInputSource(getInputSource());
+      for (JooSymbol token = (JooSymbol) scanner.scan(); token.sym != EOF; token = (JooSymbol) scanner.scan()) {
+        // the pushed back part of a token never contains a line terminator:
+        tokens.add(new JooSymbol(token.sym, fileName, current.getLine(), current.getColumn() + offset + token.getColumn() - 1,
+                "", token.getText(), token.getJooValue()));
+      }
+      scanner.yyclose();
+    } catch (IOException e) {
+      // cannot happen when reading from a string
+      throw new IllegalStateException(e);
+    }
+    // tokens pushed back before have to be replayed after the rescanned ones:
+    for (int i = tokens.size() - 1; i >= 0; i--) {
+      rescannedTokens.addFirst(tokens.get(i));
+    }
+  }
+
+  /**
+   * Continue with scanning the API stub itself, starting with the regular expression that starts at the current
+   * token, which has just been pushed back completely.
+   */
+  @Override
+  protected void yybeginRegExpStart() {
+    rescannedTokens.clear();
+    try {
+      in.close();
+      stubScanner = new Scanner(new InputStreamReader(new BOMStripperInputStream(getInputSource().getInputStream()), "UTF-8"));
+      stubScanner.setInputSource(getInputSource());
+      JooSymbol token;
+      do {
+        token = (JooSymbol) stubScanner.scan();
+      } while (token.sym != EOF && (token.getLine() != current.getLine() || token.getColumn() != current.getColumn()));
+      if (token.sym != EOF) {
+        stubScanner.startRegexp(token);
+      }
+    } catch (IOException e) {
+      throw new ScanError("cannot scan regular expression in " + fileName + ": " + e.getMessage(), current);
+    }
+  }
+
+  @Override
+  protected int getLine() {
+    return current.getLine();
+  }
+
+  @Override
+  protected int getColumn() {
+    return current.getColumn();
+  }
+
+  @Override
+  protected String yytext() {
+    return current.getText();
+  }
+
+  /**
+   * Scan the given API stub and write its tokens to the given file. The text of a regular expression is scanned
+   * like any other code here, which is fine, as replaying switches to scanning the stub itself at its start. If
+   * that text cannot be scanned like code, no token file is written.
+   *
+   * @param source the API stub
+   * @param tokensFile the token file to write
+   * @return whether the token file has been written
+   * @throws IOException if the stub cannot be read or the token file cannot be written
+   */
+  public static boolean write(InputSource source, File tokensFile) throws IOException {
+    List<JooSymbol> tokens = new ArrayList<JooSymbol>();
+    Scanner scanner = new Scanner(new InputStreamReader(new BOMStripperInputStream(source.getInputStream()), "UTF-8"));
+    try {
+      scanner.setInputSource(source);
+      for (JooSymbol token = (JooSymbol) scanner.next_token(); token.sym != EOF; token = (JooSymbol) scanner.next_token()) {
+        tokens.add(token);
+      }
+    } catch (ScanError e) {
+      //noinspection ResultOfMethodCallIgnored
+      tokensFile.delete(); // NOSONAR do not leave a stale token file behind
+      return false;
+    } finally {
+      scanner.yyclose();
+    }
+
+    Map<String, Integer> stringIndices = new HashMap<String, Integer>();
+    List<String> strings = new ArrayList<String>();
+    for (JooSymbol token : tokens) {
+      addString(stringIndices, strings, token.getText());
+      if (token.getJooValue() instanceof String) {
+        addString(stringIndices, strings, (String) token.getJooValue());
+      }
+    }
+
+    DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tokensFile)));
+    try {
+      out.writeInt(MAGIC);
+      out.writeInt(VERSION);
+      out.writeInt(strings.size());
+      for (String string : strings) {
+        writeString(out, string);
+      }
+      out.writeInt(tokens.size());
+      for (JooSymbol token : tokens) {
+        out.writeShort(token.sym);
+        out.writeInt(token.getLine());
+        out.writeInt(token.getColumn());
+        out.writeInt(stringIndices.get(token.getText()));
+        Object value = token.getJooValue();
+        if (value instanceof String) {
+          out.writeByte(VALUE_STRING);
+          out.writeInt(stringIndices.get((String) value));
+        } else if (value instanceof Long) {
+          out.writeByte(VALUE_LONG);
+          out.writeLong((Long) value);
+        } else if (value instanceof Double) {
+          out.writeByte(VALUE_DOUBLE);
+          out.writeDouble((Double) value);
+        } else if (value instanceof Boolean) {
+          out.writeByte(VALUE_BOOLEAN);
+          out.writeBoolean((Boolean) value);
+        } else {
+          out.writeByte(VALUE_NONE);
+        }
+      }
+    } finally {
+      out.close();
+    }
+    return true;
+  }
+
+  // unlike writeUTF(), not limited to 64K bytes, which long string literals may exceed:
+  private static void writeString(DataOutputStream out, String string) throws IOException {
+    byte[] bytes = string.getBytes("UTF-8");
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  private static String readString(DataInputStream in) throws IOException {
+    byte[] bytes = new byte[in.readInt()];
+    in.readFully(bytes);
+    return new String(bytes, "UTF-8");
+  }
+
+  private static void addString(Map<String, Integer> stringIndices, List<String> strings, String string) {
+    if (!stringIndices.containsKey(string)) {
+      stringIndices.put(string, strings.size());
+      strings.add(string);
+    }
+  }
+}
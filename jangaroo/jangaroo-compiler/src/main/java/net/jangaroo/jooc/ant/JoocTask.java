@@ -16,6 +16,8 @@
 package net.jangaroo.jooc.ant;
 
 import net.jangaroo.jooc.Jooc;
+import net.jangaroo.jooc.server.JoocClient;
+import net.jangaroo.jooc.server.JoocServer;
 import org.apache.tools.ant.BuildException;
 import org.apache.tools.ant.DirectoryScanner;
 import org.apache.tools.ant.Project;
@@ -25,6 +27,7 @@ import org.apache.tools.ant.util.GlobPatternMapper;
 import org.apache.tools.ant.util.SourceFileScanner;
 
 import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -48,6 +51,8 @@ public class JoocTask extends MatchingTask {
   private boolean allowduplicatelocalvariables;
   private File[] compileList = new File[0];
   private String autoSemicolon = null;
+  private int threads = 1;
+  private int serverPort = 0;
 
   public boolean getEnableAssertions() {
     return enableAssertions;
@@ -218,6 +223,34 @@ public class JoocTask extends MatchingTask {
     this.autoSemicolon = autoSemicolon;
   }
 
+  public int getThreads() {
+    return threads;
+  }
+
+  /**
+   * Sets the number of threads the compiler uses to parse source files and generate output; defaults to 1.
+   *
+   * @param threads the number of compiler threads
+   */
+  public void setThreads(int threads) {
+    this.threads = threads;
+  }
+
+  public int getServerPort() {
+    return serverPort;
+  }
+
+  /**
+   * Sets the port of a running compiler server (see {@link JoocServer}) on the local host to send compile
+   * requests to; defaults to 0, which means to compile within the Ant process. The server's access token is read
+   * from its {@link JoocServer#getDefaultTokenFile(int) default token file}.
+   *
+   * @param serverPort the local compiler server port
+   */
+  public void setServerPort(int serverPort) {
+    this.serverPort = serverPort;
+  }
+
   /**
    * Executes the task.
    */
@@ -337,7 +370,7 @@ public class JoocTask extends MatchingTask {
         }
         getProject().log(cmdLine.toString());
       }
-      if (Jooc.run(joocArgs, new AntCompileLog(getProject())) != 0) {
+      if (runJooc(joocArgs) != 0) {
         if (failOnError) {
           throw new BuildException(FAIL_MSG, getLocation());
         } else {
@@ -349,6 +382,17 @@ public class JoocTask extends MatchingTask {
     }
   }
 
+  private int runJooc(String[] joocArgs) {
+    if (serverPort > 0) {
+      try {
+        return new JoocClient(serverPort).compile(joocArgs, new AntCompileLog(getProject()));
+      } catch (IOException e) {
+        throw new BuildException("cannot connect to compiler server on port " + serverPort + ": " + e.getMessage(), e, getLocation());
+      }
+    }
+    return Jooc.run(joocArgs, new AntCompileLog(getProject()));
+  }
+
   private String[] getJoocArgs() {
     List<String> args = new ArrayList<String>(compileList.length + 10);
     if (debugLevel != null) {
@@ -368,6 +412,10 @@ public class JoocTask extends MatchingTask {
     if (allowduplicatelocalvariables) {
       args.add("-ad");
     }
+    if (threads > 1) {
+      args.add("-threads");
+      args.add(String.valueOf(threads));
+    }
     if (destDir != null) {
       args.add("-d");
       args.add(destDir.getAbsolutePath());
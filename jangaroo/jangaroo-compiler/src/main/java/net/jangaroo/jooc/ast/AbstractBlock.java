@@ -1,10 +1,9 @@
 package net.jangaroo.jooc.ast;
 
-import net.jangaroo.jooc.CodeGenerator;
 import net.jangaroo.jooc.JooSymbol;
 import net.jangaroo.jooc.Scope;
 
-import java.util.ArrayList;
+import java.io.IOException;
 import java.util.List;
 
 public abstract class AbstractBlock extends Statement {
@@ -12,7 +11,6 @@ public abstract class AbstractBlock extends Statement {
   private JooSymbol lBrace;
   private List<Directive> directives;
   private JooSymbol rBrace;
-  private List<CodeGenerator> blockStartCodeGenerators = new ArrayList<CodeGenerator>(3);
 
   public AbstractBlock(JooSymbol rBrace, List<Directive> directives, JooSymbol lBrace) {
     this.rBrace = rBrace;
@@ -26,12 +24,14 @@ public abstract class AbstractBlock extends Statement {
   }
 
   @Override
-  public void scope(final Scope scope) {
-    scope(getDirectives(), scope);
+  public void forEachChild(AstVisitor visitor) throws IOException {
+    super.forEachChild(visitor);
+    visitChild(visitor, directives);
   }
 
-  public void addBlockStartCodeGenerator(CodeGenerator blockStartCodeGenerator) {
-    getBlockStartCodeGenerators().add(blockStartCodeGenerator);
+  @Override
+  public void scope(final Scope scope) {
+    scope(getDirectives(), scope);
   }
 
   public void analyze(AstNode parentNode) {
@@ -54,8 +54,4 @@ public abstract class AbstractBlock extends Statement {
   public JooSymbol getRBrace() {
     return rBrace;
   }
-
-  public List<CodeGenerator> getBlockStartCodeGenerators() {
-    return blockStartCodeGenerators;
-  }
 }
@@ -55,6 +55,13 @@ public class Annotation extends Directive {
     return makeChildren(super.getChildren(), ide, optAnnotationParameters);
   }
 
+  @Override
+  public void forEachChild(AstVisitor visitor) throws IOException {
+    super.forEachChild(visitor);
+    visitChild(visitor, ide);
+    visitChild(visitor, optAnnotationParameters);
+  }
+
   @Override
   public void visit(AstVisitor visitor) throws IOException {
     visitor.visitAnnotation(this);
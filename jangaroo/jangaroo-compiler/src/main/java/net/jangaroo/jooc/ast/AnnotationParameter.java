@@ -45,6 +45,13 @@ public class AnnotationParameter extends NodeImplBase {
     return makeChildren(super.getChildren(), optName, value);
   }
 
+  @Override
+  public void forEachChild(AstVisitor visitor) throws IOException {
+    super.forEachChild(visitor);
+    visitChild(visitor, optName);
+    visitChild(visitor, value);
+  }
+
   @Override
   public void visit(AstVisitor visitor) throws IOException {
     visitor.visitAnnotationParameter(this);
@@ -46,6 +46,13 @@ public class ApplyExpr extends Expr {
     return makeChildren(super.getChildren(), fun, args);
   }
 
+  @Override
+  public void forEachChild(AstVisitor visitor) throws IOException {
+    super.forEachChild(visitor);
+    visitChild(visitor, fun);
+    visitChild(visitor, args);
+  }
+
   @Override
   public void visit(AstVisitor visitor) throws IOException {
     visitor.visitApplyExpr(this);
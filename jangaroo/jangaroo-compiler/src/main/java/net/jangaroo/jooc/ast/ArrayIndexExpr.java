@@ -40,6 +40,13 @@ public class ArrayIndexExpr extends Expr {
     return makeChildren(super.getChildren(), array, indexExpr);
   }
 
+  @Override
+  public void forEachChild(AstVisitor visitor) throws IOException {
+    super.forEachChild(visitor);
+    visitChild(visitor, array);
+    visitChild(visitor, indexExpr);
+  }
+
   @Override
   public void visit(AstVisitor visitor) throws IOException {
     visitor.visitArrayIndexExpr(this);
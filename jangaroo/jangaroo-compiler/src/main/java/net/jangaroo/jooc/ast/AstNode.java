@@ -30,6 +30,12 @@ public interface AstNode {
 
   List<? extends AstNode> getChildren();
 
+  /**
+   * Let the given visitor visit all children of this node, in the same order as returned by
+   * {@link #getChildren()}, but without allocating a list of children.
+   */
+  void forEachChild(AstVisitor visitor) throws IOException;
+
   void scope(Scope scope);
 
   void analyze(AstNode parentNode);
@@ -40,6 +40,13 @@ public class BinaryOpExpr extends OpExpr {
     return makeChildren(super.getChildren(), arg1, arg2);
   }
 
+  @Override
+  public void forEachChild(AstVisitor visitor) throws IOException {
+    super.forEachChild(visitor);
+    visitChild(visitor, arg1);
+    visitChild(visitor, arg2);
+  }
+
   @Override
   public void visit(AstVisitor visitor) throws IOException {
     visitor.visitBinaryOpExpr(this);
@@ -40,6 +40,12 @@ public class CaseStatement extends KeywordStatement {
     return makeChildren(super.getChildren(), expr);
   }
 
+  @Override
+  public void forEachChild(AstVisitor visitor) throws IOException {
+    super.forEachChild(visitor);
+    visitChild(visitor, expr);
+  }
+
   @Override
   public void visit(AstVisitor visitor) throws IOException {
     visitor.visitCaseStatement(this);
@@ -47,6 +47,13 @@ public class Catch extends KeywordStatement {
     return makeChildren(super.getChildren(), param, block);
   }
 
+  @Override
+  public void forEachChild(AstVisitor visitor) throws IOException {
+    super.forEachChild(visitor);
+    visitChild(visitor, param);
+    visitChild(visitor, block);
+  }
+
   @Override
   public void visit(AstVisitor visitor) throws IOException {
     visitor.visitCatch(this);
@@ -24,10 +24,9 @@ import net.jangaroo.jooc.Scope;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.Deque;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -38,6 +37,14 @@ import java.util.Set;
  */
 public class ClassDeclaration extends IdeDeclaration {
 
+  // the classes whose inherited members are being computed by the current thread, to detect cyclic inheritance:
+  private static final ThreadLocal<Set<ClassDeclaration>> computingInheritedMembers = new ThreadLocal<Set<ClassDeclaration>>() {
+    @Override
+    protected Set<ClassDeclaration> initialValue() {
+      return new HashSet<ClassDeclaration>();
+    }
+  };
+
   private JooSymbol symClass;
   private Extends optExtends;
   private Map<String, TypedIdeDeclaration> members = new LinkedHashMap<String, TypedIdeDeclaration>();
@@ -50,6 +57,8 @@ public class ClassDeclaration extends IdeDeclaration {
   private List<VariableDeclaration> fieldsWithInitializer = new ArrayList<VariableDeclaration>();
   private List<IdeDeclaration> secondaryDeclarations = Collections.emptyList();
   private int inheritanceLevel = -1;
+  private volatile boolean membersComplete = false;
+  private volatile Map<String, IdeDeclaration> inheritedMembers;
 
   private Implements optImplements;
   private Scope scope;
@@ -67,6 +76,14 @@ public class ClassDeclaration extends IdeDeclaration {
     return makeChildren(super.getChildren(), optExtends, optImplements, body);
   }
 
+  @Override
+  public void forEachChild(AstVisitor visitor) throws IOException {
+    super.forEachChild(visitor);
+    visitChild(visitor, optExtends);
+    visitChild(visitor, optImplements);
+    visitChild(visitor, body);
+  }
+
   public FunctionDeclaration getConstructor() {
     return constructor;
   }
@@ -183,6 +200,8 @@ public class ClassDeclaration extends IdeDeclaration {
         }
       }
     });
+    // all members have been registered now:
+    membersComplete = true;
   }
 
   @Override
@@ -268,51 +287,78 @@ public class ClassDeclaration extends IdeDeclaration {
    * @return a non-static member if found, null otherwise
    */
   public IdeDeclaration resolvePropertyDeclaration(String ide) {
-    return resolvePropertyDeclaration1(ide, this, new HashSet<ClassDeclaration>(), new LinkedList<ClassDeclaration>());
+    IdeDeclaration declaration = getMemberDeclaration(ide);
+    if (declaration == null) {
+      declaration = getStaticMemberDeclaration(ide);
+    }
+    return declaration != null ? declaration : getInheritedMembers().get(ide);
   }
 
-  private IdeDeclaration resolvePropertyDeclaration1(String ide, ClassDeclaration classDecl, Set<ClassDeclaration> visited, Deque<ClassDeclaration> chain) {
-    if (visited.contains(classDecl)) {
-      if (chain.contains(classDecl)) {
-        throw new CompilerError(classDecl.getSymbol(), "cyclic superclass chain");
+  /**
+   * Return all members inherited from the super class and implemented interfaces, flattened into one table.
+   * The table is built on first use and kept once all super types have registered all their members, which is
+   * the case as soon as they have been scoped. As class path declarations are shared by concurrent compilation
+   * threads, a complete table is published only as a whole, and cycles are detected per thread.
+   */
+  private Map<String, IdeDeclaration> getInheritedMembers() {
+    Map<String, IdeDeclaration> result = inheritedMembers;
+    if (result == null) {
+      Set<ClassDeclaration> computing = computingInheritedMembers.get();
+      if (!computing.add(this)) {
+        throw new CompilerError(getSymbol(), "cyclic superclass chain");
       }
-      return null;
-    }
-    visited.add(classDecl);
-    final int chainSize = chain.size();
-    chain.add(classDecl);
-    IdeDeclaration declaration = classDecl.getMemberDeclaration(ide);
-    if (declaration == null) {
-      declaration = classDecl.getStaticMemberDeclaration(ide);
-    }
-    if (declaration == null && classDecl.getSuperType() != null) {
-      declaration = resolvePropertyInSuper(ide, classDecl, visited, chain, classDecl.getSuperType().getIde());
-    }
-    if (declaration == null && classDecl.getOptImplements() != null) {
-      CommaSeparatedList<Ide> implemented = classDecl.getOptImplements().getSuperTypes();
-      while (implemented != null && declaration == null) {
-        declaration = resolvePropertyInSuper(ide, classDecl, visited, chain, implemented.getHead());
-        implemented = implemented.getTail();
+      try {
+        result = new HashMap<String, IdeDeclaration>();
+        boolean complete = true;
+        if (superType != null) {
+          complete = addAllMembers(result, superType.getIde());
+        }
+        if (optImplements != null) {
+          for (CommaSeparatedList<Ide> implemented = optImplements.getSuperTypes(); implemented != null;
+               implemented = implemented.getTail()) {
+            complete &= addAllMembers(result, implemented.getHead());
+          }
+        }
+        if (complete) {
+          inheritedMembers = result;
+        }
+      } finally {
+        computing.remove(this);
       }
     }
-    chain.removeLast();
-    assert chainSize == chain.size();
-    return declaration;
+    return result;
   }
 
-  private IdeDeclaration resolvePropertyInSuper(final String ide,
-                                                final ClassDeclaration classDecl,
-                                                final Set<ClassDeclaration> visited,
-                                                final Deque<ClassDeclaration> chain,
-                                                final Ide superIde) {
+  /**
+   * Add all members of the given super type to the given table.
+   *
+   * @return whether all added members are final, i.e. the super type and all its super types are complete
+   */
+  private boolean addAllMembers(Map<String, IdeDeclaration> result, Ide superIde) {
     IdeDeclaration superClassDecl = superIde.getDeclaration(false);
-    if (superClassDecl != null) {
-      if (!(superClassDecl instanceof ClassDeclaration)) {
-        throw new CompilerError(classDecl.getOptExtends().getSuperClass().getSymbol(), "expected class identifier");
+    if (superClassDecl == null) {
+      return true;
+    }
+    if (!(superClassDecl instanceof ClassDeclaration)) {
+      throw new CompilerError(getOptExtends().getSuperClass().getSymbol(), "expected class identifier");
+    }
+    ClassDeclaration superClassDeclaration = (ClassDeclaration) superClassDecl;
+    // check before copying, as members may still be registered while copying:
+    boolean complete = superClassDeclaration.membersComplete;
+    // members found first take precedence, just like in a depth-first search of the inheritance graph:
+    addAbsent(result, superClassDeclaration.members);
+    addAbsent(result, superClassDeclaration.staticMembers);
+    Map<String, IdeDeclaration> superInheritedMembers = superClassDeclaration.getInheritedMembers();
+    addAbsent(result, superInheritedMembers);
+    return complete && superInheritedMembers == superClassDeclaration.inheritedMembers;
+  }
+
+  private static void addAbsent(Map<String, IdeDeclaration> result, Map<String, ? extends IdeDeclaration> members) {
+    for (Map.Entry<String, ? extends IdeDeclaration> entry : members.entrySet()) {
+      if (!result.containsKey(entry.getKey())) {
+        result.put(entry.getKey(), entry.getValue());
       }
-      return resolvePropertyDeclaration1(ide, (ClassDeclaration) superClassDecl, visited, chain);
     }
-    return null;
   }
 
   public int getInheritanceLevel() {
@@ -44,6 +44,13 @@ public class CommaSeparatedList<T extends AstNode> extends Expr {
     return makeChildren(super.getChildren(), head, tail);
   }
 
+  @Override
+  public void forEachChild(AstVisitor visitor) throws IOException {
+    super.forEachChild(visitor);
+    visitChild(visitor, head);
+    visitChild(visitor, tail);
+  }
+
   @Override
   public void visit(AstVisitor visitor) throws IOException {
     visitor.visitCommaSeparatedList(this);
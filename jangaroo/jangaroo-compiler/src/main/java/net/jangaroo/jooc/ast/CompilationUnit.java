@@ -53,6 +53,7 @@ public class CompilationUnit extends NodeImplBase {
 
   private InputSource source;
   private JangarooParser compiler;
+  private boolean declarationsOnly;
 
   public CompilationUnit(PackageDeclaration packageDeclaration, JooSymbol lBrace, List<AstNode> directives, IdeDeclaration primaryDeclaration, JooSymbol rBrace, List<IdeDeclaration> secondaryDeclarations) {
     this.packageDeclaration = packageDeclaration;
@@ -74,6 +75,17 @@ public class CompilationUnit extends NodeImplBase {
     return result;
   }
 
+  @Override
+  public void forEachChild(AstVisitor visitor) throws IOException {
+    super.forEachChild(visitor);
+    visitChild(visitor, packageDeclaration);
+    visitChild(visitor, directives);
+    visitChild(visitor, primaryDeclaration);
+    if (primaryDeclaration instanceof ClassDeclaration) {
+      visitChild(visitor, ((ClassDeclaration) primaryDeclaration).getSecondaryDeclarations());
+    }
+  }
+
   public List<AstNode> getDirectives() {
     return directives;
   }
@@ -195,6 +207,20 @@ public class CompilationUnit extends NodeImplBase {
     return source;
   }
 
+  /**
+   * Whether this compilation unit has been parsed without the statements of its function bodies, because it is
+   * only needed to resolve declarations. To generate code, a compilation unit has to be parsed completely.
+   *
+   * @return whether all function bodies of this compilation unit are empty
+   */
+  public boolean isDeclarationsOnly() {
+    return declarationsOnly;
+  }
+
+  public void setDeclarationsOnly(boolean declarationsOnly) {
+    this.declarationsOnly = declarationsOnly;
+  }
+
   public void analyze(AstNode parentNode) {
     super.analyze(parentNode);
     packageDeclaration.analyze(this);
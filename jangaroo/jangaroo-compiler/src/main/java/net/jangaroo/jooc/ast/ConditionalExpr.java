@@ -45,6 +45,14 @@ public class ConditionalExpr extends Expr {
     return makeChildren(super.getChildren(), cond, ifTrue, ifFalse);
   }
 
+  @Override
+  public void forEachChild(AstVisitor visitor) throws IOException {
+    super.forEachChild(visitor);
+    visitChild(visitor, cond);
+    visitChild(visitor, ifTrue);
+    visitChild(visitor, ifFalse);
+  }
+
   @Override
   public void visit(AstVisitor visitor) throws IOException {
     visitor.visitConditionalExpr(this);
@@ -18,6 +18,7 @@ package net.jangaroo.jooc.ast;
 import net.jangaroo.jooc.JooSymbol;
 import net.jangaroo.jooc.Scope;
 
+import java.io.IOException;
 import java.util.List;
 
 /**
@@ -37,6 +38,12 @@ public abstract class ConditionalLoopStatement extends LoopStatement {
     return makeChildren(super.getChildren(), optCond);
   }
 
+  @Override
+  public void forEachChild(AstVisitor visitor) throws IOException {
+    super.forEachChild(visitor);
+    visitChild(visitor, optCond);
+  }
+
   @Override
   public void scope(final Scope scope) {
     super.scope(scope);
@@ -185,6 +185,10 @@ public abstract class Declaration extends Statement {
     return (getModifiers() & MODIFIER_NATIVE) != 0;
   }
 
+  public boolean hasNamespaceModifier() {
+    return (getModifiers() & MODIFIER_NAMESPACE) != 0;
+  }
+
   @Override
   public void scope(final Scope scope) {
     setParentDeclaration(scope.getDefiningNode());
@@ -40,6 +40,12 @@ public class DotExpr extends PostfixOpExpr {
     return makeChildren(super.getChildren(), ide);
   }
 
+  @Override
+  public void forEachChild(AstVisitor visitor) throws IOException {
+    super.forEachChild(visitor);
+    visitChild(visitor, ide);
+  }
+
   @Override
   public void visit(AstVisitor visitor) throws IOException {
     visitor.visitDotExpr(this);
@@ -40,6 +40,12 @@ public class Extends extends NodeImplBase {
     return makeChildren(super.getChildren(), superClass);
   }
 
+  @Override
+  public void forEachChild(AstVisitor visitor) throws IOException {
+    super.forEachChild(visitor);
+    visitChild(visitor, superClass);
+  }
+
   @Override
   public void visit(AstVisitor visitor) throws IOException {
     visitor.visitExtends(this);
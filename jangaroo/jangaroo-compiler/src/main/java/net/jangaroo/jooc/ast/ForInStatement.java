@@ -66,6 +66,14 @@ public class ForInStatement extends LoopStatement {
     return makeChildren(super.getChildren(), decl, lValue, expr);
   }
 
+  @Override
+  public void forEachChild(AstVisitor visitor) throws IOException {
+    super.forEachChild(visitor);
+    visitChild(visitor, decl);
+    visitChild(visitor, lValue);
+    visitChild(visitor, expr);
+  }
+
   public JooSymbol getSymEach() {
     return symEach;
   }
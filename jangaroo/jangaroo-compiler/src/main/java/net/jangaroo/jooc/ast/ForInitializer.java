@@ -42,6 +42,13 @@ public class ForInitializer extends NodeImplBase {
     return makeChildren(super.getChildren(), decl, expr);
   }
 
+  @Override
+  public void forEachChild(AstVisitor visitor) throws IOException {
+    super.forEachChild(visitor);
+    visitChild(visitor, decl);
+    visitChild(visitor, expr);
+  }
+
   @Override
   public void visit(AstVisitor visitor) throws IOException {
     visitor.visitForInitializer(this);
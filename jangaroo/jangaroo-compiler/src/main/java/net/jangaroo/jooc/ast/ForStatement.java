@@ -49,6 +49,13 @@ public class ForStatement extends ConditionalLoopStatement {
     return makeChildren(super.getChildren(), forInit, optStep);
   }
 
+  @Override
+  public void forEachChild(AstVisitor visitor) throws IOException {
+    super.forEachChild(visitor);
+    visitChild(visitor, forInit);
+    visitChild(visitor, optStep);
+  }
+
   @Override
   public void visit(AstVisitor visitor) throws IOException {
     visitor.visitForStatement(this);
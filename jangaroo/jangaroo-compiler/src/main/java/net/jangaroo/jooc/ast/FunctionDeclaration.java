@@ -59,6 +59,11 @@ public class FunctionDeclaration extends TypedIdeDeclaration {
     return makeChildren(fun); // do not call super.getChildren(), as fun already contains ide!
   }
 
+  @Override
+  public void forEachChild(AstVisitor visitor) throws IOException {
+    visitChild(visitor, fun);
+  }
+
   @Override
   public void visit(AstVisitor visitor) throws IOException {
     visitor.visitFunctionDeclaration(this);
@@ -77,6 +77,15 @@ public class FunctionExpr extends Expr {
     return makeChildren(super.getChildren(), ide, params, optTypeRelation, optBody);
   }
 
+  @Override
+  public void forEachChild(AstVisitor visitor) throws IOException {
+    super.forEachChild(visitor);
+    visitChild(visitor, ide);
+    visitChild(visitor, params);
+    visitChild(visitor, optTypeRelation);
+    visitChild(visitor, optBody);
+  }
+
   @Override
   public void visit(AstVisitor visitor) throws IOException {
     visitor.visitFunctionExpr(this);
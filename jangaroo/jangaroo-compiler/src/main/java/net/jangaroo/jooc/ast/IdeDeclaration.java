@@ -19,6 +19,7 @@ import net.jangaroo.jooc.JooSymbol;
 import net.jangaroo.jooc.Jooc;
 import net.jangaroo.jooc.Scope;
 
+import java.io.IOException;
 import java.util.List;
 import java.util.regex.Pattern;
 
@@ -49,6 +50,12 @@ public abstract class IdeDeclaration extends Declaration {
     return makeChildren(super.getChildren(), ide);
   }
 
+  @Override
+  public void forEachChild(AstVisitor visitor) throws IOException {
+    super.forEachChild(visitor);
+    visitChild(visitor, ide);
+  }
+
   public Ide getIde() {
     return ide;
   }
@@ -45,6 +45,12 @@ public class IdeExpr extends Expr {
     return makeChildren(super.getChildren(), ide);
   }
 
+  @Override
+  public void forEachChild(AstVisitor visitor) throws IOException {
+    super.forEachChild(visitor);
+    visitChild(visitor, ide);
+  }
+
   @Override
   public void visit(AstVisitor visitor) throws IOException {
     visitor.visitIdeExpression(this);
@@ -30,6 +30,12 @@ public class IdeWithTypeParam extends Ide {
     return makeChildren(super.getChildren(), type);
   }
 
+  @Override
+  public void forEachChild(AstVisitor visitor) throws IOException {
+    super.forEachChild(visitor);
+    visitChild(visitor, type);
+  }
+
   public JooSymbol getOriginalIde() {
     return originalIde;
   }
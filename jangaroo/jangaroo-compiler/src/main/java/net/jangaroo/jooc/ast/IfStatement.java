@@ -48,6 +48,14 @@ public class IfStatement extends KeywordStatement {
     return makeChildren(super.getChildren(), cond, ifTrue, ifFalse);
   }
 
+  @Override
+  public void forEachChild(AstVisitor visitor) throws IOException {
+    super.forEachChild(visitor);
+    visitChild(visitor, cond);
+    visitChild(visitor, ifTrue);
+    visitChild(visitor, ifFalse);
+  }
+
   @Override
   public void visit(AstVisitor visitor) throws IOException {
     visitor.visitIfStatement(this);
@@ -38,6 +38,12 @@ public class Implements extends NodeImplBase {
     return makeChildren(super.getChildren(), superTypes);
   }
 
+  @Override
+  public void forEachChild(AstVisitor visitor) throws IOException {
+    super.forEachChild(visitor);
+    visitChild(visitor, superTypes);
+  }
+
   @Override
   public void visit(AstVisitor visitor) throws IOException {
     visitor.visitImplements(this);
@@ -58,6 +58,12 @@ public class ImportDirective extends Directive {
     return makeChildren(super.getChildren(), ide);
   }
 
+  @Override
+  public void forEachChild(AstVisitor visitor) throws IOException {
+    super.forEachChild(visitor);
+    visitChild(visitor, ide);
+  }
+
   private static Ide createIde(Ide prefix, JooSymbol symIde) {
     return prefix == null ? new Ide(symIde) : new QualifiedIde(prefix, DOT_SYMBOL, symIde);
   }
@@ -39,6 +39,12 @@ public class Initializer extends NodeImplBase {
     return makeChildren(super.getChildren(), value);
   }
 
+  @Override
+  public void forEachChild(AstVisitor visitor) throws IOException {
+    super.forEachChild(visitor);
+    visitChild(visitor, value);
+  }
+
   @Override
   public void visit(AstVisitor visitor) throws IOException {
     visitor.visitInitializer(this);
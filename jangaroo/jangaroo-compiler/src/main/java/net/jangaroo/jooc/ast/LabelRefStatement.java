@@ -19,6 +19,7 @@ import net.jangaroo.jooc.JooSymbol;
 import net.jangaroo.jooc.Jooc;
 import net.jangaroo.jooc.Scope;
 
+import java.io.IOException;
 import java.util.List;
 
 /**
@@ -42,6 +43,12 @@ public abstract class LabelRefStatement extends KeywordExprStatement {
     return makeChildren(super.getChildren(), optLabel);
   }
 
+  @Override
+  public void forEachChild(AstVisitor visitor) throws IOException {
+    super.forEachChild(visitor);
+    visitChild(visitor, optLabel);
+  }
+
   @Override
   public void scope(final Scope scope) {
     super.scope(scope);
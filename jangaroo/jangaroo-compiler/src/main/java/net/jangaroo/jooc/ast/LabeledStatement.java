@@ -41,6 +41,13 @@ public class LabeledStatement extends Statement {
     return makeChildren(super.getChildren(), ide, statement);
   }
 
+  @Override
+  public void forEachChild(AstVisitor visitor) throws IOException {
+    super.forEachChild(visitor);
+    visitChild(visitor, ide);
+    visitChild(visitor, statement);
+  }
+
   @Override
   public void visit(AstVisitor visitor) throws IOException {
     visitor.visitLabeledStatement(this);
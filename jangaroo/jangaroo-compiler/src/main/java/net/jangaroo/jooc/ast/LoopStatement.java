@@ -18,6 +18,7 @@ package net.jangaroo.jooc.ast;
 import net.jangaroo.jooc.JooSymbol;
 import net.jangaroo.jooc.Scope;
 
+import java.io.IOException;
 import java.util.List;
 
 
@@ -38,6 +39,12 @@ public abstract class LoopStatement extends KeywordStatement {
     return makeChildren(super.getChildren(), body);
   }
 
+  @Override
+  public void forEachChild(AstVisitor visitor) throws IOException {
+    super.forEachChild(visitor);
+    visitChild(visitor, body);
+  }
+
   @Override
   public void scope(final Scope scope) {
     withNewLabelScope(this, scope, new Scoped() {
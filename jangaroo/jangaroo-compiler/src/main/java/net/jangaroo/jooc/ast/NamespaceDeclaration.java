@@ -47,6 +47,12 @@ public class NamespaceDeclaration extends IdeDeclaration {
     return makeChildren(super.getChildren(), optInitializer);
   }
 
+  @Override
+  public void forEachChild(AstVisitor visitor) throws IOException {
+    super.forEachChild(visitor);
+    visitChild(visitor, optInitializer);
+  }
+
   @Override
   public void visit(AstVisitor visitor) throws IOException {
     visitor.visitNamespaceDeclaration(this);
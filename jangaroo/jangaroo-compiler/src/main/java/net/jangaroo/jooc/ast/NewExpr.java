@@ -42,6 +42,12 @@ public class NewExpr extends Expr {
     return makeChildren(super.getChildren(), applyConstructor);
   }
 
+  @Override
+  public void forEachChild(AstVisitor visitor) throws IOException {
+    super.forEachChild(visitor);
+    visitChild(visitor, applyConstructor);
+  }
+
   @Override
   public void visit(AstVisitor visitor) throws IOException {
     visitor.visitNewExpr(this);
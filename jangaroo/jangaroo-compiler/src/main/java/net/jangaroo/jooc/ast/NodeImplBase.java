@@ -18,6 +18,7 @@ package net.jangaroo.jooc.ast;
 import net.jangaroo.jooc.DeclarationScope;
 import net.jangaroo.jooc.Scope;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -51,6 +52,23 @@ public abstract class NodeImplBase implements AstNode {
     return result;
   }
 
+  public void forEachChild(AstVisitor visitor) throws IOException {
+  }
+
+  protected static void visitChild(AstVisitor visitor, AstNode child) throws IOException {
+    if (child != null) {
+      child.visit(visitor);
+    }
+  }
+
+  protected static void visitChild(AstVisitor visitor, Collection<? extends AstNode> children) throws IOException {
+    if (children != null) {
+      for (AstNode child : children) {
+        visitChild(visitor, child);
+      }
+    }
+  }
+
   public void analyze(AstNode parentNode) {
     this.parentNode = parentNode;
   }
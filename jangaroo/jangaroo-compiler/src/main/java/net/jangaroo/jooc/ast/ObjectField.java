@@ -41,6 +41,13 @@ public class ObjectField extends NodeImplBase {
     return makeChildren(super.getChildren(), label, value);
   }
 
+  @Override
+  public void forEachChild(AstVisitor visitor) throws IOException {
+    super.forEachChild(visitor);
+    visitChild(visitor, label);
+    visitChild(visitor, value);
+  }
+
   @Override
   public void visit(AstVisitor visitor) throws IOException {
     visitor.visitObjectField(this);
@@ -49,6 +49,12 @@ public class ObjectLiteral extends Expr {
     return makeChildren(super.getChildren(), fields);
   }
 
+  @Override
+  public void forEachChild(AstVisitor visitor) throws IOException {
+    super.forEachChild(visitor);
+    visitChild(visitor, fields);
+  }
+
   @Override
   public void visit(AstVisitor visitor) throws IOException {
     visitor.visitObjectLiteral(this);
@@ -45,6 +45,13 @@ public class Parameter extends IdeDeclaration {
     return makeChildren(super.getChildren(), optTypeRelation, optInitializer);
   }
 
+  @Override
+  public void forEachChild(AstVisitor visitor) throws IOException {
+    super.forEachChild(visitor);
+    visitChild(visitor, optTypeRelation);
+    visitChild(visitor, optInitializer);
+  }
+
   @Override
   public void visit(AstVisitor visitor) throws IOException {
     visitor.visitParameter(this);
@@ -41,6 +41,12 @@ public class ParenthesizedExpr<E extends Expr> extends Expr {
     return makeChildren(super.getChildren(), expr);
   }
 
+  @Override
+  public void forEachChild(AstVisitor visitor) throws IOException {
+    super.forEachChild(visitor);
+    visitChild(visitor, expr);
+  }
+
   @Override
   public void visit(AstVisitor visitor) throws IOException {
     visitor.visitParenthesizedExpr(this);
@@ -42,6 +42,12 @@ public class QualifiedIde extends Ide {
     return makeChildren(super.getChildren(), qualifier);
   }
 
+  @Override
+  public void forEachChild(AstVisitor visitor) throws IOException {
+    super.forEachChild(visitor);
+    visitChild(visitor, qualifier);
+  }
+
   @Override
   public void visit(AstVisitor visitor) throws IOException {
     visitor.visitQualifiedIde(this);
@@ -56,6 +56,12 @@ public class SemicolonTerminatedStatement extends Statement {
     return makeChildren(super.getChildren(), optStatement);
   }
 
+  @Override
+  public void forEachChild(AstVisitor visitor) throws IOException {
+    super.forEachChild(visitor);
+    visitChild(visitor, optStatement);
+  }
+
   @Override
   public void visit(AstVisitor visitor) throws IOException {
     visitor.visitSemicolonTerminatedStatement(this);
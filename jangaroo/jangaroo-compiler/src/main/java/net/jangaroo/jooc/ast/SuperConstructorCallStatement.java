@@ -44,6 +44,13 @@ public class SuperConstructorCallStatement extends Statement {
     return makeChildren(super.getChildren(), fun, args);
   }
 
+  @Override
+  public void forEachChild(AstVisitor visitor) throws IOException {
+    super.forEachChild(visitor);
+    visitChild(visitor, fun);
+    visitChild(visitor, args);
+  }
+
   @Override
   public void visit(AstVisitor visitor) throws IOException {
     visitor.visitSuperConstructorCallStatement(this);
@@ -40,6 +40,13 @@ public class SwitchStatement extends KeywordStatement {
     return makeChildren(super.getChildren(), cond, block);
   }
 
+  @Override
+  public void forEachChild(AstVisitor visitor) throws IOException {
+    super.forEachChild(visitor);
+    visitChild(visitor, cond);
+    visitChild(visitor, block);
+  }
+
   @Override
   public void visit(AstVisitor visitor) throws IOException {
     visitor.visitSwitchStatement(this);
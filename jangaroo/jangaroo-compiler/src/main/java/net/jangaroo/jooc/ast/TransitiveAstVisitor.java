@@ -1,7 +1,6 @@
 package net.jangaroo.jooc.ast;
 
 import java.io.IOException;
-import java.util.List;
 
 /**
  * Traverse the entire AST.
@@ -13,334 +12,328 @@ public class TransitiveAstVisitor implements AstVisitor {
     this.delegate = delegate;
   }
 
-  private void visitChildren(List<? extends AstNode> children) throws IOException {
-    for (AstNode child : children) {
-      child.visit(this);
-    }
-  }
-
   public void visitTypeRelation(TypeRelation typeRelation) throws IOException {
-    visitChildren(typeRelation.getChildren());
+    typeRelation.forEachChild(this);
     delegate.visitTypeRelation(typeRelation);
   }
 
   public void visitAnnotationParameter(AnnotationParameter annotationParameter) throws IOException {
-    visitChildren(annotationParameter.getChildren());
+    annotationParameter.forEachChild(this);
     delegate.visitAnnotationParameter(annotationParameter);
   }
 
   public void visitExtends(Extends anExtends) throws IOException {
-    visitChildren(anExtends.getChildren());
+    anExtends.forEachChild(this);
     delegate.visitExtends(anExtends);
   }
 
   public void visitInitializer(Initializer initializer) throws IOException {
-    visitChildren(initializer.getChildren());
+    initializer.forEachChild(this);
     delegate.visitInitializer(initializer);
   }
 
   public void visitObjectField(ObjectField objectField) throws IOException {
-    visitChildren(objectField.getChildren());
+    objectField.forEachChild(this);
     delegate.visitObjectField(objectField);
   }
 
   public void visitForInitializer(ForInitializer forInitializer) throws IOException {
-    visitChildren(forInitializer.getChildren());
+    forInitializer.forEachChild(this);
     delegate.visitForInitializer(forInitializer);
   }
 
   public void visitCompilationUnit(CompilationUnit compilationUnit) throws IOException {
-    visitChildren(compilationUnit.getChildren());
+    compilationUnit.forEachChild(this);
     delegate.visitCompilationUnit(compilationUnit);
   }
 
   public void visitIde(Ide ide) throws IOException {
-    visitChildren(ide.getChildren());
+    ide.forEachChild(this);
     delegate.visitIde(ide);
   }
 
   public void visitQualifiedIde(QualifiedIde qualifiedIde) throws IOException {
-    visitChildren(qualifiedIde.getChildren());
+    qualifiedIde.forEachChild(this);
     delegate.visitQualifiedIde(qualifiedIde);
   }
 
   public void visitIdeWithTypeParam(IdeWithTypeParam ideWithTypeParam) throws IOException {
-    visitChildren(ideWithTypeParam.getChildren());
+    ideWithTypeParam.forEachChild(this);
     delegate.visitIdeWithTypeParam(ideWithTypeParam);
   }
 
   public void visitNamespacedIde(NamespacedIde namespacedIde) throws IOException {
-    visitChildren(namespacedIde.getChildren());
+    namespacedIde.forEachChild(this);
     delegate.visitNamespacedIde(namespacedIde);
   }
 
   public void visitImplements(Implements anImplements) throws IOException {
-    visitChildren(anImplements.getChildren());
+    anImplements.forEachChild(this);
     delegate.visitImplements(anImplements);
   }
 
   public void visitType(Type type) throws IOException {
-    visitChildren(type.getChildren());
+    type.forEachChild(this);
     delegate.visitType(type);
   }
 
   public void visitObjectLiteral(ObjectLiteral objectLiteral) throws IOException {
-    visitChildren(objectLiteral.getChildren());
+    objectLiteral.forEachChild(this);
     delegate.visitObjectLiteral(objectLiteral);
   }
 
   public void visitIdeExpression(IdeExpr ideExpr) throws IOException {
-    visitChildren(ideExpr.getChildren());
+    ideExpr.forEachChild(this);
     delegate.visitIdeExpression(ideExpr);
   }
 
   public <T extends Expr> void visitParenthesizedExpr(ParenthesizedExpr<T> parenthesizedExpr) throws IOException {
-    visitChildren(parenthesizedExpr.getChildren());
+    parenthesizedExpr.forEachChild(this);
     delegate.visitParenthesizedExpr(parenthesizedExpr);
   }
 
   public void visitArrayLiteral(ArrayLiteral arrayLiteral) throws IOException {
-    visitChildren(arrayLiteral.getChildren());
+    arrayLiteral.forEachChild(this);
     delegate.visitArrayLiteral(arrayLiteral);
   }
 
   public void visitLiteralExpr(LiteralExpr literalExpr) throws IOException {
-    visitChildren(literalExpr.getChildren());
+    literalExpr.forEachChild(this);
     delegate.visitLiteralExpr(literalExpr);
   }
 
   public void visitPostfixOpExpr(PostfixOpExpr postfixOpExpr) throws IOException {
-    visitChildren(postfixOpExpr.getChildren());
+    postfixOpExpr.forEachChild(this);
     delegate.visitPostfixOpExpr(postfixOpExpr);
   }
 
   public void visitDotExpr(DotExpr dotExpr) throws IOException {
-    visitChildren(dotExpr.getChildren());
+    dotExpr.forEachChild(this);
     delegate.visitDotExpr(dotExpr);
   }
 
   public void visitPrefixOpExpr(PrefixOpExpr prefixOpExpr) throws IOException {
-    visitChildren(prefixOpExpr.getChildren());
+    prefixOpExpr.forEachChild(this);
     delegate.visitPrefixOpExpr(prefixOpExpr);
   }
 
   public void visitBinaryOpExpr(BinaryOpExpr binaryOpExpr) throws IOException {
-    visitChildren(binaryOpExpr.getChildren());
+    binaryOpExpr.forEachChild(this);
     delegate.visitBinaryOpExpr(binaryOpExpr);
   }
 
   public void visitAssignmentOpExpr(AssignmentOpExpr assignmentOpExpr) throws IOException {
-    visitChildren(assignmentOpExpr.getChildren());
+    assignmentOpExpr.forEachChild(this);
     delegate.visitAssignmentOpExpr(assignmentOpExpr);
   }
 
   public void visitInfixOpExpr(InfixOpExpr infixOpExpr) throws IOException {
-    visitChildren(infixOpExpr.getChildren());
+    infixOpExpr.forEachChild(this);
     delegate.visitInfixOpExpr(infixOpExpr);
   }
 
   public void visitAsExpr(AsExpr asExpr) throws IOException {
-    visitChildren(asExpr.getChildren());
+    asExpr.forEachChild(this);
     delegate.visitAsExpr(asExpr);
   }
 
   public void visitIsExpr(IsExpr isExpr) throws IOException {
-    visitChildren(isExpr.getChildren());
+    isExpr.forEachChild(this);
     delegate.visitIsExpr(isExpr);
   }
 
   public void visitConditionalExpr(ConditionalExpr conditionalExpr) throws IOException {
-    visitChildren(conditionalExpr.getChildren());
+    conditionalExpr.forEachChild(this);
     delegate.visitConditionalExpr(conditionalExpr);
   }
 
   public void visitArrayIndexExpr(ArrayIndexExpr arrayIndexExpr) throws IOException {
-    visitChildren(arrayIndexExpr.getChildren());
+    arrayIndexExpr.forEachChild(this);
     delegate.visitArrayIndexExpr(arrayIndexExpr);
   }
 
   public <T extends AstNode> void visitCommaSeparatedList(CommaSeparatedList<T> nodeTypeCommaSeparatedList) throws IOException {
-    visitChildren(nodeTypeCommaSeparatedList.getChildren());
+    nodeTypeCommaSeparatedList.forEachChild(this);
     delegate.visitCommaSeparatedList(nodeTypeCommaSeparatedList);
   }
 
   public void visitParameters(Parameters parameters) throws IOException {
-    visitChildren(parameters.getChildren());
+    parameters.forEachChild(this);
     delegate.visitParameters(parameters);
   }
 
   public void visitFunctionExpr(FunctionExpr functionExpr) throws IOException {
-    visitChildren(functionExpr.getChildren());
+    functionExpr.forEachChild(this);
     delegate.visitFunctionExpr(functionExpr);
   }
 
   public void visitVectorLiteral(VectorLiteral vectorLiteral) throws IOException {
-    visitChildren(vectorLiteral.getChildren());
+    vectorLiteral.forEachChild(this);
     delegate.visitVectorLiteral(vectorLiteral);
   }
 
   public void visitApplyExpr(ApplyExpr applyExpr) throws IOException {
-    visitChildren(applyExpr.getChildren());
+    applyExpr.forEachChild(this);
     delegate.visitApplyExpr(applyExpr);
   }
 
   public void visitNewExpr(NewExpr newExpr) throws IOException {
-    visitChildren(newExpr.getChildren());
+    newExpr.forEachChild(this);
     delegate.visitNewExpr(newExpr);
   }
 
   public void visitClassBody(ClassBody classBody) throws IOException {
-    visitChildren(classBody.getChildren());
+    classBody.forEachChild(this);
     delegate.visitClassBody(classBody);
   }
 
   public void visitBlockStatement(BlockStatement blockStatement) throws IOException {
-    visitChildren(blockStatement.getChildren());
+    blockStatement.forEachChild(this);
     delegate.visitBlockStatement(blockStatement);
   }
 
   public void visitDefaultStatement(DefaultStatement defaultStatement) throws IOException {
-    visitChildren(defaultStatement.getChildren());
+    defaultStatement.forEachChild(this);
     delegate.visitDefaultStatement(defaultStatement);
   }
 
   public void visitLabeledStatement(LabeledStatement labeledStatement) throws IOException {
-    visitChildren(labeledStatement.getChildren());
+    labeledStatement.forEachChild(this);
     delegate.visitLabeledStatement(labeledStatement);
   }
 
   public void visitIfStatement(IfStatement ifStatement) throws IOException {
-    visitChildren(ifStatement.getChildren());
+    ifStatement.forEachChild(this);
     delegate.visitIfStatement(ifStatement);
   }
 
   public void visitCaseStatement(CaseStatement caseStatement) throws IOException {
-    visitChildren(caseStatement.getChildren());
+    caseStatement.forEachChild(this);
     delegate.visitCaseStatement(caseStatement);
   }
 
   public void visitTryStatement(TryStatement tryStatement) throws IOException {
-    visitChildren(tryStatement.getChildren());
+    tryStatement.forEachChild(this);
     delegate.visitTryStatement(tryStatement);
   }
 
   public void visitCatch(Catch aCatch) throws IOException {
-    visitChildren(aCatch.getChildren());
+    aCatch.forEachChild(this);
     delegate.visitCatch(aCatch);
   }
 
   public void visitForInStatement(ForInStatement forInStatement) throws IOException {
-    visitChildren(forInStatement.getChildren());
+    forInStatement.forEachChild(this);
     delegate.visitForInStatement(forInStatement);
   }
 
   public void visitWhileStatement(WhileStatement whileStatement) throws IOException {
-    visitChildren(whileStatement.getChildren());
+    whileStatement.forEachChild(this);
     delegate.visitWhileStatement(whileStatement);
   }
 
   public void visitForStatement(ForStatement forStatement) throws IOException {
-    visitChildren(forStatement.getChildren());
+    forStatement.forEachChild(this);
     delegate.visitForStatement(forStatement);
   }
 
   public void visitDoStatement(DoStatement doStatement) throws IOException {
-    visitChildren(doStatement.getChildren());
+    doStatement.forEachChild(this);
     delegate.visitDoStatement(doStatement);
   }
 
   public void visitSwitchStatement(SwitchStatement switchStatement) throws IOException {
-    visitChildren(switchStatement.getChildren());
+    switchStatement.forEachChild(this);
     delegate.visitSwitchStatement(switchStatement);
   }
 
   public void visitSemicolonTerminatedStatement(SemicolonTerminatedStatement semicolonTerminatedStatement) throws IOException {
-    visitChildren(semicolonTerminatedStatement.getChildren());
+    semicolonTerminatedStatement.forEachChild(this);
     delegate.visitSemicolonTerminatedStatement(semicolonTerminatedStatement);
   }
 
   public void visitContinueStatement(ContinueStatement continueStatement) throws IOException {
-    visitChildren(continueStatement.getChildren());
+    continueStatement.forEachChild(this);
     delegate.visitContinueStatement(continueStatement);
   }
 
   public void visitBreakStatement(BreakStatement breakStatement) throws IOException {
-    visitChildren(breakStatement.getChildren());
+    breakStatement.forEachChild(this);
     delegate.visitBreakStatement(breakStatement);
   }
 
   public void visitThrowStatement(ThrowStatement throwStatement) throws IOException {
-    visitChildren(throwStatement.getChildren());
+    throwStatement.forEachChild(this);
     delegate.visitThrowStatement(throwStatement);
   }
 
   public void visitReturnStatement(ReturnStatement returnStatement) throws IOException {
-    visitChildren(returnStatement.getChildren());
+    returnStatement.forEachChild(this);
     delegate.visitReturnStatement(returnStatement);
   }
 
   public void visitEmptyStatement(EmptyStatement emptyStatement) throws IOException {
-    visitChildren(emptyStatement.getChildren());
+    emptyStatement.forEachChild(this);
     delegate.visitEmptyStatement(emptyStatement);
   }
 
   public void visitEmptyDeclaration(EmptyDeclaration emptyDeclaration) throws IOException {
-    visitChildren(emptyDeclaration.getChildren());
+    emptyDeclaration.forEachChild(this);
     delegate.visitEmptyDeclaration(emptyDeclaration);
   }
 
   public void visitParameter(Parameter parameter) throws IOException {
-    visitChildren(parameter.getChildren());
+    parameter.forEachChild(this);
     delegate.visitParameter(parameter);
   }
 
   public void visitVariableDeclaration(VariableDeclaration variableDeclaration) throws IOException {
-    visitChildren(variableDeclaration.getChildren());
+    variableDeclaration.forEachChild(this);
     delegate.visitVariableDeclaration(variableDeclaration);
   }
 
   public void visitFunctionDeclaration(FunctionDeclaration functionDeclaration) throws IOException {
-    visitChildren(functionDeclaration.getChildren());
+    functionDeclaration.forEachChild(this);
     delegate.visitFunctionDeclaration(functionDeclaration);
   }
 
   public void visitClassDeclaration(ClassDeclaration classDeclaration) throws IOException {
-    visitChildren(classDeclaration.getChildren());
+    classDeclaration.forEachChild(this);
     delegate.visitClassDeclaration(classDeclaration);
   }
 
   public void visitPredefinedTypeDeclaration(PredefinedTypeDeclaration predefinedTypeDeclaration) throws IOException {
-    visitChildren(predefinedTypeDeclaration.getChildren());
+    predefinedTypeDeclaration.forEachChild(this);
     delegate.visitPredefinedTypeDeclaration(predefinedTypeDeclaration);
   }
 
   public void visitNamespaceDeclaration(NamespaceDeclaration namespaceDeclaration) throws IOException {
-    visitChildren(namespaceDeclaration.getChildren());
+    namespaceDeclaration.forEachChild(this);
     delegate.visitNamespaceDeclaration(namespaceDeclaration);
   }
 
   public void visitPackageDeclaration(PackageDeclaration packageDeclaration) throws IOException {
-    visitChildren(packageDeclaration.getChildren());
+    packageDeclaration.forEachChild(this);
     delegate.visitPackageDeclaration(packageDeclaration);
   }
 
   public void visitSuperConstructorCallStatement(SuperConstructorCallStatement superConstructorCallStatement) throws IOException {
-    visitChildren(superConstructorCallStatement.getChildren());
+    superConstructorCallStatement.forEachChild(this);
     delegate.visitSuperConstructorCallStatement(superConstructorCallStatement);
   }
 
   public void visitAnnotation(Annotation annotation) throws IOException {
-    visitChildren(annotation.getChildren());
+    annotation.forEachChild(this);
     delegate.visitAnnotation(annotation);
   }
 
   public void visitUseNamespaceDirective(UseNamespaceDirective useNamespaceDirective) throws IOException {
-    visitChildren(useNamespaceDirective.getChildren());
+    useNamespaceDirective.forEachChild(this);
     delegate.visitUseNamespaceDirective(useNamespaceDirective);
   }
 
   public void visitImportDirective(ImportDirective importDirective) throws IOException {
-    visitChildren(importDirective.getChildren());
+    importDirective.forEachChild(this);
     delegate.visitImportDirective(importDirective);
   }
 }
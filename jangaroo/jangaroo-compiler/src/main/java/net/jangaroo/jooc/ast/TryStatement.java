@@ -48,6 +48,14 @@ public class TryStatement extends KeywordStatement {
     return makeChildren(super.getChildren(), block, catches, finallyBlock);
   }
 
+  @Override
+  public void forEachChild(AstVisitor visitor) throws IOException {
+    super.forEachChild(visitor);
+    visitChild(visitor, block);
+    visitChild(visitor, catches);
+    visitChild(visitor, finallyBlock);
+  }
+
   @Override
   public void visit(AstVisitor visitor) throws IOException {
     visitor.visitTryStatement(this);
@@ -41,6 +41,12 @@ public class Type extends NodeImplBase {
     return makeChildren(super.getChildren(), ide);
   }
 
+  @Override
+  public void forEachChild(AstVisitor visitor) throws IOException {
+    super.forEachChild(visitor);
+    visitChild(visitor, ide);
+  }
+
   public Ide getIde() {
     return ide;
   }
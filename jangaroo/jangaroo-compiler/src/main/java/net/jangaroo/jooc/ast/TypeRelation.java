@@ -47,6 +47,12 @@ public class TypeRelation extends NodeImplBase {
     return makeChildren(super.getChildren(), type);
   }
 
+  @Override
+  public void forEachChild(AstVisitor visitor) throws IOException {
+    super.forEachChild(visitor);
+    visitChild(visitor, type);
+  }
+
   @Override
   public void visit(AstVisitor visitor) throws IOException {
     visitor.visitTypeRelation(this);
@@ -19,6 +19,7 @@ import net.jangaroo.jooc.JooSymbol;
 import net.jangaroo.jooc.Jooc;
 import net.jangaroo.jooc.Scope;
 
+import java.io.IOException;
 import java.util.List;
 
 /**
@@ -58,6 +59,12 @@ public abstract class TypedIdeDeclaration extends IdeDeclaration {
     return makeChildren(super.getChildren(), optTypeRelation);
   }
 
+  @Override
+  public void forEachChild(AstVisitor visitor) throws IOException {
+    super.forEachChild(visitor);
+    visitChild(visitor, optTypeRelation);
+  }
+
   @Override
   public String getName() {
     return NamespacedIde.getNamespacePrefix(namespace) + super.getName();
@@ -19,6 +19,7 @@ package net.jangaroo.jooc.ast;
 import net.jangaroo.jooc.JooSymbol;
 import net.jangaroo.jooc.Scope;
 
+import java.io.IOException;
 import java.util.List;
 
 /**
@@ -38,6 +39,12 @@ public abstract class UnaryOpExpr extends OpExpr {
     return makeChildren(super.getChildren(), arg);
   }
 
+  @Override
+  public void forEachChild(AstVisitor visitor) throws IOException {
+    super.forEachChild(visitor);
+    visitChild(visitor, arg);
+  }
+
   @Override
   public void scope(final Scope scope) {
     getArg().scope(scope);
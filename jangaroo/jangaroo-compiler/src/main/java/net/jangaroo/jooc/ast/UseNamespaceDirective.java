@@ -46,6 +46,12 @@ public class UseNamespaceDirective extends Directive {
     return makeChildren(super.getChildren(), namespace);
   }
 
+  @Override
+  public void forEachChild(AstVisitor visitor) throws IOException {
+    super.forEachChild(visitor);
+    visitChild(visitor, namespace);
+  }
+
   @Override
   public void visit(AstVisitor visitor) throws IOException {
     visitor.visitUseNamespaceDirective(this);
@@ -65,6 +65,13 @@ public class VariableDeclaration extends TypedIdeDeclaration {
     return makeChildren(super.getChildren(), optInitializer, optNextVariableDeclaration);
   }
 
+  @Override
+  public void forEachChild(AstVisitor visitor) throws IOException {
+    super.forEachChild(visitor);
+    visitChild(visitor, optInitializer);
+    visitChild(visitor, optNextVariableDeclaration);
+  }
+
   @Override
   public void visit(AstVisitor visitor) throws IOException {
     visitor.visitVariableDeclaration(this);
@@ -30,6 +30,13 @@ public class VectorLiteral extends Expr {
     return makeChildren(super.getChildren(), type, arrayLiteral);
   }
 
+  @Override
+  public void forEachChild(AstVisitor visitor) throws IOException {
+    super.forEachChild(visitor);
+    visitChild(visitor, type);
+    visitChild(visitor, arrayLiteral);
+  }
+
   @Override
   public void visit(AstVisitor visitor) throws IOException {
     visitor.visitVectorLiteral(this);
@@ -1,11 +1,18 @@
 package net.jangaroo.jooc.backend;
 
 import net.jangaroo.jooc.Jooc;
+import net.jangaroo.jooc.JsWriter;
+import net.jangaroo.jooc.SourceMapGenerator;
 import net.jangaroo.jooc.ast.IdeDeclaration;
 import net.jangaroo.jooc.ast.PackageDeclaration;
+import net.jangaroo.jooc.config.DebugMode;
 import net.jangaroo.jooc.config.JoocOptions;
 
 import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 
 /**
  * Abstract base class for merged and single file compilation unit sink factories.
@@ -13,10 +20,14 @@ import java.io.File;
 public abstract class AbstractCompilationUnitSinkFactory implements CompilationUnitSinkFactory {
   protected File outputDir = null;
   JoocOptions options;
+  private DebugMode debugMode;
+  private boolean generateSourceMaps = false;
+  private boolean minify = false;
 
   public AbstractCompilationUnitSinkFactory(JoocOptions options, File outputDir) {
     this.outputDir = outputDir;
     this.options = options;
+    this.debugMode = options.getDebugMode();
   }
 
   public File getOutputDir() {
@@ -27,9 +38,73 @@ public abstract class AbstractCompilationUnitSinkFactory implements CompilationU
     return options;
   }
 
+  public DebugMode getDebugMode() {
+    return debugMode;
+  }
+
+  /**
+   * Set the debug mode of the code generated by this factory's sinks, overriding the debug mode of the options.
+   * This allows to generate several outputs with different debug modes in one compiler run.
+   *
+   * @param debugMode the debug mode to use for generated code
+   */
+  public void setDebugMode(DebugMode debugMode) {
+    this.debugMode = debugMode;
+  }
+
+  public boolean isGenerateSourceMaps() {
+    return generateSourceMaps;
+  }
+
+  /**
+   * Set whether to generate a source map next to each generated JavaScript file, mapping the generated code
+   * back to the ActionScript sources.
+   *
+   * @param generateSourceMaps whether to generate source maps
+   */
+  public void setGenerateSourceMaps(boolean generateSourceMaps) {
+    this.generateSourceMaps = generateSourceMaps;
+  }
+
+  public boolean isMinify() {
+    return minify;
+  }
+
+  /**
+   * Set whether to minify the code generated by this factory's sinks. Minification only applies to code generated
+   * without debug information, so that code generated for debugging stays readable.
+   *
+   * @param minify whether to minify generated code
+   */
+  public void setMinify(boolean minify) {
+    this.minify = minify;
+  }
+
+  protected JsWriter createJsWriter(Writer writer) {
+    JsWriter out = new JsWriter(writer);
+    out.setOptions(getOptions());
+    out.setDebugMode(getDebugMode());
+    out.setMinify(minify);
+    if (generateSourceMaps) {
+      out.setSourceMapGenerator(new SourceMapGenerator());
+    }
+    return out;
+  }
+
+  protected void writeSourceMap(SourceMapGenerator sourceMap, File generatedFile) throws IOException {
+    Writer writer = new OutputStreamWriter(new FileOutputStream(SourceMapGenerator.getSourceMapFile(generatedFile)), "UTF-8");
+    try {
+      sourceMap.write(writer, generatedFile);
+    } finally {
+      writer.close();
+    }
+  }
+
   protected void createOutputDirs(File outputFile) {
     File parentDir = outputFile.getAbsoluteFile().getParentFile();
-    if (!parentDir.exists() && !parentDir.mkdirs()) {
+    // with concurrent code generation, another thread may create the same directory in between,
+    // in which case mkdirs() returns false, too:
+    if (!parentDir.mkdirs() && !parentDir.isDirectory()) {
       throw Jooc.error("cannot create directories '" + parentDir.getAbsolutePath() + "'", parentDir);
     }
   }
@@ -7,6 +7,7 @@ import net.jangaroo.jooc.Jooc;
 import net.jangaroo.jooc.JoocProperties;
 import net.jangaroo.jooc.JsWriter;
 import net.jangaroo.jooc.SyntacticKeywords;
+import net.jangaroo.jooc.ast.AbstractBlock;
 import net.jangaroo.jooc.ast.Annotation;
 import net.jangaroo.jooc.ast.AnnotationParameter;
 import net.jangaroo.jooc.ast.ApplyExpr;
@@ -47,6 +48,7 @@ import net.jangaroo.jooc.ast.ImportDirective;
 import net.jangaroo.jooc.ast.InfixOpExpr;
 import net.jangaroo.jooc.ast.Initializer;
 import net.jangaroo.jooc.ast.LabeledStatement;
+import net.jangaroo.jooc.ast.LiteralExpr;
 import net.jangaroo.jooc.ast.NamespaceDeclaration;
 import net.jangaroo.jooc.ast.NamespacedIde;
 import net.jangaroo.jooc.ast.NewExpr;
@@ -72,16 +74,18 @@ import net.jangaroo.jooc.ast.VariableDeclaration;
 import net.jangaroo.jooc.ast.VectorLiteral;
 import net.jangaroo.jooc.ast.WhileStatement;
 import net.jangaroo.jooc.config.DebugMode;
-import net.jangaroo.jooc.config.JoocConfiguration;
 import net.jangaroo.jooc.sym;
 import net.jangaroo.utils.CompilerUtils;
 
 import java.io.File;
 import java.io.IOException;
 import net.jangaroo.jooc.util.MessageFormat;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -113,8 +117,27 @@ public class JsCodeGenerator extends CodeGeneratorBase {
     PRIMITIVES.add("XML");
   }
 
+  // bit flags of compact member declarations, must match the FLAG_* constants of joo.MemberDeclaration:
+  private static final int MEMBER_FLAG_PRIVATE = 1;
+  private static final int MEMBER_FLAG_PROTECTED = 2;
+  private static final int MEMBER_FLAG_PUBLIC = 4;
+  private static final int MEMBER_FLAG_STATIC = 8;
+  private static final int MEMBER_FLAG_FINAL = 16;
+  private static final int MEMBER_FLAG_NATIVE = 32;
+  private static final int MEMBER_FLAG_OVERRIDE = 64;
+  private static final int MEMBER_FLAG_VAR = 128;
+  private static final int MEMBER_FLAG_CONST = 256;
+  private static final int MEMBER_FLAG_FUNCTION = 512;
+  private static final int MEMBER_FLAG_GET = 1024;
+  private static final int MEMBER_FLAG_SET = 2048;
+
   private boolean expressionMode = false;
   private CompilationUnit compilationUnit;
+  // short names to use when minifying, computed per rendering, as the same AST may be rendered with and without minification:
+  private MinifiedNames minifiedNames;
+  // code to inject at the start of blocks is kept here, not in the AST, so that the same AST can be rendered repeatedly:
+  private final Map<AbstractBlock, List<CodeGenerator>> blockStartCodeGenerators =
+          new IdentityHashMap<AbstractBlock, List<CodeGenerator>>();
   private final MessageFormat VAR_$NAME_EQUALS_ARGUMENTS_SLICE_$INDEX =
     new MessageFormat("var {0}=Array.prototype.slice.call(arguments{1,choice,0#|0<,{1}});");
 
@@ -133,6 +156,20 @@ public class JsCodeGenerator extends CodeGeneratorBase {
     super(out);
   }
 
+  private void addBlockStartCodeGenerator(AbstractBlock block, CodeGenerator blockStartCodeGenerator) {
+    List<CodeGenerator> codeGenerators = blockStartCodeGenerators.get(block);
+    if (codeGenerators == null) {
+      codeGenerators = new ArrayList<CodeGenerator>(3);
+      blockStartCodeGenerators.put(block, codeGenerators);
+    }
+    codeGenerators.add(blockStartCodeGenerator);
+  }
+
+  private List<CodeGenerator> getBlockStartCodeGenerators(AbstractBlock block) {
+    List<CodeGenerator> codeGenerators = blockStartCodeGenerators.get(block);
+    return codeGenerators == null ? Collections.<CodeGenerator>emptyList() : codeGenerators;
+  }
+
   private void writeThis(Ide ide) throws IOException {
     out.writeToken(ide.isRewriteThis() ? "this$" : "this");
   }
@@ -174,10 +211,29 @@ public class JsCodeGenerator extends CodeGeneratorBase {
     if (SyntacticKeywords.RESERVED_WORDS.contains(ide.getIde().getText())) {
       out.writeToken("$$" + ide.getIde().getText());
     } else {
-      out.writeSymbol(ide.getIde(), false);
+      String localName = minifiedNames == null || ide.isThis() ? null : minifiedNames.getLocalName(ide.getDeclaration(false));
+      if (localName != null) {
+        out.writeSymbolToken(ide.getIde(), localName);
+      } else {
+        out.writeSymbol(ide.getIde(), false);
+      }
     }
   }
 
+  private String getLocalName(IdeDeclaration declaration) {
+    String localName = minifiedNames == null ? null : minifiedNames.getLocalName(declaration);
+    return localName == null ? declaration.getName() : localName;
+  }
+
+  private String getMemberName(IdeDeclaration memberDeclaration, Ide memberIde) {
+    String memberName = minifiedNames == null ? null : minifiedNames.getPrivateMemberName(memberDeclaration);
+    return memberName == null ? memberIde.getName() : memberName;
+  }
+
+  private String getPrivateStaticsName() {
+    return minifiedNames == null ? "$$private" : minifiedNames.getPrivateStaticsName();
+  }
+
 
   private void writeBoundMethodAccess(Ide ide, Ide optIde, JooSymbol optSymDot, IdeDeclaration decl) throws IOException {
     out.writeToken("$$bound(");
@@ -192,7 +248,7 @@ public class JsCodeGenerator extends CodeGeneratorBase {
     out.writeToken(",");
     out.beginString();
     if (ide.usePrivateMemberName(decl)) {
-      out.writeToken(ide.getName() + "$" + ide.getScope().getClassDeclaration().getInheritanceLevel());
+      out.writeToken(getMemberName(decl, ide) + "$" + ide.getScope().getClassDeclaration().getInheritanceLevel());
     } else {
       out.writeToken(ide.getName());
     }
@@ -209,7 +265,7 @@ public class JsCodeGenerator extends CodeGeneratorBase {
   private void writeMemberAccess(IdeDeclaration memberDeclaration, JooSymbol optSymDot, Ide memberIde, boolean writeMemberWhitespace) throws IOException {
     if (memberDeclaration != null) {
       if (memberIde.usePrivateMemberName(memberDeclaration)) {
-        writePrivateMemberAccess(optSymDot, memberIde, writeMemberWhitespace, memberDeclaration.isStatic());
+        writePrivateMemberAccess(optSymDot, memberIde, memberDeclaration, writeMemberWhitespace);
         return;
       }
     }
@@ -232,18 +288,18 @@ public class JsCodeGenerator extends CodeGeneratorBase {
     }
   }
 
-  private void writePrivateMemberAccess(final JooSymbol optSymDot, Ide memberIde, boolean writeMemberWhitespace, boolean isStatic) throws IOException {
+  private void writePrivateMemberAccess(final JooSymbol optSymDot, Ide memberIde, IdeDeclaration memberDeclaration, boolean writeMemberWhitespace) throws IOException {
     if (writeMemberWhitespace) {
       out.writeSymbolWhitespace(memberIde.getIde());
     }
-    if (isStatic) {
-      out.writeToken("$$private");
+    if (memberDeclaration.isStatic()) {
+      out.writeToken(getPrivateStaticsName());
       if (optSymDot != null) {
         out.writeSymbol(optSymDot);
       } else {
         out.writeToken(".");
       }
-      out.writeSymbol(memberIde.getIde(), false);
+      out.writeSymbolToken(memberIde.getIde(), getMemberName(memberDeclaration, memberIde));
     } else {
       if (optSymDot != null) {
         out.writeSymbol(optSymDot);
@@ -251,7 +307,7 @@ public class JsCodeGenerator extends CodeGeneratorBase {
         out.writeToken(".");
       }
       // awkward, but we have to be careful if we add characters to tokens:
-      out.writeToken(memberIde.getName() + "$" + memberIde.getScope().getClassDeclaration().getInheritanceLevel());
+      out.writeToken(getMemberName(memberDeclaration, memberIde) + "$" + memberIde.getScope().getClassDeclaration().getInheritanceLevel());
     }
   }
 
@@ -287,6 +343,17 @@ public class JsCodeGenerator extends CodeGeneratorBase {
     initializer.getValue().visit(this);
   }
 
+  @Override
+  public void visitLiteralExpr(LiteralExpr literalExpr) throws IOException {
+    String pooledLiteral = minifiedNames == null ? null : minifiedNames.getPooledLiteral(literalExpr);
+    if (pooledLiteral != null && !out.isWritingComment()) {
+      out.writeSymbolWhitespace(literalExpr.getValue());
+      out.writeSymbolToken(literalExpr.getValue(), pooledLiteral);
+    } else {
+      super.visitLiteralExpr(literalExpr);
+    }
+  }
+
   @Override
   public void visitObjectField(ObjectField objectField) throws IOException {
     objectField.getLabel().visit(this);
@@ -306,6 +373,7 @@ public class JsCodeGenerator extends CodeGeneratorBase {
   @Override
   public void visitCompilationUnit(CompilationUnit compilationUnit) throws IOException {
     this.compilationUnit = compilationUnit;
+    minifiedNames = out.isMinify() ? MinifiedNames.compute(compilationUnit) : null;
     out.write(Jooc.CLASS_LOADER_FULLY_QUALIFIED_NAME + ".prepare(");
     compilationUnit.getPackageDeclaration().visit(this);
     out.beginComment();
@@ -337,9 +405,12 @@ public class JsCodeGenerator extends CodeGeneratorBase {
       return;
     }
     out.writeSymbolWhitespace(ide.getIde());
+    String declaredName = minifiedNames == null ? null : minifiedNames.getDeclaredName(ide);
     // take care of reserved words called as functions (Rhino does not like):
     if (!out.isWritingComment() && SyntacticKeywords.RESERVED_WORDS.contains(ide.getIde().getText())) {
       out.writeToken("$$" + ide.getIde().getText());
+    } else if (declaredName != null) {
+      out.writeSymbolToken(ide.getIde(), declaredName);
     } else {
       out.writeSymbol(ide.getIde(), false);
     }
@@ -462,11 +533,10 @@ public class JsCodeGenerator extends CodeGeneratorBase {
       out.writeSymbolWhitespace(assignmentOpExpr.getOp());
       out.writeToken("=");
       // TODO: refactor for a simpler way to switch off white-space temporarily:
-      JoocConfiguration options = (JoocConfiguration) out.getOptions();
-      DebugMode mode = options.getDebugMode();
-      options.setDebugMode(null);
+      DebugMode mode = out.getDebugMode();
+      out.setDebugMode(null);
       assignmentOpExpr.getArg1().visit(this);
-      options.setDebugMode(mode);
+      out.setDebugMode(mode);
       out.writeToken(assignmentOpExpr.getOp().sym == sym.ANDANDEQ ? "&&" : "||");
       out.writeToken("(");
       assignmentOpExpr.getArg2().visit(this);
@@ -538,11 +608,11 @@ public class JsCodeGenerator extends CodeGeneratorBase {
     Parameters params = functionExpr.getParams();
     if (functionExpr.hasBody()) {
       if (functionExpr.isArgumentsUsedAsArray()) {
-        functionExpr.getBody().addBlockStartCodeGenerator(ARGUMENT_TO_ARRAY_CODE_GENERATOR);
+        addBlockStartCodeGenerator(functionExpr.getBody(), ARGUMENT_TO_ARRAY_CODE_GENERATOR);
       }
       if (params != null) {
         // inject into body for generating initializers later:
-        functionExpr.getBody().addBlockStartCodeGenerator(getParameterInitializerCodeGenerator(params));
+        addBlockStartCodeGenerator(functionExpr.getBody(), getParameterInitializerCodeGenerator(params));
       }
     }
     generateSignatureJsCode(functionExpr);
@@ -616,14 +686,14 @@ public class JsCodeGenerator extends CodeGeneratorBase {
   public void generateRestParamCode(Parameter param, int paramIndex) throws IOException {
     String paramName = param.getName();
     if (paramName != null && !(paramName.equals(FunctionExpr.ARGUMENTS) && paramIndex == 0)) {
-      generateToArrayCode(paramName, paramIndex);
+      generateToArrayCode(getLocalName(param), paramIndex);
     }
   }
 
   public void generateBodyInitializerCode(Parameter param) throws IOException {
     out.setSuppressWhitespace(true); // do not output whitespace twice!
     try {
-      out.writeToken(param.getName());
+      out.writeToken(getLocalName(param));
       out.writeSymbol(param.getOptInitializer().getSymEq());
       param.getOptInitializer().getValue().visit(this);
       out.write(";");
@@ -725,7 +795,7 @@ public class JsCodeGenerator extends CodeGeneratorBase {
   public void visitBlockStatement(BlockStatement blockStatement) throws IOException {
     out.writeSymbol(blockStatement.getLBrace());
     boolean first = true;
-    for (CodeGenerator codeGenerator : blockStatement.getBlockStartCodeGenerators()) {
+    for (CodeGenerator codeGenerator : getBlockStartCodeGenerators(blockStatement)) {
       codeGenerator.generate(out, first);
       first = false;
     }
@@ -823,7 +893,7 @@ public class JsCodeGenerator extends CodeGeneratorBase {
       out.writeToken(")");
     }
     if (!localErrorVar.getText().equals(errorVar.getText())) {
-      aCatch.getBlock().addBlockStartCodeGenerator(new VarCodeGenerator(localErrorVar, errorVar));
+      addBlockStartCodeGenerator(aCatch.getBlock(), new VarCodeGenerator(localErrorVar, errorVar));
     }
     aCatch.getBlock().visit(this);
     if (isLast) {
@@ -918,12 +988,13 @@ public class JsCodeGenerator extends CodeGeneratorBase {
       forInStatement.getExpr().visit(this);
     }
     out.writeSymbol(forInStatement.getRParen());
+    Statement body = forInStatement.getBody();
     if (isForEach || iterateArrayMode) {
       // inject synthesized statement into loop body:
-      if (!(forInStatement.getBody() instanceof BlockStatement)) {
-        forInStatement.setBody(new BlockStatement(SYM_LBRACE, Arrays.<Directive>asList(forInStatement.getBody()), SYM_RBRACE));
+      if (!(body instanceof BlockStatement)) {
+        body = new BlockStatement(SYM_LBRACE, Arrays.<Directive>asList(body), SYM_RBRACE);
       }
-      ((BlockStatement) forInStatement.getBody()).addBlockStartCodeGenerator(new CodeGenerator() {
+      addBlockStartCodeGenerator((BlockStatement) body, new CodeGenerator() {
         @Override
         public void generate(JsWriter out, boolean first) throws IOException {
           // synthesize assigning the correct index to the variable given in the original for each statement:
@@ -947,7 +1018,7 @@ public class JsCodeGenerator extends CodeGeneratorBase {
         }
       });
     }
-    forInStatement.getBody().visit(this);
+    body.visit(this);
   }
 
   @Override
@@ -989,6 +1060,12 @@ public class JsCodeGenerator extends CodeGeneratorBase {
 
   @Override
   public void visitSemicolonTerminatedStatement(SemicolonTerminatedStatement semicolonTerminatedStatement) throws IOException {
+    if (semicolonTerminatedStatement.getOptStatement() == null && semicolonTerminatedStatement.getOptSymSemicolon() != null
+            && out.isMinify()) {
+      // the semicolon of an empty statement must not be dropped, even before a closing brace:
+      out.write(';');
+      return;
+    }
     visitIfNotNull(semicolonTerminatedStatement.getOptStatement());
     writeOptSymbol(semicolonTerminatedStatement.getOptSymSemicolon());
   }
@@ -1123,13 +1200,57 @@ public class JsCodeGenerator extends CodeGeneratorBase {
   }
 
   protected void generateFieldStartCode(VariableDeclaration variableDeclaration) throws IOException {
-    out.beginString();
-    writeModifiers(out, variableDeclaration);
-    writeOptSymbol(variableDeclaration.getOptSymConstOrVar());
-    out.endString();
+    if (isCompactMemberDeclaration(variableDeclaration)) {
+      writeCompactMemberDeclaration(variableDeclaration,
+              variableDeclaration.isConst() ? MEMBER_FLAG_CONST : MEMBER_FLAG_VAR);
+      if (variableDeclaration.getOptSymConstOrVar() != null) {
+        out.writeSymbolWhitespace(variableDeclaration.getOptSymConstOrVar());
+      }
+    } else {
+      out.beginString();
+      writeModifiers(out, variableDeclaration);
+      writeOptSymbol(variableDeclaration.getOptSymConstOrVar());
+      out.endString();
+    }
     out.write(",{");
   }
 
+  private boolean isCompactMemberDeclaration(Declaration declaration) {
+    // members in custom namespaces keep the string form, which carries the namespace:
+    return out.isCompactMemberDeclarations() && !declaration.hasNamespaceModifier();
+  }
+
+  private void writeCompactMemberDeclaration(Declaration declaration, int memberTypeFlags) throws IOException {
+    for (JooSymbol modifier : declaration.getSymModifiers()) {
+      out.writeSymbolWhitespace(modifier);
+    }
+    int flags = memberTypeFlags
+            | (declaration.isPrivate() ? MEMBER_FLAG_PRIVATE : 0)
+            | (declaration.isProtected() ? MEMBER_FLAG_PROTECTED : 0)
+            | (declaration.isPublic() ? MEMBER_FLAG_PUBLIC : 0)
+            | (declaration.isStatic() ? MEMBER_FLAG_STATIC : 0)
+            | (declaration.isFinal() ? MEMBER_FLAG_FINAL : 0)
+            | (declaration.isNative() ? MEMBER_FLAG_NATIVE : 0)
+            | (declaration.isOverride() ? MEMBER_FLAG_OVERRIDE : 0);
+    out.writeToken(String.valueOf(flags));
+  }
+
+  private void writeCompactFunctionDeclaration(FunctionDeclaration functionDeclaration) throws IOException {
+    writeCompactMemberDeclaration(functionDeclaration, MEMBER_FLAG_FUNCTION
+            | (functionDeclaration.isGetter() ? MEMBER_FLAG_GET : 0)
+            | (functionDeclaration.isSetter() ? MEMBER_FLAG_SET : 0));
+    out.writeSymbolWhitespace(functionDeclaration.getFun().getFunSymbol());
+    if (functionDeclaration.isGetterOrSetter()) {
+      out.writeSymbolWhitespace(functionDeclaration.getSymGetOrSet());
+    }
+    out.write(',');
+    Ide ide = functionDeclaration.getIde();
+    out.writeSymbolWhitespace(ide.getIde());
+    // same name as written by visitIde() into the modifier string:
+    out.writeString(SyntacticKeywords.RESERVED_WORDS.contains(ide.getIde().getText()) ? "$$" + ide.getIde().getText()
+            : getMemberName(functionDeclaration, ide));
+  }
+
   protected void generateVariableDeclarationInitializerCode(VariableDeclaration variableDeclaration) throws IOException {
     if (variableDeclaration.isClassMember()) {
       generateFieldInitializerCode(variableDeclaration);
@@ -1186,10 +1307,10 @@ public class JsCodeGenerator extends CodeGeneratorBase {
     boolean isPrimaryDeclaration = functionDeclaration.equals(compilationUnit.getPrimaryDeclaration());
     assert functionDeclaration.isClassMember() || (!functionDeclaration.isNative() && !functionDeclaration.isAbstract());
     if (functionDeclaration.isThisAliased()) {
-      functionDeclaration.getBody().addBlockStartCodeGenerator(ALIAS_THIS_CODE_GENERATOR);
+      addBlockStartCodeGenerator(functionDeclaration.getBody(), ALIAS_THIS_CODE_GENERATOR);
     }
     if (functionDeclaration.isConstructor() && !functionDeclaration.containsSuperConstructorCall() && functionDeclaration.hasBody()) {
-      functionDeclaration.getBody().addBlockStartCodeGenerator(new SuperCallCodeGenerator(functionDeclaration.getClassDeclaration()));
+      addBlockStartCodeGenerator(functionDeclaration.getBody(), new SuperCallCodeGenerator(functionDeclaration.getClassDeclaration()));
     }
     if (!functionDeclaration.isClassMember() && !isPrimaryDeclaration) {
       functionDeclaration.getFun().visit(this);
@@ -1200,14 +1321,18 @@ public class JsCodeGenerator extends CodeGeneratorBase {
         out.writeSymbol(functionDeclaration.getFun().getFunSymbol());
         functionDeclaration.getIde().visit(this);
       } else {
-        out.beginString();
-        writeModifiers(out, functionDeclaration);
-        out.writeSymbol(functionDeclaration.getFun().getFunSymbol());
-        if (functionDeclaration.isGetterOrSetter()) {
-          out.writeSymbol(functionDeclaration.getSymGetOrSet());
+        if (!isPrimaryDeclaration && isCompactMemberDeclaration(functionDeclaration)) {
+          writeCompactFunctionDeclaration(functionDeclaration);
+        } else {
+          out.beginString();
+          writeModifiers(out, functionDeclaration);
+          out.writeSymbol(functionDeclaration.getFun().getFunSymbol());
+          if (functionDeclaration.isGetterOrSetter()) {
+            out.writeSymbol(functionDeclaration.getSymGetOrSet());
+          }
+          functionDeclaration.getIde().visit(this);
+          out.endString();
         }
-        functionDeclaration.getIde().visit(this);
-        out.endString();
         if (functionDeclaration.isNative()) {
           out.beginComment();
         } else {
@@ -1252,8 +1377,9 @@ public class JsCodeGenerator extends CodeGeneratorBase {
     out.endString();
     out.write(",");
     out.write(classDeclaration.getInheritanceLevel() + ",");
-    out.write("function($$private){");
+    out.write("function(" + getPrivateStaticsName() + "){");
     writeAliases();
+    writeStringPool();
     out.write("return[");
     generateClassInits(classDeclaration);
     classDeclaration.getBody().visit(this);
@@ -1293,7 +1419,7 @@ public class JsCodeGenerator extends CodeGeneratorBase {
   }
 
   public void generateInitCode(VariableDeclaration field, boolean endWithSemicolon) throws IOException {
-    String accessCode = "this." + field.getName() + (field.isPrivate() ? "$" + field.getClassDeclaration().getInheritanceLevel() : "");
+    String accessCode = "this." + getMemberName(field, field.getIde()) + (field.isPrivate() ? "$" + field.getClassDeclaration().getInheritanceLevel() : "");
     out.write(accessCode + "=" + accessCode + "()");
     if (endWithSemicolon) {
       out.write(";");
@@ -1355,6 +1481,20 @@ public class JsCodeGenerator extends CodeGeneratorBase {
     }
   }
 
+  private void writeStringPool() throws IOException {
+    if (minifiedNames != null && !minifiedNames.getStringPool().isEmpty()) {
+      boolean first = true;
+      for (Map.Entry<String, String> entry : minifiedNames.getStringPool().entrySet()) {
+        out.writeToken(first ? "var" : ",");
+        first = false;
+        out.writeToken(entry.getKey());
+        out.writeToken("=");
+        out.writeToken(entry.getValue());
+      }
+      out.writeToken(";");
+    }
+  }
+
   private void generateClassInits(ClassDeclaration classDeclaration) throws IOException {
     boolean first = true;
     Set<String> classInit = classDeclaration.getClassInit();
@@ -2,22 +2,54 @@ package net.jangaroo.jooc.backend;
 
 import net.jangaroo.jooc.Jooc;
 import net.jangaroo.jooc.JsWriter;
+import net.jangaroo.jooc.SourceMapGenerator;
 import net.jangaroo.jooc.ast.CompilationUnit;
 import net.jangaroo.jooc.ast.IdeDeclaration;
 import net.jangaroo.jooc.ast.PackageDeclaration;
 import net.jangaroo.jooc.config.JoocOptions;
 
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
 import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 /**
  * Compilation unit sink factory writing all generated classes to one file.
+ * <p>All classes are written through one buffered stream to a temporary file, which replaces the output file
+ * when the factory is closed successfully. If compilation fails, the temporary file is deleted, so that the output
+ * of the previous build is kept. The byte offsets of all classes inside the output file are then written to an
+ * offsets file next to it (see {@link #OFFSETS_FILE_SUFFIX}), one line per class, consisting of the qualified
+ * class name, the start offset and the end offset, separated by tabs.</p>
+ * <p>If source maps are generated, the source maps of all classes are merged into one source map for the output
+ * file.</p>
+ * <p>Classes compiled to separate files before, like the unchanged classes of an incremental build, can be added
+ * through {@link #append(String, File)}.</p>
  */
-public class MergedOutputCompilationUnitSinkFactory extends AbstractCompilationUnitSinkFactory {
+public class MergedOutputCompilationUnitSinkFactory extends AbstractCompilationUnitSinkFactory implements Closeable {
+
+  public static final String OFFSETS_FILE_SUFFIX = ".offsets";
+
+  private static final int BUFFER_SIZE = 64 * 1024;
 
   private File outputFile;
+  private File tempFile;
+  private OutputStream outputStream;
+  private long offset = 0;
+  private int line = 0;
+  private int column = 0;
+  private SourceMapGenerator sourceMap;
+  private final Map<String, long[]> offsets = new LinkedHashMap<String, long[]>();
   private CompilationUnitSink sink;
 
   public MergedOutputCompilationUnitSinkFactory(JoocOptions options, final File outputFile) {
@@ -26,32 +58,29 @@ public class MergedOutputCompilationUnitSinkFactory extends AbstractCompilationU
 
     createOutputDirs(outputFile);
 
-    if (outputFile.exists()) {
-      if(!outputFile.delete()) {
-        throw Jooc.error("error deleting file: '" + outputFile.getAbsolutePath() + "'", outputFile);
-      }
+    try {
+      tempFile = File.createTempFile(outputFile.getName(), ".tmp", outputFile.getAbsoluteFile().getParentFile());
+      outputStream = new BufferedOutputStream(new FileOutputStream(tempFile), BUFFER_SIZE);
+    } catch (IOException e) {
+      throw Jooc.error("cannot open output file for writing: '" + outputFile.getAbsolutePath() + "'", outputFile, e);
     }
 
     sink = new CompilationUnitSink() {
 
       public File writeOutput(CompilationUnit compilationUnit) {
-
+        // generate into memory first, so that the output stream is not flushed for every class:
+        StringWriter code = new StringWriter();
+        JsWriter out = createJsWriter(code);
         try {
-          JsWriter out = new JsWriter(new OutputStreamWriter(new FileOutputStream(outputFile, true), "UTF-8"));
           try {
-            try {
-              out.setOptions(getOptions());
-              compilationUnit.visit(new JsCodeGenerator(out));
-            } finally {
-              out.close();
-            }
-          } catch (IOException e) {
-            //noinspection ResultOfMethodCallIgnored
-            outputFile.delete(); // NOSONAR
-            throw Jooc.error("error writing file: '" + outputFile.getAbsolutePath() + "'", outputFile, e);
+            compilationUnit.visit(new JsCodeGenerator(out));
+          } finally {
+            out.close();
           }
+          write(compilationUnit.getPrimaryDeclaration().getQualifiedNameStr(), code.toString(), out.getSourceMapGenerator());
         } catch (IOException e) {
-          throw Jooc.error("cannot open output file for writing: '" + outputFile.getAbsolutePath() + "'", outputFile, e);
+          abort();
+          throw Jooc.error("error writing file: '" + outputFile.getAbsolutePath() + "'", outputFile, e);
         }
 
         return outputFile;
@@ -59,6 +88,146 @@ public class MergedOutputCompilationUnitSinkFactory extends AbstractCompilationU
     };
   }
 
+  private synchronized void write(String qName, String code, SourceMapGenerator unitSourceMap) throws IOException {
+    if (outputStream == null) {
+      throw new IOException("output file already closed");
+    }
+    byte[] bytes = code.getBytes("UTF-8");
+    outputStream.write(bytes);
+    offsets.put(qName, new long[]{offset, offset + bytes.length});
+    offset += bytes.length;
+    if (unitSourceMap != null) {
+      if (sourceMap == null) {
+        sourceMap = new SourceMapGenerator();
+      }
+      sourceMap.append(unitSourceMap, line, column);
+    }
+    for (int i = 0; i < code.length(); i++) {
+      if (code.charAt(i) == '\n') {
+        ++line;
+        column = 0;
+      } else {
+        ++column;
+      }
+    }
+  }
+
+  /**
+   * Append the code of a class that has been compiled to a separate file before, as if it had been compiled into this
+   * output file. The source mapping URL comment at the end of the file, if any, is removed. If source maps are
+   * generated, the source map of the file, if any, is merged into the source map of this output file.
+   *
+   * @param qName the qualified name of the class
+   * @param generatedFile the JavaScript file generated for the class
+   * @throws IOException if reading the file or its source map or writing this output file fails
+   */
+  public void append(String qName, File generatedFile) throws IOException {
+    try {
+      String code = readFile(generatedFile);
+      String sourceMappingUrlComment = SourceMapGenerator.getSourceMappingUrlComment(generatedFile);
+      if (code.endsWith(sourceMappingUrlComment)) {
+        code = code.substring(0, code.length() - sourceMappingUrlComment.length());
+        // also remove the line feed the comment has been put on a new line with, to get the code of a merged output:
+        if (code.endsWith("\n")) {
+          code = code.substring(0, code.length() - 1);
+        }
+      }
+      File sourceMapFile = SourceMapGenerator.getSourceMapFile(generatedFile);
+      SourceMapGenerator unitSourceMap = isGenerateSourceMaps() && sourceMapFile.exists()
+              ? SourceMapGenerator.read(sourceMapFile) : null;
+      write(qName, code, unitSourceMap);
+    } catch (IOException e) {
+      abort();
+      throw e;
+    }
+  }
+
+  private static String readFile(File file) throws IOException {
+    Reader reader = new InputStreamReader(new FileInputStream(file), "UTF-8");
+    try {
+      StringWriter result = new StringWriter();
+      char[] buffer = new char[BUFFER_SIZE];
+      for (int count = reader.read(buffer); count != -1; count = reader.read(buffer)) {
+        result.write(buffer, 0, count);
+      }
+      return result.toString();
+    } finally {
+      reader.close();
+    }
+  }
+
+  /**
+   * Return the start and end byte offsets of all classes written so far, in the order they have been written.
+   *
+   * @return a map from qualified class name to an array of start offset (inclusive) and end offset (exclusive)
+   */
+  public synchronized Map<String, long[]> getOffsets() {
+    return Collections.unmodifiableMap(new LinkedHashMap<String, long[]>(offsets));
+  }
+
+  /**
+   * Finish writing successfully, see {@link #close(boolean)}.
+   */
+  public void close() throws IOException {
+    close(true);
+  }
+
+  /**
+   * Finish writing. If successful, replace the output file by the temporary file and write the offsets file,
+   * otherwise, just delete the temporary file, leaving the output file untouched.
+   * Calling this method more than once has no effect.
+   *
+   * @param success whether all compilation units have been compiled without errors
+   */
+  public synchronized void close(boolean success) throws IOException {
+    if (outputStream == null) {
+      return;
+    }
+    if (!success) {
+      abort();
+      return;
+    }
+    try {
+      if (sourceMap != null) {
+        outputStream.write(((column > 0 ? "\n" : "") + SourceMapGenerator.getSourceMappingUrlComment(outputFile)).getBytes("UTF-8"));
+      }
+      outputStream.close();
+    } finally {
+      outputStream = null;
+    }
+    if (!tempFile.renameTo(outputFile)) {
+      // on some platforms, renaming fails if the target file exists:
+      if (outputFile.exists() && !outputFile.delete() || !tempFile.renameTo(outputFile)) {
+        throw new IOException("cannot rename '" + tempFile.getAbsolutePath() + "' to '" + outputFile.getAbsolutePath() + "'");
+      }
+    }
+    Writer offsetsWriter = new OutputStreamWriter(new FileOutputStream(new File(outputFile.getPath() + OFFSETS_FILE_SUFFIX)), "UTF-8");
+    try {
+      for (Map.Entry<String, long[]> entry : offsets.entrySet()) {
+        offsetsWriter.write(entry.getKey() + "\t" + entry.getValue()[0] + "\t" + entry.getValue()[1] + "\n");
+      }
+    } finally {
+      offsetsWriter.close();
+    }
+    if (sourceMap != null) {
+      writeSourceMap(sourceMap, outputFile);
+    }
+  }
+
+  private synchronized void abort() {
+    try {
+      if (outputStream != null) {
+        outputStream.close();
+      }
+    } catch (IOException e) {
+      // ignore, the file is deleted anyway
+    } finally {
+      outputStream = null;
+      //noinspection ResultOfMethodCallIgnored
+      tempFile.delete(); // NOSONAR
+    }
+  }
+
   public CompilationUnitSink createSink(PackageDeclaration packageDeclaration,
                                         IdeDeclaration primaryDeclaration, File sourceFile,
                                         final boolean verbose) {
@@ -68,4 +237,4 @@ public class MergedOutputCompilationUnitSinkFactory extends AbstractCompilationU
 
     return sink;
   }
-}
\ No newline at end of file
+}
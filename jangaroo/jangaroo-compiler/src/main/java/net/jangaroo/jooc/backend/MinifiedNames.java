@@ -0,0 +1,351 @@
+package net.jangaroo.jooc.backend;
+
+import net.jangaroo.jooc.ast.Annotation;
+import net.jangaroo.jooc.ast.AstVisitorBase;
+import net.jangaroo.jooc.ast.Catch;
+import net.jangaroo.jooc.ast.ClassDeclaration;
+import net.jangaroo.jooc.ast.CompilationUnit;
+import net.jangaroo.jooc.ast.FunctionDeclaration;
+import net.jangaroo.jooc.ast.FunctionExpr;
+import net.jangaroo.jooc.ast.Ide;
+import net.jangaroo.jooc.ast.IdeDeclaration;
+import net.jangaroo.jooc.ast.LiteralExpr;
+import net.jangaroo.jooc.ast.ObjectField;
+import net.jangaroo.jooc.ast.Parameter;
+import net.jangaroo.jooc.ast.TransitiveAstVisitor;
+import net.jangaroo.jooc.ast.VariableDeclaration;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The short names used by {@link JsCodeGenerator} when generating minified code for one compilation unit,
+ * computed from the compiler's scope information:
+ * <ul>
+ * <li>local variables and parameters get short names, numbered per function so that the names of nested functions
+ * never shadow names of enclosing functions,</li>
+ * <li>private members get short names, which the runtime then suffixes with the inheritance level as usual,</li>
+ * <li>string literals used repeatedly inside a class are pooled in variables of the class definition function,
+ * which also gets a short name for its <code>$$private</code> parameter.</li>
+ * </ul>
+ * Generated names never coincide with any identifier occurring in the compilation unit, with JavaScript keywords,
+ * or with global identifiers the generated code relies on.
+ */
+class MinifiedNames {
+
+  private static final String FIRST_CHARS = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ";
+  private static final String NEXT_CHARS = FIRST_CHARS + "0123456789";
+
+  private static final Set<String> RESERVED_NAMES = new HashSet<String>(Arrays.asList(
+          // JavaScript keywords and future reserved words:
+          "break", "case", "catch", "class", "const", "continue", "debugger", "default", "delete", "do", "else",
+          "enum", "export", "extends", "false", "finally", "for", "function", "if", "implements", "import", "in",
+          "instanceof", "interface", "let", "new", "null", "package", "private", "protected", "public", "return",
+          "static", "super", "switch", "this", "throw", "true", "try", "typeof", "var", "void", "while", "with",
+          "yield", "int", "uint", "trace", "assert",
+          // global identifiers used by generated code:
+          "arguments", "eval", "undefined", "NaN", "Infinity", "is", "as", "joo", "Math", "Array", "String",
+          "Object", "Error", "Date", "RegExp", "Number", "Boolean", "Function"));
+
+  /**
+   * The estimated length of a generated name, used to decide whether pooling a string literal pays off.
+   */
+  private static final int ESTIMATED_NAME_LENGTH = 2;
+
+  private final Set<String> usedNames;
+  private final List<String> names = new ArrayList<String>();
+  private int nameCandidateIndex = 0;
+
+  private final Map<Ide, String> declaringIdeNames = new IdentityHashMap<Ide, String>();
+  private final Map<IdeDeclaration, String> localNames = new IdentityHashMap<IdeDeclaration, String>();
+  private final Map<String, String> privateMemberNames = new HashMap<String, String>();
+  private final Map<LiteralExpr, String> pooledLiterals = new IdentityHashMap<LiteralExpr, String>();
+  private final Map<String, String> stringPool = new LinkedHashMap<String, String>();
+  private String privateStaticsName = "$$private";
+
+  private MinifiedNames(Set<String> usedNames) {
+    this.usedNames = usedNames;
+  }
+
+  /**
+   * Compute the short names of the given compilation unit.
+   */
+  static MinifiedNames compute(CompilationUnit compilationUnit) throws IOException {
+    Analysis analysis = new Analysis();
+    compilationUnit.visit(new AnalyzingVisitor(analysis));
+    // generated code refers to dependencies by their qualified name:
+    for (String dependency : compilationUnit.getDependencies()) {
+      analysis.usedNames.add(dependency.split("\\.", 2)[0]);
+    }
+
+    MinifiedNames result = new MinifiedNames(analysis.usedNames);
+    int unitNameCount = 0;
+    if (compilationUnit.getPrimaryDeclaration() instanceof ClassDeclaration) {
+      // the class definition function encloses all other code, so its names come first:
+      result.privateStaticsName = result.getName(unitNameCount++);
+      for (Map.Entry<String, List<LiteralExpr>> entry : analysis.getPoolableLiterals()) {
+        String name = result.getName(unitNameCount++);
+        result.stringPool.put(name, entry.getValue().get(0).getValue().getText());
+        for (LiteralExpr literal : entry.getValue()) {
+          result.pooledLiterals.put(literal, name);
+        }
+      }
+    }
+    result.assignLocalNames(analysis, null, unitNameCount);
+
+    // private members are properties, not variables, so their names need not differ from local names:
+    for (IdeDeclaration member : analysis.privateMembers) {
+      String name = result.privateMemberNames.get(member.getName());
+      if (name == null) {
+        name = result.getName(result.privateMemberNames.size());
+        result.privateMemberNames.put(member.getName(), name);
+      }
+      result.declaringIdeNames.put(member.getIde(), name);
+    }
+    return result;
+  }
+
+  private void assignLocalNames(Analysis analysis, FunctionExpr function, int firstNameIndex) {
+    Map<String, String> namesByOriginalName = new HashMap<String, String>();
+    List<IdeDeclaration> locals = analysis.getLocals(function);
+    for (IdeDeclaration local : locals) {
+      // in JavaScript, all declarations of the same name inside one function denote the same variable:
+      String name = namesByOriginalName.get(local.getName());
+      if (name == null) {
+        name = getName(firstNameIndex + namesByOriginalName.size());
+        namesByOriginalName.put(local.getName(), name);
+      }
+      localNames.put(local, name);
+      declaringIdeNames.put(local.getIde(), name);
+    }
+    int nextNameIndex = firstNameIndex + namesByOriginalName.size();
+    for (FunctionExpr nestedFunction : analysis.getNestedFunctions(function)) {
+      assignLocalNames(analysis, nestedFunction, nextNameIndex);
+    }
+  }
+
+  private String getName(int index) {
+    while (names.size() <= index) {
+      String candidate;
+      do {
+        candidate = toName(nameCandidateIndex++);
+      } while (RESERVED_NAMES.contains(candidate) || usedNames.contains(candidate));
+      names.add(candidate);
+    }
+    return names.get(index);
+  }
+
+  private static String toName(int index) {
+    StringBuilder name = new StringBuilder();
+    name.append(FIRST_CHARS.charAt(index % FIRST_CHARS.length()));
+    for (int rest = index / FIRST_CHARS.length(); rest > 0; rest /= NEXT_CHARS.length()) {
+      --rest;
+      name.append(NEXT_CHARS.charAt(rest % NEXT_CHARS.length()));
+    }
+    return name.toString();
+  }
+
+  /**
+   * The short name to write for the given declaring identifier, or null to keep its name.
+   */
+  String getDeclaredName(Ide ide) {
+    return declaringIdeNames.get(ide);
+  }
+
+  /**
+   * The short name of the given local variable or parameter, or null to keep its name.
+   */
+  String getLocalName(IdeDeclaration declaration) {
+    return localNames.get(declaration);
+  }
+
+  /**
+   * The short name of the given member, or null to keep its name because it is not a private member
+   * of this compilation unit.
+   * Since private members can only be accessed from inside their compilation unit, they are looked up by name.
+   */
+  String getPrivateMemberName(IdeDeclaration declaration) {
+    return declaration.isPrivate() && !declaration.isNative() ? privateMemberNames.get(declaration.getName()) : null;
+  }
+
+  /**
+   * The name of the variable holding the value of the given string literal, or null to write the literal itself.
+   */
+  String getPooledLiteral(LiteralExpr literal) {
+    return pooledLiterals.get(literal);
+  }
+
+  /**
+   * The pooled string literals, given by the name of their variable and their code.
+   */
+  Map<String, String> getStringPool() {
+    return Collections.unmodifiableMap(stringPool);
+  }
+
+  /**
+   * The name of the parameter of the class definition function holding the private static members.
+   */
+  String getPrivateStaticsName() {
+    return privateStaticsName;
+  }
+
+  private static class Analysis {
+    private final Set<String> usedNames = new HashSet<String>();
+    private final Map<FunctionExpr, List<IdeDeclaration>> localsByFunction = new HashMap<FunctionExpr, List<IdeDeclaration>>();
+    private final Map<FunctionExpr, List<FunctionExpr>> nestedFunctionsByFunction = new HashMap<FunctionExpr, List<FunctionExpr>>();
+    private final List<IdeDeclaration> privateMembers = new ArrayList<IdeDeclaration>();
+    private final Map<String, List<LiteralExpr>> stringLiterals = new LinkedHashMap<String, List<LiteralExpr>>();
+
+    private static <K, V> void add(Map<K, List<V>> map, K key, V value) {
+      List<V> values = map.get(key);
+      if (values == null) {
+        values = new ArrayList<V>();
+        map.put(key, values);
+      }
+      values.add(value);
+    }
+
+    private List<IdeDeclaration> getLocals(FunctionExpr function) {
+      List<IdeDeclaration> locals = localsByFunction.get(function);
+      return locals == null ? Collections.<IdeDeclaration>emptyList() : locals;
+    }
+
+    private List<FunctionExpr> getNestedFunctions(FunctionExpr function) {
+      List<FunctionExpr> nestedFunctions = nestedFunctionsByFunction.get(function);
+      return nestedFunctions == null ? Collections.<FunctionExpr>emptyList() : nestedFunctions;
+    }
+
+    private List<Map.Entry<String, List<LiteralExpr>>> getPoolableLiterals() {
+      List<Map.Entry<String, List<LiteralExpr>>> result = new ArrayList<Map.Entry<String, List<LiteralExpr>>>();
+      for (Map.Entry<String, List<LiteralExpr>> entry : stringLiterals.entrySet()) {
+        int count = entry.getValue().size();
+        int length = entry.getValue().get(0).getValue().getText().length();
+        // pooling costs the declaration "name=literal," and saves the literal in favor of the name at each use:
+        if (count > 1 && count * (length - ESTIMATED_NAME_LENGTH) > length + ESTIMATED_NAME_LENGTH + 2) {
+          result.add(entry);
+        }
+      }
+      // let the most frequent literals get the shortest names:
+      Collections.sort(result, new Comparator<Map.Entry<String, List<LiteralExpr>>>() {
+        @Override
+        public int compare(Map.Entry<String, List<LiteralExpr>> entry1, Map.Entry<String, List<LiteralExpr>> entry2) {
+          return entry2.getValue().size() - entry1.getValue().size();
+        }
+      });
+      return result;
+    }
+  }
+
+  private static class AnalyzingVisitor extends TransitiveAstVisitor {
+    private final Analysis analysis;
+    private final List<FunctionExpr> functions = new ArrayList<FunctionExpr>();
+    private final Set<Parameter> catchParameters = Collections.newSetFromMap(new IdentityHashMap<Parameter, Boolean>());
+    private final Set<LiteralExpr> unpoolableLiterals = Collections.newSetFromMap(new IdentityHashMap<LiteralExpr, Boolean>());
+    private int annotationDepth = 0;
+
+    private AnalyzingVisitor(final Analysis analysis) {
+      super(new AstVisitorBase() {
+        @Override
+        public void visitIde(Ide ide) throws IOException {
+          analysis.usedNames.add(ide.getName());
+        }
+      });
+      this.analysis = analysis;
+    }
+
+    private FunctionExpr getCurrentFunction() {
+      return functions.isEmpty() ? null : functions.get(functions.size() - 1);
+    }
+
+    @Override
+    public void visitFunctionExpr(FunctionExpr functionExpr) throws IOException {
+      Analysis.add(analysis.nestedFunctionsByFunction, getCurrentFunction(), functionExpr);
+      functions.add(functionExpr);
+      try {
+        super.visitFunctionExpr(functionExpr);
+      } finally {
+        functions.remove(functions.size() - 1);
+      }
+    }
+
+    @Override
+    public void visitCatch(Catch aCatch) throws IOException {
+      // the code generator merges all catch clauses of a try statement into one, so keep the names of their parameters:
+      catchParameters.add(aCatch.getParam());
+      super.visitCatch(aCatch);
+    }
+
+    @Override
+    public void visitParameter(Parameter parameter) throws IOException {
+      super.visitParameter(parameter);
+      if (!catchParameters.contains(parameter)) {
+        addLocal(parameter);
+      }
+    }
+
+    @Override
+    public void visitVariableDeclaration(VariableDeclaration variableDeclaration) throws IOException {
+      super.visitVariableDeclaration(variableDeclaration);
+      if (variableDeclaration.isClassMember()) {
+        if (variableDeclaration.isPrivate()) {
+          analysis.privateMembers.add(variableDeclaration);
+        }
+      } else if (!variableDeclaration.isPrimaryDeclaration()) {
+        addLocal(variableDeclaration);
+      }
+    }
+
+    @Override
+    public void visitFunctionDeclaration(FunctionDeclaration functionDeclaration) throws IOException {
+      super.visitFunctionDeclaration(functionDeclaration);
+      if (functionDeclaration.isClassMember() && functionDeclaration.isPrivate() && !functionDeclaration.isNative()) {
+        analysis.privateMembers.add(functionDeclaration);
+      }
+    }
+
+    private void addLocal(IdeDeclaration declaration) {
+      if (declaration.getIde() != null && !FunctionExpr.ARGUMENTS.equals(declaration.getName())) {
+        Analysis.add(analysis.localsByFunction, getCurrentFunction(), declaration);
+      }
+    }
+
+    @Override
+    public void visitObjectField(ObjectField objectField) throws IOException {
+      // a string literal used as a property name must stay a literal:
+      if (objectField.getLabel() instanceof LiteralExpr) {
+        unpoolableLiterals.add((LiteralExpr) objectField.getLabel());
+      }
+      super.visitObjectField(objectField);
+    }
+
+    @Override
+    public void visitAnnotation(Annotation annotation) throws IOException {
+      // annotations may be generated outside of the class definition function, where pooled literals are unknown:
+      ++annotationDepth;
+      try {
+        super.visitAnnotation(annotation);
+      } finally {
+        --annotationDepth;
+      }
+    }
+
+    @Override
+    public void visitLiteralExpr(LiteralExpr literalExpr) throws IOException {
+      super.visitLiteralExpr(literalExpr);
+      Object value = literalExpr.getValue().getJooValue();
+      if (value instanceof String && annotationDepth == 0 && !unpoolableLiterals.contains(literalExpr)) {
+        Analysis.add(analysis.stringLiterals, (String) value, literalExpr);
+      }
+    }
+  }
+}
@@ -2,10 +2,13 @@ package net.jangaroo.jooc.backend;
 
 import net.jangaroo.jooc.Jooc;
 import net.jangaroo.jooc.JsWriter;
+import net.jangaroo.jooc.SourceMapGenerator;
+import net.jangaroo.jooc.TokenStreamScanner;
 import net.jangaroo.jooc.ast.CompilationUnit;
 import net.jangaroo.jooc.ast.IdeDeclaration;
 import net.jangaroo.jooc.ast.PackageDeclaration;
 import net.jangaroo.jooc.config.JoocOptions;
+import net.jangaroo.jooc.input.FileInputSource;
 
 import java.io.File;
 import java.io.FileOutputStream;
@@ -79,14 +82,26 @@ public class SingleFileCompilationUnitSinkFactory extends AbstractCompilationUni
             if (generateApi) {
               ApiModelGenerator apiModelGenerator = new ApiModelGenerator(isExcludeClassByDefault(getOptions()));
               apiModelGenerator.generateModel(compilationUnit).visit(new ActionScriptCodeGeneratingModelVisitor(writer));
+              // let compilation units using this API replay its tokens instead of scanning the stub:
+              TokenStreamScanner.write(new FileInputSource(outFile, false),
+                      new File(outFile.getPath() + TokenStreamScanner.TOKENS_SUFFIX));
             } else {
-              JsWriter out = new JsWriter(writer);
+              JsWriter out = createJsWriter(writer);
+              SourceMapGenerator sourceMap = out.getSourceMapGenerator();
               try {
-                out.setOptions(getOptions());
                 compilationUnit.visit(new JsCodeGenerator(out));
+                if (sourceMap != null) {
+                  if (out.getOutputColumn() > 0) {
+                    out.write('\n');
+                  }
+                  out.write(SourceMapGenerator.getSourceMappingUrlComment(outFile));
+                }
               } finally {
                 out.close();
               }
+              if (sourceMap != null) {
+                writeSourceMap(sourceMap, outFile);
+              }
             }
           } catch (IOException e) {
             //noinspection ResultOfMethodCallIgnored
@@ -56,6 +56,10 @@ public class JoocCommandLineParser extends AbstractCommandLineParser {
       throw new IllegalArgumentException("destination directory for API stubs does not exist: " + config.getApiOutputDirectory().getAbsolutePath());
     }
 
+    if (config.getThreads() < 1) {
+      throw new IllegalArgumentException("number of threads must be at least 1, found: " + config.getThreads());
+    }
+
     if (config.isVerbose()) {
       /*
       System.out.println("enableassertions=" +  enableAssertions);
@@ -63,6 +67,7 @@ public class JoocCommandLineParser extends AbstractCommandLineParser {
       System.out.println("-genarateapi: " + config.isGenerateApi()); // NOSONAR this is a cmd line tool
       System.out.println("-g option values:"); // NOSONAR this is a cmd line tool
       System.out.println("debugMode=" + config.getDebugMode()); // NOSONAR this is a cmd line tool
+      System.out.println("-threads: " + config.getThreads()); // NOSONAR this is a cmd line tool
     }
 
     return config;
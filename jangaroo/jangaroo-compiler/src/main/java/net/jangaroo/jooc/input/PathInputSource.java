@@ -15,10 +15,9 @@ public class PathInputSource extends DirectoryInputSource {
     List<InputSource> entries = new ArrayList<InputSource>();
     StringBuilder name = new StringBuilder();
     for (File file : files) {
-      if (file.isDirectory()) {
-        entries.add(new FileInputSource(file, file, inSourcePath));
-      } else if (file.getName().endsWith(".jar") || file.getName().endsWith(".zip")) {
-        entries.add(new ZipFileInputSource(file, rootDirs));
+      InputSource entry = createEntry(file, rootDirs, inSourcePath);
+      if (entry != null) {
+        entries.add(entry);
       }
       if (!(name.length() == 0)) {
         name.append(File.pathSeparatorChar);
@@ -28,6 +27,25 @@ public class PathInputSource extends DirectoryInputSource {
     return new PathInputSource(name.toString(), entries, inSourcePath);
   }
 
+  /**
+   * Create the input source for one path entry.
+   *
+   * @param file a directory, jar or zip file
+   * @param rootDirs the directories inside a jar or zip file to accept as roots
+   * @param inSourcePath whether the entry is part of the source path
+   * @return the input source, or null if the file is neither a directory nor a jar or zip file
+   * @throws IOException if an IO error occurs
+   */
+  public static InputSource createEntry(File file, String[] rootDirs, boolean inSourcePath) throws IOException {
+    if (file.isDirectory()) {
+      return new FileInputSource(file, file, inSourcePath);
+    }
+    if (file.getName().endsWith(".jar") || file.getName().endsWith(".zip")) {
+      return new ZipFileInputSource(file, rootDirs);
+    }
+    return null;
+  }
+
   public PathInputSource(final String name, final List<InputSource> entries, boolean inSourcePath) {
     super();
     this.name = name;
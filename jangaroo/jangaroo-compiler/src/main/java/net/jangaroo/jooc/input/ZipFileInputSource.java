@@ -3,8 +3,9 @@ package net.jangaroo.jooc.input;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Enumeration;
-import java.util.LinkedHashMap;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.zip.ZipEntry;
@@ -15,7 +16,9 @@ public class ZipFileInputSource extends DirectoryInputSource {
   private File file;
   private ZipFile zipFile;
   private String[] rootDirs;
-  private Map<String, ZipEntryInputSource> entries = new LinkedHashMap<String, ZipEntryInputSource>();
+  private Map<String, ZipEntryInputSource> entries = new HashMap<String, ZipEntryInputSource>();
+  // the direct children of each directory, in zip file order, so that listing a directory is a simple lookup:
+  private Map<String, List<InputSource>> childrenByDirectory = new HashMap<String, List<InputSource>>();
 
   /**
    * Create an InputSource directory from the given zip or jar file, providing a "union view" over the zip file
@@ -35,11 +38,26 @@ public class ZipFileInputSource extends DirectoryInputSource {
       ZipEntry entry = zipEntryEnum.nextElement();
       final String relativePath = getRelativePath(entry.getName());
       if (relativePath != null && !entries.containsKey(relativePath)) {
-        this.entries.put(relativePath, new ZipEntryInputSource(this, entry, relativePath));
+        ZipEntryInputSource entryInputSource = new ZipEntryInputSource(this, entry, relativePath);
+        this.entries.put(relativePath, entryInputSource);
+        if (relativePath.length() > 0) {
+          addChild(relativePath, entryInputSource);
+        }
       }
     }
   }
 
+  private void addChild(String relativePath, ZipEntryInputSource entryInputSource) {
+    int lastSlash = relativePath.lastIndexOf('/');
+    String directory = lastSlash < 0 ? "" : relativePath.substring(0, lastSlash);
+    List<InputSource> children = childrenByDirectory.get(directory);
+    if (children == null) {
+      children = new ArrayList<InputSource>();
+      childrenByDirectory.put(directory, children);
+    }
+    children.add(entryInputSource);
+  }
+
   private String getRelativePath(final String name) {
     // find the root dir with maximal length
     String foundRoot = null;
@@ -107,20 +125,8 @@ public class ZipFileInputSource extends DirectoryInputSource {
   }
 
   private List<InputSource> list(final String relativePath) {
-    List<InputSource> result = new ArrayList<InputSource>();
-    for (Map.Entry<String, ZipEntryInputSource> entry : entries.entrySet()) {
-      String p2 = entry.getValue().getRelativePath();
-      for (String root : rootDirs) {
-        String p = root + relativePath;
-        if (p2.startsWith(p) &&
-                p2.length() > p.length() &&
-                p2.lastIndexOf('/') == (p.isEmpty() ? -1 : p.length())) {
-          result.add(entry.getValue());
-          break;
-        }
-      }
-    }
-    return result;
+    List<InputSource> children = childrenByDirectory.get(relativePath);
+    return children == null ? Collections.<InputSource>emptyList() : Collections.unmodifiableList(children);
   }
 
 }
\ No newline at end of file
@@ -0,0 +1,177 @@
+package net.jangaroo.jooc.server;
+
+import net.jangaroo.jooc.JangarooParser;
+import net.jangaroo.jooc.config.JoocConfiguration;
+import net.jangaroo.jooc.input.InputSource;
+import net.jangaroo.jooc.input.PathInputSource;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+/**
+ * Keeps class path input sources and the compilation units parsed from them between compilation runs.
+ * For every distinct class path, a {@link JangarooParser} holds all class path compilation units loaded so far,
+ * already parsed and scoped. A cached class path is discarded as soon as the checksum of one of its entries
+ * changes. Input sources of unchanged entries, e.g. the index of a jar file, are reused even then.
+ */
+public class ClassPathCache {
+
+  private static final int MAX_CACHED_CLASS_PATHS = 8;
+  private static final int MAX_CACHED_ENTRIES = 512;
+
+  /**
+   * A parser set up with one class path, together with the lock that compilation runs using it have to hold.
+   */
+  public static final class CachedClassPath {
+    private final List<Long> checksums;
+    private final JangarooParser parser;
+    private final Lock lock = new ReentrantLock();
+
+    private CachedClassPath(List<Long> checksums, JangarooParser parser) {
+      this.checksums = checksums;
+      this.parser = parser;
+    }
+
+    public JangarooParser getParser() {
+      return parser;
+    }
+
+    public Lock getLock() {
+      return lock;
+    }
+  }
+
+  private static final class CachedEntry {
+    private final long length;
+    private final long lastModified;
+    private final long checksum;
+    private final InputSource inputSource;
+
+    private CachedEntry(long length, long lastModified, long checksum, InputSource inputSource) {
+      this.length = length;
+      this.lastModified = lastModified;
+      this.checksum = checksum;
+      this.inputSource = inputSource;
+    }
+  }
+
+  private final Map<File, CachedEntry> entries = new LinkedHashMap<File, CachedEntry>(16, 0.75f, true) {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<File, CachedEntry> eldest) {
+      return size() > MAX_CACHED_ENTRIES;
+    }
+  };
+
+  private final Map<List<File>, CachedClassPath> classPaths = new LinkedHashMap<List<File>, CachedClassPath>(16, 0.75f, true) {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<List<File>, CachedClassPath> eldest) {
+      return size() > MAX_CACHED_CLASS_PATHS;
+    }
+  };
+
+  /**
+   * Return the cached class path for the given class path entries, creating or renewing it if necessary.
+   * Before using its parser, callers have to acquire its lock and set the parser's configuration and log.
+   *
+   * @param classPath the directories and jar files of the class path
+   * @return the cached class path
+   * @throws IOException if a class path entry cannot be read
+   */
+  public synchronized CachedClassPath get(List<File> classPath) throws IOException {
+    List<File> key = new ArrayList<File>(classPath.size());
+    List<Long> checksums = new ArrayList<Long>(classPath.size());
+    List<InputSource> inputSources = new ArrayList<InputSource>(classPath.size());
+    StringBuilder name = new StringBuilder();
+    for (File file : classPath) {
+      File absoluteFile = file.getAbsoluteFile();
+      key.add(absoluteFile);
+      CachedEntry entry = getEntry(absoluteFile);
+      checksums.add(entry.checksum);
+      if (entry.inputSource != null) {
+        inputSources.add(entry.inputSource);
+      }
+      if (name.length() > 0) {
+        name.append(File.pathSeparatorChar);
+      }
+      name.append(absoluteFile.getPath());
+    }
+    CachedClassPath cachedClassPath = classPaths.get(key);
+    if (cachedClassPath == null || !cachedClassPath.checksums.equals(checksums)) {
+      JangarooParser parser = new JangarooParser(new JoocConfiguration(), null);
+      parser.setUp(PathInputSource.fromFiles(Collections.<File>emptyList(), new String[]{""}, true),
+              new PathInputSource(name.toString(), inputSources, false));
+      parser.tearDown();
+      cachedClassPath = new CachedClassPath(checksums, parser);
+      classPaths.put(key, cachedClassPath);
+    }
+    return cachedClassPath;
+  }
+
+  private CachedEntry getEntry(File file) throws IOException {
+    CachedEntry entry = entries.get(file);
+    long length;
+    long lastModified;
+    if (file.isDirectory()) {
+      // directories cannot be checksummed efficiently, so use the number of files and the newest time stamp:
+      long[] fileCountAndLastModified = new long[2];
+      scanDirectory(file, fileCountAndLastModified);
+      length = fileCountAndLastModified[0];
+      lastModified = fileCountAndLastModified[1];
+    } else {
+      length = file.length();
+      lastModified = file.lastModified();
+    }
+    if (entry != null && entry.length == length && entry.lastModified == lastModified) {
+      return entry;
+    }
+    long checksum = file.isFile() ? computeChecksum(file) : 31 * length + lastModified;
+    if (entry == null || entry.checksum != checksum) {
+      entry = new CachedEntry(length, lastModified, checksum,
+              PathInputSource.createEntry(file, new String[]{"", JangarooParser.JOO_API_IN_JAR_DIRECTORY_PREFIX}, false));
+    } else {
+      // same content, e.g. the same jar installed again: keep the input source
+      entry = new CachedEntry(length, lastModified, checksum, entry.inputSource);
+    }
+    entries.put(file, entry);
+    return entry;
+  }
+
+  private static void scanDirectory(File directory, long[] fileCountAndLastModified) {
+    File[] files = directory.listFiles();
+    if (files != null) {
+      for (File file : files) {
+        if (file.isDirectory()) {
+          scanDirectory(file, fileCountAndLastModified);
+        } else {
+          fileCountAndLastModified[0]++;
+          fileCountAndLastModified[1] = Math.max(fileCountAndLastModified[1], file.lastModified());
+        }
+      }
+    }
+  }
+
+  private static long computeChecksum(File file) throws IOException {
+    CRC32 crc = new CRC32();
+    InputStream in = new FileInputStream(file);
+    try {
+      byte[] buffer = new byte[8192];
+      int count;
+      while ((count = in.read(buffer)) != -1) {
+        crc.update(buffer, 0, count);
+      }
+    } finally {
+      in.close();
+    }
+    return crc.getValue();
+  }
+}
@@ -0,0 +1,183 @@
+package net.jangaroo.jooc.server;
+
+import net.jangaroo.jooc.api.CompilationResult;
+import net.jangaroo.jooc.api.CompileLog;
+import net.jangaroo.jooc.config.JoocConfiguration;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Sends compile requests to a {@link JoocServer} running on the local host.
+ */
+public class JoocClient {
+
+  private final int port;
+  private final File tokenFile;
+
+  /**
+   * Create a client for the server on the given port, which has written its access token to the
+   * {@link JoocServer#getDefaultTokenFile(int) default token file}.
+   */
+  public JoocClient(int port) {
+    this(port, JoocServer.getDefaultTokenFile(port));
+  }
+
+  public JoocClient(int port, File tokenFile) {
+    this.port = port;
+    this.tokenFile = tokenFile;
+  }
+
+  public int getPort() {
+    return port;
+  }
+
+  public File getTokenFile() {
+    return tokenFile;
+  }
+
+  /**
+   * Let the server compile with the given configuration.
+   *
+   * @return the result code
+   * @throws IOException if the server cannot be reached
+   */
+  public int compile(JoocConfiguration config, CompileLog log) throws IOException {
+    List<String> args = toArguments(config);
+    return compile(args.toArray(new String[args.size()]), log);
+  }
+
+  /**
+   * Let the server compile with the given Jooc command line arguments. All log messages of the server are
+   * passed to the given log.
+   *
+   * @return the result code
+   * @throws IOException if the server cannot be reached or its access token cannot be read
+   */
+  public int compile(String[] args, CompileLog log) throws IOException {
+    String token = readAccessToken();
+    Socket socket = new Socket(InetAddress.getByName(null), port);
+    try {
+      Writer out = new OutputStreamWriter(socket.getOutputStream(), "UTF-8");
+      out.write(token);
+      out.write('\n');
+      for (String arg : args) {
+        out.write(arg);
+        out.write('\n');
+      }
+      out.write('\n');
+      out.flush();
+      BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), "UTF-8"));
+      String line;
+      while ((line = in.readLine()) != null) {
+        if (line.startsWith(JoocServer.ERROR_PREFIX)) {
+          log.error(JoocServer.unescape(line.substring(JoocServer.ERROR_PREFIX.length())));
+        } else if (line.startsWith(JoocServer.WARNING_PREFIX)) {
+          log.warning(JoocServer.unescape(line.substring(JoocServer.WARNING_PREFIX.length())));
+        } else if (line.startsWith(JoocServer.RESULT_PREFIX)) {
+          return Integer.parseInt(line.substring(JoocServer.RESULT_PREFIX.length()));
+        }
+      }
+      log.error("compiler server on port " + port + " closed the connection without result");
+      return CompilationResult.RESULT_CODE_INTERNAL_COMPILER_ERROR;
+    } finally {
+      socket.close();
+    }
+  }
+
+  private String readAccessToken() throws IOException {
+    BufferedReader in;
+    try {
+      in = new BufferedReader(new InputStreamReader(new FileInputStream(tokenFile), "UTF-8"));
+    } catch (IOException e) {
+      throw new IOException("cannot read access token of compiler server on port " + port + " from " + tokenFile, e);
+    }
+    try {
+      String token = in.readLine();
+      return token == null ? "" : token.trim();
+    } finally {
+      in.close();
+    }
+  }
+
+  /**
+   * Convert the given configuration to the equivalent Jooc command line arguments.
+   */
+  public static List<String> toArguments(JoocConfiguration config) {
+    List<String> args = new ArrayList<String>();
+    if (config.getDebugMode() != null) {
+      args.add("-g");
+      args.add(config.getDebugMode().name());
+    }
+    args.add("-autosemicolon");
+    args.add(config.getSemicolonInsertionMode().name());
+    args.add("-pav");
+    args.add(config.getPublicApiViolationsMode().name());
+    if (config.isVerbose()) {
+      args.add("-v");
+    }
+    if (config.isEnableAssertions()) {
+      args.add("-ea");
+    }
+    if (config.isAllowDuplicateLocalVariables()) {
+      args.add("-ad");
+    }
+    if (config.isExcludeClassByDefault()) {
+      args.add("-ec");
+    }
+    if (config.isGenerateSourceMaps()) {
+      args.add("-sourcemap");
+    }
+    if (config.isMinify()) {
+      args.add("-minify");
+    }
+    if (config.isCompactMemberDeclarations()) {
+      args.add("-compactmembers");
+    }
+    if (config.getThreads() > 1) {
+      args.add("-threads");
+      args.add(String.valueOf(config.getThreads()));
+    }
+    addFileArgument(args, "-d", config.getOutputDirectory());
+    addFileArgument(args, "-api", config.getApiOutputDirectory());
+    addFileArgument(args, "-ndd", config.getNonDebugOutputDirectory());
+    addFileArgument(args, "-mod", config.getModuleOutputFile());
+    addFileArgument(args, "-bi", config.getBuildIndexFile());
+    addPathArgument(args, "-sourcepath", config.getSourcePath());
+    addPathArgument(args, "-classpath", config.getClassPath());
+    for (File sourceFile : config.getSourceFiles()) {
+      args.add(sourceFile.getAbsolutePath());
+    }
+    return args;
+  }
+
+  private static void addFileArgument(List<String> args, String option, File file) {
+    if (file != null) {
+      args.add(option);
+      args.add(file.getAbsolutePath());
+    }
+  }
+
+  private static void addPathArgument(List<String> args, String option, List<File> path) {
+    if (!path.isEmpty()) {
+      StringBuilder value = new StringBuilder();
+      for (File file : path) {
+        if (value.length() > 0) {
+          value.append(File.pathSeparatorChar);
+        }
+        value.append(file.getAbsolutePath());
+      }
+      args.add(option);
+      args.add(value.toString());
+    }
+  }
+}
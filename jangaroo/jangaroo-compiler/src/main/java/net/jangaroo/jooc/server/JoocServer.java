@@ -0,0 +1,274 @@
+package net.jangaroo.jooc.server;
+
+import net.jangaroo.jooc.AbstractCompileLog;
+import net.jangaroo.jooc.CompilationResultImpl;
+import net.jangaroo.jooc.Jooc;
+import net.jangaroo.jooc.api.CompilationResult;
+import net.jangaroo.jooc.api.CompileLog;
+import net.jangaroo.jooc.cli.CommandLineParseException;
+import net.jangaroo.jooc.cli.JoocCommandLineParser;
+import net.jangaroo.jooc.config.JoocConfiguration;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A long-lived compiler that keeps parsed class path compilation units between compilation runs, so that
+ * subsequent builds only have to parse their own sources. Compile requests are accepted in-process through
+ * {@link #compile(JoocConfiguration, CompileLog)} or from a {@link JoocClient} through a local socket.
+ * <p>The socket protocol is line-based and UTF-8 encoded: the client sends the access token of the server,
+ * followed by the Jooc command line arguments, one per line, terminated by an empty line. The server answers with log messages, each prefixed by
+ * {@link #ERROR_PREFIX} or {@link #WARNING_PREFIX}, and finally the result code, prefixed by
+ * {@link #RESULT_PREFIX}. Line breaks and backslashes inside messages are escaped.</p>
+ * <p>As any local user can connect to the socket, the server only accepts requests that contain its access token,
+ * which is randomly generated for each server and written to a token file only readable by the user who started
+ * the server (see {@link #writeAccessToken(File)}).</p>
+ */
+public class JoocServer {
+
+  public static final int DEFAULT_PORT = 7733;
+  static final String ERROR_PREFIX = "E ";
+  static final String WARNING_PREFIX = "W ";
+  static final String RESULT_PREFIX = "R ";
+
+  private static JoocServer sharedInstance;
+
+  private final ClassPathCache classPathCache = new ClassPathCache();
+  private final String accessToken = createAccessToken();
+
+  /**
+   * Return the server instance shared by all in-process clients, e.g. all modules of a Maven reactor build.
+   */
+  public static synchronized JoocServer getSharedInstance() {
+    if (sharedInstance == null) {
+      sharedInstance = new JoocServer();
+    }
+    return sharedInstance;
+  }
+
+  /**
+   * Compile with the given configuration, taking class path compilation units from the cache.
+   * Compilation runs with the same class path are executed one after the other.
+   */
+  public CompilationResult compile(JoocConfiguration config, CompileLog log) {
+    ClassPathCache.CachedClassPath cachedClassPath;
+    try {
+      cachedClassPath = classPathCache.get(config.getClassPath());
+    } catch (IOException e) {
+      log.error("cannot read class path: " + e.getMessage());
+      return new CompilationResultImpl(CompilationResult.RESULT_CODE_INTERNAL_COMPILER_ERROR);
+    }
+    cachedClassPath.getLock().lock();
+    try {
+      cachedClassPath.getParser().setConfig(config);
+      cachedClassPath.getParser().setLog(log);
+      Jooc jooc = new Jooc(config, log);
+      jooc.setClassPathParser(cachedClassPath.getParser());
+      return jooc.run();
+    } finally {
+      cachedClassPath.getParser().setLog(null);
+      cachedClassPath.getLock().unlock();
+    }
+  }
+
+  /**
+   * Compile with the given Jooc command line arguments.
+   *
+   * @return the result code
+   */
+  public int compile(String[] args, CompileLog log) {
+    try {
+      JoocConfiguration config = new JoocCommandLineParser().parse(args);
+      if (config != null) {
+        return compile(config, log).getResultCode();
+      }
+    } catch (CommandLineParseException e) {
+      log.error(e.getMessage());
+      return e.getExitCode();
+    } catch (IllegalArgumentException e) {
+      log.error(e.getMessage());
+      return CompilationResult.RESULT_CODE_ILLEGAL_OPTION_VALUE;
+    }
+    return CompilationResult.RESULT_CODE_OK;
+  }
+
+  /**
+   * Return the file a server listening on the given port writes its access token to by default, located in the
+   * user's home directory.
+   */
+  public static File getDefaultTokenFile(int port) {
+    return new File(System.getProperty("user.home"), ".jangaroo/jooc-server-" + port + ".token");
+  }
+
+  private static String createAccessToken() {
+    byte[] bytes = new byte[16];
+    new SecureRandom().nextBytes(bytes);
+    StringBuilder token = new StringBuilder(2 * bytes.length);
+    for (byte b : bytes) {
+      token.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+    }
+    return token.toString();
+  }
+
+  /**
+   * Write the access token of this server to the given file, which is made readable only by its owner before
+   * the token is written. Clients must send this token with every compile request.
+   */
+  public void writeAccessToken(File tokenFile) throws IOException {
+    File tokenDir = tokenFile.getAbsoluteFile().getParentFile();
+    if (!tokenDir.mkdirs() && !tokenDir.isDirectory()) {
+      throw new IOException("cannot create directory " + tokenDir);
+    }
+    if (tokenFile.exists() && !tokenFile.delete() || !tokenFile.createNewFile()) {
+      throw new IOException("cannot create access token file " + tokenFile);
+    }
+    restrictToOwner(tokenFile);
+    FileOutputStream out = new FileOutputStream(tokenFile);
+    try {
+      out.write(accessToken.getBytes("UTF-8"));
+    } finally {
+      out.close();
+    }
+  }
+
+  private static void restrictToOwner(File file) throws IOException {
+    boolean restricted = file.setReadable(false, false) && file.setReadable(true, true)
+            && file.setWritable(false, false) && file.setWritable(true, true);
+    // Windows does not support revoking permissions this way, but the user's home directory is private anyway:
+    if (!restricted && File.separatorChar != '\\') {
+      throw new IOException("cannot restrict access to file " + file + " to its owner");
+    }
+  }
+
+  /**
+   * Accept compile requests on the given server socket until it is closed. Each request is handled in its own thread.
+   */
+  public void serve(ServerSocket serverSocket) throws IOException {
+    while (!serverSocket.isClosed()) {
+      final Socket socket = serverSocket.accept();
+      Thread handler = new Thread(new Runnable() {
+        @Override
+        public void run() {
+          handle(socket);
+        }
+      }, "jooc-server-" + socket.getPort());
+      handler.setDaemon(true);
+      handler.start();
+    }
+  }
+
+  private void handle(Socket socket) {
+    try {
+      try {
+        BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), "UTF-8"));
+        String token = in.readLine();
+        List<String> args = new ArrayList<String>();
+        String line;
+        while ((line = in.readLine()) != null && line.length() > 0) {
+          args.add(line);
+        }
+        RemoteCompileLog log = new RemoteCompileLog(new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), "UTF-8")));
+        int resultCode;
+        if (!isAccessToken(token)) {
+          log.error("compile request rejected: invalid access token");
+          resultCode = CompilationResult.RESULT_CODE_ILLEGAL_OPTION_VALUE;
+        } else {
+          try {
+            resultCode = compile(args.toArray(new String[args.size()]), log);
+          } catch (RuntimeException e) {
+            log.error("internal compiler error: " + e);
+            resultCode = CompilationResult.RESULT_CODE_INTERNAL_COMPILER_ERROR;
+          }
+        }
+        log.send(RESULT_PREFIX, String.valueOf(resultCode));
+      } finally {
+        socket.close();
+      }
+    } catch (IOException e) {
+      System.err.println("error while handling compile request: " + e); // NOSONAR this is a cmd line tool
+    }
+  }
+
+  private boolean isAccessToken(String token) throws IOException {
+    // compare in constant time to not reveal the token through response times:
+    return token != null && MessageDigest.isEqual(accessToken.getBytes("UTF-8"), token.getBytes("UTF-8"));
+  }
+
+  static String escape(String message) {
+    return message.replace("\\", "\\\\").replace("\r", "").replace("\n", "\\n");
+  }
+
+  static String unescape(String line) {
+    StringBuilder message = new StringBuilder(line.length());
+    for (int i = 0; i < line.length(); i++) {
+      char c = line.charAt(i);
+      if (c == '\\' && i + 1 < line.length()) {
+        c = line.charAt(++i);
+        message.append(c == 'n' ? '\n' : c);
+      } else {
+        message.append(c);
+      }
+    }
+    return message.toString();
+  }
+
+  /**
+   * Sends all log messages back to the client.
+   */
+  private static class RemoteCompileLog extends AbstractCompileLog {
+    private final Writer out;
+
+    RemoteCompileLog(Writer out) {
+      this.out = out;
+    }
+
+    @Override
+    protected void doLogError(String msg) {
+      send(ERROR_PREFIX, msg);
+    }
+
+    @Override
+    public void warning(String msg) {
+      send(WARNING_PREFIX, msg);
+    }
+
+    synchronized void send(String prefix, String msg) {
+      try {
+        out.write(prefix + escape(msg) + "\n");
+        out.flush();
+      } catch (IOException e) {
+        throw new IllegalStateException("lost connection to compiler client", e);
+      }
+    }
+  }
+
+  /**
+   * Start a compiler server on the local host.
+   *
+   * @param args optionally, the port to listen on, defaulting to {@link #DEFAULT_PORT}, and the file to write
+   *   the access token to, defaulting to {@link #getDefaultTokenFile(int)}
+   */
+  public static void main(String[] args) throws IOException {
+    int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+    File tokenFile = args.length > 1 ? new File(args[1]) : getDefaultTokenFile(port);
+    ServerSocket serverSocket = new ServerSocket(port, 50, InetAddress.getByName(null));
+    JoocServer server = new JoocServer();
+    server.writeAccessToken(tokenFile);
+    tokenFile.deleteOnExit();
+    System.out.println("Jangaroo compiler server listening on port " + port + ", access token in " + tokenFile); // NOSONAR this is a cmd line tool
+    server.serve(serverSocket);
+  }
+}
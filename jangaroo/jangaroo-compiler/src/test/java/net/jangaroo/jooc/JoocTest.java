@@ -1,9 +1,23 @@
 package net.jangaroo.jooc;
 
+import net.jangaroo.jooc.api.CompilationResult;
 import net.jangaroo.jooc.api.CompileLog;
+import net.jangaroo.jooc.backend.MergedOutputCompilationUnitSinkFactory;
 import net.jangaroo.jooc.config.DebugMode;
 import net.jangaroo.jooc.api.FilePosition;
+import net.jangaroo.jooc.ast.AstNode;
+import net.jangaroo.jooc.ast.AstVisitor;
+import net.jangaroo.jooc.ast.ClassDeclaration;
+import net.jangaroo.jooc.ast.CompilationUnit;
+import net.jangaroo.jooc.ast.Directive;
+import net.jangaroo.jooc.ast.FunctionDeclaration;
+import net.jangaroo.jooc.ast.IdeDeclaration;
 import net.jangaroo.jooc.config.JoocConfiguration;
+import net.jangaroo.jooc.config.SemicolonInsertionMode;
+import net.jangaroo.jooc.input.FileInputSource;
+import net.jangaroo.jooc.input.PathInputSource;
+import net.jangaroo.jooc.server.JoocClient;
+import net.jangaroo.jooc.server.JoocServer;
 import org.apache.commons.io.FileUtils;
 import org.junit.Before;
 import org.junit.Rule;
@@ -11,14 +25,32 @@ import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
 
 import java.io.File;
+import java.io.FilenameFilter;
 import java.io.IOException;
+import java.io.StringReader;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.net.InetAddress;
+import java.net.ServerSocket;
 import java.net.URISyntaxException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static junit.framework.Assert.assertEquals;
 import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertNotNull;
 import static junit.framework.Assert.assertTrue;
+import static org.junit.Assert.assertArrayEquals;
 
 /**
  *
@@ -231,6 +263,684 @@ public class JoocTest {
     assertApiCompilationResult("package1/someOtherPackage/NamespacedMembers");
   }
 
+  @Test
+  public void testConcurrentCompilation() throws Exception {
+    String[] relativeClassFileNames = {
+            "package1/WithStaticReference",
+            "package1/NoMultipleThisAliases",
+            "package1/StaticAndNonStatic",
+            "package1/AuxVarConfusion",
+            "package1/TestArrayForIn"
+    };
+    config.setThreads(3);
+    for (String relativeClassFileName : relativeClassFileNames) {
+      config.addSourceFile(getFile("/" + relativeClassFileName + ".as"));
+    }
+    jooc.run();
+    for (String relativeClassFileName : relativeClassFileNames) {
+      assertOutputFile(relativeClassFileName, new File(outputFolder, relativeClassFileName + ".js"));
+    }
+  }
+
+  @Test
+  public void testAdditionalNonDebugOutputs() throws Exception {
+    String[] relativeClassFileNames = {
+            "package1/WithStaticReference",
+            "package1/StaticAndNonStatic"
+    };
+    File nonDebugOutputFolder = tmpFolder.newFolder("jangaroo-output-nondebug");
+    File moduleOutputFile = new File(tmpFolder.getRoot(), "module.js");
+    config.setNonDebugOutputDirectory(nonDebugOutputFolder);
+    config.setModuleOutputFile(moduleOutputFile);
+    for (String relativeClassFileName : relativeClassFileNames) {
+      config.addSourceFile(getFile("/" + relativeClassFileName + ".as"));
+    }
+    jooc.run();
+    String moduleCode = readFileToString(moduleOutputFile);
+    for (String relativeClassFileName : relativeClassFileNames) {
+      assertOutputFile(relativeClassFileName, new File(outputFolder, relativeClassFileName + ".js"));
+      File nonDebugFile = new File(nonDebugOutputFolder, relativeClassFileName + ".js");
+      assertTrue(nonDebugFile.exists());
+      String nonDebugCode = readFileToString(nonDebugFile);
+      assertFalse("non-debug output must differ from debug output",
+              nonDebugCode.equals(readFileToString(new File(outputFolder, relativeClassFileName + ".js"))));
+      assertTrue("module file must contain non-debug code of " + relativeClassFileName,
+              moduleCode.contains(nonDebugCode.trim()));
+    }
+
+    byte[] moduleBytes = FileUtils.readFileToByteArray(moduleOutputFile);
+    List<String> offsetLines = FileUtils.readLines(new File(moduleOutputFile.getPath() + MergedOutputCompilationUnitSinkFactory.OFFSETS_FILE_SUFFIX));
+    assertEquals(relativeClassFileNames.length, offsetLines.size());
+    for (int i = 0; i < relativeClassFileNames.length; i++) {
+      String[] parts = offsetLines.get(i).split("\t");
+      assertEquals(relativeClassFileNames[i].replace('/', '.'), parts[0]);
+      byte[] classCode = Arrays.copyOfRange(moduleBytes, Integer.parseInt(parts[1]), Integer.parseInt(parts[2]));
+      byte[] nonDebugCode = FileUtils.readFileToByteArray(new File(nonDebugOutputFolder, relativeClassFileNames[i] + ".js"));
+      assertArrayEquals(nonDebugCode, classCode);
+    }
+  }
+
+  @Test
+  public void testMergedOutputKeptOnCompileError() throws Exception {
+    File sourceFolder = tmpFolder.newFolder("merged-error-src");
+    File baseFile = writeSource(sourceFolder, "Base", "public class Base { }");
+    File moduleOutputFile = new File(tmpFolder.getRoot(), "merged-error-module.js");
+    File offsetsFile = new File(moduleOutputFile.getPath() + MergedOutputCompilationUnitSinkFactory.OFFSETS_FILE_SUFFIX);
+    List<File> sourcepath = new ArrayList<File>();
+    sourcepath.add(sourceFolder);
+    config.setSourcePath(sourcepath);
+    config.setModuleOutputFile(moduleOutputFile);
+    config.addSourceFile(baseFile);
+    assertEquals(CompilationResult.RESULT_CODE_OK, jooc.run().getResultCode());
+    String moduleCode = readFileToString(moduleOutputFile);
+    String offsets = readFileToString(offsetsFile);
+
+    writeSource(sourceFolder, "Base", "public class Base { public function foo():void { } }");
+    config.addSourceFile(writeSource(sourceFolder, "Broken", "public class Broken { public function foo():void { undeclaredFunction(); } }"));
+    assertEquals(CompilationResult.RESULT_CODE_COMPILATION_FAILED, new Jooc(config, new TestLog()).run().getResultCode());
+    assertEquals("failed build must keep merged output", moduleCode, readFileToString(moduleOutputFile));
+    assertEquals("failed build must keep offsets", offsets, readFileToString(offsetsFile));
+    String[] tempFiles = tmpFolder.getRoot().list(new FilenameFilter() {
+      @Override
+      public boolean accept(File dir, String name) {
+        return name.endsWith(".tmp");
+      }
+    });
+    assertEquals("temporary files must be deleted", 0, tempFiles.length);
+  }
+
+  @Test
+  public void testSourceMaps() throws Exception {
+    File nonDebugOutputFolder = tmpFolder.newFolder("jangaroo-output-sourcemaps");
+    File moduleOutputFile = new File(tmpFolder.getRoot(), "module-with-source-map.js");
+    config.setNonDebugOutputDirectory(nonDebugOutputFolder);
+    config.setModuleOutputFile(moduleOutputFile);
+    config.setGenerateSourceMaps(true);
+    config.addSourceFile(getFile("/package1/WithStaticReference.as"));
+    config.addSourceFile(getFile("/package1/StaticAndNonStatic.as"));
+    jooc.run();
+
+    File classFile = new File(nonDebugOutputFolder, "package1/WithStaticReference.js");
+    String classCode = FileUtils.readFileToString(classFile);
+    assertTrue(classCode.endsWith("//# sourceMappingURL=WithStaticReference.js.map\n"));
+    String classSourceMap = FileUtils.readFileToString(SourceMapGenerator.getSourceMapFile(classFile));
+    assertTrue(classSourceMap.startsWith("{\"version\":3,\"file\":\"WithStaticReference.js\",\"sources\":[\""));
+    assertTrue(classSourceMap.contains("package1/WithStaticReference.as\"]"));
+    assertFalse(classSourceMap.contains("\"mappings\":\"\""));
+
+    String moduleSourceMap = FileUtils.readFileToString(SourceMapGenerator.getSourceMapFile(moduleOutputFile));
+    assertTrue(moduleSourceMap.contains("package1/WithStaticReference.as\""));
+    assertTrue(moduleSourceMap.contains("package1/StaticAndNonStatic.as\""));
+
+    // appending the class files and their source maps results in the same module file and source map:
+    File appendedModuleOutputFile = new File(tmpFolder.getRoot(), "appended-" + moduleOutputFile.getName());
+    MergedOutputCompilationUnitSinkFactory moduleSinkFactory =
+            new MergedOutputCompilationUnitSinkFactory(config, appendedModuleOutputFile);
+    moduleSinkFactory.setGenerateSourceMaps(true);
+    moduleSinkFactory.append("package1.WithStaticReference", classFile);
+    moduleSinkFactory.append("package1.StaticAndNonStatic", new File(nonDebugOutputFolder, "package1/StaticAndNonStatic.js"));
+    moduleSinkFactory.close();
+    assertEquals(readFileToString(moduleOutputFile).replace(moduleOutputFile.getName(), appendedModuleOutputFile.getName()),
+            readFileToString(appendedModuleOutputFile));
+    assertEquals(moduleSourceMap.replace(moduleOutputFile.getName(), appendedModuleOutputFile.getName()),
+            readFileToString(SourceMapGenerator.getSourceMapFile(appendedModuleOutputFile)));
+    assertEquals(readFileToString(new File(moduleOutputFile.getPath() + MergedOutputCompilationUnitSinkFactory.OFFSETS_FILE_SUFFIX)),
+            readFileToString(new File(appendedModuleOutputFile.getPath() + MergedOutputCompilationUnitSinkFactory.OFFSETS_FILE_SUFFIX)));
+  }
+
+  @Test
+  public void testSourceMapMappingsEncoding() throws Exception {
+    SourceMapGenerator sourceMap = new SourceMapGenerator();
+    sourceMap.addMapping(0, 0, "A.as", 0, 0);
+    sourceMap.addMapping(0, 4, "A.as", 2, 6);
+    sourceMap.addMapping(2, 1, "B.as", 16, 3);
+    assertEquals("AAAA,IAEM;;CCcH", sourceMap.encodeMappings());
+  }
+
+  @Test
+  public void testMinify() throws Exception {
+    File nonDebugOutputFolder = tmpFolder.newFolder("jangaroo-output-minified");
+    config.setNonDebugOutputDirectory(nonDebugOutputFolder);
+    config.setMinify(true);
+    // locals and parameters are renamed, the closure keeps its this-alias, and the repeated literal is pooled:
+    String relativeClassFileName = "package1/Minified";
+    File debugFile = compile(relativeClassFileName);
+    assertTrue("debug code must not be minified", readFileToString(debugFile).contains("previousValue"));
+    assertOutputFile(relativeClassFileName + ".min", new File(nonDebugOutputFolder, relativeClassFileName + ".js"));
+  }
+
+  @Test
+  public void testCompactMemberDeclarations() throws Exception {
+    File sourceFolder = tmpFolder.newFolder("compact-src");
+    File nonDebugOutputFolder = tmpFolder.newFolder("jangaroo-output-compact");
+    File sourceFile = writeSource(sourceFolder, "Compact",
+            "public class Compact {\n" +
+            "  private static const MAX:int = 3;\n" +
+            "  private var counter:int = 0;\n" +
+            "  public function get count():int {\n" +
+            "    return counter;\n" +
+            "  }\n" +
+            "  protected function increment():void {\n" +
+            "    counter = counter < MAX ? counter + 1 : MAX;\n" +
+            "  }\n" +
+            "}");
+    List<File> sourcepath = new ArrayList<File>();
+    sourcepath.add(sourceFolder);
+    config.setSourcePath(sourcepath);
+    config.setNonDebugOutputDirectory(nonDebugOutputFolder);
+    config.setCompactMemberDeclarations(true);
+    config.addSourceFile(sourceFile);
+    assertEquals(CompilationResult.RESULT_CODE_OK, jooc.run().getResultCode());
+
+    String debugCode = FileUtils.readFileToString(new File(outputFolder, "incremental/Compact.js"));
+    assertTrue("debug code keeps modifier strings", debugCode.contains("\"public function get count\""));
+    String compactCode = FileUtils.readFileToString(new File(nonDebugOutputFolder, "incremental/Compact.js"));
+    assertTrue("class declaration keeps its string", compactCode.contains("\"public class Compact\""));
+    // private | static | const:
+    assertTrue(compactCode.contains("265,{MAX:3}"));
+    // private | var:
+    assertTrue(compactCode.contains("129,{counter:0}"));
+    // public | function | get, followed by the method name:
+    assertTrue(compactCode.contains("1540,\"count\",function"));
+    // protected | function:
+    assertTrue(compactCode.contains("514,\"increment\",function"));
+    assertFalse(compactCode.contains("\"protected function increment\""));
+  }
+
+  @Test
+  public void testDroppedWhitespaceWithoutSourceDebugMode() throws Exception {
+    File sourceFolder = tmpFolder.newFolder("whitespace-src");
+    File sourceFile = writeSource(sourceFolder, "Commented", "/**\n" +
+            " * ASDoc of the class.\n" +
+            " */\n" +
+            "public class Commented {\n" +
+            "  /* a multi-line\n" +
+            "     comment */ public static const A:int = 1\n" +
+            "  // an end-of-line comment\n" +
+            "  /**\n" +
+            "   * ASDoc of foo.\n" +
+            "   * @param bar the bar\n" +
+            "   */\n" +
+            "  public function foo(bar:int):int {\n" +
+            "    var x:int = bar   // no semicolon\n" +
+            "    x++\n" +
+            "    return x\n" +
+            "      + A\n" +
+            "  }\n" +
+            "}");
+    config.setSourcePath(Collections.singletonList(sourceFolder));
+    config.addSourceFile(sourceFile);
+    for (DebugMode debugMode : new DebugMode[]{DebugMode.NONE, DebugMode.LINES}) {
+      config.setDebugMode(debugMode);
+      File[] outputFolders = new File[2];
+      File[] apiOutputFolders = new File[2];
+      for (int i = 0; i < 2; i++) {
+        final boolean keepWhitespace = i == 1;
+        outputFolders[i] = tmpFolder.newFolder("whitespace-output-" + debugMode + "-" + keepWhitespace);
+        apiOutputFolders[i] = tmpFolder.newFolder("whitespace-api-" + debugMode + "-" + keepWhitespace);
+        config.setOutputDirectory(outputFolders[i]);
+        config.setApiOutputDirectory(apiOutputFolders[i]);
+        Jooc compiler = new Jooc(config, testLog) {
+          @Override
+          protected boolean isKeepWhitespace() {
+            return keepWhitespace;
+          }
+        };
+        assertEquals(CompilationResult.RESULT_CODE_OK, compiler.run().getResultCode());
+      }
+      String code = readFileToString(new File(outputFolders[0], "incremental/Commented.js"));
+      assertEquals("code in " + debugMode + " mode", readFileToString(new File(outputFolders[1], "incremental/Commented.js")), code);
+      String api = readFileToString(new File(apiOutputFolders[0], "incremental/Commented.as"));
+      assertEquals("API in " + debugMode + " mode", readFileToString(new File(apiOutputFolders[1], "incremental/Commented.as")), api);
+      assertTrue(api.contains("ASDoc of the class."));
+      assertTrue(api.contains("ASDoc of foo."));
+      if (debugMode == DebugMode.LINES) {
+        // "x++" is in line 15 of the source file, after the package declaration:
+        assertTrue(code.split("\n", -1)[14].contains("x++"));
+      }
+    }
+  }
+
+  @Test
+  public void testScannedTextsAreShared() throws Exception {
+    StringBuilder longName = new StringBuilder("x");
+    while (longName.length() <= 64) {
+      longName.append("0123456789");
+    }
+    String code = "foo = bar\n    + " + longName + " // comment\n";
+    List<JooSymbol> tokens1 = scan(tmpFolder.newFile("Shared1.as"), code);
+    List<JooSymbol> tokens2 = scan(tmpFolder.newFile("Shared2.as"), code);
+    assertEquals(tokens1.size(), tokens2.size());
+    for (int i = 0; i < tokens1.size(); i++) {
+      assertEquals(tokens1.get(i).getText(), tokens2.get(i).getText());
+      assertEquals(tokens1.get(i).getWhitespace(), tokens2.get(i).getWhitespace());
+    }
+    // identifiers, their values and operators:
+    assertTrue(tokens1.get(0).getText() == tokens2.get(0).getText());
+    assertTrue(tokens1.get(0).getJooValue() == tokens2.get(0).getJooValue());
+    assertTrue(tokens1.get(3).getText() == tokens2.get(3).getText());
+    // a line break and indentation:
+    assertEquals("\n    ", tokens1.get(3).getWhitespace());
+    assertTrue(tokens1.get(3).getWhitespace() == tokens2.get(3).getWhitespace());
+    // long identifiers and comments are not shared:
+    assertTrue(tokens1.get(4).getText() != tokens2.get(4).getText());
+    assertTrue(tokens1.get(5).getWhitespace() != tokens2.get(5).getWhitespace());
+  }
+
+  private static List<JooSymbol> scan(File file, String code) throws IOException {
+    FileUtils.writeStringToFile(file, code);
+    List<JooSymbol> tokens = new ArrayList<JooSymbol>();
+    Scanner scanner = new Scanner(new StringReader(code));
+    scanner.setInputSource(new FileInputSource(file, true));
+    JooSymbol token;
+    do {
+      token = (JooSymbol) scanner.next_token();
+      tokens.add(token);
+    } while (token.sym != sym.EOF);
+    return tokens;
+  }
+
+  @Test
+  public void testBuildIndex() throws Exception {
+    File sourceFolder = tmpFolder.newFolder("incremental-src");
+    File baseFile = writeSource(sourceFolder, "Base", "public class Base { public function foo():String { return 'foo'; } }");
+    File subFile = writeSource(sourceFolder, "Sub", "public class Sub extends Base { }");
+    File otherFile = writeSource(sourceFolder, "Other", "public class Other { }");
+    List<File> sourcepath = new ArrayList<File>();
+    sourcepath.add(sourceFolder);
+    config.setSourcePath(sourcepath);
+    config.setBuildIndexFile(new File(tmpFolder.getRoot(), "build-index.txt"));
+    config.addSourceFile(baseFile);
+    config.addSourceFile(subFile);
+    config.addSourceFile(otherFile);
+
+    assertEquals(3, compileIncrementally().size());
+    assertTrue("nothing changed, nothing to recompile", compileIncrementally().isEmpty());
+
+    writeSource(sourceFolder, "Base", "public class Base { public function foo():String { return 'bar'; } }");
+    assertEquals("only implementation changed", Collections.singleton(baseFile), compileIncrementally());
+
+    writeSource(sourceFolder, "Base", "public class Base { public function foo():String { return 'bar'; } public function bar():void { } }");
+    Set<File> expected = new HashSet<File>();
+    expected.add(baseFile);
+    expected.add(subFile);
+    assertEquals("public API changed", expected, compileIncrementally());
+  }
+
+  @Test
+  public void testBuildIndexWithMissingOutputs() throws Exception {
+    File sourceFolder = tmpFolder.newFolder("incremental-outputs-src");
+    File baseFile = writeSource(sourceFolder, "Base", "public class Base { }");
+    File otherFile = writeSource(sourceFolder, "Other", "public class Other { }");
+    File nonDebugOutputFolder = tmpFolder.newFolder("incremental-non-debug");
+    config.setSourcePath(Collections.singletonList(sourceFolder));
+    config.setNonDebugOutputDirectory(nonDebugOutputFolder);
+    config.setBuildIndexFile(new File(tmpFolder.getRoot(), "build-index.txt"));
+    config.addSourceFile(baseFile);
+    config.addSourceFile(otherFile);
+
+    assertEquals(2, compileIncrementally().size());
+    File nonDebugOutputFile = new File(nonDebugOutputFolder, "incremental/Base.js");
+    assertTrue(nonDebugOutputFile.delete());
+    assertEquals("missing non-debug output", Collections.singleton(baseFile), compileIncrementally());
+    assertTrue(nonDebugOutputFile.exists());
+
+    File apiOutputFile = new File(apiOutputFolder, "incremental/Other.as");
+    assertTrue(apiOutputFile.delete());
+    assertEquals("missing API output", Collections.singleton(otherFile), compileIncrementally());
+    assertTrue(apiOutputFile.exists());
+    assertTrue("nothing missing, nothing to recompile", compileIncrementally().isEmpty());
+  }
+
+  @Test
+  public void testBuildIndexWithMergedOutput() throws Exception {
+    File sourceFolder = tmpFolder.newFolder("incremental-merged-src");
+    File baseFile = writeSource(sourceFolder, "Base", "public class Base { }");
+    File otherFile = writeSource(sourceFolder, "Other", "public class Other { }");
+    File moduleOutputFile = new File(tmpFolder.getRoot(), "incremental-module.js");
+    List<File> sourcepath = new ArrayList<File>();
+    sourcepath.add(sourceFolder);
+    config.setSourcePath(sourcepath);
+    config.setBuildIndexFile(new File(tmpFolder.getRoot(), "build-index.txt"));
+    config.setModuleOutputFile(moduleOutputFile);
+    config.addSourceFile(baseFile);
+    config.addSourceFile(otherFile);
+
+    assertEquals(2, compileIncrementally().size());
+    writeSource(sourceFolder, "Other", "public class Other { public function foo():void { } }");
+    assertEquals("merged output needs all classes", 2, compileIncrementally().size());
+    String moduleCode = readFileToString(moduleOutputFile);
+    assertTrue(moduleCode.contains("\"public class Base\""));
+    assertTrue(moduleCode.contains("\"public class Other\""));
+    assertTrue(moduleCode.contains("\"public function foo\""));
+  }
+
+  @Test
+  public void testInheritedMembers() throws Exception {
+    File sourceFolder = tmpFolder.newFolder("inherited-src");
+    writeSource(sourceFolder, "Named", "public interface Named { function get name():String; }");
+    writeSource(sourceFolder, "Base", "public class Base { public function foo():String { return 'foo'; } }");
+    writeSource(sourceFolder, "Middle", "public class Middle extends Base implements Named { public function get name():String { return 'middle'; } }");
+    File subFile = writeSource(sourceFolder, "Sub", "public class Sub extends Middle {\n" +
+            "  public function test():String { return foo() + name; }\n" +
+            "}");
+    config.setSourcePath(Collections.singletonList(sourceFolder));
+    config.addSourceFile(subFile);
+    assertEquals(CompilationResult.RESULT_CODE_OK, jooc.run().getResultCode());
+    String code = readFileToString(new File(outputFolder, "incremental/Sub.js"));
+    assertTrue("inherited method must be resolved", code.contains("this.foo()"));
+    assertTrue("inherited accessor must be resolved", code.contains("this.name"));
+  }
+
+  @Test
+  public void testConcurrentInheritedMemberLookup() throws Exception {
+    File sourceFolder = tmpFolder.newFolder("inherited-lookup-src");
+    writeClassHierarchy(sourceFolder);
+    List<File> sourcepath = new ArrayList<File>(config.getSourcePath());
+    sourcepath.add(sourceFolder);
+    config.setSourcePath(sourcepath);
+    final int threads = 8;
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      for (int run = 0; run < 50; run++) {
+        // the first lookups of a fresh class hierarchy happen at the same time in all threads:
+        JangarooParser parser = new JangarooParser(config, testLog);
+        parser.setUp(PathInputSource.fromFiles(config.getSourcePath(), new String[]{""}, true),
+                PathInputSource.fromFiles(Collections.<File>emptyList(), new String[]{""}, false));
+        final ClassDeclaration level5 = (ClassDeclaration) parser.getCompilationUnit("incremental.Level5").getPrimaryDeclaration();
+        final CyclicBarrier start = new CyclicBarrier(threads);
+        List<Future<IdeDeclaration>> lookups = new ArrayList<Future<IdeDeclaration>>();
+        for (int i = 0; i < threads; i++) {
+          lookups.add(executor.submit(new Callable<IdeDeclaration>() {
+            @Override
+            public IdeDeclaration call() throws Exception {
+              start.await();
+              return level5.resolvePropertyDeclaration("level0");
+            }
+          }));
+        }
+        for (Future<IdeDeclaration> lookup : lookups) {
+          assertEquals("level0", lookup.get().getName());
+        }
+        parser.tearDown();
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testConcurrentInheritedMembers() throws Exception {
+    File apiSourceFolder = tmpFolder.newFolder("inherited-api-src");
+    List<File> apiSourceFiles = writeClassHierarchy(apiSourceFolder);
+    config.setSourcePath(Collections.singletonList(apiSourceFolder));
+    config.setSourceFiles(apiSourceFiles);
+    assertEquals(CompilationResult.RESULT_CODE_OK, jooc.run().getResultCode());
+
+    // many classes in different threads resolve members of the same class path declarations:
+    File sourceFolder = tmpFolder.newFolder("inherited-concurrent-src");
+    List<File> sourceFiles = new ArrayList<File>();
+    for (int i = 0; i < 24; i++) {
+      sourceFiles.add(writeSource(sourceFolder, "Sub" + i, "public class Sub" + i + " extends Level" + (i % 6) +
+              " { public function test():void { level0(); level" + (i % 6) + "(); } }"));
+    }
+    config = new JoocConfiguration();
+    config.setSourcePath(Collections.singletonList(sourceFolder));
+    config.setClassPath(Collections.singletonList(apiOutputFolder));
+    config.setOutputDirectory(outputFolder);
+    config.setThreads(8);
+    config.setSourceFiles(sourceFiles);
+    TestLog log = new TestLog();
+    assertEquals(CompilationResult.RESULT_CODE_OK, new Jooc(config, log).run().getResultCode());
+    assertFalse(log.hasErrors());
+  }
+
+  @Test
+  public void testForEachChildMatchesGetChildren() throws Exception {
+    int parsedFiles = 0;
+    for (File sourceFile : FileUtils.listFiles(getFile("/"), new String[]{"as"}, true)) {
+      CompilationUnit unit;
+      try {
+        unit = JangarooParser.doParse(new FileInputSource(sourceFile, true), new TestLog(), SemicolonInsertionMode.WARN);
+      } catch (CompilerError e) {
+        continue; // the corpus contains some erroneous sources on purpose
+      }
+      if (unit != null) {
+        assertSameChildren(sourceFile, unit);
+        ++parsedFiles;
+      }
+    }
+    assertTrue(parsedFiles > 0);
+  }
+
+  private static void assertSameChildren(File sourceFile, AstNode node) throws IOException {
+    final List<AstNode> visitedChildren = new ArrayList<AstNode>();
+    // every visit method is called with the visited node as its only argument:
+    AstVisitor recorder = (AstVisitor) Proxy.newProxyInstance(AstVisitor.class.getClassLoader(), new Class[]{AstVisitor.class},
+            new InvocationHandler() {
+              @Override
+              public Object invoke(Object proxy, Method method, Object[] args) {
+                visitedChildren.add((AstNode) args[0]);
+                return null;
+              }
+            });
+    node.forEachChild(recorder);
+    List<? extends AstNode> children = node.getChildren();
+    String message = node.getClass().getSimpleName() + " in " + sourceFile.getName()
+            + (node.getSymbol() == null ? "" : " at line " + node.getSymbol().getLine());
+    assertEquals(message, children.size(), visitedChildren.size());
+    for (int i = 0; i < children.size(); i++) {
+      assertTrue(message + ", child " + i, children.get(i) == visitedChildren.get(i));
+      assertSameChildren(sourceFile, children.get(i));
+    }
+  }
+
+  @Test
+  public void testApiTokens() throws Exception {
+    File sourceFolder = tmpFolder.newFolder("api-src");
+    File baseFile = writeSource(sourceFolder, "Base", "public class Base { public function foo(bar:*=null):void { } }");
+    List<File> sourcepath = new ArrayList<File>();
+    sourcepath.add(sourceFolder);
+    config.setSourcePath(sourcepath);
+    config.addSourceFile(baseFile);
+    assertEquals(CompilationResult.RESULT_CODE_OK, jooc.run().getResultCode());
+    File apiFile = new File(apiOutputFolder, "incremental/Base.as");
+    assertTrue(new File(apiFile.getPath() + TokenStreamScanner.TOKENS_SUFFIX).exists());
+
+    // the stub itself must not be scanned any more:
+    FileUtils.writeStringToFile(apiFile, "package incremental { syntax error");
+    File subSourceFolder = tmpFolder.newFolder("api-sub-src");
+    File subFile = writeSource(subSourceFolder, "Sub", "public class Sub extends Base { override public function foo(bar:*=null):void { } }");
+    sourcepath = new ArrayList<File>();
+    sourcepath.add(subSourceFolder);
+    config = new JoocConfiguration();
+    config.setSourcePath(sourcepath);
+    config.setClassPath(Collections.singletonList(apiOutputFolder));
+    config.setOutputDirectory(outputFolder);
+    config.addSourceFile(subFile);
+    assertEquals(CompilationResult.RESULT_CODE_OK, new Jooc(config, testLog).run().getResultCode());
+  }
+
+  @Test
+  public void testApiTokensWithRegExp() throws Exception {
+    File sourceFolder = tmpFolder.newFolder("api-regexp-src");
+    File baseFile = writeSource(sourceFolder, "RegExpBase", "public class RegExpBase {\n" +
+            "  public static const HALF:Number = 1 / 2;\n" +
+            "  public static const PATTERN:RegExp = /[*=]+(x)/g;\n" +
+            "  public function foo(bar:*=null):void { }\n" +
+            "}");
+    config.setSourcePath(Collections.singletonList(sourceFolder));
+    config.addSourceFile(baseFile);
+    assertEquals(CompilationResult.RESULT_CODE_OK, jooc.run().getResultCode());
+    File apiFile = new File(apiOutputFolder, "incremental/RegExpBase.as");
+    assertTrue(FileUtils.readFileToString(apiFile).contains("/[*=]+(x)/g"));
+    assertTrue(new File(apiFile.getPath() + TokenStreamScanner.TOKENS_SUFFIX).exists());
+
+    // replaying switches to scanning the stub at the regular expression:
+    CompilationUnit unit = JangarooParser.doParse(new FileInputSource(apiFile, false),
+            new FileInputSource(new File(apiFile.getPath() + TokenStreamScanner.TOKENS_SUFFIX), false),
+            testLog, SemicolonInsertionMode.WARN);
+    assertNotNull(unit);
+    assertFalse(testLog.hasErrors());
+    ClassDeclaration classDeclaration = (ClassDeclaration) unit.getPrimaryDeclaration();
+    assertEquals("RegExpBase", classDeclaration.getName());
+    assertEquals("all members after the regular expression", 3, classDeclaration.getBody().getDirectives().size());
+
+    File subSourceFolder = tmpFolder.newFolder("api-regexp-sub-src");
+    File subFile = writeSource(subSourceFolder, "RegExpSub", "public class RegExpSub extends RegExpBase {\n" +
+            "  override public function foo(bar:*=null):void { if (PATTERN && HALF) { return; } }\n" +
+            "}");
+    config = new JoocConfiguration();
+    config.setSourcePath(Collections.singletonList(subSourceFolder));
+    config.setClassPath(Collections.singletonList(apiOutputFolder));
+    config.setOutputDirectory(outputFolder);
+    config.addSourceFile(subFile);
+    assertEquals(CompilationResult.RESULT_CODE_OK, new Jooc(config, testLog).run().getResultCode());
+  }
+
+  @Test
+  public void testApiTokensWithLongString() throws Exception {
+    File sourceFolder = tmpFolder.newFolder("api-long-src");
+    StringBuilder longTextBuilder = new StringBuilder();
+    while (longTextBuilder.length() <= 70000) {
+      longTextBuilder.append("0123456789");
+    }
+    String longText = longTextBuilder.toString();
+    File baseFile = writeSource(sourceFolder, "LongBase", "public class LongBase { public static const TEXT:String = '" + longText + "'; }");
+    List<File> sourcepath = new ArrayList<File>();
+    sourcepath.add(sourceFolder);
+    config.setSourcePath(sourcepath);
+    config.addSourceFile(baseFile);
+    assertEquals(CompilationResult.RESULT_CODE_OK, jooc.run().getResultCode());
+    File apiFile = new File(apiOutputFolder, "incremental/LongBase.as");
+    assertTrue(FileUtils.readFileToString(apiFile).contains(longText));
+    assertTrue(new File(apiFile.getPath() + TokenStreamScanner.TOKENS_SUFFIX).exists());
+
+    File subSourceFolder = tmpFolder.newFolder("api-long-sub-src");
+    File subFile = writeSource(subSourceFolder, "LongSub", "public class LongSub extends LongBase { }");
+    sourcepath = new ArrayList<File>();
+    sourcepath.add(subSourceFolder);
+    config = new JoocConfiguration();
+    config.setSourcePath(sourcepath);
+    config.setClassPath(Collections.singletonList(apiOutputFolder));
+    config.setOutputDirectory(outputFolder);
+    config.addSourceFile(subFile);
+    assertEquals(CompilationResult.RESULT_CODE_OK, new Jooc(config, testLog).run().getResultCode());
+  }
+
+  @Test
+  public void testDeclarationsOnlyDependency() throws Exception {
+    File sourceFolder = tmpFolder.newFolder("declarations-src");
+    writeSource(sourceFolder, "Dependency", "public class Dependency {\n" +
+            "  public function Dependency() { var f:Function = function():Object { return { a: '}' }; }; }\n" +
+            "  public function match(s:String):Boolean { return /[{]}\\//.test(s) && s.length / 2 > 1; }\n" +
+            "  public function get name():String { return \"}}\"; }\n" +
+            "}");
+    File userFile = writeSource(sourceFolder, "User", "public class User extends Dependency {\n" +
+            "  public function User() { super(); var matched:Boolean = match(name); }\n" +
+            "}");
+    List<File> sourcepath = new ArrayList<File>();
+    sourcepath.add(sourceFolder);
+    config.setSourcePath(sourcepath);
+    config.addSourceFile(userFile);
+    assertEquals(CompilationResult.RESULT_CODE_OK, jooc.run().getResultCode());
+    assertTrue(new File(outputFolder, "incremental/User.js").exists());
+    assertFalse("dependencies must not be compiled", new File(outputFolder, "incremental/Dependency.js").exists());
+  }
+
+  @Test
+  public void testSkipFunctionBodies() throws Exception {
+    File sourceFolder = tmpFolder.newFolder("skip-src");
+    String[] bodies = {
+            // a '/' after the head of a statement starts a regular expression:
+            "if (x) /re{/.test(s);",
+            "if (x(s)) /[{]/.test(s); else /{/.test(s);",
+            "while (!x) /}/.test(s);",
+            "for each (var v:* in o) /{/.test(v);",
+            "for (var i:int = 0; i < 2; i++) /{/.test(s);",
+            // a '/' after the end of an expression is a division:
+            "return (x + 1) / 2 / x;",
+            "var a:Array = [x]; return a[0] / 2 + { b: 1 }.b;",
+            "var i:int = 1; i++ / 2; return this / 2;",
+            "x /= 2; return o.f(x) /2/ x;",
+            // a '/' after an operator or keyword starts a regular expression:
+            "return x ? /{/ : /}/;",
+            "var r:RegExp = /{/; return !/}/.test(s) && /{/.test(s), typeof /{/;"
+    };
+    for (String body : bodies) {
+      File sourceFile = writeSource(sourceFolder, "Skipped", "public class Skipped {\n" +
+              "  public function tricky(x:*, s:String, o:Object):* { " + body + " }\n" +
+              "  public function after():void { }\n" +
+              "}");
+      TestLog log = new TestLog();
+      CompilationUnit unit = JangarooParser.doParse(new FileInputSource(sourceFile, true), log, SemicolonInsertionMode.WARN, true);
+      assertFalse(body, log.hasErrors());
+      List<Directive> members = ((ClassDeclaration) unit.getPrimaryDeclaration()).getBody().getDirectives();
+      assertEquals(body, 2, members.size());
+      assertEquals(body, "after", ((FunctionDeclaration) members.get(1)).getName());
+    }
+  }
+
+  @Test
+  public void testCompilerServer() throws Exception {
+    final ServerSocket serverSocket = new ServerSocket(0, 50, InetAddress.getByName(null));
+    final JoocServer server = new JoocServer();
+    File tokenFile = new File(tmpFolder.getRoot(), "jooc-server.token");
+    server.writeAccessToken(tokenFile);
+    Thread serverThread = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          server.serve(serverSocket);
+        } catch (IOException e) {
+          // server socket has been closed
+        }
+      }
+    });
+    serverThread.setDaemon(true);
+    serverThread.start();
+    try {
+      String relativeClassFileName = "package1/WithStaticReference";
+      config.addSourceFile(getFile("/" + relativeClassFileName + ".as"));
+      JoocClient client = new JoocClient(serverSocket.getLocalPort(), tokenFile);
+      for (int i = 0; i < 2; i++) {
+        assertEquals(CompilationResult.RESULT_CODE_OK, client.compile(config, testLog));
+        assertOutputFile(relativeClassFileName, new File(outputFolder, relativeClassFileName + ".js"));
+      }
+
+      File wrongTokenFile = new File(tmpFolder.getRoot(), "wrong.token");
+      FileUtils.writeStringToFile(wrongTokenFile, "0123456789abcdef0123456789abcdef");
+      TestLog rejectedLog = new TestLog();
+      assertEquals(CompilationResult.RESULT_CODE_ILLEGAL_OPTION_VALUE,
+              new JoocClient(serverSocket.getLocalPort(), wrongTokenFile).compile(config, rejectedLog));
+      assertTrue(rejectedLog.hasError("compile request rejected: invalid access token"));
+    } finally {
+      serverSocket.close();
+    }
+  }
+
+  private List<File> writeClassHierarchy(File sourceFolder) throws IOException {
+    List<File> sourceFiles = new ArrayList<File>();
+    sourceFiles.add(writeSource(sourceFolder, "Level0", "public class Level0 { public function level0():void { } }"));
+    for (int i = 1; i < 6; i++) {
+      sourceFiles.add(writeSource(sourceFolder, "Level" + i, "public class Level" + i + " extends Level" + (i - 1) +
+              " { public function level" + i + "():void { } }"));
+    }
+    return sourceFiles;
+  }
+
+  private File writeSource(File sourceFolder, String className, String classCode) throws IOException {
+    File sourceFile = new File(sourceFolder, "incremental/" + className + ".as");
+    FileUtils.writeStringToFile(sourceFile, "package incremental {\n" + classCode + "\n}\n");
+    return sourceFile;
+  }
+
+  private Set<File> compileIncrementally() {
+    CompilationResult result = new Jooc(config, testLog).run();
+    assertEquals(CompilationResult.RESULT_CODE_OK, result.getResultCode());
+    return result.getOutputFileMap().keySet();
+  }
+
   private void assertApiCompilationResult(String path) throws URISyntaxException, IOException {
     assertApiCompilationResult(path, "");
   }
@@ -252,7 +962,10 @@ public class JoocTest {
 
 
   private void assertCompilationResult(String relativeClassFileName) throws URISyntaxException, IOException {
-    File destFile = compile(relativeClassFileName);
+    assertOutputFile(relativeClassFileName, compile(relativeClassFileName));
+  }
+
+  private void assertOutputFile(String relativeClassFileName, File destFile) throws URISyntaxException, IOException {
     assertTrue("the output file " + destFile + " should exist, but doesn't", destFile.exists());
 
     String result = readFileToString(destFile);
@@ -0,0 +1 @@
+joo.classLoader.prepare("package package1","public class Minified",1,function(a){var b="a long repeated literal";return["private var",{a:0},"private function b",function(c){var d=this.a$1;this.a$1+=c;return d},"public function describe",function(c){var d=c?b:"short";this.b$1(1);if(this.a$1>1){d+=b}return d+b},"public function getIncrementer",function(c){var this$=this;return function(){return this$.b$1(c)+this$.a$1}},undefined];},[],[], "@runtimeVersion", "@version");
\ No newline at end of file
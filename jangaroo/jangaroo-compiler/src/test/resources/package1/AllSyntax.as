@@ -0,0 +1,94 @@
+package package1 {
+
+import package1.someOtherPackage.*;
+
+use namespace testNamespace;
+
+/**
+ * Uses as many syntax constructs as possible, so that tests walking the syntax trees of all test sources
+ * cover all kinds of nodes. Not meant to be compiled.
+ */
+[Event(name="change", type="Object")]
+public class AllSyntax extends Object implements Interface {
+
+  public static const CONSTANT:String = "constant";
+  private static var counter:int = 0;
+  testNamespace var namespaced:Object;
+  private var vector:Vector.<int> = new <int>[1, 2, 3];
+  private var regExp:RegExp = /a[b]c\/d/gi;
+
+  public function AllSyntax(value:int = 1, ...rest) {
+    super();
+    var list:Array = [value, rest.length, { key: "value", 'quoted': 2, 3: [] }];
+    counter += list.length;
+  }
+
+  [Bindable]
+  public function get value():int {
+    return counter;
+  }
+
+  public function set value(value:int):void {
+    counter = value;
+  }
+
+  override public function toString():String {
+    return "AllSyntax(" + super.toString() + ")";
+  }
+
+  public function statements(object:Object, n:int):* {
+    var i:int, j:int = 0;
+    if (n > 0) {
+      j = n;
+    } else if (n < 0) {
+      j = -n;
+    } else {
+      j = ~n;
+    }
+    for (i = 0; i < n; i++) {
+      if (i % 2 == 0) continue;
+      j += i;
+    }
+    for (var key:String in object) {
+      delete object[key];
+    }
+    for each (var element:* in object) {
+      j -= element as int;
+    }
+    while (j > 100) {
+      j >>= 1;
+    }
+    do {
+      --j;
+    } while (j > 10 && !(j is int));
+    outer: for (;;) {
+      switch (typeof object) {
+        case "object":
+          break outer;
+        case "function":
+        default:
+          break;
+      }
+    }
+    try {
+      throw new Error("error");
+    } catch (e:Error) {
+      j = e.message ? 1 : 0;
+    } catch (e:*) {
+      j = -1;
+    } finally {
+      j |= 0;
+    }
+    ;
+    var f:Function = function inner(x:int):int {
+      return x * this.value;
+    };
+    j = f.call(this, ("key" in object) ? j++ : j--) << 2;
+    return j === n ? null : j !== undefined ? vector[0] : regExp.source;
+  }
+}
+}
+
+class SecondaryClass {
+  internal var field:int;
+}
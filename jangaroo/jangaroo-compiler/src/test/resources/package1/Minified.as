@@ -0,0 +1,28 @@
+package package1 {
+
+public class Minified {
+
+  private var counter:int = 0;
+
+  private function increment(amount:int):int {
+    var previousValue:int = counter;
+    counter += amount;
+    return previousValue;
+  }
+
+  public function describe(verbose:Boolean):String {
+    var result:String = verbose ? "a long repeated literal" : "short";
+    increment(1);
+    if (counter > 1) {
+      result += "a long repeated literal";
+    }
+    return result + "a long repeated literal";
+  }
+
+  public function getIncrementer(amount:int):Function {
+    return function():int {
+      return increment(amount) + counter;
+    };
+  }
+}
+}
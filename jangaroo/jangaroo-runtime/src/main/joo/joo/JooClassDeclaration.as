@@ -222,8 +222,12 @@ public class JooClassDeclaration extends NativeClassDeclaration {
         case "function":
           this.staticInitializers.push(item);
           break;
+        case "number":
         case "string":
-          var memberDeclaration:MemberDeclaration = MemberDeclaration.create(item);
+          // a compact member declaration is followed by the method name, if it declares a method:
+          var memberDeclaration:MemberDeclaration = typeof item == "number"
+            ? MemberDeclaration.createFromFlags(item, item & MemberDeclaration.FLAG_FUNCTION ? memberDeclarations[++i] : null)
+            : MemberDeclaration.create(item);
           if (memberDeclaration) {
             memberDeclaration.metadata = metadata;
             metadata = {};
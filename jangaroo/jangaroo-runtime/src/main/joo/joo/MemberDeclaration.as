@@ -38,6 +38,25 @@ public class MemberDeclaration {
           OVERRIDE : String = "override",
           VIRTUAL : String = "virtual";
 
+  /**
+   * Bit flags of compact member declarations, which the compiler generates instead of modifier strings
+   * when the option "compactMemberDeclarations" is set.
+   * No namespace flag means namespace "internal".
+   */
+  public static const
+          FLAG_PRIVATE : int = 1,
+          FLAG_PROTECTED : int = 2,
+          FLAG_PUBLIC : int = 4,
+          FLAG_STATIC : int = 8,
+          FLAG_FINAL : int = 16,
+          FLAG_NATIVE : int = 32,
+          FLAG_OVERRIDE : int = 64,
+          FLAG_VAR : int = 128,
+          FLAG_CONST : int = 256,
+          FLAG_FUNCTION : int = 512,
+          FLAG_GET : int = 1024,
+          FLAG_SET : int = 2048;
+
   private static var SUPPORTS_GETTERS_SETTERS : Boolean;
   private static var SUPPORTS_PROPERTIES : Boolean;
   private static var DEFINE_METHOD : Object;
@@ -72,6 +91,31 @@ public class MemberDeclaration {
            : new MemberDeclaration(tokens);
   }
 
+  /**
+   * Create a member declaration from a compact member declaration, without any string parsing.
+   * @param flags the bit flags of the declaration, see FLAG_* constants
+   * @param memberName the name of a method; for fields, the names are given by the member object
+   */
+  public static function createFromFlags(flags : int, memberName : String) : MemberDeclaration {
+    var memberDeclaration : MemberDeclaration = new MemberDeclaration(null);
+    memberDeclaration._namespace = flags & FLAG_PRIVATE ? NAMESPACE_PRIVATE
+            : flags & FLAG_PROTECTED ? NAMESPACE_PROTECTED
+            : flags & FLAG_PUBLIC ? NAMESPACE_PUBLIC
+            : NAMESPACE_INTERNAL;
+    memberDeclaration._static = (flags & FLAG_STATIC) != 0;
+    memberDeclaration._final = (flags & FLAG_FINAL) != 0;
+    memberDeclaration._native = (flags & FLAG_NATIVE) != 0;
+    memberDeclaration._override = (flags & FLAG_OVERRIDE) != 0;
+    memberDeclaration.memberType = flags & FLAG_FUNCTION ? MEMBER_TYPE_FUNCTION
+            : flags & FLAG_CONST ? MEMBER_TYPE_CONST
+            : MEMBER_TYPE_VAR;
+    if (flags & (FLAG_GET | FLAG_SET)) {
+      memberDeclaration.getterOrSetter = flags & FLAG_GET ? METHOD_TYPE_GET : METHOD_TYPE_SET;
+    }
+    memberDeclaration.memberName = memberName;
+    return memberDeclaration;
+  }
+
   internal var
           _namespace : String = NAMESPACE_INTERNAL,
           _static : Boolean = false,
@@ -91,6 +135,9 @@ public class MemberDeclaration {
   public var metadata : Object = {};
 
   public function MemberDeclaration(tokens : Array) {
+    if (!tokens) {
+      return; // initialized by createFromFlags()
+    }
     for (var j:int=0; j<tokens.length; ++j) {
       var token : String = tokens[j];
       if (!this.memberType) {